@@ -0,0 +1,43 @@
+package khanh.careercoach.backend.config;
+
+import khanh.careercoach.backend.storage.BlobStore;
+import khanh.careercoach.backend.storage.LocalFileBlobStore;
+import khanh.careercoach.backend.storage.S3BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.file.Path;
+
+@Configuration
+public class BlobStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStoreConfig.class);
+
+    /**
+     * Có BLOB_BUCKET (template.yaml) -> dùng S3.
+     * Không có (chạy local/test) -> lưu file trong BLOB_LOCAL_DIR hoặc thư mục tạm của hệ thống.
+     */
+    @Bean
+    public BlobStore blobStore() {
+        String bucket = System.getenv("BLOB_BUCKET");
+        if (bucket != null && !bucket.isEmpty()) {
+            logger.info("Using S3 blob store: {}", bucket);
+            S3Client s3Client = S3Client.builder()
+                    // Dùng HTTP Client nhẹ giống DynamoDB để giảm Cold Start
+                    .httpClient(UrlConnectionHttpClient.builder().build())
+                    .build();
+            return new S3BlobStore(s3Client, bucket);
+        }
+
+        String localDir = System.getenv("BLOB_LOCAL_DIR");
+        Path root = localDir != null && !localDir.isEmpty()
+                ? Path.of(localDir)
+                : Path.of(System.getProperty("java.io.tmpdir"), "careercoach-blobs");
+        logger.warn("BLOB_BUCKET not set, using local file blob store at {}", root);
+        return new LocalFileBlobStore(root);
+    }
+}
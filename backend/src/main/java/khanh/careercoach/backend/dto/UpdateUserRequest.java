@@ -17,6 +17,10 @@ public class UpdateUserRequest {
     @JsonProperty("skills")
     private List<String> skills;
 
+    // Version client đang giữ (tùy chọn). Có giá trị -> chỉ cập nhật nếu DB chưa bị ai sửa.
+    @JsonProperty("version")
+    private Long version;
+
     // 1. Constructor rỗng (BẮT BUỘC cho Jackson)
     public UpdateUserRequest() {
     }
@@ -42,6 +46,9 @@ public class UpdateUserRequest {
     public List<String> getSkills() { return skills; }
     public void setSkills(List<String> skills) { this.skills = skills; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     // 4. Hàm toString() để in log debug cho dễ nhìn
     @Override
     public String toString() {
@@ -50,6 +57,7 @@ public class UpdateUserRequest {
                 ", bio='" + bio + '\'' +
                 ", experience=" + experience +
                 ", skills=" + skills +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -8,13 +8,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import khanh.careercoach.backend.dto.QuizQuestion;
 import khanh.careercoach.backend.dto.SaveAssessmentRequest;
 import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.model.UserStatsEntity;
+import khanh.careercoach.backend.repository.UnitOfWork;
 import khanh.careercoach.backend.service.AssessmentService;
+import khanh.careercoach.backend.service.TipBatchService;
+import khanh.careercoach.backend.service.idempotency.DuplicateRequestInProgressException;
+import khanh.careercoach.backend.service.idempotency.IdempotencyService;
+import khanh.careercoach.backend.service.quota.QuotaExceededException;
+import khanh.careercoach.backend.service.quota.QuotaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.Base64;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,10 +34,20 @@ public class AssessmentFunctions {
     private static final Logger logger = LoggerFactory.getLogger(AssessmentFunctions.class);
 
     private final AssessmentService assessmentService;
+    private final TipBatchService tipBatchService;
+    private final QuotaService quotaService;
+    private final IdempotencyService idempotencyService;
+    private final UnitOfWork unitOfWork;
     private final ObjectMapper objectMapper;
 
-    public AssessmentFunctions(AssessmentService assessmentService) {
+    public AssessmentFunctions(AssessmentService assessmentService, TipBatchService tipBatchService,
+                               QuotaService quotaService, IdempotencyService idempotencyService,
+                               UnitOfWork unitOfWork) {
         this.assessmentService = assessmentService;
+        this.tipBatchService = tipBatchService;
+        this.quotaService = quotaService;
+        this.idempotencyService = idempotencyService;
+        this.unitOfWork = unitOfWork;
 
         // --- CẤU HÌNH JACKSON THỦ CÔNG ---
         // Đảm bảo parse được mọi loại object, kể cả private fields
@@ -44,6 +62,7 @@ public class AssessmentFunctions {
     @Bean
     public Function<Map<String, Object>, Map<String, Object>> assessmentHandler() {
         return event -> {
+            unitOfWork.begin();
             try {
                 // 1. Trích xuất thông tin Request
                 String path = extractPath(event);
@@ -56,9 +75,11 @@ public class AssessmentFunctions {
 
                 // 3. Phân luồng xử lý (Routing)
 
-                // Case 1: POST /interview/generate (Generate Quiz)
+                // Case 1: POST /interview/generate (Generate Quiz) - request trùng chỉ sinh 1 quiz
                 if (path.endsWith("/interview/generate") && "POST".equalsIgnoreCase(method)) {
-                    return handleGenerateQuiz(userId);
+                    return idempotencyService.execute(userId, "POST /interview/generate",
+                            headers.get("idempotency-key"), extractBodyContent(event),
+                            () -> handleGenerateQuiz(userId));
                 }
 
                 // Case 2: POST /interview/save (Save Result)
@@ -71,17 +92,51 @@ public class AssessmentFunctions {
                     return handleGetAssessmentHistory(userId);
                 }
 
+                // Case 4: GET /interview/stats (Thống kê tổng hợp)
+                if (path.endsWith("/interview/stats") && "GET".equalsIgnoreCase(method)) {
+                    return handleGetStats(userId);
+                }
+
                 return buildResponse(404, Map.of("error", "Route not found: " + path));
 
             } catch (SecurityException e) {
                 logger.warn("Auth Error: {}", e.getMessage());
                 return buildResponse(401, Map.of("error", e.getMessage()));
+            } catch (QuotaExceededException e) {
+                logger.warn("Quota Exceeded: {}", e.getMessage());
+                return e.toResponse(this::buildResponse);
             } catch (IllegalArgumentException e) {
                 logger.warn("Validation Error: {}", e.getMessage());
                 return buildResponse(400, Map.of("error", e.getMessage()));
+            } catch (DuplicateRequestInProgressException e) {
+                logger.warn("Duplicate Request: {}", e.getMessage());
+                return e.toResponse(this::buildResponse);
+            } catch (ConcurrentModificationException e) { // Thống kê bị cập nhật đồng thời quá nhiều lần
+                logger.warn("Conflict: {}", e.getMessage());
+                return buildResponse(409, Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("System Error", e);
                 return buildResponse(500, Map.of("error", e.getMessage()));
+            } finally {
+                // Kết thúc unit of work (bỏ identity map của request)
+                unitOfWork.commit();
+            }
+        };
+    }
+
+    /**
+     * HÀM CHẠY THEO LỊCH (EventBridge Schedule): sinh Improvement Tip theo batch cho các bài làm PENDING
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> tipBatchHandler() {
+        return event -> {
+            try {
+                int completed = tipBatchService.processPendingTips();
+                return Map.of("completed", completed);
+            } catch (Exception e) {
+                // Lỗi để Lambda ghi nhận thất bại; lượt chạy sau sẽ xử lý lại hàng đợi
+                logger.error("Tip batch run failed", e);
+                throw e;
             }
         };
     }
@@ -94,7 +149,8 @@ public class AssessmentFunctions {
         logger.info("Generating interview quiz for user: {}", userId);
 
         // Gọi Service (Có thể mất thời gian do gọi AI)
-        List<QuizQuestion> quiz = assessmentService.generateQuiz(userId);
+        // Gọi AI trong quota của user (429 nếu vượt)
+        List<QuizQuestion> quiz = quotaService.runWithQuota(userId, () -> assessmentService.generateQuiz(userId));
 
         logger.info("Generated {} questions successfully.", quiz.size());
         return buildResponse(200, Map.of("questions", quiz));
@@ -133,6 +189,12 @@ public class AssessmentFunctions {
         return buildResponse(200, list);
     }
 
+    private Map<String, Object> handleGetStats(String userId) {
+        logger.info("Fetching assessment stats for user: {}", userId);
+        UserStatsEntity stats = assessmentService.getStats(userId);
+        return buildResponse(200, stats);
+    }
+
     // =========================================================================
     // HELPERS (Tiện ích - Copy y hệt từ các file trước)
     // =========================================================================
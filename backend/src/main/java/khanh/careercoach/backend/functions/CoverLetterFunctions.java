@@ -7,7 +7,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import khanh.careercoach.backend.dto.CoverLetterRequest;
 import khanh.careercoach.backend.model.CoverLetterEntity;
+import khanh.careercoach.backend.repository.UnitOfWork;
 import khanh.careercoach.backend.service.CoverLetterService;
+import khanh.careercoach.backend.service.idempotency.DuplicateRequestInProgressException;
+import khanh.careercoach.backend.service.idempotency.IdempotencyService;
+import khanh.careercoach.backend.service.quota.QuotaExceededException;
+import khanh.careercoach.backend.service.quota.QuotaService;
+import khanh.careercoach.backend.service.similarity.SimilarityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -24,10 +30,20 @@ public class CoverLetterFunctions {
 
     private static final Logger logger = LoggerFactory.getLogger(CoverLetterFunctions.class);
     private final CoverLetterService coverLetterService;
+    private final QuotaService quotaService;
+    private final IdempotencyService idempotencyService;
+    private final UnitOfWork unitOfWork;
+    private final SimilarityService similarityService;
     private final ObjectMapper objectMapper;
 
-    public CoverLetterFunctions(CoverLetterService coverLetterService) {
+    public CoverLetterFunctions(CoverLetterService coverLetterService, QuotaService quotaService,
+                                IdempotencyService idempotencyService, UnitOfWork unitOfWork,
+                                SimilarityService similarityService) {
         this.coverLetterService = coverLetterService;
+        this.quotaService = quotaService;
+        this.idempotencyService = idempotencyService;
+        this.unitOfWork = unitOfWork;
+        this.similarityService = similarityService;
 
         // --- CẤU HÌNH JACKSON THỦ CÔNG (QUAN TRỌNG) ---
         // Giúp serialize được các object không có getter/setter chuẩn hoặc field private
@@ -43,6 +59,7 @@ public class CoverLetterFunctions {
     @Bean
     public Function<Map<String, Object>, Map<String, Object>> coverLetterHandler() {
         return event -> {
+            unitOfWork.begin();
             try {
                 // 1. Trích xuất thông tin Request
                 String path = extractPath(event);
@@ -60,9 +77,16 @@ public class CoverLetterFunctions {
                     return handleListCoverLetters(userId);
                 }
 
-                // Case 2: POST /cover-letters (Generate)
+                // Case 2: POST /cover-letters (Generate) - request trùng chỉ tạo 1 cover letter
                 if (path.endsWith("/cover-letters") && "POST".equalsIgnoreCase(method)) {
-                    return handleGenerateCoverLetter(userId, event);
+                    return idempotencyService.execute(userId, "POST /cover-letters",
+                            headers.get("idempotency-key"), extractBodyContent(event),
+                            () -> handleGenerateCoverLetter(userId, event));
+                }
+
+                // Case 5: POST /cover-letters/similar (Letter tương tự để dùng lại, không gọi AI)
+                if (path.endsWith("/cover-letters/similar") && "POST".equalsIgnoreCase(method)) {
+                    return handleFindSimilar(userId, event);
                 }
 
                 // Case 3: GET /cover-letters/{id} (Get One)
@@ -82,12 +106,21 @@ public class CoverLetterFunctions {
             } catch (SecurityException e) {
                 logger.warn("Auth Error: {}", e.getMessage());
                 return buildResponse(401, Map.of("error", e.getMessage()));
+            } catch (QuotaExceededException e) {
+                logger.warn("Quota Exceeded: {}", e.getMessage());
+                return e.toResponse(this::buildResponse);
+            } catch (DuplicateRequestInProgressException e) {
+                logger.warn("Duplicate Request: {}", e.getMessage());
+                return e.toResponse(this::buildResponse);
             } catch (IllegalArgumentException e) {
                 logger.warn("Validation Error: {}", e.getMessage());
                 return buildResponse(400, Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("System Error", e);
                 return buildResponse(500, Map.of("error", e.getMessage()));
+            } finally {
+                // Kết thúc unit of work: ghi trễ phải xong trước khi Lambda đóng băng container
+                unitOfWork.commit();
             }
         };
     }
@@ -111,12 +144,27 @@ public class CoverLetterFunctions {
         logger.debug("Generating cover letter with body: {}", bodyString);
         CoverLetterRequest req = objectMapper.readValue(bodyString, CoverLetterRequest.class);
 
-        CoverLetterEntity created = coverLetterService.generateCoverLetter(userId, req);
+        // Gọi AI trong quota của user (429 nếu vượt)
+        CoverLetterEntity created = quotaService.runWithQuota(userId,
+                () -> coverLetterService.generateCoverLetter(userId, req));
 
         logger.info("Successfully generated cover letter. ID: {}", created.getSk());
         return buildResponse(200, created);
     }
 
+    private Map<String, Object> handleFindSimilar(String userId, Map<String, Object> event) throws Exception {
+        String bodyString = extractBodyContent(event);
+        if (bodyString == null || bodyString.trim().isEmpty()) {
+            throw new IllegalArgumentException("Request body is required");
+        }
+        CoverLetterRequest req = objectMapper.readValue(bodyString, CoverLetterRequest.class);
+
+        List<SimilarityService.SimilarLetter> similar = similarityService.findSimilarLetters(
+                userId, req.getJobTitle(), req.getCompanyName(), req.getJobDescription());
+        logger.info("Found {} similar cover letters for user {}", similar.size(), userId);
+        return buildResponse(200, similar);
+    }
+
     private Map<String, Object> handleGetOneCoverLetter(String userId, String letterId) {
         if (letterId == null || letterId.isEmpty()) throw new IllegalArgumentException("ID is missing");
 
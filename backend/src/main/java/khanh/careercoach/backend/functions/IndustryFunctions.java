@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import khanh.careercoach.backend.model.IndustryInsightEntity;
+import khanh.careercoach.backend.repository.UnitOfWork;
 import khanh.careercoach.backend.service.IndustryInsightService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,10 +23,12 @@ public class IndustryFunctions {
     private static final Logger logger = LoggerFactory.getLogger(IndustryFunctions.class);
 
     private final IndustryInsightService insightService;
+    private final UnitOfWork unitOfWork;
     private final ObjectMapper objectMapper;
 
-    public IndustryFunctions(IndustryInsightService insightService) {
+    public IndustryFunctions(IndustryInsightService insightService, UnitOfWork unitOfWork) {
         this.insightService = insightService;
+        this.unitOfWork = unitOfWork;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -38,6 +41,7 @@ public class IndustryFunctions {
     @Bean
     public Function<Map<String, Object>, Map<String, Object>> industryInsightHandler() {
         return event -> {
+            unitOfWork.begin();
             try {
                 String path = extractPath(event);
                 String method = extractHttpMethod(event);
@@ -63,6 +67,9 @@ public class IndustryFunctions {
             } catch (Exception e) {
                 logger.error("System Error", e);
                 return buildResponse(500, Map.of("error", e.getMessage()));
+            } finally {
+                // Kết thúc unit of work: ghi trễ phải xong trước khi Lambda đóng băng container
+                unitOfWork.commit();
             }
         };
     }
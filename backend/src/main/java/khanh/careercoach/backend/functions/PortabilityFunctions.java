@@ -0,0 +1,58 @@
+package khanh.careercoach.backend.functions;
+
+import khanh.careercoach.backend.service.portability.UserDataPortabilityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.function.Function;
+
+@Configuration
+public class PortabilityFunctions {
+
+    private static final Logger logger = LoggerFactory.getLogger(PortabilityFunctions.class);
+
+    private final UserDataPortabilityService portabilityService;
+
+    public PortabilityFunctions(UserDataPortabilityService portabilityService) {
+        this.portabilityService = portabilityService;
+    }
+
+    /**
+     * HÀM JOB (gọi trực tiếp, không qua API Gateway): export / import dữ liệu của 1 user
+     * - {"action": "export", "userId": "...", "gzip": true, "format": "readable"}
+     *   format: "readable" (mặc định, "download my data" cho user đọc) | "migration" (chỉ để import lại)
+     * - {"action": "import", "key": "exports/...", "userId": "<user đích, bỏ trống = user trong file>"}
+     *   complete = false -> gọi lại cùng event để chạy tiếp từ checkpoint
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> portabilityHandler() {
+        return event -> {
+            String action = String.valueOf(event.get("action"));
+            String userId = (String) event.get("userId");
+            try {
+                // Case 1: Export
+                if ("export".equals(action)) {
+                    boolean gzip = !Boolean.FALSE.equals(event.get("gzip"));
+                    UserDataPortabilityService.ExportFormat format = "migration".equals(event.get("format"))
+                            ? UserDataPortabilityService.ExportFormat.MIGRATION
+                            : UserDataPortabilityService.ExportFormat.READABLE;
+                    UserDataPortabilityService.ExportResult result = portabilityService.export(userId, gzip, format);
+                    return Map.of("key", result.key(), "items", result.items(), "blobs", result.blobs());
+                }
+                // Case 2: Import (resumable)
+                if ("import".equals(action)) {
+                    UserDataPortabilityService.ImportResult result =
+                            portabilityService.importUser((String) event.get("key"), userId);
+                    return Map.of("linesApplied", result.linesApplied(), "complete", result.complete());
+                }
+                throw new IllegalArgumentException("Unknown action: " + action);
+            } catch (Exception e) {
+                logger.error("Portability job '{}' failed for user {}", action, userId, e);
+                throw e;
+            }
+        };
+    }
+}
@@ -6,14 +6,23 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import khanh.careercoach.backend.model.ResumeEntity;
+import khanh.careercoach.backend.repository.UnitOfWork;
 import khanh.careercoach.backend.service.ResumeService;
+import khanh.careercoach.backend.service.idempotency.DuplicateRequestInProgressException;
+import khanh.careercoach.backend.service.idempotency.IdempotencyService;
+import khanh.careercoach.backend.service.quota.QuotaExceededException;
+import khanh.careercoach.backend.service.quota.QuotaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -23,10 +32,17 @@ public class ResumeFunctions {
     private static final Logger logger = LoggerFactory.getLogger(ResumeFunctions.class);
 
     private final ResumeService resumeService;
+    private final QuotaService quotaService;
+    private final IdempotencyService idempotencyService;
+    private final UnitOfWork unitOfWork;
     private final ObjectMapper objectMapper;
 
-    public ResumeFunctions(ResumeService resumeService) {
+    public ResumeFunctions(ResumeService resumeService, QuotaService quotaService,
+                           IdempotencyService idempotencyService, UnitOfWork unitOfWork) {
         this.resumeService = resumeService;
+        this.quotaService = quotaService;
+        this.idempotencyService = idempotencyService;
+        this.unitOfWork = unitOfWork;
 
         // --- CẤU HÌNH JACKSON THỦ CÔNG (THEO YÊU CẦU) ---
         this.objectMapper = new ObjectMapper();
@@ -42,6 +58,7 @@ public class ResumeFunctions {
     @Bean
     public Function<Map<String, Object>, Map<String, Object>> resumeHandler() {
         return event -> {
+            unitOfWork.begin();
             try {
                 String path = extractPath(event);
                 String method = extractHttpMethod(event);
@@ -62,20 +79,53 @@ public class ResumeFunctions {
                     return handleSaveResume(userId, event);
                 }
 
-                // 3. POST /resume/improve (AI Improve)
+                // 3. PATCH /resume (Autosave từng section)
+                if (path.endsWith("/resume") && "PATCH".equalsIgnoreCase(method)) {
+                    return handlePatchResume(userId, event);
+                }
+
+                // 4. GET /resume/versions (Lịch sử phiên bản)
+                if (path.endsWith("/resume/versions") && "GET".equalsIgnoreCase(method)) {
+                    return buildResponse(200, resumeService.getVersions(userId));
+                }
+
+                // 5. POST /resume/versions/{id}/restore (Khôi phục phiên bản)
+                if (path.contains("/resume/versions/") && path.endsWith("/restore") && "POST".equalsIgnoreCase(method)) {
+                    return handleRestoreVersion(userId, event, path);
+                }
+
+                // 6. GET /resume/versions/{id} (Nội dung một phiên bản)
+                if (path.contains("/resume/versions/") && "GET".equalsIgnoreCase(method)) {
+                    return buildResponse(200, resumeService.getVersion(userId, extractVersionId(event, path)));
+                }
+
+                // 7. POST /resume/improve (AI Improve) - request trùng (double-click) chỉ gọi AI 1 lần
                 if (path.endsWith("/resume/improve") && "POST".equalsIgnoreCase(method)) {
-                    return handleImproveResume(userId, event);
+                    return idempotencyService.execute(userId, "POST /resume/improve",
+                            headers.get("idempotency-key"), extractBodyContent(event),
+                            () -> handleImproveResume(userId, event));
                 }
 
                 return buildResponse(404, Map.of("error", "Route not found"));
 
             } catch (SecurityException e) {
                 return buildResponse(401, Map.of("error", e.getMessage()));
+            } catch (QuotaExceededException e) {
+                logger.warn("Quota Exceeded: {}", e.getMessage());
+                return e.toResponse(this::buildResponse);
             } catch (IllegalArgumentException e) {
                 return buildResponse(400, Map.of("error", e.getMessage()));
+            } catch (DuplicateRequestInProgressException e) {
+                logger.warn("Duplicate Request: {}", e.getMessage());
+                return e.toResponse(this::buildResponse);
+            } catch (ConcurrentModificationException e) {
+                return buildResponse(409, Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("System Error", e);
                 return buildResponse(500, Map.of("error", e.getMessage()));
+            } finally {
+                // Kết thúc unit of work: ghi trễ phải xong trước khi Lambda đóng băng container
+                unitOfWork.commit();
             }
         };
     }
@@ -97,11 +147,45 @@ public class ResumeFunctions {
             throw new IllegalArgumentException("Field 'content' is required");
         }
         String content = node.get("content").asText();
+        // Version client đang giữ (tùy chọn) để phát hiện ghi đè lẫn nhau
+        Long version = node.hasNonNull("version") ? node.get("version").asLong() : null;
+
+        ResumeEntity saved = resumeService.saveResume(userId, content, version);
+        return buildResponse(200, saved);
+    }
+
+    private Map<String, Object> handlePatchResume(String userId, Map<String, Object> event) throws Exception {
+        String bodyString = extractBodyContent(event);
+        JsonNode node = objectMapper.readTree(bodyString);
+
+        // Body: { "order": [tên section...], "sections": { tên: markdown (chỉ section đã sửa) }, "version": n }
+        if (node == null || !node.has("order") || !node.get("order").isArray()) {
+            throw new IllegalArgumentException("Field 'order' is required");
+        }
+        List<String> order = new ArrayList<>();
+        node.get("order").forEach(name -> order.add(name.asText()));
 
-        ResumeEntity saved = resumeService.saveResume(userId, content);
+        Map<String, String> sections = new LinkedHashMap<>();
+        JsonNode sectionsNode = node.get("sections");
+        if (sectionsNode != null && sectionsNode.isObject()) {
+            sectionsNode.fields().forEachRemaining(entry -> sections.put(entry.getKey(), entry.getValue().asText()));
+        }
+        Long version = node.hasNonNull("version") ? node.get("version").asLong() : null;
+
+        ResumeEntity saved = resumeService.patchResume(userId, order, sections, version);
         return buildResponse(200, saved);
     }
 
+    private Map<String, Object> handleRestoreVersion(String userId, Map<String, Object> event, String path)
+            throws Exception {
+        String bodyString = extractBodyContent(event);
+        JsonNode node = bodyString != null && !bodyString.isBlank() ? objectMapper.readTree(bodyString) : null;
+        Long version = node != null && node.hasNonNull("version") ? node.get("version").asLong() : null;
+
+        ResumeEntity restored = resumeService.restoreVersion(userId, extractVersionId(event, path), version);
+        return buildResponse(200, restored);
+    }
+
     private Map<String, Object> handleImproveResume(String userId, Map<String, Object> event) throws Exception {
         String bodyString = extractBodyContent(event);
         JsonNode node = objectMapper.readTree(bodyString);
@@ -112,7 +196,9 @@ public class ResumeFunctions {
         String current = node.get("current").asText();
         String type = node.get("type").asText();
 
-        String improvedContent = resumeService.improveWithAI(userId, current, type);
+        // Gọi AI trong quota của user (429 nếu vượt)
+        String improvedContent = quotaService.runWithQuota(userId,
+                () -> resumeService.improveWithAI(userId, current, type));
 
         // Trả về JSON đơn giản
         return buildResponse(200, Map.of("improvedContent", improvedContent));
@@ -120,6 +206,20 @@ public class ResumeFunctions {
 
     // --- HELPERS (Đã được chuẩn hóa và format đẹp) ---
 
+    private String extractVersionId(Map<String, Object> event, String path) {
+        // Ưu tiên lấy từ Path Parameters của API Gateway
+        if (event.get("pathParameters") instanceof Map) {
+            Map<?, ?> params = (Map<?, ?>) event.get("pathParameters");
+            if (params != null && params.get("id") != null) {
+                return params.get("id").toString();
+            }
+        }
+        // Fallback: đoạn ngay sau /resume/versions/
+        String rest = path.substring(path.indexOf("/resume/versions/") + "/resume/versions/".length());
+        int slash = rest.indexOf('/');
+        return slash >= 0 ? rest.substring(0, slash) : rest;
+    }
+
     private String extractPath(Map<String, Object> event) {
         return event.get("rawPath") != null ? event.get("rawPath").toString() : "";
     }
@@ -0,0 +1,42 @@
+package khanh.careercoach.backend.functions;
+
+import khanh.careercoach.backend.service.retention.RetentionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.function.Function;
+
+@Configuration
+public class RetentionFunctions {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionFunctions.class);
+
+    private final RetentionService retentionService;
+
+    public RetentionFunctions(RetentionService retentionService) {
+        this.retentionService = retentionService;
+    }
+
+    /**
+     * HÀM CHẠY THEO LỊCH (EventBridge mỗi ngày): lưu trữ bài làm / cover letter quá hạn giữ rồi đặt TTL
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> retentionHandler() {
+        return event -> {
+            try {
+                RetentionService.RetentionRun run = retentionService.run();
+                return Map.of(
+                        "assessmentsArchived", run.assessmentsArchived(),
+                        "coverLettersArchived", run.coverLettersArchived(),
+                        "batchesSkipped", run.batchesSkipped());
+            } catch (Exception e) {
+                // Lỗi để Lambda ghi nhận thất bại; lượt sau quét tiếp từ checkpoint
+                logger.error("Retention run failed", e);
+                throw e;
+            }
+        };
+    }
+}
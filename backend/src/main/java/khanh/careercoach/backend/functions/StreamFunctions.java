@@ -0,0 +1,70 @@
+package khanh.careercoach.backend.functions;
+
+import khanh.careercoach.backend.repository.ResumeRepository;
+import khanh.careercoach.backend.service.history.ResumeHistoryService;
+import khanh.careercoach.backend.stream.StreamDispatcher;
+import khanh.careercoach.backend.stream.StreamRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Configuration
+public class StreamFunctions {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamFunctions.class);
+
+    private final StreamDispatcher streamDispatcher;
+    private final ResumeHistoryService resumeHistoryService;
+
+    public StreamFunctions(StreamDispatcher streamDispatcher, ResumeHistoryService resumeHistoryService) {
+        this.streamDispatcher = streamDispatcher;
+        this.resumeHistoryService = resumeHistoryService;
+    }
+
+    /**
+     * HÀM CHẠY THEO DYNAMODB STREAMS (CoreTable): cập nhật read model dẫn xuất bất đồng bộ
+     * Trả về batchItemFailures để Lambda chỉ gửi lại từ bản ghi lỗi (không chạy lại cả batch)
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> streamProjectionHandler() {
+        return event -> {
+            List<StreamRecords.StreamRecord> records = StreamRecords.parse(event);
+            StreamDispatcher.BatchResult result = streamDispatcher.dispatch(records);
+            logger.info("Stream batch: {} records, {} applied, {} skipped, {} duplicates, failed at {}",
+                    records.size(), result.applied(), result.skipped(), result.duplicates(),
+                    result.failedSequenceNumber());
+            compactResumeHistories(records);
+            return result.toResponse();
+        };
+    }
+
+    // Lịch sử Resume vượt ngưỡng: compact ở đây thay vì trên đường lưu Resume.
+    // Lỗi chỉ ghi log (không gửi lại batch): lần lưu sau vẫn vượt ngưỡng nên được thử lại
+    private void compactResumeHistories(List<StreamRecords.StreamRecord> records) {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (StreamRecords.StreamRecord record : records) {
+            if (!ResumeRepository.RESUME_SK.equals(record.sk()) || record.newImage() == null) {
+                continue;
+            }
+            AttributeValue count = record.newImage().get("historyCount");
+            if (count != null && count.n() != null && resumeHistoryService.needsCompaction(Integer.parseInt(count.n()))) {
+                userIds.add(record.pk().substring("USER#".length()));
+            }
+        }
+        for (String userId : userIds) {
+            try {
+                resumeHistoryService.compact(userId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to compact resume history of {}", userId, e);
+            }
+        }
+    }
+}
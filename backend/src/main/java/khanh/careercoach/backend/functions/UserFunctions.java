@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import khanh.careercoach.backend.dto.UpdateUserRequest;
 import khanh.careercoach.backend.model.UserEntity;
+import khanh.careercoach.backend.repository.UnitOfWork;
 import khanh.careercoach.backend.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +15,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.Base64;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -24,10 +26,12 @@ public class UserFunctions {
     private static final Logger logger = LoggerFactory.getLogger(UserFunctions.class);
 
     private final UserService userService;
+    private final UnitOfWork unitOfWork;
     private final ObjectMapper objectMapper;
 
-    public UserFunctions(UserService userService) {
+    public UserFunctions(UserService userService, UnitOfWork unitOfWork) {
         this.userService = userService;
+        this.unitOfWork = unitOfWork;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -37,6 +41,7 @@ public class UserFunctions {
     @Bean
     public Function<Map<String, Object>, Map<String, Object>> profileHandler() {
         return event -> {
+            unitOfWork.begin();
             try {
                 // 1. Lấy thông tin cơ bản
                 String httpMethod = extractHttpMethod(event);
@@ -70,9 +75,14 @@ public class UserFunctions {
                 return buildResponse(401, Map.of("error", e.getMessage()));
             } catch (IllegalArgumentException e) { // Bắt lỗi user not found từ service
                 return buildResponse(400, Map.of("error", e.getMessage()));
+            } catch (ConcurrentModificationException e) { // Version không khớp (Optimistic Locking)
+                return buildResponse(409, Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("System Error", e);
                 return buildResponse(500, Map.of("error", e.getMessage()));
+            } finally {
+                // Kết thúc unit of work: ghi trễ phải xong trước khi Lambda đóng băng container
+                unitOfWork.commit();
             }
         };
     }
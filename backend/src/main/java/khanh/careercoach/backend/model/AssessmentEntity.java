@@ -1,5 +1,6 @@
 package khanh.careercoach.backend.model;
 
+import khanh.careercoach.backend.model.converter.CompressedQuestionListConverter;
 import lombok.Data;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 import java.util.List;
@@ -13,12 +14,20 @@ public class AssessmentEntity {
     private Double quizScore;
     private String category; // "Technical", "Behavioral"
     private String improvementTip; // AI Bedrock generated tip
+    private String tipStatus; // "PENDING" (chờ batch sinh tip), "READY", "FAILED"; null nếu không có câu sai
+    private Integer tipAttempts; // Số lần batch đã thử sinh tip
+    private String industry; // Ngành của user lúc làm bài (dùng khi batch sinh tip)
 
     // Nested Object List (JSON)
     private List<QuestionItem> questions;
 
     private String createdAt;
     private String updatedAt;
+    private Long ttl; // Epoch giây, RetentionService đặt sau khi đã lưu trữ + tổng hợp tháng (DynamoDB TTL xóa sau đó)
+
+    // GSI1 keys (AssessmentRepository tự điền khi tip đang PENDING, xóa khi xong -> index thưa)
+    private String gsi1Pk; // Format: TIP#PENDING
+    private String gsi1Sk; // Format: <createdAt> (xử lý theo thứ tự nộp bài)
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("PK")
@@ -28,6 +37,18 @@ public class AssessmentEntity {
     @DynamoDbAttribute("SK")
     public String getSk() { return sk; }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = "GSI1")
+    @DynamoDbAttribute("GSI1_PK")
+    public String getGsi1Pk() { return gsi1Pk; }
+
+    @DynamoDbSecondarySortKey(indexNames = "GSI1")
+    @DynamoDbAttribute("GSI1_SK")
+    public String getGsi1Sk() { return gsi1Sk; }
+
+    // Nén khi lớn (xem CompressedQuestionListConverter)
+    @DynamoDbConvertedBy(CompressedQuestionListConverter.class)
+    public List<QuestionItem> getQuestions() { return questions; }
+
     // Inner Class cho cấu trúc câu hỏi
     @Data
     @DynamoDbBean
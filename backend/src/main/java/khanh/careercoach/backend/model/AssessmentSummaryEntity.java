@@ -0,0 +1,31 @@
+package khanh.careercoach.backend.model;
+
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Tổng hợp theo tháng của các bài làm đã lưu trữ (RetentionService cộng dần trước khi bài làm hết hạn).
+ * Chi tiết từng bài nằm trong archive JSONL (archive/USER_<id>/ASSESS/<yyyy-MM>/...).
+ */
+@Data
+@DynamoDbBean
+public class AssessmentSummaryEntity {
+    private String pk; // Format: USER#<cognito_sub>
+    private String sk; // Format: SUMMARY#ASSESS#<yyyy-MM>
+
+    private String month; // yyyy-MM theo createdAt của bài làm
+    private Long quizCount;
+    private Double scoreSum;
+    private Long questionCount;
+    private Long correctCount;
+
+    private String updatedAt;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+}
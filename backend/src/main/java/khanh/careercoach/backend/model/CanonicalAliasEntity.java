@@ -0,0 +1,27 @@
+package khanh.careercoach.backend.model;
+
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Alias học được khi chạy (ngoài từ điển có sẵn trong resources/canonical):
+ * chuỗi người dùng nhập đã được khớp gần đúng, hoặc ngành mới chưa có trong từ điển.
+ */
+@Data
+@DynamoDbBean
+public class CanonicalAliasEntity {
+    private String pk; // Format: ALIAS#INDUSTRY hoặc ALIAS#SKILL
+    private String sk; // Alias đã chuẩn hóa (CanonicalDictionary.normalize)
+
+    private String canonical; // Giá trị chuẩn alias trỏ tới
+    private String source; // "fuzzy" (khớp gần đúng), "observed" (giá trị mới)
+    private String createdAt;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+}
@@ -1,22 +1,40 @@
 package khanh.careercoach.backend.model;
 
+import khanh.careercoach.backend.model.converter.CompressedStringConverter;
 import lombok.Data;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
+import java.util.List;
+
 @Data
 @DynamoDbBean
 public class CoverLetterEntity {
     private String pk; // Format: USER#<cognito_sub>
     private String sk; // Format: LETTER#<uuid>
 
-    private String content; // Markdown do AI Bedrock viết
-    private String jobDescription;
+    private String content; // Markdown do AI Bedrock viết (null nếu đã offload ra BlobStore)
+    private String jobDescription; // (null nếu đã offload ra BlobStore)
+    private String jobDescriptionPreview; // Đoạn đầu JD để hiển thị ở danh sách (không cần tải body)
+
+    // Con trỏ tới body đã offload (xem ContentOffloader)
+    private String contentRef;
+    private String contentHash;
+    private String jobDescriptionRef;
+    private String jobDescriptionHash;
     private String companyName;
     private String jobTitle;
     private String status; // "draft", "completed"
 
+    // Điểm ATS của resume so với JD (tính tại chỗ khi tạo) và các keyword JD resume còn thiếu
+    private Double atsScore;
+    private List<String> atsMissingKeywords;
+
+    // SimHash 64 bit của JD (xem HashedEmbedder) để tìm letter tương tự mà không tải JD
+    private Long jdSimHash;
+
     private String createdAt;
     private String updatedAt;
+    private Long ttl; // Epoch giây, RetentionService đặt sau khi đã lưu trữ (DynamoDB TTL xóa sau đó)
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("PK")
@@ -25,4 +43,11 @@ public class CoverLetterEntity {
     @DynamoDbSortKey
     @DynamoDbAttribute("SK")
     public String getSk() { return sk; }
+
+    // Text lớn được nén khi lưu (xem CompressedStringConverter)
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
+    public String getContent() { return content; }
+
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
+    public String getJobDescription() { return jobDescription; }
 }
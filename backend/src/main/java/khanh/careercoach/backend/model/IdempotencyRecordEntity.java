@@ -0,0 +1,36 @@
+package khanh.careercoach.backend.model;
+
+import khanh.careercoach.backend.model.converter.CompressedStringConverter;
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Bản ghi idempotency của một request AI (chống gửi trùng do double-click / re-render).
+ */
+@Data
+@DynamoDbBean
+public class IdempotencyRecordEntity {
+    private String pk; // Format: IDEMP#<sha256(user, route, Idempotency-Key hoặc body)>
+    private String sk; // Format: RECORD
+
+    private String status; // "IN_PROGRESS", "COMPLETED"
+    private String owner; // Token ngẫu nhiên của request đang giữ khóa (chỉ request đó được xóa bản ghi)
+    private Integer statusCode; // HTTP status của response đã lưu
+    private String responseBody; // Body JSON của response đã lưu
+
+    // Epoch giây: trước mốc này không request nào khác được chiếm bản ghi
+    // (IN_PROGRESS: hạn khóa; COMPLETED: hết thời gian phát lại response)
+    private Long expiresAt;
+    private Long ttl; // Epoch giây, DynamoDB TTL dọn bản ghi cũ
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
+    public String getResponseBody() { return responseBody; }
+}
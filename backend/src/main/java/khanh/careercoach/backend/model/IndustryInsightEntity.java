@@ -25,6 +25,13 @@ public class IndustryInsightEntity {
     private String lastUpdated;
     private String nextUpdate;
 
+    // Số user đang chọn ngành (read model PROJ#MEMBERS), chỉ trả về client
+    private Long memberCount;
+
+    // GSI1 keys (IndustryInsightRepository tự điền khi ghi)
+    private String gsi1Pk; // Format: INDUSTRIES -> liệt kê tất cả ngành
+    private String gsi1Sk; // Format: INDUSTRY#<tên_ngành>
+
     @DynamoDbPartitionKey
     @DynamoDbAttribute("PK")
     public String getPk() { return pk; }
@@ -33,6 +40,17 @@ public class IndustryInsightEntity {
     @DynamoDbAttribute("SK")
     public String getSk() { return sk; }
 
+    @DynamoDbIgnore
+    public Long getMemberCount() { return memberCount; }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "GSI1")
+    @DynamoDbAttribute("GSI1_PK")
+    public String getGsi1Pk() { return gsi1Pk; }
+
+    @DynamoDbSecondarySortKey(indexNames = "GSI1")
+    @DynamoDbAttribute("GSI1_SK")
+    public String getGsi1Sk() { return gsi1Sk; }
+
     // Inner Class cho dải lương
     @Data
     @DynamoDbBean
@@ -0,0 +1,39 @@
+package khanh.careercoach.backend.model;
+
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Read model dẫn xuất, do StreamProjectionFunction cập nhật bất đồng bộ từ DynamoDB Streams
+ * (request path không phải tự tính). Cùng entity cho sổ ghi các bản ghi stream đã áp dụng.
+ */
+@Data
+@DynamoDbBean
+public class ProjectionEntity {
+    private String pk; // Format: INDUSTRY#<industry> | USER#<cognito_sub> | STREAM#<eventID>
+    private String sk; // Format: PROJ#MEMBERS | PROJ#ACTIVITY | APPLIED
+
+    // PROJ#MEMBERS: số user đang chọn ngành
+    private Long userCount;
+
+    // PROJ#ACTIVITY: hoạt động của user
+    private Long letterCount;
+    private Long assessmentCount;
+    private Long resumeSaveCount;
+    private String lastResumeUpdateAt;
+    private String lastAssessmentAt;
+
+    private String updatedAt;
+
+    // APPLIED: sổ ghi (bản ghi stream đã áp dụng), tự hết hạn sau khi qua thời gian lưu của stream
+    private String eventName;
+    private Long ttl; // Epoch giây
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+}
@@ -0,0 +1,27 @@
+package khanh.careercoach.backend.model;
+
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Bộ đếm quota theo cửa sổ thời gian (mỗi cửa sổ 1 item, tự hết hạn qua TTL).
+ */
+@Data
+@DynamoDbBean
+public class QuotaCounterEntity {
+    private String pk; // Format: QUOTA#USER#<cognito_sub> hoặc QUOTA#GLOBAL
+    private String sk; // Format: REQ#<epoch phút> (số request) hoặc TOK#<epoch giờ> (số token model)
+
+    private Long requests;
+    private Long tokens;
+
+    private Long ttl; // Epoch giây, DynamoDB TTL tự xóa cửa sổ đã qua
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+}
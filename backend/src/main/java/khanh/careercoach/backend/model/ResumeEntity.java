@@ -1,21 +1,42 @@
 package khanh.careercoach.backend.model;
 
+import khanh.careercoach.backend.model.converter.CompressedStringConverter;
 import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbVersionAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
+import java.util.List;
+import java.util.Map;
+
 @Data
 @DynamoDbBean
 public class ResumeEntity {
     private String pk; // Format: USER#<cognito_sub>
     private String sk; // Format: RESUME
 
-    private String content; // Markdown text
+    private String content; // Markdown text (null nếu đã offload ra BlobStore hoặc đã tách section)
+    private String contentRef; // Key trong BlobStore khi content quá lớn
+    private String contentHash; // SHA-256 của content đã offload
     private Double atsScore; // Điểm số ATS
     private String feedback; // Feedback từ Bedrock AI
 
+    // Resume tách section (item RESUME#SECTION#<name>): thứ tự và SHA-256 của từng section
+    private List<String> sectionOrder;
+    private Map<String, String> sectionHashes;
+    // Lịch sử phiên bản (RESUME#V#<ts>): phiên bản mới nhất, số delta / số ký tự delta từ snapshot gần nhất
+    private String historyHeadSk;
+    private Integer historyDeltaCount;
+    private Long historyDeltaChars;
+    private Integer historyCount;
+    // Nội dung từng section, chỉ có trong response (không lưu ở item này)
+    private Map<String, String> sections;
+
     private String createdAt;
     private String updatedAt;
 
+    // Optimistic Locking: tăng 1 sau mỗi lần ghi, ghi thất bại nếu version không khớp
+    private Long version;
+
     @DynamoDbPartitionKey
     @DynamoDbAttribute("PK")
     public String getPk() { return pk; }
@@ -23,4 +44,14 @@ public class ResumeEntity {
     @DynamoDbSortKey
     @DynamoDbAttribute("SK")
     public String getSk() { return sk; }
+
+    // Nén khi lớn (xem CompressedStringConverter)
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
+    public String getContent() { return content; }
+
+    @DynamoDbIgnore
+    public Map<String, String> getSections() { return sections; }
+
+    @DynamoDbVersionAttribute
+    public Long getVersion() { return version; }
 }
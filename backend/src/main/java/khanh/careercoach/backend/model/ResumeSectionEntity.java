@@ -0,0 +1,35 @@
+package khanh.careercoach.backend.model;
+
+import khanh.careercoach.backend.model.converter.CompressedStringConverter;
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Một phần (section) của Resume, lưu thành item riêng để autosave chỉ ghi phần đã sửa.
+ * Thứ tự và hash của các section nằm ở item RESUME (ResumeEntity.sectionOrder / sectionHashes).
+ */
+@Data
+@DynamoDbBean
+public class ResumeSectionEntity {
+    private String pk; // Format: USER#<cognito_sub>
+    private String sk; // Format: RESUME#SECTION#<name>
+
+    private String name; // Tên section (slug của tiêu đề "## ...", VD: work-experience)
+    private String content; // Markdown của section, gồm cả dòng tiêu đề (null nếu đã offload ra BlobStore)
+    private String contentRef; // Key trong BlobStore khi section quá lớn
+    private String contentHash; // SHA-256 của content (dùng để bỏ qua lần ghi không đổi)
+
+    private String updatedAt;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+
+    // Nén khi lớn (xem CompressedStringConverter)
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
+    public String getContent() { return content; }
+}
@@ -0,0 +1,38 @@
+package khanh.careercoach.backend.model;
+
+import khanh.careercoach.backend.model.converter.CompressedStringConverter;
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Một phiên bản trong lịch sử Resume.
+ * SNAPSHOT giữ toàn văn; DELTA giữ TextDelta so với phiên bản ngay trước nó.
+ * Dựng lại phiên bản = snapshot gần nhất phía trước + áp lần lượt các delta.
+ */
+@Data
+@DynamoDbBean
+public class ResumeVersionEntity {
+    private String pk; // Format: USER#<cognito_sub>
+    private String sk; // Format: RESUME#V#<epoch millis, 13 chữ số>
+
+    private String kind; // SNAPSHOT | DELTA
+    private String content; // Toàn văn (SNAPSHOT) hoặc delta (DELTA); null nếu đã offload ra BlobStore
+    private String contentRef; // Key trong BlobStore khi content quá lớn (thường là snapshot)
+    private String contentHash; // SHA-256 của toàn văn phiên bản này (kiểm tra khi dựng lại)
+    private Integer contentLength; // Độ dài toàn văn
+    private Long resumeVersion; // Version của item RESUME tương ứng
+
+    private String createdAt;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+
+    // Nén khi lớn (xem CompressedStringConverter)
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
+    public String getContent() { return content; }
+}
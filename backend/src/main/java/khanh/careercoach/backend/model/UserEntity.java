@@ -3,6 +3,7 @@ package khanh.careercoach.backend.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbVersionAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
 import java.util.List;
@@ -29,6 +30,16 @@ public class UserEntity {
     // Timestamps (Lưu dạng ISO String cho dễ đọc: "2025-11-30T10:00:00Z")
     private String createdAt;
     private String updatedAt;
+    private String lastActiveAt; // Lần nộp bài gần nhất (ghi cùng transaction với bài làm)
+
+    // Optimistic Locking: tăng 1 sau mỗi lần ghi, ghi thất bại nếu version không khớp
+    private Long version;
+
+    // GSI keys (UserRepository tự điền khi ghi)
+    private String gsi1Pk; // Format: INDUSTRY#<industry> -> liệt kê user theo ngành
+    private String gsi1Sk; // Format: USER#<cognito_sub>
+    private String gsi2Pk; // Format: EMAIL#<email_lowercase> -> tìm user theo email
+    private String gsi2Sk; // Format: USER#<cognito_sub>
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("PK")
@@ -37,4 +48,23 @@ public class UserEntity {
     @DynamoDbSortKey
     @DynamoDbAttribute("SK")
     public String getSk() { return sk; }
+
+    @DynamoDbVersionAttribute
+    public Long getVersion() { return version; }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "GSI1")
+    @DynamoDbAttribute("GSI1_PK")
+    public String getGsi1Pk() { return gsi1Pk; }
+
+    @DynamoDbSecondarySortKey(indexNames = "GSI1")
+    @DynamoDbAttribute("GSI1_SK")
+    public String getGsi1Sk() { return gsi1Sk; }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "GSI2")
+    @DynamoDbAttribute("GSI2_PK")
+    public String getGsi2Pk() { return gsi2Pk; }
+
+    @DynamoDbSecondarySortKey(indexNames = "GSI2")
+    @DynamoDbAttribute("GSI2_SK")
+    public String getGsi2Sk() { return gsi2Sk; }
 }
@@ -0,0 +1,80 @@
+package khanh.careercoach.backend.model;
+
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thống kê quiz của user, cập nhật dần mỗi lần nộp bài (cùng transaction với AssessmentEntity).
+ * Dashboard đọc 1 item thay vì tải toàn bộ lịch sử bài làm.
+ */
+@Data
+@DynamoDbBean
+public class UserStatsEntity {
+    private String pk; // Format: USER#<cognito_sub>
+    private String sk; // Format: STATS
+
+    private Long quizCount;
+    private Double scoreSum;
+    private Double minScore;
+    private Double maxScore;
+    private Long questionCount;
+    private Long correctCount;
+
+    // N điểm gần nhất (cũ -> mới) cho biểu đồ xu hướng
+    private List<ScorePoint> recentScores;
+
+    // Số câu / số câu đúng theo category và theo kỹ năng (kỹ năng của user được nhắc tới trong câu hỏi)
+    private Map<String, Long> categoryTotals;
+    private Map<String, Long> categoryCorrect;
+    private Map<String, Long> skillTotals;
+    private Map<String, Long> skillCorrect;
+
+    private String updatedAt;
+
+    // Hoạt động khác của user (read model PROJ#ACTIVITY, cập nhật bất đồng bộ), chỉ trả về client
+    private Long letterCount;
+    private Long resumeSaveCount;
+    private String lastResumeUpdateAt;
+
+    // Tổng hợp tháng của bài làm đã lưu trữ (SUMMARY#ASSESS#<yyyy-MM>, cũ -> mới), chỉ trả về client
+    private List<AssessmentSummaryEntity> archivedMonths;
+
+    // Optimistic Locking (cập nhật đọc - tính - ghi có điều kiện)
+    private Long version;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+
+    @DynamoDbIgnore
+    public Long getLetterCount() { return letterCount; }
+
+    @DynamoDbIgnore
+    public Long getResumeSaveCount() { return resumeSaveCount; }
+
+    @DynamoDbIgnore
+    public String getLastResumeUpdateAt() { return lastResumeUpdateAt; }
+
+    @DynamoDbIgnore
+    public List<AssessmentSummaryEntity> getArchivedMonths() { return archivedMonths; }
+
+    // Giá trị dẫn xuất, chỉ trả về client
+    @DynamoDbIgnore
+    public Double getAverageScore() {
+        return quizCount != null && quizCount > 0 && scoreSum != null ? scoreSum / quizCount : null;
+    }
+
+    @Data
+    @DynamoDbBean
+    public static class ScorePoint {
+        private Double score;
+        private String createdAt;
+    }
+}
@@ -0,0 +1,25 @@
+package khanh.careercoach.backend.model;
+
+import lombok.Data;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+/**
+ * Tem version của một item / nhóm item, nằm cạnh item gốc (cùng PK).
+ * Cache trong container đọc tem (item nhỏ, rẻ) trước khi tin bản sao đang giữ; stream tăng tem khi item gốc đổi.
+ */
+@Data
+@DynamoDbBean
+public class VersionStampEntity {
+    private String pk; // Format: PK của item gốc (USER#<cognito_sub>, INDUSTRY#<industry>)
+    private String sk; // Format: STAMP#<SK gốc> (STAMP#METADATA của INDUSTRY#...) hoặc STAMP#<tiền tố> cho cả nhóm (STAMP#ASSESS)
+
+    private Long stamp;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("PK")
+    public String getPk() { return pk; }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("SK")
+    public String getSk() { return sk; }
+}
@@ -0,0 +1,82 @@
+package khanh.careercoach.backend.model.converter;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.model.AssessmentEntity.QuestionItem;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converter cho danh sách câu hỏi của Assessment (câu hỏi + giải thích của AI khá dài).
+ * - Danh sách nhỏ: lưu dạng L (List of Map) như mapping mặc định của Enhanced Client.
+ * - Danh sách lớn: serialize JSON rồi nén DEFLATE, lưu dạng B.
+ * - Đọc tương thích ngược với item cũ dạng L.
+ */
+public class CompressedQuestionListConverter implements AttributeConverter<List<QuestionItem>> {
+
+    private static final TableSchema<QuestionItem> ITEM_SCHEMA = TableSchema.fromBean(QuestionItem.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final TypeReference<List<QuestionItem>> LIST_TYPE = new TypeReference<>() {};
+
+    @Override
+    public AttributeValue transformFrom(List<QuestionItem> input) {
+        if (input == null) {
+            return AttributeValue.fromNul(true);
+        }
+        try {
+            String json = MAPPER.writeValueAsString(input);
+            if (json.length() >= CompressedStringConverter.THRESHOLD_BYTES) {
+                return AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(DeflateCodec.compress(json)));
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Could not serialize assessment questions", e);
+        }
+
+        List<AttributeValue> list = new ArrayList<>(input.size());
+        for (QuestionItem item : input) {
+            list.add(AttributeValue.fromM(ITEM_SCHEMA.itemToMap(item, true)));
+        }
+        return AttributeValue.fromL(list);
+    }
+
+    @Override
+    public List<QuestionItem> transformTo(AttributeValue input) {
+        if (input == null || Boolean.TRUE.equals(input.nul())) {
+            return null;
+        }
+        if (input.b() != null) {
+            try {
+                return MAPPER.readValue(DeflateCodec.decompress(input.b().asByteArrayUnsafe()), LIST_TYPE);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Could not read compressed assessment questions", e);
+            }
+        }
+        if (input.hasL()) {
+            List<QuestionItem> items = new ArrayList<>(input.l().size());
+            for (AttributeValue element : input.l()) {
+                items.add(ITEM_SCHEMA.mapToItem(element.m()));
+            }
+            return items;
+        }
+        throw new IllegalArgumentException("Unsupported attribute value for questions: " + input.type());
+    }
+
+    @Override
+    public EnhancedType<List<QuestionItem>> type() {
+        return EnhancedType.listOf(QuestionItem.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.B;
+    }
+}
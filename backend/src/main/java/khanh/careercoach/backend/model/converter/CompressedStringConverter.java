@@ -0,0 +1,76 @@
+package khanh.careercoach.backend.model.converter;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converter cho các thuộc tính text lớn (Markdown của Resume, Cover Letter, Job Description).
+ * - Chuỗi ngắn (dưới ngưỡng) vẫn lưu dạng S như cũ.
+ * - Chuỗi dài lưu dạng B đã nén DEFLATE (xem {@link DeflateCodec}), giảm kích thước item và RCU/WCU.
+ * - Đọc tương thích ngược: item cũ dạng S vẫn đọc bình thường.
+ *
+ * Dùng: {@code @DynamoDbConvertedBy(CompressedStringConverter.class)} trên getter.
+ */
+public class CompressedStringConverter implements AttributeConverter<String> {
+
+    // Dưới 1 KB thì DynamoDB vẫn tính 1 WCU, nén không có lợi
+    public static final int THRESHOLD_BYTES = 1024;
+
+    @Override
+    public AttributeValue transformFrom(String input) {
+        if (input == null) {
+            return AttributeValue.fromNul(true);
+        }
+        if (utf8Length(input) < THRESHOLD_BYTES) {
+            return AttributeValue.fromS(input);
+        }
+        byte[] compressed = DeflateCodec.compress(input);
+        // Text đặc biệt (đã nén sẵn, base64...) có thể không nhỏ đi -> giữ nguyên S
+        if (compressed.length >= input.getBytes(StandardCharsets.UTF_8).length) {
+            return AttributeValue.fromS(input);
+        }
+        return AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(compressed));
+    }
+
+    @Override
+    public String transformTo(AttributeValue input) {
+        if (input == null || Boolean.TRUE.equals(input.nul())) {
+            return null;
+        }
+        if (input.s() != null) {
+            return input.s();
+        }
+        if (input.b() != null) {
+            return DeflateCodec.decompress(input.b().asByteArrayUnsafe());
+        }
+        throw new IllegalArgumentException("Unsupported attribute value for compressed string: " + input.type());
+    }
+
+    @Override
+    public EnhancedType<String> type() {
+        return EnhancedType.of(String.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.B;
+    }
+
+    // Đếm số byte UTF-8 mà không cần cấp phát mảng byte
+    private static int utf8Length(String s) {
+        int count = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) count++;
+            else if (c < 0x800) count += 2;
+            else if (Character.isHighSurrogate(c)) { count += 4; i++; }
+            else count += 3;
+        }
+        return count;
+    }
+}
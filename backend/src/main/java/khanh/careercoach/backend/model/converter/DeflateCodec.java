@@ -0,0 +1,72 @@
+package khanh.careercoach.backend.model.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Nén/giải nén chuỗi UTF-8 bằng DEFLATE (java.util.zip, không cần thêm dependency).
+ * Định dạng nhị phân: [MAGIC (1 byte)] [CODEC (1 byte)] [dữ liệu DEFLATE].
+ * Header giúp phân biệt dữ liệu nén với Binary thường và cho phép đổi codec (ví dụ zstd) sau này.
+ */
+public final class DeflateCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte CODEC_DEFLATE = 0x01;
+
+    private static final int HEADER_SIZE = 2;
+
+    private DeflateCodec() {}
+
+    public static byte[] compress(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3 + 16);
+            out.write(MAGIC);
+            out.write(CODEC_DEFLATE);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC && data[1] == CODEC_DEFLATE;
+    }
+
+    public static String decompress(byte[] data) {
+        if (!isCompressed(data)) {
+            throw new IllegalArgumentException("Unknown compressed payload header");
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(Arrays.copyOfRange(data, HEADER_SIZE, data.length));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed payload");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted compressed payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
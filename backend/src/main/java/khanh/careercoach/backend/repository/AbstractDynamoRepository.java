@@ -2,16 +2,52 @@ package khanh.careercoach.backend.repository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -21,13 +57,30 @@ import java.util.stream.Collectors;
  */
 public abstract class AbstractDynamoRepository<T> {
 
+    // Tên các Global Secondary Index (khớp với template.yaml)
+    public static final String GSI1 = "GSI1";
+    public static final String GSI2 = "GSI2";
+
+    // BatchGetItem: tối đa 100 key / lần, đọc lại phần bị throttle
+    private static final int MAX_BATCH_GET = 100;
+    private static final int MAX_BATCH_GET_ATTEMPTS = 5;
+    private static final long BATCH_GET_BACKOFF_MS = 25;
+
     // Logger chuẩn cho môi trường Production
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     protected final DynamoDbTable<T> table;
     protected final String tableName;
 
-    public AbstractDynamoRepository(DynamoDbEnhancedClient client, Class<T> type) {
+    // Client cấp thấp cho các thao tác Enhanced Client chưa hỗ trợ (UpdateExpression tùy biến, ADD...)
+    protected final DynamoDbClient dynamoDbClient;
+    // Không có (test khởi tạo repository trực tiếp) -> không thông báo
+    private ChangeNotifier changeNotifier;
+    // Tiền tố key trong identity map của UnitOfWork (entity khác nhau không dùng chung bản)
+    private final String identityPrefix;
+
+    public AbstractDynamoRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient, Class<T> type) {
+        this.dynamoDbClient = dynamoDbClient;
         this.tableName = System.getenv("TABLE_NAME");
 
         // 1. Validate Config ngay khi khởi động
@@ -37,9 +90,15 @@ public abstract class AbstractDynamoRepository<T> {
         }
 
         this.table = client.table(tableName, TableSchema.fromBean(type));
+        this.identityPrefix = type.getName() + "|";
         logger.info("Initialized Repository for entity {} with table {}", type.getSimpleName(), tableName);
     }
 
+    @Autowired(required = false)
+    public void setChangeNotifier(ChangeNotifier changeNotifier) {
+        this.changeNotifier = changeNotifier;
+    }
+
     // ==================================================================================
     // 1. CREATE / UPDATE (Upsert)
     // ==================================================================================
@@ -47,6 +106,8 @@ public abstract class AbstractDynamoRepository<T> {
     /**
      * Lưu hoặc cập nhật một Item.
      * Trong DynamoDB, putItem sẽ ghi đè toàn bộ item nếu PK/SK trùng.
+     * Với Entity có @DynamoDbVersionAttribute, putItem chỉ thành công nếu version khớp
+     * (nếu không sẽ ném ConcurrentModificationException).
      */
     public void save(T item) {
         if (item == null) {
@@ -54,15 +115,43 @@ public abstract class AbstractDynamoRepository<T> {
         }
 
         try {
+            beforeWrite(item);
             logger.debug("Saving item to table {}: {}", tableName, item);
             table.putItem(item);
             logger.info("Successfully saved item.");
+            afterWrite(keyOf(item, "PK"), keyOf(item, "SK"));
+            UnitOfWork.remember(identityKey(item), item);
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("Version conflict while saving item to {}: {}", tableName, e.getMessage());
+            UnitOfWork.forget(identityKey(item));
+            throw new ConcurrentModificationException("Item was modified by another request, please reload and retry");
         } catch (DynamoDbException e) {
             logger.error("Failed to save item to DynamoDB: {}", e.getMessage(), e);
             throw new RuntimeException("Database Error: Could not save item", e);
         }
     }
 
+    /**
+     * Chuyển entity sang dạng item thô (đã chạy beforeWrite) để ghi trễ qua {@link WriteBehindBuffer}.
+     * Không đi qua extension của Enhanced Client: không dùng cho entity có @DynamoDbVersionAttribute.
+     */
+    public Map<String, AttributeValue> toItemMap(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Entity to save cannot be null");
+        }
+        beforeWrite(item);
+        // Ghi trễ: đọc lại trong cùng request thấy bản đang chờ ghi
+        UnitOfWork.remember(identityKey(item), item);
+        return table.tableSchema().itemToMap(item, true);
+    }
+
+    /**
+     * Chuyển item thô (đọc bằng Query / Scan trực tiếp) sang entity qua TableSchema (chạy converter, VD giải nén).
+     */
+    public T fromItemMap(Map<String, AttributeValue> item) {
+        return table.tableSchema().mapToItem(item);
+    }
+
     /**
      * Cập nhật item (Chỉ cập nhật các trường có giá trị, giữ nguyên các trường khác).
      * Yêu cầu Entity phải có đủ PK và SK.
@@ -72,17 +161,201 @@ public abstract class AbstractDynamoRepository<T> {
             throw new IllegalArgumentException("Entity to update cannot be null");
         }
         try {
+            beforeWrite(item);
             logger.debug("Updating item in table {}: {}", tableName, item);
             // updateItem sẽ trả về item đã được update
             T updatedItem = table.updateItem(item);
             logger.info("Successfully updated item.");
+            afterWrite(keyOf(item, "PK"), keyOf(item, "SK"));
+            UnitOfWork.remember(identityKey(item), updatedItem);
             return updatedItem;
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("Version conflict while updating item in {}: {}", tableName, e.getMessage());
+            UnitOfWork.forget(identityKey(item));
+            throw new ConcurrentModificationException("Item was modified by another request, please reload and retry");
         } catch (DynamoDbException e) {
             logger.error("Failed to update item: {}", e.getMessage(), e);
             throw new RuntimeException("Database Error: Could not update item", e);
         }
     }
 
+    /**
+     * Cập nhật từng phần bằng UpdateItem (1 round trip, không cần đọc trước).
+     * Upsert: nếu item chưa tồn tại, DynamoDB tạo mới với các thuộc tính được SET.
+     * Nếu điều kiện version không khớp -> ConcurrentModificationException.
+     *
+     * @return item sau khi cập nhật (hoặc item cũ nếu dùng {@link PartialUpdate#returnOldItem()}; null nếu chưa tồn tại)
+     */
+    public T updatePartial(String pk, String sk, PartialUpdate update) {
+        if (pk == null || sk == null) {
+            throw new IllegalArgumentException("Keys cannot be null for update");
+        }
+        if (update == null || update.isEmpty()) {
+            throw new IllegalArgumentException("Update cannot be empty");
+        }
+
+        UpdateItemRequest request = toUpdateRequest(pk, sk, update, update.getReturnValue());
+
+        try {
+            logger.debug("Partial update PK: {}, SK: {}, expression: {}", pk, sk, request.updateExpression());
+            UpdateItemResponse response = dynamoDbClient.updateItem(request);
+            logger.info("Successfully applied partial update to PK: {}, SK: {}", pk, sk);
+            afterWrite(pk, sk);
+
+            if (!response.hasAttributes() || response.attributes().isEmpty()) return null;
+            T result = table.tableSchema().mapToItem(response.attributes());
+            if (update.getReturnValue() == ReturnValue.ALL_NEW) {
+                UnitOfWork.remember(identityPrefix + pk + "|" + sk, result);
+            }
+            return result;
+        } catch (ConditionalCheckFailedException e) {
+            logger.warn("Condition failed on partial update PK: {}, SK: {}", pk, sk);
+            evict(pk, sk);
+            throw new ConcurrentModificationException("Item was modified by another request, please reload and retry");
+        } catch (DynamoDbException e) {
+            logger.error("Failed to apply partial update: {}", e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not update item", e);
+        }
+    }
+
+    /**
+     * Cập nhật từng phần ghi trễ qua {@link WriteBehindBuffer}: không chờ DB, không trả item,
+     * request ghi xong trước khi router trả response (flush của UnitOfWork).
+     * Chỉ dùng cho field không quan trọng với response (VD: lastActiveAt); điều kiện không thỏa -> bỏ qua.
+     */
+    public void updatePartialLater(WriteBehindBuffer buffer, String pk, String sk, PartialUpdate update) {
+        if (pk == null || sk == null) {
+            throw new IllegalArgumentException("Keys cannot be null for update");
+        }
+        if (update == null || update.isEmpty()) {
+            throw new IllegalArgumentException("Update cannot be empty");
+        }
+        // Lần đọc sau trong request này không dùng bản cũ trong identity map
+        evict(pk, sk);
+        buffer.update(toUpdateRequest(pk, sk, update, ReturnValue.NONE), () -> afterWrite(pk, sk));
+    }
+
+    private UpdateItemRequest toUpdateRequest(String pk, String sk, PartialUpdate update, ReturnValue returnValue) {
+        beforePartialUpdate(pk, sk, update);
+        PartialUpdate.Compiled compiled = update.compile(this::encodeAttribute);
+        UpdateItemRequest.Builder request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PK", AttributeValue.fromS(pk), "SK", AttributeValue.fromS(sk)))
+                .updateExpression(compiled.updateExpression())
+                .expressionAttributeNames(compiled.names())
+                .returnValues(returnValue);
+        if (!compiled.values().isEmpty()) {
+            request.expressionAttributeValues(compiled.values());
+        }
+        if (compiled.conditionExpression() != null) {
+            request.conditionExpression(compiled.conditionExpression());
+        }
+        return request.build();
+    }
+
+    /**
+     * Chuyển giá trị sang AttributeValue bằng converter của Entity (nếu thuộc tính có trong schema),
+     * để dữ liệu ghi qua updatePartial giống hệt dữ liệu ghi qua putItem (ví dụ: nén content).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private AttributeValue encodeAttribute(String attribute, Object value) {
+        if (value instanceof AttributeValue av) return av;
+        if (table.tableSchema().attributeNames().contains(attribute)) {
+            AttributeConverter converter = table.tableSchema().converterForAttribute(attribute);
+            if (converter != null && converter.type().rawClass().isInstance(value)) {
+                return converter.transformFrom(value);
+            }
+        }
+        return PartialUpdate.toAttributeValue(value);
+    }
+
+    /**
+     * Bắt đầu transaction ghi nhiều item (có thể thêm item của repository khác), xem {@link WriteTransaction}.
+     */
+    public WriteTransaction writeTransaction() {
+        return new WriteTransaction(this);
+    }
+
+    /**
+     * Bắt đầu transaction đọc nhiều item, xem {@link ReadTransaction}.
+     */
+    public ReadTransaction readTransaction() {
+        return new ReadTransaction(this);
+    }
+
+    /**
+     * Map item đọc bằng TransactGetItems sang entity, ghi nhận vào identity map của request.
+     */
+    T fromTransactGet(String pk, String sk, Map<String, AttributeValue> item) {
+        T entity = item != null ? table.tableSchema().mapToItem(item) : null;
+        UnitOfWork.remember(identityPrefix + pk + "|" + sk, entity);
+        return entity;
+    }
+
+    /**
+     * Build Update (cùng expression với updatePartial) để ghép vào TransactWriteItems.
+     */
+    protected Update toTransactUpdate(String pk, String sk, PartialUpdate update) {
+        beforePartialUpdate(pk, sk, update);
+        PartialUpdate.Compiled compiled = update.compile(this::encodeAttribute);
+        Update.Builder builder = Update.builder()
+                .tableName(tableName)
+                .key(Map.of("PK", AttributeValue.fromS(pk), "SK", AttributeValue.fromS(sk)))
+                .updateExpression(compiled.updateExpression())
+                .expressionAttributeNames(compiled.names());
+        if (!compiled.values().isEmpty()) {
+            builder.expressionAttributeValues(compiled.values());
+        }
+        if (compiled.conditionExpression() != null) {
+            builder.conditionExpression(compiled.conditionExpression());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Hook chạy trước mỗi lần updatePartial, tương tự {@link #beforeWrite(Object)}.
+     * Repository con override để bổ sung các thuộc tính dẫn xuất vào update.
+     */
+    protected void beforePartialUpdate(String pk, String sk, PartialUpdate update) {
+        // Mặc định không làm gì
+    }
+
+    /**
+     * Chạy sau mỗi lần ghi / xóa thành công: báo cho cache trong container bỏ bản sao của item.
+     * Repository ghi bằng transaction / batch riêng tự gọi sau khi ghi.
+     */
+    protected void afterWrite(String pk, String sk) {
+        evict(pk, sk);
+        if (changeNotifier != null && pk != null && sk != null) {
+            changeNotifier.publish(pk, sk);
+        }
+    }
+
+    /**
+     * Bỏ bản trong identity map của request (UnitOfWork): lần đọc sau đọc lại DB.
+     * Repository ghi bằng transaction gọi khi ghi bị từ chối để lần thử lại không dùng bản cũ.
+     */
+    protected void evict(String pk, String sk) {
+        UnitOfWork.forget(identityPrefix + pk + "|" + sk);
+    }
+
+    private String keyOf(T item, String attribute) {
+        AttributeValue value = table.tableSchema().attributeValue(item, attribute);
+        return value != null ? value.s() : null;
+    }
+
+    private String identityKey(T item) {
+        return identityPrefix + keyOf(item, "PK") + "|" + keyOf(item, "SK");
+    }
+
+    /**
+     * Hook chạy trước mỗi lần ghi (save/update).
+     * Repository con override để điền các thuộc tính dẫn xuất, ví dụ key của GSI.
+     */
+    protected void beforeWrite(T item) {
+        // Mặc định không làm gì
+    }
+
     // ==================================================================================
     // 2. READ (Find)
     // ==================================================================================
@@ -94,11 +367,18 @@ public abstract class AbstractDynamoRepository<T> {
             return null; // Hoặc throw Exception tùy logic nghiệp vụ
         }
 
+        // Đã đọc / ghi trong request này (UnitOfWork) -> không đọc lại DB
+        String identityKey = identityPrefix + pk + "|" + sk;
+        if (UnitOfWork.isLoaded(identityKey)) {
+            return UnitOfWork.loaded(identityKey);
+        }
+
         try {
             Key key = Key.builder().partitionValue(pk).sortValue(sk).build();
             logger.debug("Fetching item with PK: {}, SK: {}", pk, sk);
 
             T item = table.getItem(key);
+            UnitOfWork.remember(identityKey, item);
 
             if (item == null) {
                 logger.info("Item not found for PK: {}, SK: {}", pk, sk);
@@ -139,10 +419,128 @@ public abstract class AbstractDynamoRepository<T> {
         }
     }
 
+    /**
+     * Query theo PK với điều kiện SK bắt đầu bằng skPrefix (begins_with), chỉ lấy các thuộc tính cần thiết.
+     * Dùng cho màn hình danh sách: không tải các field lớn (content...) về.
+     *
+     * @param attributesToProject danh sách thuộc tính cần lấy (rỗng = lấy tất cả)
+     */
+    public List<T> findAllBySortKeyPrefix(String pk, String skPrefix, String... attributesToProject) {
+        if (pk == null || pk.isEmpty() || skPrefix == null) return new ArrayList<>();
+
+        try {
+            QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                    .queryConditional(QueryConditional.sortBeginsWith(
+                            Key.builder().partitionValue(pk).sortValue(skPrefix).build()));
+            if (attributesToProject != null && attributesToProject.length > 0) {
+                request.attributesToProject(attributesToProject);
+            }
+
+            logger.debug("Querying items with PK: {}, SK prefix: {}", pk, skPrefix);
+            List<T> items = new ArrayList<>();
+            for (Page<T> page : table.query(request.build())) {
+                items.addAll(page.items());
+            }
+
+            logger.info("Found {} items for PK: {}, SK prefix: {}", items.size(), pk, skPrefix);
+            return items;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to query items by SK prefix: {}", e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not query items", e);
+        }
+    }
+
+    /**
+     * Query trên Global Secondary Index (GSI).
+     * Dùng cho các access pattern xuyên partition (email -> user, industry -> users)
+     * thay vì SCAN toàn bảng. Lưu ý: GSI chỉ hỗ trợ đọc Eventually Consistent.
+     */
+    public List<T> findAllByIndex(String indexName, String indexPk) {
+        return findAllByIndex(indexName, indexPk, null);
+    }
+
+    /**
+     * Query trên GSI với điều kiện Sort Key bắt đầu bằng skPrefix (null = lấy hết).
+     */
+    public List<T> findAllByIndex(String indexName, String indexPk, String skPrefix) {
+        if (indexName == null || indexPk == null || indexPk.isEmpty()) return new ArrayList<>();
+
+        try {
+            QueryConditional queryConditional = (skPrefix == null || skPrefix.isEmpty())
+                    ? QueryConditional.keyEqualTo(Key.builder().partitionValue(indexPk).build())
+                    : QueryConditional.sortBeginsWith(Key.builder().partitionValue(indexPk).sortValue(skPrefix).build());
+
+            logger.debug("Querying index {} with PK: {}, SK prefix: {}", indexName, indexPk, skPrefix);
+
+            DynamoDbIndex<T> index = table.index(indexName);
+            List<T> items = new ArrayList<>();
+            for (Page<T> page : index.query(queryConditional)) {
+                items.addAll(page.items());
+            }
+
+            logger.info("Found {} items on index {} for PK: {}", items.size(), indexName, indexPk);
+            return items;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to query index {}: {}", indexName, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not query index", e);
+        }
+    }
+
+    /**
+     * Lấy tối đa limit item đầu tiên trên GSI (theo thứ tự Sort Key tăng dần).
+     * Dùng cho hàng đợi trên index thưa (VD: TIP#PENDING), không đọc hết partition.
+     */
+    public List<T> findFirstByIndex(String indexName, String indexPk, int limit) {
+        if (indexName == null || indexPk == null || indexPk.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        try {
+            QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                    .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(indexPk).build()))
+                    .limit(Math.min(limit, 100))
+                    .build();
+
+            List<T> items = new ArrayList<>();
+            for (Page<T> page : table.index(indexName).query(request)) {
+                for (T item : page.items()) {
+                    items.add(item);
+                    if (items.size() >= limit) return items;
+                }
+            }
+            return items;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to query index {}: {}", indexName, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not query index", e);
+        }
+    }
+
+    /**
+     * Duyệt mọi item thô (mọi loại entity) của một partition theo từng trang Query:
+     * bộ nhớ chỉ giữ 1 trang dù partition lớn tới đâu (export dữ liệu user).
+     */
+    public void forEachItemInPartition(String pk, int pageSize, Consumer<Map<String, AttributeValue>> consumer) {
+        QueryRequest request = QueryRequest.builder()
+                .tableName(tableName)
+                .keyConditionExpression("#pk = :pk")
+                .expressionAttributeNames(Map.of("#pk", "PK"))
+                .expressionAttributeValues(Map.of(":pk", AttributeValue.fromS(pk)))
+                .limit(pageSize)
+                .build();
+        try {
+            for (QueryResponse page : dynamoDbClient.queryPaginator(request)) {
+                page.items().forEach(consumer);
+            }
+        } catch (DynamoDbException e) {
+            logger.error("Failed to page through partition {}: {}", pk, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not query partition", e);
+        }
+    }
+
     /**
      * ⚠️ CẢNH BÁO: Quét toàn bộ bảng (SCAN).
      * Rất tốn kém Read Capacity Unit (RCU) và chậm nếu bảng lớn.
-     * Chỉ dùng cho các bảng nhỏ (như Industry) hoặc debug.
+     * Chỉ dùng cho các bảng nhỏ hoặc debug.
+     * Với các access pattern thường gặp, hãy dùng {@link #findAllByIndex(String, String)}.
+     * Với job bảo trì trên toàn bảng, hãy dùng {@link #parallelScan(ParallelScanOptions, ScanCheckpoint, Consumer)}.
      */
     public List<T> findAll() {
         try {
@@ -154,6 +552,233 @@ public abstract class AbstractDynamoRepository<T> {
         }
     }
 
+    /**
+     * Parallel Segmented Scan cho job bảo trì (backfill, migration, analytics).
+     * - Chia bảng thành N segment, mỗi segment chạy trên 1 thread riêng.
+     * - Item được đẩy vào consumer theo từng trang (streaming), không gom thành List.
+     * - Tốc độ đọc bị giới hạn bởi RCU/s dùng chung (theo ConsumedCapacity thực tế).
+     * - Checkpoint được cập nhật sau mỗi trang (at-least-once): nếu job lỗi, hết deadline hoặc đủ maxItems,
+     *   lưu checkpoint lại và gọi lại hàm này để chạy tiếp.
+     * Consumer phải thread-safe vì được gọi song song từ nhiều segment.
+     *
+     * @return checkpoint (cùng object truyền vào, hoặc mới nếu truyền null)
+     */
+    public ScanCheckpoint parallelScan(ParallelScanOptions options, ScanCheckpoint checkpoint, Consumer<T> consumer) {
+        if (options == null) options = ParallelScanOptions.defaults();
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        if (checkpoint == null) {
+            checkpoint = ScanCheckpoint.start(options.getTotalSegments());
+        } else if (checkpoint.getTotalSegments() != options.getTotalSegments()) {
+            throw new IllegalArgumentException("Checkpoint was created with " + checkpoint.getTotalSegments()
+                    + " segments, cannot resume with " + options.getTotalSegments());
+        }
+
+        final ScanCheckpoint progress = checkpoint;
+        final ParallelScanOptions scanOptions = options;
+        RcuRateLimiter rateLimiter = new RcuRateLimiter(options.getMaxRcuPerSecond());
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicLong delivered = new AtomicLong();
+        AtomicInteger threadCounter = new AtomicInteger();
+
+        logger.info("Starting parallel scan on {} with {} segments, max {} RCU/s, resume state: {}",
+                tableName, options.getTotalSegments(), options.getMaxRcuPerSecond(), progress);
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getTotalSegments(), r -> {
+            Thread t = new Thread(r, "scan-" + tableName + "-" + threadCounter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int segment = 0; segment < options.getTotalSegments(); segment++) {
+                if (progress.isSegmentComplete(segment)) continue;
+                final int seg = segment;
+                futures.add(executor.submit(() -> {
+                    scanSegment(seg, scanOptions, progress, rateLimiter, stop, delivered, consumer);
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Một segment lỗi -> dừng các segment khác, checkpoint vẫn giữ tiến độ đã xong
+                    stop.set(true);
+                    Throwable cause = e.getCause();
+                    logger.error("Parallel scan failed on {}, checkpoint: {}", tableName, progress, cause);
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    throw new RuntimeException("Database Error: Parallel scan failed", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel scan interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Parallel scan on {} finished. State: {}", tableName, progress);
+        return progress;
+    }
+
+    private void scanSegment(int segment, ParallelScanOptions options, ScanCheckpoint checkpoint,
+                             RcuRateLimiter rateLimiter, AtomicBoolean stop, AtomicLong delivered,
+                             Consumer<T> consumer) throws InterruptedException {
+        ScanEnhancedRequest.Builder request = ScanEnhancedRequest.builder()
+                .segment(segment)
+                .totalSegments(options.getTotalSegments())
+                .limit(options.getPageSize())
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        if (options.getFilter() != null) {
+            request.filterExpression(options.getFilter());
+        }
+        Map<String, String> startKey = checkpoint.lastKeyOf(segment);
+        if (startKey != null) {
+            request.exclusiveStartKey(toAttributeKey(startKey));
+        }
+
+        try {
+            Iterator<Page<T>> pages = table.scan(request.build()).iterator();
+            while (!stop.get() && !isPastDeadline(options.getDeadline()) && pages.hasNext()) {
+                Page<T> page = pages.next();
+                page.items().forEach(consumer);
+                checkpoint.record(segment, toStringKey(page.lastEvaluatedKey()), page.items().size());
+                if (options.getMaxItems() > 0 && delivered.addAndGet(page.items().size()) >= options.getMaxItems()) {
+                    stop.set(true); // Đủ item: các segment dừng sau trang hiện tại
+                }
+
+                double consumed = page.consumedCapacity() != null && page.consumedCapacity().capacityUnits() != null
+                        ? page.consumedCapacity().capacityUnits() : options.getPageSize() / 2.0;
+                rateLimiter.acquire(consumed);
+            }
+        } catch (DynamoDbException e) {
+            logger.error("Failed to scan segment {} of {}: {}", segment, tableName, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not scan segment " + segment, e);
+        }
+    }
+
+    private boolean isPastDeadline(Instant deadline) {
+        return deadline != null && Instant.now().isAfter(deadline);
+    }
+
+    private Map<String, String> toStringKey(Map<String, AttributeValue> key) {
+        if (key == null || key.isEmpty()) return null;
+        Map<String, String> result = new HashMap<>();
+        key.forEach((name, value) -> result.put(name, value.s()));
+        return result;
+    }
+
+    private Map<String, AttributeValue> toAttributeKey(Map<String, String> key) {
+        Map<String, AttributeValue> result = new HashMap<>();
+        key.forEach((name, value) -> result.put(name, AttributeValue.fromS(value)));
+        return result;
+    }
+
+    // ==================================================================================
+    // 2b. SHARD / REPLICA (item nóng, xem ShardedKeys)
+    // ==================================================================================
+
+    /**
+     * Đọc tất cả shard của (PK, SK) trong 1 BatchGetItem (scatter-gather), shard chưa từng ghi bị bỏ qua.
+     */
+    public List<T> findAllShards(String pk, String sk, int shards) {
+        if (shards < 1 || shards > MAX_BATCH_GET) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_BATCH_GET);
+        }
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        for (String shardPk : ShardedKeys.shards(pk, shards)) {
+            keys.add(Map.of("PK", AttributeValue.fromS(shardPk), "SK", AttributeValue.fromS(sk)));
+        }
+        Map<String, KeysAndAttributes> request = Map.of(tableName, KeysAndAttributes.builder().keys(keys).build());
+
+        List<T> items = new ArrayList<>();
+        try {
+            for (int attempt = 1; !request.isEmpty(); attempt++) {
+                BatchGetItemResponse response = dynamoDbClient.batchGetItem(
+                        BatchGetItemRequest.builder().requestItems(request).build());
+                response.responses().getOrDefault(tableName, List.of())
+                        .forEach(item -> items.add(table.tableSchema().mapToItem(item)));
+                request = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Map.of();
+                if (!request.isEmpty()) {
+                    if (attempt >= MAX_BATCH_GET_ATTEMPTS) {
+                        throw new RuntimeException("Database Error: Shards of " + pk + " were throttled");
+                    }
+                    // Shard bị throttle: chờ lùi dần có nhiễu rồi đọc lại phần còn thiếu
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(BATCH_GET_BACKOFF_MS << attempt));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Database Error: Interrupted while reading shards", e);
+        } catch (DynamoDbException e) {
+            logger.error("Failed to read shards of {}: {}", pk, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not read shards", e);
+        }
+        return items;
+    }
+
+    /**
+     * Tổng một bộ đếm phân mảnh (merge của {@link #findAllShards}).
+     */
+    public long sumShards(String pk, String sk, int shards, ToLongFunction<T> counter) {
+        return findAllShards(pk, sk, shards).stream().mapToLong(counter).sum();
+    }
+
+    /**
+     * Đọc 1 bản sao ngẫu nhiên của item nóng (null nếu bản sao chưa có, caller đọc bản gốc).
+     * Item trả về mang PK / SK của bản gốc.
+     */
+    public T findReplica(String pk, String sk, int replicas) {
+        if (replicas < 1) {
+            return null;
+        }
+        String replicaPk = ShardedKeys.replica(pk, ShardedKeys.randomShard(replicas));
+        try {
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of("PK", AttributeValue.fromS(replicaPk), "SK", AttributeValue.fromS(ShardedKeys.REPLICA_SK)))
+                    .build());
+            if (!response.hasItem() || response.item().isEmpty()) {
+                logger.info("Replica {} not found", replicaPk);
+                return null;
+            }
+            Map<String, AttributeValue> item = new HashMap<>(response.item());
+            item.put("PK", AttributeValue.fromS(pk));
+            item.put("SK", AttributeValue.fromS(sk));
+            return table.tableSchema().mapToItem(item);
+        } catch (DynamoDbException e) {
+            logger.error("Failed to read replica {}: {}", replicaPk, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not fetch item", e);
+        }
+    }
+
+    /**
+     * Item thô của các bản sao (ghi cùng bản gốc trong 1 {@link WriteTransaction}: bản sao không lệch bản gốc).
+     * Bản sao không mang key GSI: không xuất hiện trong các truy vấn index.
+     */
+    public List<Map<String, AttributeValue>> toReplicaItemMaps(T item, int replicas) {
+        if (item == null) {
+            throw new IllegalArgumentException("Entity to replicate cannot be null");
+        }
+        beforeWrite(item);
+        Map<String, AttributeValue> primary = table.tableSchema().itemToMap(item, true);
+        String pk = primary.get("PK").s();
+        List<Map<String, AttributeValue>> copies = new ArrayList<>();
+        for (int i = 0; i < replicas; i++) {
+            Map<String, AttributeValue> copy = new HashMap<>(primary);
+            copy.keySet().removeIf(attribute -> attribute.startsWith("GSI"));
+            copy.put("PK", AttributeValue.fromS(ShardedKeys.replica(pk, i)));
+            copy.put("SK", AttributeValue.fromS(ShardedKeys.REPLICA_SK));
+            copies.add(copy);
+        }
+        return copies;
+    }
+
     // ==================================================================================
     // 3. DELETE
     // ==================================================================================
@@ -168,7 +793,10 @@ public abstract class AbstractDynamoRepository<T> {
             logger.info("Deleting item with PK: {}, SK: {}", pk, sk);
 
             // deleteItem trả về item cũ trước khi xóa (nếu có)
-            return table.deleteItem(key);
+            T deleted = table.deleteItem(key);
+            afterWrite(pk, sk);
+            UnitOfWork.remember(identityPrefix + pk + "|" + sk, null);
+            return deleted;
         } catch (DynamoDbException e) {
             logger.error("Failed to delete item: {}", e.getMessage(), e);
             throw new RuntimeException("Database Error: Could not delete item", e);
@@ -3,6 +3,7 @@ package khanh.careercoach.backend.repository;
 import khanh.careercoach.backend.model.AssessmentEntity;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -10,21 +11,39 @@ import java.util.stream.Collectors;
 @Repository
 public class AssessmentRepository extends AbstractDynamoRepository<AssessmentEntity> {
 
-    public AssessmentRepository(DynamoDbEnhancedClient client) {
-        super(client, AssessmentEntity.class);
+    // Partition trên GSI1 chứa các bài làm đang chờ batch sinh Improvement Tip
+    public static final String PENDING_TIPS_PK = "TIP#PENDING";
+    public static final String TIP_PENDING = "PENDING";
+
+    public AssessmentRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, AssessmentEntity.class);
     }
 
     // Lấy lịch sử làm bài của User
+    // Query begins_with(SK, ASSESS#): không đọc resume, letter, tổng hợp tháng... cùng partition
     public List<AssessmentEntity> findAllByUserId(String userId) {
-        // Query theo PK = USER#<id>, sau đó lọc SK bắt đầu bằng ASSESS#
-        // (Cách tối ưu hơn là dùng Query Conditional BeginsWith trong SDK,
-        // nhưng dùng findAllByPartitionKey lọc mềm cũng ổn với số lượng ít)
-        List<AssessmentEntity> allItems = findAllByPartitionKey("USER#" + userId);
-
-        return allItems.stream()
-                .filter(item -> item.getSk() != null && item.getSk().startsWith("ASSESS#"))
+        return findAllBySortKeyPrefix("USER#" + userId, "ASSESS#").stream()
                 // Sắp xếp theo ngày tạo (Mới nhất lên đầu) - Logic Java
                 .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * Các bài làm đang chờ sinh tip, cũ nhất trước.
+     */
+    public List<AssessmentEntity> findPendingTips(int limit) {
+        return findFirstByIndex(GSI1, PENDING_TIPS_PK, limit);
+    }
+
+    @Override
+    protected void beforeWrite(AssessmentEntity assessment) {
+        // Chỉ item đang PENDING mới nằm trên index (index thưa, batch query rẻ)
+        if (TIP_PENDING.equals(assessment.getTipStatus())) {
+            assessment.setGsi1Pk(PENDING_TIPS_PK);
+            assessment.setGsi1Sk(assessment.getCreatedAt());
+        } else {
+            assessment.setGsi1Pk(null);
+            assessment.setGsi1Sk(null);
+        }
+    }
+}
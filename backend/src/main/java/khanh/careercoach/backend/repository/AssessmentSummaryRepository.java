@@ -0,0 +1,31 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.AssessmentSummaryEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+public class AssessmentSummaryRepository extends AbstractDynamoRepository<AssessmentSummaryEntity> {
+
+    // Không bắt đầu bằng ASSESS#: không lẫn vào lịch sử bài làm, stream filter và tem version của bài làm
+    public static final String SUMMARY_SK_PREFIX = "SUMMARY#ASSESS#";
+
+    public AssessmentSummaryRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, AssessmentSummaryEntity.class);
+    }
+
+    public static String summarySk(String month) {
+        return SUMMARY_SK_PREFIX + month;
+    }
+
+    // PK: USER#<userId>, SK bắt đầu bằng SUMMARY#ASSESS# (cũ -> mới)
+    public List<AssessmentSummaryEntity> findAllByUserId(String userId) {
+        return findAllBySortKeyPrefix("USER#" + userId, SUMMARY_SK_PREFIX).stream()
+                .sorted(Comparator.comparing(AssessmentSummaryEntity::getSk))
+                .toList();
+    }
+}
@@ -0,0 +1,36 @@
+package khanh.careercoach.backend.repository;
+
+/**
+ * Lý do DynamoDB hủy một phần tử của transaction (CancellationReason.Code).
+ */
+public enum CancellationCode {
+    NONE,
+    CONDITIONAL_CHECK_FAILED,
+    TRANSACTION_CONFLICT,
+    THROTTLING_ERROR,
+    PROVISIONED_THROUGHPUT_EXCEEDED,
+    ITEM_COLLECTION_SIZE_LIMIT_EXCEEDED,
+    VALIDATION_ERROR,
+    OTHER;
+
+    public static CancellationCode from(String code) {
+        if (code == null) {
+            return NONE;
+        }
+        return switch (code) {
+            case "None" -> NONE;
+            case "ConditionalCheckFailed" -> CONDITIONAL_CHECK_FAILED;
+            case "TransactionConflict" -> TRANSACTION_CONFLICT;
+            case "ThrottlingError" -> THROTTLING_ERROR;
+            case "ProvisionedThroughputExceeded" -> PROVISIONED_THROUGHPUT_EXCEEDED;
+            case "ItemCollectionSizeLimitExceeded" -> ITEM_COLLECTION_SIZE_LIMIT_EXCEEDED;
+            case "ValidationError" -> VALIDATION_ERROR;
+            default -> OTHER;
+        };
+    }
+
+    // Hủy do dữ liệu đã bị đổi (điều kiện / ghi đồng thời): đọc lại và thử lại được
+    public boolean isConflict() {
+        return this == CONDITIONAL_CHECK_FAILED || this == TRANSACTION_CONFLICT;
+    }
+}
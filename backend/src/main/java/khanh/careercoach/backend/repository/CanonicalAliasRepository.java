@@ -0,0 +1,23 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.CanonicalAliasEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.List;
+
+@Repository
+public class CanonicalAliasRepository extends AbstractDynamoRepository<CanonicalAliasEntity> {
+
+    public static final String PK_PREFIX = "ALIAS#";
+
+    public CanonicalAliasRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, CanonicalAliasEntity.class);
+    }
+
+    // Tất cả alias học được của một loại (PK: ALIAS#<kind>)
+    public List<CanonicalAliasEntity> findAllByKind(String kind) {
+        return findAllByPartitionKey(PK_PREFIX + kind);
+    }
+}
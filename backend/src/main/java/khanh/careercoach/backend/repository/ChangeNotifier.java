@@ -0,0 +1,28 @@
+package khanh.careercoach.backend.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Thông báo thay đổi trong container: mọi repository gọi publish(PK, SK) sau mỗi lần ghi / xóa thành công,
+ * cache trong bộ nhớ đăng ký để bỏ bản sao cũ ngay (đọc lại được ngay thứ vừa ghi).
+ * Thay đổi từ container khác đến qua tem version (VersionStampRepository) do stream cập nhật.
+ */
+@Component
+public class ChangeNotifier {
+
+    private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
+
+    public void subscribe(BiConsumer<String, String> listener) {
+        listeners.add(listener);
+    }
+
+    public void publish(String pk, String sk) {
+        for (BiConsumer<String, String> listener : listeners) {
+            listener.accept(pk, sk);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package khanh.careercoach.backend.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DynamoDB JSON ({"S": "..."}, {"N": "1"}, {"M": {...}}...) <-> AttributeValue.
+ * Giữ nguyên kiểu của từng thuộc tính (kể cả B đã nén), nên item đọc lại map được bằng TableSchema như lúc ghi.
+ * Dùng cho event DynamoDB Streams và file export dữ liệu user.
+ */
+public final class DynamoJson {
+
+    private DynamoJson() {
+    }
+
+    /**
+     * @param json item đã parse bởi Jackson (Map thuộc tính -> Map kiểu -> giá trị), null nếu không phải object
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, AttributeValue> readItem(Object json) {
+        if (!(json instanceof Map<?, ?> map)) {
+            return null;
+        }
+        Map<String, AttributeValue> result = new HashMap<>();
+        ((Map<String, Object>) map).forEach((name, value) -> result.put(name, readValue(value)));
+        return result;
+    }
+
+    /**
+     * Ghi item dạng streaming (không dựng cây JSON trong bộ nhớ).
+     */
+    public static void writeItem(JsonGenerator generator, Map<String, AttributeValue> item) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            generator.writeFieldName(attribute.getKey());
+            writeValue(generator, attribute.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AttributeValue readValue(Object json) {
+        Map<String, Object> typed = (Map<String, Object>) json;
+        Map.Entry<String, Object> entry = typed.entrySet().iterator().next();
+        Object value = entry.getValue();
+        return switch (entry.getKey()) {
+            case "S" -> AttributeValue.fromS((String) value);
+            case "N" -> AttributeValue.fromN(String.valueOf(value));
+            case "B" -> AttributeValue.fromB(SdkBytes.fromByteArray(Base64.getDecoder().decode((String) value)));
+            case "BOOL" -> AttributeValue.fromBool(Boolean.parseBoolean(String.valueOf(value)));
+            case "NULL" -> AttributeValue.fromNul(true);
+            case "SS" -> AttributeValue.fromSs((List<String>) value);
+            case "NS" -> AttributeValue.fromNs(((List<Object>) value).stream().map(String::valueOf).toList());
+            case "BS" -> AttributeValue.fromBs(((List<String>) value).stream()
+                    .map(b -> SdkBytes.fromByteArray(Base64.getDecoder().decode(b))).toList());
+            case "L" -> AttributeValue.fromL(((List<Object>) value).stream().map(DynamoJson::readValue).toList());
+            case "M" -> AttributeValue.fromM(readItem(value));
+            default -> throw new IllegalArgumentException("Unsupported attribute type: " + entry.getKey());
+        };
+    }
+
+    private static void writeValue(JsonGenerator generator, AttributeValue value) throws IOException {
+        generator.writeStartObject();
+        switch (value.type()) {
+            case S -> generator.writeStringField("S", value.s());
+            case N -> generator.writeStringField("N", value.n());
+            case B -> {
+                generator.writeFieldName("B");
+                generator.writeBinary(value.b().asByteArrayUnsafe());
+            }
+            case BOOL -> generator.writeBooleanField("BOOL", value.bool());
+            case NUL -> generator.writeBooleanField("NULL", true);
+            case SS -> writeStrings(generator, "SS", value.ss());
+            case NS -> writeStrings(generator, "NS", value.ns());
+            case BS -> {
+                generator.writeArrayFieldStart("BS");
+                for (SdkBytes bytes : value.bs()) {
+                    generator.writeBinary(bytes.asByteArrayUnsafe());
+                }
+                generator.writeEndArray();
+            }
+            case L -> {
+                generator.writeArrayFieldStart("L");
+                for (AttributeValue element : value.l()) {
+                    writeValue(generator, element);
+                }
+                generator.writeEndArray();
+            }
+            case M -> {
+                generator.writeFieldName("M");
+                writeItem(generator, value.m());
+            }
+            default -> throw new IllegalArgumentException("Unsupported attribute type: " + value.type());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeStrings(JsonGenerator generator, String type, List<String> values) throws IOException {
+        generator.writeArrayFieldStart(type);
+        for (String element : values) {
+            generator.writeString(element);
+        }
+        generator.writeEndArray();
+    }
+}
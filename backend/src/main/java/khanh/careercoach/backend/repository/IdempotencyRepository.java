@@ -0,0 +1,103 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.IdempotencyRecordEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.DeleteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.Map;
+
+@Repository
+public class IdempotencyRepository extends AbstractDynamoRepository<IdempotencyRecordEntity> {
+
+    public static final String RECORD_SK = "RECORD";
+
+    public IdempotencyRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, IdempotencyRecordEntity.class);
+    }
+
+    /**
+     * Chiếm bản ghi để xử lý request: chỉ thành công nếu chưa có bản ghi, hoặc bản ghi cũ đã hết hạn
+     * (khóa của Lambda bị timeout, hoặc response đã hết thời gian phát lại).
+     *
+     * @return true nếu request này được quyền xử lý
+     */
+    public boolean tryAcquire(String pk, String owner, long nowEpochSeconds, long lockExpiresAt, long ttl) {
+        IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+        record.setPk(pk);
+        record.setSk(RECORD_SK);
+        record.setStatus("IN_PROGRESS");
+        record.setOwner(owner);
+        record.setExpiresAt(lockExpiresAt);
+        record.setTtl(ttl);
+
+        Expression condition = Expression.builder()
+                .expression("attribute_not_exists(PK) OR expiresAt < :now")
+                .expressionValues(Map.of(":now", AttributeValue.fromN(Long.toString(nowEpochSeconds))))
+                .build();
+        try {
+            table.putItem(PutItemEnhancedRequest.builder(IdempotencyRecordEntity.class)
+                    .item(record)
+                    .conditionExpression(condition)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to acquire idempotency record {}: {}", pk, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not acquire idempotency record", e);
+        }
+    }
+
+    /**
+     * Lưu response để các request trùng sau đó phát lại.
+     */
+    public void complete(String pk, int statusCode, String responseBody, long replayUntil, long ttl) {
+        updatePartial(pk, RECORD_SK, PartialUpdate.create()
+                .set("status", "COMPLETED")
+                .set("statusCode", statusCode)
+                .set("responseBody", responseBody)
+                .set("expiresAt", replayUntil)
+                .set("ttl", ttl));
+    }
+
+    public IdempotencyRecordEntity find(String pk) {
+        // Được gọi lặp lại để chờ request khác hoàn tất: luôn đọc DB, không dùng bản của UnitOfWork
+        evict(pk, RECORD_SK);
+        return findById(pk, RECORD_SK);
+    }
+
+    /**
+     * Bỏ bản ghi khi xử lý lỗi, để request gửi lại được xử lý từ đầu.
+     * Chỉ xóa nếu bản ghi vẫn thuộc owner: khóa đã hết hạn và bị request khác chiếm thì giữ nguyên.
+     *
+     * @return false nếu bản ghi đã thuộc request khác (hoặc không còn)
+     */
+    public boolean release(String pk, String owner) {
+        Expression condition = Expression.builder()
+                .expression("#owner = :owner")
+                .expressionNames(Map.of("#owner", "owner"))
+                .expressionValues(Map.of(":owner", AttributeValue.fromS(owner)))
+                .build();
+        try {
+            table.deleteItem(DeleteItemEnhancedRequest.builder()
+                    .key(Key.builder().partitionValue(pk).sortValue(RECORD_SK).build())
+                    .conditionExpression(condition)
+                    .build());
+            evict(pk, RECORD_SK);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to release idempotency record {}: {}", pk, e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not release idempotency record", e);
+        }
+    }
+}
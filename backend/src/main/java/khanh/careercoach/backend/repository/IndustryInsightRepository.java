@@ -3,12 +3,24 @@ package khanh.careercoach.backend.repository;
 import khanh.careercoach.backend.model.IndustryInsightEntity;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
 
 @Repository
 public class IndustryInsightRepository extends AbstractDynamoRepository<IndustryInsightEntity> {
 
-    public IndustryInsightRepository(DynamoDbEnhancedClient client) {
-        super(client, IndustryInsightEntity.class);
+    // Partition cố định trên GSI1 chứa tất cả ngành đã có Insight
+    private static final String ALL_INDUSTRIES_PK = "INDUSTRIES";
+
+    // Insight được mọi user cùng ngành đọc: đọc qua N bản sao INDUSTRY#<industry>#R<k> / REPLICA (ShardedKeys)
+    // Bản sao + bản gốc nằm trong 1 transaction nên N < MAX_ITEMS
+    private final int readReplicas = Math.min(intEnv("INDUSTRY_INSIGHT_REPLICAS", 4), WriteTransaction.MAX_ITEMS - 1);
+
+    public IndustryInsightRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, IndustryInsightEntity.class);
     }
 
     /**
@@ -27,4 +39,67 @@ public class IndustryInsightRepository extends AbstractDynamoRepository<Industry
 
         return findById(pk, sk);
     }
-}
\ No newline at end of file
+
+    /**
+     * Đọc insight từ 1 bản sao ngẫu nhiên (null nếu bản sao chưa có: caller đọc bản gốc và gọi {@link #rewriteReplicas}).
+     */
+    public IndustryInsightEntity findReplicaByIndustry(String industryName) {
+        if (industryName == null || industryName.trim().isEmpty()) {
+            return null;
+        }
+        return findReplica("INDUSTRY#" + industryName, "METADATA", readReplicas);
+    }
+
+    /**
+     * Ghi bản gốc và mọi bản sao trong 1 transaction: bản sao không bao giờ lệch bản gốc.
+     * Bản sao không mang GSI1: không lặp trong findAllIndustries.
+     */
+    public void saveWithReplicas(IndustryInsightEntity insight) {
+        WriteTransaction transaction = writeTransaction().put(this, insight);
+        toReplicaItemMaps(insight, readReplicas).forEach(replica -> transaction.put(replica, null));
+        transaction.commit();
+    }
+
+    /**
+     * Ghi lại bản sao từ bản gốc vừa đọc, chỉ khi bản gốc vẫn là phiên bản đó (lastUpdated không đổi):
+     * bản gốc đã được ghi mới thì bản sao cũng đã được ghi cùng, không ghi đè bằng bản cũ.
+     *
+     * @return false nếu bản gốc đã đổi (không ghi gì)
+     */
+    public boolean rewriteReplicas(IndustryInsightEntity insight) {
+        WriteTransaction transaction = writeTransaction();
+        if (insight.getLastUpdated() != null) {
+            transaction.conditionCheck(insight.getPk(), insight.getSk(), "lastUpdated = :lastUpdated",
+                    Map.of(":lastUpdated", AttributeValue.fromS(insight.getLastUpdated())));
+        } else {
+            transaction.conditionCheck(insight.getPk(), insight.getSk(),
+                    "attribute_exists(PK) AND attribute_not_exists(lastUpdated)", null);
+        }
+        toReplicaItemMaps(insight, readReplicas).forEach(replica -> transaction.put(replica, null));
+        try {
+            transaction.commit();
+            return true;
+        } catch (TransactionCancelledException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Liệt kê tất cả ngành đã có Insight (Query trên GSI1 thay vì SCAN).
+     * GSI1_PK: INDUSTRIES, GSI1_SK: INDUSTRY#<industryName>
+     */
+    public List<IndustryInsightEntity> findAllIndustries() {
+        return findAllByIndex(GSI1, ALL_INDUSTRIES_PK, "INDUSTRY#");
+    }
+
+    @Override
+    protected void beforeWrite(IndustryInsightEntity insight) {
+        insight.setGsi1Pk(ALL_INDUSTRIES_PK);
+        insight.setGsi1Sk(insight.getPk());
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+}
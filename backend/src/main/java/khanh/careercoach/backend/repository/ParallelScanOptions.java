@@ -0,0 +1,75 @@
+package khanh.careercoach.backend.repository;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+
+import java.time.Instant;
+
+/**
+ * Tham số cho {@link AbstractDynamoRepository#parallelScan(ParallelScanOptions, ScanCheckpoint, java.util.function.Consumer)}.
+ * Giá trị mặc định an toàn cho bảng On-Demand: 4 segment, tối đa 50 RCU/s, 100 item/trang.
+ */
+public class ParallelScanOptions {
+
+    private int totalSegments = 4;
+    private double maxRcuPerSecond = 50;
+    private int pageSize = 100;
+    private Expression filter;
+    private Instant deadline;
+    private long maxItems;
+
+    public static ParallelScanOptions defaults() {
+        return new ParallelScanOptions();
+    }
+
+    public ParallelScanOptions totalSegments(int totalSegments) {
+        if (totalSegments < 1) throw new IllegalArgumentException("totalSegments must be >= 1");
+        this.totalSegments = totalSegments;
+        return this;
+    }
+
+    public ParallelScanOptions maxRcuPerSecond(double maxRcuPerSecond) {
+        if (maxRcuPerSecond <= 0) throw new IllegalArgumentException("maxRcuPerSecond must be > 0");
+        this.maxRcuPerSecond = maxRcuPerSecond;
+        return this;
+    }
+
+    public ParallelScanOptions pageSize(int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize must be >= 1");
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Filter chạy phía server (chỉ giảm dữ liệu trả về, KHÔNG giảm RCU tiêu thụ).
+     */
+    public ParallelScanOptions filter(Expression filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Mốc dừng (ví dụ trước khi Lambda timeout). Khi hết giờ, scan dừng lại và trả về checkpoint dở dang.
+     */
+    public ParallelScanOptions deadline(Instant deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Dừng sau khi consumer đã nhận ít nhất maxItems item (0 = không giới hạn). Trang đang đọc dở vẫn được
+     * đưa hết vào consumer trước khi dừng (có thể vượt tối đa 1 trang mỗi segment): checkpoint không bao giờ
+     * đi qua item mà consumer chưa nhận.
+     */
+    public ParallelScanOptions maxItems(long maxItems) {
+        if (maxItems < 0) throw new IllegalArgumentException("maxItems must be >= 0");
+        this.maxItems = maxItems;
+        return this;
+    }
+
+    public int getTotalSegments() { return totalSegments; }
+    public double getMaxRcuPerSecond() { return maxRcuPerSecond; }
+    public int getPageSize() { return pageSize; }
+    public Expression getFilter() { return filter; }
+    public Instant getDeadline() { return deadline; }
+    public long getMaxItems() { return maxItems; }
+}
@@ -0,0 +1,266 @@
+package khanh.careercoach.backend.repository;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Mô tả một UpdateItem từng phần (partial update) cho {@link AbstractDynamoRepository#updatePartial}.
+ * Chỉ các thuộc tính được khai báo mới bị ghi, nên 2 request cập nhật 2 field khác nhau
+ * không ghi đè lên nhau (khác với putItem ghi đè toàn bộ item).
+ *
+ * Ví dụ:
+ * <pre>
+ * PartialUpdate.create()
+ *         .set("bio", request.getBio())              // null sẽ bị bỏ qua
+ *         .setIfNotExists("createdAt", now)          // if_not_exists(createdAt, :now)
+ *         .incrementVersion()                        // version = if_not_exists(version, 0) + 1
+ *         .expectVersion(request.getVersion());      // Optimistic Locking (null = không kiểm tra)
+ * </pre>
+ */
+public class PartialUpdate {
+
+    public static final String VERSION_ATTRIBUTE = "version";
+
+    // Giữ giá trị Java gốc, chỉ chuyển sang AttributeValue lúc compile (để dùng converter của Entity)
+    private final Map<String, Object> sets = new LinkedHashMap<>();
+    private final Map<String, Object> setIfNotExists = new LinkedHashMap<>();
+    private final Map<String, AttributeValue> adds = new LinkedHashMap<>();
+    private final List<String> removes = new ArrayList<>();
+    // Trần cho các thuộc tính ADD: chỉ ghi nếu giá trị sau khi cộng không vượt trần
+    private final Map<String, AttributeValue> addCeilings = new LinkedHashMap<>();
+    private boolean incrementVersion;
+    private Long expectedVersion;
+    private boolean expectNotExists;
+    private boolean expectExists;
+    private final List<String> expectAbsent = new ArrayList<>();
+    private final Map<String, Object> expectEquals = new LinkedHashMap<>();
+    private ReturnValue returnValue = ReturnValue.ALL_NEW;
+
+    public static PartialUpdate create() {
+        return new PartialUpdate();
+    }
+
+    /** SET attribute = value. Giá trị null bị bỏ qua (dùng {@link #remove} để xóa thuộc tính). */
+    public PartialUpdate set(String attribute, Object value) {
+        if (value != null) sets.put(attribute, value);
+        return this;
+    }
+
+    /** SET attribute = if_not_exists(attribute, value). Dùng cho createdAt, email... */
+    public PartialUpdate setIfNotExists(String attribute, Object value) {
+        if (value != null) setIfNotExists.put(attribute, value);
+        return this;
+    }
+
+    /** ADD attribute :delta (tăng/giảm nguyên tử, tạo mới với giá trị delta nếu chưa có). */
+    public PartialUpdate add(String attribute, Number delta) {
+        if (delta != null) adds.put(attribute, AttributeValue.fromN(delta.toString()));
+        return this;
+    }
+
+    /**
+     * ADD attribute :delta, chỉ khi kết quả không vượt limit (điều kiện nguyên tử trên DB).
+     * Vượt trần -> updatePartial ném ConcurrentModificationException (điều kiện không thỏa).
+     * Dùng cho bộ đếm quota: nhiều Lambda cộng cùng lúc vẫn không vượt limit.
+     */
+    public PartialUpdate addWithinLimit(String attribute, long delta, long limit) {
+        adds.put(attribute, AttributeValue.fromN(Long.toString(delta)));
+        addCeilings.put(attribute, AttributeValue.fromN(Long.toString(limit - delta)));
+        return this;
+    }
+
+    /** REMOVE attribute. */
+    public PartialUpdate remove(String attribute) {
+        removes.add(attribute);
+        return this;
+    }
+
+    /** Tăng thuộc tính version lên 1 (tương thích với @DynamoDbVersionAttribute). */
+    public PartialUpdate incrementVersion() {
+        this.incrementVersion = true;
+        return this;
+    }
+
+    /**
+     * Chỉ ghi nếu version hiện tại trong DB bằng expectedVersion (Optimistic Locking).
+     * null = không kiểm tra (ghi từng phần vẫn an toàn với các field không bị đụng tới).
+     */
+    public PartialUpdate expectVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+        return this;
+    }
+
+    /** Chỉ ghi nếu item chưa có version (chưa từng được tạo), dùng khi client tạo mới. */
+    public PartialUpdate expectNotExists() {
+        this.expectNotExists = true;
+        return this;
+    }
+
+    /** Chỉ ghi nếu item đã tồn tại (không tạo item rỗng khi item vừa bị xóa). */
+    public PartialUpdate expectExists() {
+        this.expectExists = true;
+        return this;
+    }
+
+    /** Chỉ ghi nếu item chưa có thuộc tính attribute (VD: chưa được đặt ttl). */
+    public PartialUpdate expectAbsent(String attribute) {
+        expectAbsent.add(attribute);
+        return this;
+    }
+
+    /** Chỉ ghi nếu thuộc tính attribute hiện bằng value (VD: tipStatus vẫn là PENDING). */
+    public PartialUpdate expectEquals(String attribute, Object value) {
+        expectEquals.put(attribute, value);
+        return this;
+    }
+
+    /** Trả về item cũ (ALL_OLD) thay vì item mới (ALL_NEW, mặc định). */
+    public PartialUpdate returnOldItem() {
+        this.returnValue = ReturnValue.ALL_OLD;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return sets.isEmpty() && setIfNotExists.isEmpty() && adds.isEmpty() && removes.isEmpty() && !incrementVersion;
+    }
+
+    public boolean setsAttribute(String attribute) {
+        return sets.containsKey(attribute) || setIfNotExists.containsKey(attribute);
+    }
+
+    public Object valueOf(String attribute) {
+        return sets.containsKey(attribute) ? sets.get(attribute) : setIfNotExists.get(attribute);
+    }
+
+    public ReturnValue getReturnValue() {
+        return returnValue;
+    }
+
+    // ==================================================================================
+    // Build Expression
+    // ==================================================================================
+
+    /**
+     * Kết quả build: UpdateExpression, ConditionExpression (có thể null) và map placeholder.
+     */
+    public record Compiled(String updateExpression, String conditionExpression,
+                           Map<String, String> names, Map<String, AttributeValue> values) {}
+
+    public Compiled compile() {
+        return compile((attribute, value) -> toAttributeValue(value));
+    }
+
+    /**
+     * @param encoder chuyển (tên thuộc tính, giá trị Java) sang AttributeValue,
+     *                repository truyền converter của TableSchema để đồng nhất với putItem
+     */
+    public Compiled compile(BiFunction<String, Object, AttributeValue> encoder) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> setClauses = new ArrayList<>();
+        List<String> addClauses = new ArrayList<>();
+        List<String> removeClauses = new ArrayList<>();
+        int[] counter = {0};
+
+        sets.forEach((attr, value) -> {
+            int i = counter[0]++;
+            names.put("#a" + i, attr);
+            values.put(":v" + i, encoder.apply(attr, value));
+            setClauses.add("#a" + i + " = :v" + i);
+        });
+        setIfNotExists.forEach((attr, value) -> {
+            int i = counter[0]++;
+            names.put("#a" + i, attr);
+            values.put(":v" + i, encoder.apply(attr, value));
+            setClauses.add("#a" + i + " = if_not_exists(#a" + i + ", :v" + i + ")");
+        });
+        List<String> conditions = new ArrayList<>();
+        adds.forEach((attr, value) -> {
+            int i = counter[0]++;
+            names.put("#a" + i, attr);
+            values.put(":v" + i, value);
+            addClauses.add("#a" + i + " :v" + i);
+            AttributeValue ceiling = addCeilings.get(attr);
+            if (ceiling != null) {
+                values.put(":c" + i, ceiling);
+                conditions.add("(attribute_not_exists(#a" + i + ") OR #a" + i + " <= :c" + i + ")");
+            }
+        });
+        for (String attr : removes) {
+            int i = counter[0]++;
+            names.put("#a" + i, attr);
+            removeClauses.add("#a" + i);
+        }
+
+        if (incrementVersion || expectedVersion != null || expectNotExists) {
+            names.put("#ver", VERSION_ATTRIBUTE);
+        }
+        if (incrementVersion) {
+            values.put(":verZero", AttributeValue.fromN("0"));
+            values.put(":verOne", AttributeValue.fromN("1"));
+            setClauses.add("#ver = if_not_exists(#ver, :verZero) + :verOne");
+        }
+        if (expectedVersion != null) {
+            values.put(":verExpected", AttributeValue.fromN(expectedVersion.toString()));
+            conditions.add("#ver = :verExpected");
+        } else if (expectNotExists) {
+            conditions.add("attribute_not_exists(#ver)");
+        }
+        if (expectExists) {
+            names.put("#pk", "PK");
+            conditions.add("attribute_exists(#pk)");
+        }
+        for (String attr : expectAbsent) {
+            int i = counter[0]++;
+            names.put("#a" + i, attr);
+            conditions.add("attribute_not_exists(#a" + i + ")");
+        }
+        expectEquals.forEach((attr, value) -> {
+            int i = counter[0]++;
+            names.put("#a" + i, attr);
+            values.put(":e" + i, encoder.apply(attr, value));
+            conditions.add("#a" + i + " = :e" + i);
+        });
+        String condition = conditions.isEmpty() ? null : String.join(" AND ", conditions);
+
+        StringBuilder expression = new StringBuilder();
+        if (!setClauses.isEmpty()) expression.append("SET ").append(String.join(", ", setClauses));
+        if (!addClauses.isEmpty()) expression.append(" ADD ").append(String.join(", ", addClauses));
+        if (!removeClauses.isEmpty()) expression.append(" REMOVE ").append(String.join(", ", removeClauses));
+
+        return new Compiled(expression.toString().trim(), condition, names, values);
+    }
+
+    /**
+     * Chuyển giá trị Java sang AttributeValue (cùng quy ước với DynamoDB Enhanced Client:
+     * List -> L, Map -> M, Number -> N).
+     */
+    static AttributeValue toAttributeValue(Object value) {
+        if (value == null) return AttributeValue.fromNul(true);
+        if (value instanceof AttributeValue av) return av;
+        if (value instanceof String s) return AttributeValue.fromS(s);
+        if (value instanceof Number n) return AttributeValue.fromN(n.toString());
+        if (value instanceof Boolean b) return AttributeValue.fromBool(b);
+        if (value instanceof byte[] bytes) return AttributeValue.fromB(SdkBytes.fromByteArray(bytes));
+        if (value instanceof Collection<?> collection) {
+            List<AttributeValue> list = new ArrayList<>();
+            for (Object element : collection) list.add(toAttributeValue(element));
+            return AttributeValue.fromL(list);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, AttributeValue> m = new HashMap<>();
+            map.forEach((k, v) -> m.put(String.valueOf(k), toAttributeValue(v)));
+            return AttributeValue.fromM(m);
+        }
+        throw new IllegalArgumentException("Unsupported attribute type: " + value.getClass().getName());
+    }
+}
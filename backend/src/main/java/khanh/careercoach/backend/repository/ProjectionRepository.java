@@ -0,0 +1,71 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.ProjectionEntity;
+import khanh.careercoach.backend.stream.ProjectionSink;
+import khanh.careercoach.backend.stream.ProjectionWrite;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ProjectionRepository extends AbstractDynamoRepository<ProjectionEntity> implements ProjectionSink {
+
+    public static final String MEMBERS_SK = "PROJ#MEMBERS";
+    public static final String ACTIVITY_SK = "PROJ#ACTIVITY";
+    public static final String APPLIED_SK = "APPLIED";
+    // Số shard của bộ đếm user theo ngành (chỉ được tăng, xem ShardedKeys)
+    public static final int MEMBER_COUNT_SHARDS = 8;
+    // Stream giữ bản ghi 24h: sổ ghi giữ lâu hơn để mọi lần gửi lại đều bị nhận ra
+    private static final long LEDGER_TTL_SECONDS = 25 * 3600L;
+
+    public ProjectionRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, ProjectionEntity.class);
+    }
+
+    // PK: INDUSTRY#<industry>#S<k>, SK: PROJ#MEMBERS -> tổng userCount các shard
+    public long countMembers(String industry) {
+        return sumShards("INDUSTRY#" + industry, MEMBERS_SK, MEMBER_COUNT_SHARDS,
+                members -> members.getUserCount() != null ? members.getUserCount() : 0);
+    }
+
+    // PK: USER#<userId>, SK: PROJ#ACTIVITY
+    public ProjectionEntity findActivity(String userId) {
+        return findById("USER#" + userId, ACTIVITY_SK);
+    }
+
+    /**
+     * Ghi sổ STREAM#<eventID> (chỉ khi chưa có) cùng các cập nhật read model trong 1 transaction:
+     * Lambda retry cả batch từ checkpoint thì bản ghi đã áp dụng bị từ chối nguyên khối, không cộng 2 lần.
+     */
+    @Override
+    public boolean applyOnce(String eventId, List<ProjectionWrite> writes) {
+        String ledgerPk = "STREAM#" + eventId;
+        long ttl = Instant.now().getEpochSecond() + LEDGER_TTL_SECONDS;
+        WriteTransaction transaction = writeTransaction().put(Map.of(
+                "PK", AttributeValue.fromS(ledgerPk),
+                "SK", AttributeValue.fromS(APPLIED_SK),
+                "ttl", AttributeValue.fromN(Long.toString(ttl))), "attribute_not_exists(PK)");
+        for (ProjectionWrite write : writes) {
+            transaction.update(this, write.pk(), write.sk(), write.update());
+        }
+
+        try {
+            transaction.commit();
+            return true;
+        } catch (TransactionCancelledException e) {
+            // Sổ ghi đã có = đã áp dụng trước đó; xung đột khác để dispatcher báo lỗi và Lambda gửi lại
+            boolean applied = e.reasons().stream().anyMatch(r -> r.code() == CancellationCode.CONDITIONAL_CHECK_FAILED
+                    && ledgerPk.equals(r.pk()) && APPLIED_SK.equals(r.sk()));
+            if (applied) {
+                logger.info("Stream record {} already applied, skipping", eventId);
+                return false;
+            }
+            throw e;
+        }
+    }
+}
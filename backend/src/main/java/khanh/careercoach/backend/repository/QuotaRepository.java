@@ -0,0 +1,58 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.QuotaCounterEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.ConcurrentModificationException;
+
+@Repository
+public class QuotaRepository extends AbstractDynamoRepository<QuotaCounterEntity> {
+
+    public QuotaRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, QuotaCounterEntity.class);
+    }
+
+    /**
+     * Cộng nguyên tử amount vào bộ đếm request của cửa sổ, chỉ khi tổng không vượt limit.
+     *
+     * @return true nếu đã cộng, false nếu cửa sổ đã hết quota
+     */
+    public boolean tryConsumeRequests(String pk, String sk, long amount, long limit, long ttlEpochSeconds) {
+        try {
+            updatePartial(pk, sk, PartialUpdate.create()
+                    .addWithinLimit("requests", amount, limit)
+                    .setIfNotExists("ttl", ttlEpochSeconds));
+            return true;
+        } catch (ConcurrentModificationException e) {
+            // Điều kiện trần không thỏa: cửa sổ đã dùng hết
+            return false;
+        }
+    }
+
+    /**
+     * Cộng số token model đã dùng (không điều kiện), trả về tổng mới của cửa sổ.
+     */
+    public long addTokens(String pk, String sk, long tokens, long ttlEpochSeconds) {
+        QuotaCounterEntity counter = updatePartial(pk, sk, PartialUpdate.create()
+                .add("tokens", tokens)
+                .setIfNotExists("ttl", ttlEpochSeconds));
+        return counter != null && counter.getTokens() != null ? counter.getTokens() : tokens;
+    }
+
+    /**
+     * Số token đã dùng trong cửa sổ (0 nếu chưa có bộ đếm).
+     */
+    public long findTokens(String pk, String sk) {
+        QuotaCounterEntity counter = findById(pk, sk);
+        return counter != null && counter.getTokens() != null ? counter.getTokens() : 0;
+    }
+
+    /**
+     * Tổng token của cửa sổ trên mọi shard của bộ đếm (scatter-gather 1 BatchGetItem).
+     */
+    public long sumTokens(String pk, String sk, int shards) {
+        return sumShards(pk, sk, shards, counter -> counter.getTokens() != null ? counter.getTokens() : 0);
+    }
+}
@@ -0,0 +1,41 @@
+package khanh.careercoach.backend.repository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter đơn giản theo Read Capacity Unit (RCU), dùng chung giữa các segment của Parallel Scan.
+ * Cơ chế "trả sau": mỗi trang Scan báo số RCU thực tế đã tiêu thụ (ConsumedCapacity),
+ * limiter đẩy mốc "được phép đọc tiếp" về tương lai tương ứng và bắt thread chờ.
+ */
+public class RcuRateLimiter {
+
+    private final double rcuPerSecond;
+    private long nextFreeNanos = System.nanoTime();
+
+    public RcuRateLimiter(double rcuPerSecond) {
+        if (rcuPerSecond <= 0) {
+            throw new IllegalArgumentException("rcuPerSecond must be > 0");
+        }
+        this.rcuPerSecond = rcuPerSecond;
+    }
+
+    /**
+     * Ghi nợ số RCU vừa dùng và chờ cho tới khi tốc độ trung bình trở lại dưới ngưỡng.
+     */
+    public void acquire(double consumedRcu) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            waitNanos = start - now;
+            nextFreeNanos = start + (long) (consumedRcu / rcuPerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public double getRcuPerSecond() {
+        return rcuPerSecond;
+    }
+}
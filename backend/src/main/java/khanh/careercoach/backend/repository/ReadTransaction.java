@@ -0,0 +1,101 @@
+package khanh.careercoach.backend.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.Get;
+import software.amazon.awssdk.services.dynamodb.model.ItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc nhiều item (có thể khác entity) trong 1 TransactGetItems: các item cùng một thời điểm
+ * (không xen giữa một transaction ghi). Tốn gấp đôi RCU so với đọc thường: chỉ dùng khi cần ảnh nhất quán.
+ */
+public class ReadTransaction {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadTransaction.class);
+
+    static final int MAX_ITEMS = 100; // Giới hạn của TransactGetItems
+
+    private record Read(AbstractDynamoRepository<?> repository, String pk, String sk) {
+    }
+
+    /**
+     * Kết quả theo thứ tự get(); item không tồn tại = null.
+     */
+    public static final class Results {
+        private final List<Object> items;
+
+        private Results(List<Object> items) {
+            this.items = items;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <E> E get(int index) {
+            return (E) items.get(index);
+        }
+
+        public int size() {
+            return items.size();
+        }
+    }
+
+    private final AbstractDynamoRepository<?> origin;
+    private final List<Read> reads = new ArrayList<>();
+
+    ReadTransaction(AbstractDynamoRepository<?> origin) {
+        this.origin = origin;
+    }
+
+    public ReadTransaction get(AbstractDynamoRepository<?> repository, String pk, String sk) {
+        reads.add(new Read(repository, pk, sk));
+        return this;
+    }
+
+    public Results execute() {
+        if (reads.isEmpty()) {
+            return new Results(List.of());
+        }
+        if (reads.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("Too many items in one transaction: " + reads.size());
+        }
+        TransactGetItemsRequest request = TransactGetItemsRequest.builder()
+                .transactItems(reads.stream().map(read -> TransactGetItem.builder().get(Get.builder()
+                        .tableName(origin.tableName)
+                        .key(WriteTransaction.key(read.pk(), read.sk()))
+                        .build()).build()).toList())
+                .build();
+
+        try {
+            TransactGetItemsResponse response = origin.dynamoDbClient.transactGetItems(request);
+            List<Object> items = new ArrayList<>();
+            for (int i = 0; i < reads.size(); i++) {
+                Read read = reads.get(i);
+                ItemResponse item = response.responses().get(i);
+                items.add(read.repository().fromTransactGet(read.pk(), read.sk(),
+                        item.hasItem() && !item.item().isEmpty() ? item.item() : null));
+            }
+            return new Results(items);
+        } catch (TransactionCanceledException e) {
+            // Đọc trùng lúc một transaction ghi đang chạy trên cùng item
+            List<TransactionCancelledException.Reason> reasons = WriteTransaction.reasons(
+                    e.hasCancellationReasons() ? e.cancellationReasons() : List.of(),
+                    reads.stream().map(r -> new String[]{r.pk(), r.sk()}).toList());
+            if (reasons.stream().anyMatch(r -> r.code().isConflict())) {
+                logger.warn("Transactional read cancelled by conflict: {}", reasons);
+                throw new TransactionCancelledException(reasons);
+            }
+            logger.error("Transactional read cancelled: {}", reasons, e);
+            throw new RuntimeException("Database Error: Could not read items", e);
+        } catch (DynamoDbException e) {
+            logger.error("Failed to read transaction: {}", e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not read items", e);
+        }
+    }
+}
@@ -1,21 +1,129 @@
 package khanh.careercoach.backend.repository;
 
 import khanh.careercoach.backend.model.ResumeEntity;
+import khanh.careercoach.backend.model.ResumeSectionEntity;
+import khanh.careercoach.backend.model.ResumeVersionEntity;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Repository
 public class ResumeRepository extends AbstractDynamoRepository<ResumeEntity> {
 
-    public ResumeRepository(DynamoDbEnhancedClient client) {
-        super(client, ResumeEntity.class);
+    public static final String RESUME_SK = "RESUME";
+    public static final String SECTION_SK_PREFIX = "RESUME#SECTION#";
+    // Số section tối đa của 1 Resume
+    public static final int MAX_SECTION_WRITES = 98;
+    // Chừa sai số cho ước lượng kích thước của WriteTransaction.itemSize
+    private static final long MAX_CHUNK_BYTES = WriteTransaction.MAX_PAYLOAD_BYTES - 256 * 1024;
+
+    private final DynamoDbTable<ResumeSectionEntity> sectionTable;
+    private final TableSchema<ResumeVersionEntity> versionSchema = TableSchema.fromBean(ResumeVersionEntity.class);
+
+    public ResumeRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, ResumeEntity.class);
+        this.sectionTable = client.table(tableName, TableSchema.fromBean(ResumeSectionEntity.class));
     }
 
     // Tìm Resume theo UserID (Quan hệ 1-1)
     // PK: USER#<userId>, SK: RESUME
     public ResumeEntity findByUserId(String userId) {
         String pk = "USER#" + userId;
-        String sk = "RESUME";
-        return findById(pk, sk);
+        return findById(pk, RESUME_SK);
+    }
+
+    // Tất cả section của Resume: Query SK begins_with RESUME#SECTION#
+    public List<ResumeSectionEntity> findSections(String userId) {
+        try {
+            List<ResumeSectionEntity> sections = new ArrayList<>();
+            sectionTable.query(r -> r.queryConditional(QueryConditional.sortBeginsWith(
+                            Key.builder().partitionValue("USER#" + userId).sortValue(SECTION_SK_PREFIX).build())))
+                    .items()
+                    .forEach(sections::add);
+            return sections;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to query resume sections: {}", e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not load resume sections", e);
+        }
+    }
+
+    /**
+     * Ghi các section đã đổi, xóa section bị bỏ, thêm phiên bản lịch sử và cập nhật item RESUME
+     * (thứ tự, hash, version) trong 1 transaction: hash trên item RESUME luôn khớp với nội dung section thực tế.
+     * Điều kiện version của item RESUME không khớp -> ConcurrentModificationException.
+     *
+     * Vượt giới hạn của TransactWriteItems (số phần tử hoặc 4 MB) thì phần section dư được ghi trước
+     * trong các transaction phụ, mỗi transaction kiểm tra version của item RESUME (ConditionCheck);
+     * transaction cuối (item RESUME) vẫn mang điều kiện version. Transaction cuối lỗi sau khi phần phụ đã ghi:
+     * section mang nội dung mới nhưng hash trên RESUME là bản cũ, lần lưu lại của client ghi đè đúng phần đó.
+     *
+     * @param historyVersion phiên bản lịch sử ghi kèm (null = không ghi)
+     * @param guardVersion   version của item RESUME mà resumeUpdate kiểm tra (null = RESUME chưa tồn tại)
+     */
+    public void writeSections(String userId, List<ResumeSectionEntity> puts, List<String> deletedNames,
+                              ResumeVersionEntity historyVersion, PartialUpdate resumeUpdate, Long guardVersion) {
+        String pk = "USER#" + userId;
+
+        // Transaction cuối: item RESUME + lịch sử; section được xếp vào khi còn chỗ, phần dư sang transaction phụ
+        WriteTransaction last = writeTransaction();
+        if (historyVersion != null) {
+            last.put(versionSchema.itemToMap(historyVersion, true), null);
+        }
+        last.update(this, pk, RESUME_SK, resumeUpdate);
+
+        List<WriteTransaction> chunks = new ArrayList<>();
+        WriteTransaction chunk = last;
+        for (ResumeSectionEntity section : puts) {
+            Map<String, AttributeValue> item = sectionTable.tableSchema().itemToMap(section, true);
+            if (!fits(chunk, WriteTransaction.itemSize(item))) {
+                chunk = guardedChunk(pk, guardVersion);
+                chunks.add(chunk);
+            }
+            chunk.put(item, null);
+        }
+        for (String name : deletedNames) {
+            if (!fits(chunk, WriteTransaction.itemSize(WriteTransaction.key(pk, SECTION_SK_PREFIX + name)))) {
+                chunk = guardedChunk(pk, guardVersion);
+                chunks.add(chunk);
+            }
+            chunk.delete(pk, SECTION_SK_PREFIX + name);
+        }
+        if (!chunks.isEmpty()) {
+            logger.info("Resume sections of PK {} split into {} extra transactions", pk, chunks.size());
+        }
+
+        // Xung đột version của item RESUME -> TransactionCancelledException (ConcurrentModificationException)
+        for (WriteTransaction extra : chunks) {
+            extra.commit();
+        }
+        last.commit();
+        logger.info("Wrote {} resume sections, deleted {} for PK: {}", puts.size(), deletedNames.size(), pk);
+    }
+
+    private static boolean fits(WriteTransaction transaction, long bytes) {
+        return transaction.size() < WriteTransaction.MAX_ITEMS
+                && transaction.payloadBytes() + bytes <= MAX_CHUNK_BYTES;
+    }
+
+    // Transaction phụ: chỉ ghi khi item RESUME vẫn ở version mà lần lưu này dựa vào
+    private WriteTransaction guardedChunk(String pk, Long guardVersion) {
+        WriteTransaction chunk = writeTransaction();
+        if (guardVersion != null) {
+            chunk.conditionCheck(pk, RESUME_SK, PartialUpdate.VERSION_ATTRIBUTE + " = :v",
+                    Map.of(":v", AttributeValue.fromN(guardVersion.toString())));
+        } else {
+            chunk.conditionCheck(pk, RESUME_SK, "attribute_not_exists(PK)", null);
+        }
+        return chunk;
     }
-}
\ No newline at end of file
+}
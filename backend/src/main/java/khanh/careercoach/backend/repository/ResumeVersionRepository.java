@@ -0,0 +1,82 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.ResumeVersionEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+public class ResumeVersionRepository extends AbstractDynamoRepository<ResumeVersionEntity> {
+
+    public static final String VERSION_SK_PREFIX = "RESUME#V#";
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DELTA = "DELTA";
+
+    // Danh sách phiên bản: không tải content
+    private static final String[] LIST_ATTRIBUTES = {
+            "PK", "SK", "kind", "contentHash", "contentLength", "resumeVersion", "createdAt"
+    };
+
+    public ResumeVersionRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, ResumeVersionEntity.class);
+    }
+
+    // SK theo thời gian ghi, cố định 13 chữ số để sắp xếp đúng theo chuỗi
+    public static String skOf(long epochMillis) {
+        return VERSION_SK_PREFIX + String.format("%013d", epochMillis);
+    }
+
+    public List<ResumeVersionEntity> findVersions(String userId) {
+        return findAllBySortKeyPrefix("USER#" + userId, VERSION_SK_PREFIX, LIST_ATTRIBUTES);
+    }
+
+    // Cả content, dùng khi compact lịch sử
+    public List<ResumeVersionEntity> findVersionsWithContent(String userId) {
+        return findAllBySortKeyPrefix("USER#" + userId, VERSION_SK_PREFIX);
+    }
+
+    /**
+     * Chuỗi phiên bản cần để dựng lại sk: snapshot gần nhất phía trước + các delta tới sk (thứ tự tăng dần).
+     * Query ngược từ sk, dừng ở snapshot đầu tiên gặp được.
+     *
+     * @return danh sách rỗng nếu sk không tồn tại
+     */
+    public List<ResumeVersionEntity> findReplayChain(String userId, String sk) {
+        String pk = "USER#" + userId;
+        try {
+            QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                    .queryConditional(QueryConditional.sortBetween(
+                            Key.builder().partitionValue(pk).sortValue(VERSION_SK_PREFIX).build(),
+                            Key.builder().partitionValue(pk).sortValue(sk).build()))
+                    .scanIndexForward(false)
+                    .build();
+
+            List<ResumeVersionEntity> chain = new ArrayList<>();
+            for (ResumeVersionEntity version : table.query(request).items()) {
+                if (chain.isEmpty() && !sk.equals(version.getSk())) {
+                    return chain; // sk không tồn tại
+                }
+                chain.add(version);
+                if (SNAPSHOT.equals(version.getKind())) {
+                    Collections.reverse(chain);
+                    return chain;
+                }
+            }
+            if (!chain.isEmpty()) {
+                throw new IllegalStateException("Resume history has no snapshot before " + sk);
+            }
+            return chain;
+        } catch (DynamoDbException e) {
+            logger.error("Failed to query resume history: {}", e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not load resume history", e);
+        }
+    }
+}
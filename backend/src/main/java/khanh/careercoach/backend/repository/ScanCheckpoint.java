@@ -0,0 +1,77 @@
+package khanh.careercoach.backend.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trạng thái tiến độ của một Parallel Scan, dùng để chạy tiếp (resume) khi job bị ngắt.
+ * Mỗi segment lưu LastEvaluatedKey gần nhất (PK/SK dạng String của Single Table).
+ * Có getter/setter chuẩn để serialize bằng Jackson (lưu vào DynamoDB/S3 giữa các lần chạy).
+ */
+public class ScanCheckpoint {
+
+    private int totalSegments;
+    private Map<Integer, Map<String, String>> lastKeys = new ConcurrentHashMap<>();
+    private Map<Integer, Boolean> completedSegments = new ConcurrentHashMap<>();
+    private long itemsProcessed;
+
+    // Constructor rỗng cho Jackson
+    public ScanCheckpoint() {}
+
+    public static ScanCheckpoint start(int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be >= 1");
+        }
+        ScanCheckpoint checkpoint = new ScanCheckpoint();
+        checkpoint.totalSegments = totalSegments;
+        return checkpoint;
+    }
+
+    public boolean isSegmentComplete(int segment) {
+        return Boolean.TRUE.equals(completedSegments.get(segment));
+    }
+
+    public Map<String, String> lastKeyOf(int segment) {
+        return lastKeys.get(segment);
+    }
+
+    /**
+     * Ghi nhận trang vừa xử lý xong. lastEvaluatedKey == null nghĩa là segment đã quét hết.
+     */
+    public synchronized void record(int segment, Map<String, String> lastEvaluatedKey, int pageItems) {
+        itemsProcessed += pageItems;
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            lastKeys.remove(segment);
+            completedSegments.put(segment, true);
+        } else {
+            lastKeys.put(segment, new HashMap<>(lastEvaluatedKey));
+        }
+    }
+
+    public boolean isComplete() {
+        for (int i = 0; i < totalSegments; i++) {
+            if (!isSegmentComplete(i)) return false;
+        }
+        return true;
+    }
+
+    // Getters / Setters (cho Jackson)
+    public int getTotalSegments() { return totalSegments; }
+    public void setTotalSegments(int totalSegments) { this.totalSegments = totalSegments; }
+
+    public Map<Integer, Map<String, String>> getLastKeys() { return lastKeys; }
+    public void setLastKeys(Map<Integer, Map<String, String>> lastKeys) { this.lastKeys = new ConcurrentHashMap<>(lastKeys); }
+
+    public Map<Integer, Boolean> getCompletedSegments() { return completedSegments; }
+    public void setCompletedSegments(Map<Integer, Boolean> completedSegments) { this.completedSegments = new ConcurrentHashMap<>(completedSegments); }
+
+    public synchronized long getItemsProcessed() { return itemsProcessed; }
+    public synchronized void setItemsProcessed(long itemsProcessed) { this.itemsProcessed = itemsProcessed; }
+
+    @Override
+    public String toString() {
+        return "ScanCheckpoint{totalSegments=" + totalSegments + ", completed=" + completedSegments.size()
+                + ", itemsProcessed=" + getItemsProcessed() + "}";
+    }
+}
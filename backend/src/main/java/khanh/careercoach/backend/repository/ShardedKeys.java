@@ -0,0 +1,48 @@
+package khanh.careercoach.backend.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Key phân mảnh cho item nóng (1 partition DynamoDB chỉ chịu ~1000 WCU / 3000 RCU mỗi giây):
+ * - Shard ghi: <PK>#S<k>, bộ đếm cộng vào 1 shard, đọc thì gom tất cả shard rồi cộng lại
+ *   ({@link AbstractDynamoRepository#findAllShards} / {@link AbstractDynamoRepository#sumShards})
+ * - Bản sao đọc: <PK>#R<k> / SK REPLICA, người đọc chọn ngẫu nhiên 1 bản sao
+ *   ({@link AbstractDynamoRepository#findReplica})
+ * Số shard chỉ được tăng (đọc nhiều shard hơn lúc ghi vẫn đúng, giảm thì mất số liệu ở shard bị bỏ).
+ */
+public final class ShardedKeys {
+
+    public static final String REPLICA_SK = "REPLICA";
+
+    private ShardedKeys() {
+    }
+
+    public static String shard(String pk, int shard) {
+        return pk + "#S" + shard;
+    }
+
+    public static String replica(String pk, int replica) {
+        return pk + "#R" + replica;
+    }
+
+    public static List<String> shards(String pk, int shards) {
+        List<String> keys = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            keys.add(shard(pk, i));
+        }
+        return keys;
+    }
+
+    public static int randomShard(int shards) {
+        return ThreadLocalRandom.current().nextInt(shards);
+    }
+
+    /**
+     * Shard cố định theo token (ví dụ eventID của stream): ghi lại cùng bản ghi luôn vào cùng shard.
+     */
+    public static int shardFor(String token, int shards) {
+        return Math.floorMod(token.hashCode(), shards);
+    }
+}
@@ -0,0 +1,33 @@
+package khanh.careercoach.backend.repository;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+/**
+ * Transaction bị hủy vì xung đột (điều kiện không thỏa / ghi đồng thời), kèm lý do của từng phần tử
+ * theo đúng thứ tự đã thêm vào {@link WriteTransaction} / {@link ReadTransaction}.
+ * Là ConcurrentModificationException nên router vẫn trả 409 như các lần ghi có điều kiện khác.
+ */
+public class TransactionCancelledException extends ConcurrentModificationException {
+
+    public record Reason(int index, String pk, String sk, CancellationCode code, String message) {
+    }
+
+    private final List<Reason> reasons;
+
+    public TransactionCancelledException(List<Reason> reasons) {
+        super("Item was modified by another request, please reload and retry");
+        this.reasons = List.copyOf(reasons);
+    }
+
+    public List<Reason> reasons() {
+        return reasons;
+    }
+
+    /**
+     * Phần tử (PK, SK) có bị hủy vì xung đột không (để quyết định đọc lại item nào).
+     */
+    public boolean conflictOn(String pk, String sk) {
+        return reasons.stream().anyMatch(r -> r.code().isConflict() && pk.equals(r.pk()) && sk.equals(r.sk()));
+    }
+}
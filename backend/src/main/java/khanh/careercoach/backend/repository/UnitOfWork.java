@@ -0,0 +1,119 @@
+package khanh.careercoach.backend.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Phạm vi 1 lần gọi Lambda (unit of work), gắn với thread đang xử lý event:
+ * - Identity map: findById cùng (entity, PK, SK) chỉ đọc DB 1 lần, các lần sau trả cùng object
+ *   (kể cả kết quả "không có"). Ghi qua repository cập nhật / bỏ bản trong map, nên đọc sau ghi thấy dữ liệu mới;
+ *   ghi bị từ chối vì version -> bỏ bản trong map để lần thử lại đọc DB
+ * - Ghi trễ qua WriteBehindBuffer (gộp theo PK/SK) chờ tới commit
+ *
+ * Router gọi begin() đầu handler và commit() trong finally. Ngoài phạm vi (stream, batch, thread nền)
+ * repository đọc DB như cũ. Object lấy từ map dùng chung trong request: đổi field thì phải lưu lại.
+ */
+@Component
+public class UnitOfWork {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+    // Đánh dấu item không tồn tại (phân biệt với key chưa đọc)
+    private static final Object ABSENT = new Object();
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    static final class Scope {
+        private final Map<String, Object> items = new HashMap<>();
+        private int depth = 1;
+        private int reads;
+        private int hits;
+    }
+
+    private final WriteBehindBuffer writeBehindBuffer;
+
+    public UnitOfWork(WriteBehindBuffer writeBehindBuffer) {
+        this.writeBehindBuffer = writeBehindBuffer;
+    }
+
+    /**
+     * Mở phạm vi (lồng nhau thì dùng lại phạm vi ngoài cùng).
+     */
+    public void begin() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.depth++;
+        } else {
+            CURRENT.set(new Scope());
+        }
+    }
+
+    /**
+     * Ghi các lần ghi trễ và đóng phạm vi (chỉ ở lần commit ngoài cùng).
+     *
+     * @return false nếu có item ghi trễ bị bỏ (xem {@link WriteBehindBuffer#flush()})
+     */
+    public boolean commit() {
+        Scope scope = CURRENT.get();
+        if (scope != null && --scope.depth > 0) {
+            return true;
+        }
+        try {
+            boolean flushed = writeBehindBuffer.flush();
+            if (!flushed) {
+                // Chỉ dữ liệu best-effort đi qua ghi trễ: response không đổi, nhưng cần thấy trên log
+                logger.warn("Unit of work committed with dropped write-behind items");
+            }
+            return flushed;
+        } finally {
+            CURRENT.remove();
+            if (scope != null && scope.reads > 0) {
+                logger.debug("Unit of work: {} reads, {} served from identity map", scope.reads, scope.hits);
+            }
+        }
+    }
+
+    // ==================================================================================
+    // Identity map (AbstractDynamoRepository gọi)
+    // ==================================================================================
+
+    /**
+     * @return true nếu đang trong phạm vi và key đã có trong map (value = item hoặc null nếu không tồn tại)
+     */
+    static boolean isLoaded(String key) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return false;
+        }
+        scope.reads++;
+        if (scope.items.containsKey(key)) {
+            scope.hits++;
+            return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T loaded(String key) {
+        Scope scope = CURRENT.get();
+        Object value = scope != null ? scope.items.get(key) : null;
+        return value == ABSENT ? null : (T) value;
+    }
+
+    static void remember(String key, Object item) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.items.put(key, item != null ? item : ABSENT);
+        }
+    }
+
+    static void forget(String key) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.items.remove(key);
+        }
+    }
+}
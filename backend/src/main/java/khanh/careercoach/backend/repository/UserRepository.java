@@ -3,13 +3,76 @@ package khanh.careercoach.backend.repository;
 import khanh.careercoach.backend.model.UserEntity;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.List;
 
 @Repository
 public class UserRepository extends AbstractDynamoRepository<UserEntity> {
 
-    public UserRepository(DynamoDbEnhancedClient client) {
+    public UserRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
         // Truyền Class type để Abstract Repository biết map vào object nào
-        super(client, UserEntity.class);
+        super(client, dynamoDbClient, UserEntity.class);
+    }
+
+    /**
+     * Tìm User theo email (Query trên GSI2, không SCAN).
+     * GSI2_PK: EMAIL#<email_lowercase>
+     */
+    public UserEntity findByEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        List<UserEntity> items = findAllByIndex(GSI2, emailIndexKey(email));
+        if (items.size() > 1) {
+            logger.warn("Found {} users sharing email {}", items.size(), email);
+        }
+        return items.isEmpty() ? null : items.get(0);
     }
 
-}
\ No newline at end of file
+    /**
+     * Liệt kê tất cả User thuộc một ngành (Query trên GSI1).
+     * GSI1_PK: INDUSTRY#<industry>, GSI1_SK: USER#<id>
+     */
+    public List<UserEntity> findAllByIndustry(String industry) {
+        if (industry == null || industry.trim().isEmpty()) {
+            return List.of();
+        }
+        return findAllByIndex(GSI1, "INDUSTRY#" + industry, "USER#");
+    }
+
+    /**
+     * Điền key GSI từ các field nghiệp vụ trước khi ghi.
+     * User chưa chọn ngành sẽ không có GSI1 key (sparse index).
+     */
+    @Override
+    protected void beforeWrite(UserEntity user) {
+        boolean hasIndustry = user.getIndustry() != null && !user.getIndustry().trim().isEmpty();
+        user.setGsi1Pk(hasIndustry ? "INDUSTRY#" + user.getIndustry() : null);
+        user.setGsi1Sk(hasIndustry ? user.getPk() : null);
+
+        boolean hasEmail = user.getEmail() != null && !user.getEmail().trim().isEmpty();
+        user.setGsi2Pk(hasEmail ? emailIndexKey(user.getEmail()) : null);
+        user.setGsi2Sk(hasEmail ? user.getPk() : null);
+    }
+
+    /**
+     * Giữ GSI key đồng bộ khi cập nhật từng phần (UpdateItem không đi qua beforeWrite).
+     */
+    @Override
+    protected void beforePartialUpdate(String pk, String sk, PartialUpdate update) {
+        if (update.setsAttribute("industry")) {
+            update.set("GSI1_PK", "INDUSTRY#" + update.valueOf("industry"));
+            update.set("GSI1_SK", pk);
+        }
+        if (update.setsAttribute("email")) {
+            // Email chỉ được set khi tạo mới (if_not_exists), GSI2 theo cùng quy tắc
+            update.setIfNotExists("GSI2_PK", emailIndexKey(update.valueOf("email").toString()));
+            update.setIfNotExists("GSI2_SK", pk);
+        }
+    }
+
+    private String emailIndexKey(String email) {
+        return "EMAIL#" + email.trim().toLowerCase();
+    }
+}
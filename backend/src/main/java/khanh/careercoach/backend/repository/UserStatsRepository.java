@@ -0,0 +1,22 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.UserStatsEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+@Repository
+public class UserStatsRepository extends AbstractDynamoRepository<UserStatsEntity> {
+
+    public static final String STATS_SK = "STATS";
+
+    public UserStatsRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, UserStatsEntity.class);
+    }
+
+    // PK: USER#<userId>, SK: STATS
+    // Ghi cùng bài làm bằng writeTransaction() (xem UserStatsService.saveWithStats)
+    public UserStatsEntity findByUserId(String userId) {
+        return findById("USER#" + userId, STATS_SK);
+    }
+}
@@ -0,0 +1,33 @@
+package khanh.careercoach.backend.repository;
+
+import khanh.careercoach.backend.model.VersionStampEntity;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+@Repository
+public class VersionStampRepository extends AbstractDynamoRepository<VersionStampEntity> {
+
+    public static final String STAMP_SK_PREFIX = "STAMP#";
+
+    public VersionStampRepository(DynamoDbEnhancedClient client, DynamoDbClient dynamoDbClient) {
+        super(client, dynamoDbClient, VersionStampEntity.class);
+    }
+
+    /**
+     * SK của tem cho item gốc: SK không có '#' (METADATA, RESUME) có tem riêng,
+     * SK dạng <tiền tố>#<id> (ASSESS#<uuid>) dùng chung 1 tem cho cả nhóm -> cache danh sách cũng được báo.
+     */
+    public static String stampSk(String sk) {
+        int separator = sk.indexOf('#');
+        return STAMP_SK_PREFIX + (separator > 0 ? sk.substring(0, separator) : sk);
+    }
+
+    /**
+     * Tem hiện tại của item gốc (0 nếu chưa từng đổi từ khi bật stream).
+     */
+    public long currentStamp(String pk, String sk) {
+        VersionStampEntity stamp = findById(pk, stampSk(sk));
+        return stamp != null && stamp.getStamp() != null ? stamp.getStamp() : 0L;
+    }
+}
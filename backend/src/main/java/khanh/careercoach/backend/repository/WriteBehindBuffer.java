@@ -0,0 +1,255 @@
+package khanh.careercoach.backend.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đệm ghi trễ (write-behind) cho các lần ghi không quan trọng với response, đang dùng cho:
+ * - lastActiveAt của user khi nộp bài ({@link AbstractDynamoRepository#updatePartialLater}), ngoài transaction bài làm
+ * - alias chuẩn hóa mới học được (CanonicalizationService)
+ * Không dùng cho dữ liệu mà response trả về ID / nội dung của nó (ghi lỗi thì client giữ ID không tồn tại).
+ * Job nền (nén lịch sử resume, import dữ liệu) chỉ dùng put + flush() ngay như bộ ghi BatchWriteItem đồng bộ.
+ *
+ * - Put / delete cùng PK/SK được gộp lại (bản sau cùng thắng), gửi bằng BatchWriteItem (tối đa 25 item / lần)
+ * - Update từng phần không gộp (2 lần ADD không thay được nhau), gửi bằng UpdateItem riêng, đúng thứ tự đưa vào
+ * - Vừa nhận item là bắt đầu ghi ở thread nền, chạy song song với phần còn lại của request
+ * - Router gọi {@link #flush()} trong finally: chờ ghi xong trước khi trả response,
+ *   vì Lambda đóng băng container ngay sau khi handler return (thread nền không được chạy tiếp)
+ *
+ * BatchWriteItem không hỗ trợ điều kiện: put / delete chỉ dùng cho entity không có @DynamoDbVersionAttribute
+ * và không cần ghi có điều kiện; cần điều kiện thì dùng update (điều kiện không thỏa -> bỏ qua, không tính lỗi).
+ * Lỗi ghi chỉ được log (dữ liệu không quan trọng), không làm hỏng response.
+ * Số item bị bỏ được tính cho thread đã đưa item vào: flush() của request này không báo lỗi của request khác.
+ */
+@Component
+public class WriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private static final int MAX_BATCH_SIZE = 25; // Giới hạn của BatchWriteItem
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MS = 50;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    // Key = PK|SK, giữ thứ tự ghi; truy cập trong synchronized(this)
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    // Chỉ 1 lượt drain tại một thời điểm để 2 bản ghi cùng key không bị ghi đảo thứ tự
+    private final Object drainLock = new Object();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> inFlight;
+    // Update không gộp theo PK/SK: mỗi lần có key riêng trong hàng đợi
+    private final AtomicLong updateSequence = new AtomicLong();
+    // Số item bị bỏ (ghi lỗi) của thread đã đưa item vào, kể từ lần flush trước của thread đó
+    private final ThreadLocal<AtomicInteger> droppedByThread = ThreadLocal.withInitial(AtomicInteger::new);
+
+    /**
+     * Lần ghi đang đệm (request cho BatchWriteItem, hoặc update cho UpdateItem) + bộ đếm lỗi của thread đã đưa nó vào.
+     */
+    private record Pending(WriteRequest request, UpdateItemRequest update, Runnable onWritten, AtomicInteger dropped) {
+    }
+
+    public WriteBehindBuffer(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = System.getenv("TABLE_NAME");
+    }
+
+    /**
+     * Ghi trễ cả item (PutRequest). Item lấy từ {@link AbstractDynamoRepository#toItemMap(Object)}.
+     */
+    public void put(Map<String, AttributeValue> item) {
+        enqueue(keyOf(item), WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build(), null, null);
+    }
+
+    /**
+     * Xóa trễ một item.
+     */
+    public void delete(String pk, String sk) {
+        Map<String, AttributeValue> key = Map.of(
+                "PK", AttributeValue.builder().s(pk).build(),
+                "SK", AttributeValue.builder().s(sk).build());
+        enqueue(keyOf(key), WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build()).build(), null, null);
+    }
+
+    /**
+     * Cập nhật từng phần trễ bằng UpdateItem (có thể kèm điều kiện).
+     * Request lấy từ {@link AbstractDynamoRepository#updatePartialLater}.
+     *
+     * @param onWritten chạy ở thread nền sau khi ghi thành công (báo cache bỏ bản cũ)
+     */
+    public void update(UpdateItemRequest update, Runnable onWritten) {
+        enqueue(keyOf(update.key()) + "|" + updateSequence.incrementAndGet(), null, update, onWritten);
+    }
+
+    /**
+     * Chờ mọi lần ghi đang đệm hoàn tất. Gọi ở cuối mỗi invocation (finally của router).
+     *
+     * @return false nếu có item do thread này đưa vào không ghi được kể từ lần flush trước
+     */
+    public boolean flush() {
+        Future<?> running;
+        synchronized (this) {
+            running = inFlight;
+        }
+        if (running != null) {
+            try {
+                running.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error("Background write-behind flush failed", e.getCause());
+            }
+        }
+        // Item được thêm sau khi lượt nền đã kiểm tra hàng đợi rỗng -> ghi nốt tại đây
+        drain();
+        return droppedByThread.get().getAndSet(0) == 0;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private synchronized void enqueue(String key, WriteRequest request, UpdateItemRequest update, Runnable onWritten) {
+        pending.remove(key); // Bản mới thay bản cũ và xếp xuống cuối
+        pending.put(key, new Pending(request, update, onWritten, droppedByThread.get()));
+        if (inFlight == null || inFlight.isDone()) {
+            inFlight = flusher.submit(this::drain);
+        }
+    }
+
+    private void drain() {
+        synchronized (drainLock) {
+            List<Pending> batch;
+            while (!(batch = takeBatch()).isEmpty()) {
+                if (batch.get(0).update() != null) {
+                    writeUpdate(batch.get(0));
+                } else {
+                    writeBatch(batch);
+                }
+            }
+        }
+    }
+
+    // Lấy các put / delete liên tiếp ở đầu hàng đợi, hoặc 1 update đứng đầu (giữ đúng thứ tự ghi)
+    private synchronized List<Pending> takeBatch() {
+        List<Pending> batch = new ArrayList<>(Math.min(MAX_BATCH_SIZE, pending.size()));
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+            Pending next = it.next();
+            if (next.update() != null && !batch.isEmpty()) {
+                break;
+            }
+            batch.add(next);
+            it.remove();
+            if (next.update() != null) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    // UpdateItem đã có retry của SDK khi bị throttle
+    private void writeUpdate(Pending item) {
+        try {
+            dynamoDbClient.updateItem(item.update());
+            if (item.onWritten() != null) {
+                item.onWritten().run();
+            }
+        } catch (ConditionalCheckFailedException e) {
+            // Điều kiện của bên gọi (VD: item vừa bị xóa): bỏ qua có chủ đích, không phải ghi lỗi
+            logger.debug("Write-behind update skipped, condition failed for key {}", keyOf(item.update().key()));
+        } catch (DynamoDbException e) {
+            item.dropped().incrementAndGet();
+            logger.error("Write-behind update failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Ghi 1 batch, thử lại phần UnprocessedItems (bị throttle) với backoff lũy thừa + jitter
+    private void writeBatch(List<Pending> batch) {
+        Map<String, List<WriteRequest>> requestItems = Map.of(tableName, batch.stream().map(Pending::request).toList());
+        try {
+            for (int attempt = 1; ; attempt++) {
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(
+                        BatchWriteItemRequest.builder().requestItems(requestItems).build());
+                List<WriteRequest> unprocessed = response.unprocessedItems().getOrDefault(tableName, List.of());
+                if (unprocessed.isEmpty()) {
+                    logger.debug("Write-behind flushed {} items", batch.size());
+                    return;
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    countDropped(batch, unprocessed);
+                    logger.error("Write-behind dropped {} unprocessed items after {} attempts", unprocessed.size(), attempt);
+                    return;
+                }
+                requestItems = Map.of(tableName, unprocessed);
+                sleep(ThreadLocalRandom.current().nextLong(BASE_BACKOFF_MS << attempt));
+            }
+        } catch (DynamoDbException e) {
+            batch.forEach(item -> item.dropped().incrementAndGet());
+            logger.error("Write-behind batch of {} items failed: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    // Tính item bị bỏ cho đúng thread đã đưa vào (UnprocessedItems là bản mới từ response: so theo PK|SK)
+    private static void countDropped(List<Pending> batch, List<WriteRequest> unprocessed) {
+        Map<String, AtomicInteger> tallies = new HashMap<>();
+        batch.forEach(item -> tallies.put(keyOf(item.request()), item.dropped()));
+        for (WriteRequest request : unprocessed) {
+            AtomicInteger tally = tallies.get(keyOf(request));
+            if (tally != null) {
+                tally.incrementAndGet();
+            }
+        }
+    }
+
+    private static String keyOf(WriteRequest request) {
+        return keyOf(request.putRequest() != null ? request.putRequest().item() : request.deleteRequest().key());
+    }
+
+    private static String keyOf(Map<String, AttributeValue> item) {
+        AttributeValue pk = item.get("PK");
+        AttributeValue sk = item.get("SK");
+        if (pk == null || sk == null) {
+            throw new IllegalArgumentException("Deferred write requires PK and SK");
+        }
+        return pk.s() + "|" + sk.s();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
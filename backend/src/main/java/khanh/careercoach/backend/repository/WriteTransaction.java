@@ -0,0 +1,245 @@
+package khanh.careercoach.backend.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi nhiều item (có thể khác entity) trong 1 TransactWriteItems: 1 round trip, hoặc tất cả hoặc không gì cả.
+ *
+ * Ví dụ:
+ * <pre>
+ * assessmentRepository.writeTransaction()
+ *         .putIfNotExists(assessmentRepository, assessment)
+ *         .update(userStatsRepository, pk, STATS_SK, statsUpdate)   // điều kiện version nằm trong PartialUpdate
+ *         .commit();
+ * </pre>
+ * Hủy vì xung đột -> {@link TransactionCancelledException} (lý do theo từng phần tử), lỗi khác -> "Database Error".
+ * Mỗi item chỉ được xuất hiện 1 lần trong transaction (giới hạn của DynamoDB).
+ * Giới hạn: MAX_ITEMS phần tử và MAX_PAYLOAD_BYTES tổng kích thước; bên gọi tự chia nếu có thể vượt
+ * (xem {@link #payloadBytes()}, {@link #itemSize(Map)}).
+ */
+public class WriteTransaction {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteTransaction.class);
+
+    static final int MAX_ITEMS = 100; // Giới hạn của TransactWriteItems
+    public static final long MAX_PAYLOAD_BYTES = 4L * 1024 * 1024; // Tổng kích thước tối đa của TransactWriteItems
+
+    private record Action(TransactWriteItem item, String pk, String sk, AbstractDynamoRepository<?> owner, long bytes) {
+    }
+
+    private final AbstractDynamoRepository<?> origin;
+    private final List<Action> actions = new ArrayList<>();
+    private String clientRequestToken;
+
+    WriteTransaction(AbstractDynamoRepository<?> origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * Put cả item (chạy beforeWrite của repository, dùng converter của entity).
+     */
+    public <E> WriteTransaction put(AbstractDynamoRepository<E> repository, E item) {
+        return put(repository, repository.toItemMap(item), null);
+    }
+
+    /**
+     * Put item chỉ khi chưa có item cùng PK/SK.
+     */
+    public <E> WriteTransaction putIfNotExists(AbstractDynamoRepository<E> repository, E item) {
+        return put(repository, repository.toItemMap(item), "attribute_not_exists(PK)");
+    }
+
+    /**
+     * Put item thô (entity không có repository riêng, ví dụ section / phiên bản của Resume).
+     *
+     * @param condition null = không điều kiện
+     */
+    public WriteTransaction put(Map<String, AttributeValue> item, String condition) {
+        return put(origin, item, condition);
+    }
+
+    private WriteTransaction put(AbstractDynamoRepository<?> owner, Map<String, AttributeValue> item, String condition) {
+        Put.Builder put = Put.builder().tableName(origin.tableName).item(item);
+        if (condition != null) {
+            put.conditionExpression(condition);
+        }
+        return add(TransactWriteItem.builder().put(put.build()).build(), item.get("PK").s(), item.get("SK").s(), owner,
+                itemSize(item));
+    }
+
+    /**
+     * UpdateItem từng phần, cùng expression / điều kiện version với {@link AbstractDynamoRepository#updatePartial}.
+     */
+    public WriteTransaction update(AbstractDynamoRepository<?> repository, String pk, String sk, PartialUpdate update) {
+        if (update == null || update.isEmpty()) {
+            throw new IllegalArgumentException("Update cannot be empty");
+        }
+        Update transactUpdate = repository.toTransactUpdate(pk, sk, update);
+        return add(TransactWriteItem.builder().update(transactUpdate).build(), pk, sk, repository,
+                itemSize(transactUpdate.key()) + itemSize(transactUpdate.expressionAttributeValues()));
+    }
+
+    public WriteTransaction delete(String pk, String sk) {
+        return add(TransactWriteItem.builder().delete(Delete.builder()
+                .tableName(origin.tableName)
+                .key(key(pk, sk))
+                .build()).build(), pk, sk, origin, itemSize(key(pk, sk)));
+    }
+
+    /**
+     * Kiểm tra điều kiện trên item mà không ghi (ví dụ: user phải tồn tại).
+     */
+    public WriteTransaction conditionCheck(String pk, String sk, String condition, Map<String, AttributeValue> values) {
+        ConditionCheck.Builder check = ConditionCheck.builder()
+                .tableName(origin.tableName)
+                .key(key(pk, sk))
+                .conditionExpression(condition);
+        if (values != null && !values.isEmpty()) {
+            check.expressionAttributeValues(values);
+        }
+        return add(TransactWriteItem.builder().conditionCheck(check.build()).build(), pk, sk, null, itemSize(key(pk, sk)));
+    }
+
+    /**
+     * ClientRequestToken: gửi lại cùng token trong 10 phút không ghi lần 2 (retry sau timeout mạng).
+     */
+    public WriteTransaction idempotencyToken(String token) {
+        this.clientRequestToken = token;
+        return this;
+    }
+
+    public int size() {
+        return actions.size();
+    }
+
+    /**
+     * Ước lượng tổng kích thước các phần tử (item put, key + giá trị của update), để so với MAX_PAYLOAD_BYTES.
+     */
+    public long payloadBytes() {
+        return actions.stream().mapToLong(Action::bytes).sum();
+    }
+
+    public void commit() {
+        if (actions.isEmpty()) {
+            return;
+        }
+        if (actions.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("Too many items in one transaction: " + actions.size());
+        }
+        if (payloadBytes() > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Transaction payload too large: " + payloadBytes() + " bytes");
+        }
+        TransactWriteItemsRequest.Builder request = TransactWriteItemsRequest.builder()
+                .transactItems(actions.stream().map(Action::item).toList());
+        if (clientRequestToken != null) {
+            request.clientRequestToken(clientRequestToken);
+        }
+
+        try {
+            origin.dynamoDbClient.transactWriteItems(request.build());
+            logger.info("Committed transaction of {} items", actions.size());
+            for (Action action : actions) {
+                if (action.owner() != null) {
+                    action.owner().afterWrite(action.pk(), action.sk());
+                }
+            }
+        } catch (TransactionCanceledException e) {
+            // Bản đang giữ trong request (UnitOfWork) có thể đã cũ: lần thử lại phải đọc DB
+            evictAll();
+            List<TransactionCancelledException.Reason> reasons = reasons(
+                    e.hasCancellationReasons() ? e.cancellationReasons() : List.of(), keys());
+            if (reasons.stream().anyMatch(r -> r.code().isConflict())) {
+                logger.warn("Transaction cancelled by conflict: {}", reasons);
+                throw new TransactionCancelledException(reasons);
+            }
+            logger.error("Transaction cancelled: {}", reasons, e);
+            throw new RuntimeException("Database Error: Transaction cancelled", e);
+        } catch (DynamoDbException e) {
+            // Lỗi mạng / timeout: transaction có thể đã được ghi, không tin bản đang giữ nữa
+            evictAll();
+            logger.error("Failed to write transaction: {}", e.getMessage(), e);
+            throw new RuntimeException("Database Error: Could not write transaction", e);
+        }
+    }
+
+    private void evictAll() {
+        for (Action action : actions) {
+            (action.owner() != null ? action.owner() : origin).evict(action.pk(), action.sk());
+        }
+    }
+
+    private WriteTransaction add(TransactWriteItem item, String pk, String sk, AbstractDynamoRepository<?> owner,
+                                 long bytes) {
+        actions.add(new Action(item, pk, sk, owner, bytes));
+        return this;
+    }
+
+    /**
+     * Kích thước item theo cách DynamoDB tính (tên thuộc tính + giá trị, UTF-8), đủ gần để chia transaction.
+     */
+    public static long itemSize(Map<String, AttributeValue> item) {
+        if (item == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            size += utf8Length(entry.getKey()) + valueSize(entry.getValue());
+        }
+        return size;
+    }
+
+    private static long valueSize(AttributeValue value) {
+        if (value.s() != null) return utf8Length(value.s());
+        if (value.n() != null) return value.n().length();
+        if (value.b() != null) return value.b().asByteArray().length;
+        if (value.hasSs()) return value.ss().stream().mapToLong(WriteTransaction::utf8Length).sum();
+        if (value.hasNs()) return value.ns().stream().mapToLong(String::length).sum();
+        if (value.hasBs()) return value.bs().stream().mapToLong(b -> b.asByteArray().length).sum();
+        if (value.hasL()) return 3 + value.l().stream().mapToLong(v -> 1 + valueSize(v)).sum();
+        if (value.hasM()) return 3 + itemSize(value.m()) + value.m().size();
+        return 1; // BOOL / NULL
+    }
+
+    private static long utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private List<String[]> keys() {
+        return actions.stream().map(a -> new String[]{a.pk(), a.sk()}).toList();
+    }
+
+    /**
+     * Ghép lý do hủy (theo thứ tự phần tử) với key của phần tử; bỏ các phần tử không lỗi (None).
+     */
+    static List<TransactionCancelledException.Reason> reasons(List<CancellationReason> cancellation, List<String[]> keys) {
+        List<TransactionCancelledException.Reason> reasons = new ArrayList<>();
+        for (int i = 0; i < cancellation.size(); i++) {
+            CancellationCode code = CancellationCode.from(cancellation.get(i).code());
+            if (code != CancellationCode.NONE) {
+                String[] key = i < keys.size() ? keys.get(i) : new String[]{null, null};
+                reasons.add(new TransactionCancelledException.Reason(i, key[0], key[1], code, cancellation.get(i).message()));
+            }
+        }
+        return reasons;
+    }
+
+    static Map<String, AttributeValue> key(String pk, String sk) {
+        return Map.of("PK", AttributeValue.fromS(pk), "SK", AttributeValue.fromS(sk));
+    }
+}
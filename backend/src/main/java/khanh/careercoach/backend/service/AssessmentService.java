@@ -1,21 +1,22 @@
 package khanh.careercoach.backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import khanh.careercoach.backend.dto.QuizQuestion;
 import khanh.careercoach.backend.dto.SaveAssessmentRequest;
 import khanh.careercoach.backend.model.AssessmentEntity;
 import khanh.careercoach.backend.model.AssessmentEntity.QuestionItem; // Inner class
 import khanh.careercoach.backend.model.UserEntity;
+import khanh.careercoach.backend.model.UserStatsEntity;
 import khanh.careercoach.backend.repository.AssessmentRepository;
+import khanh.careercoach.backend.repository.PartialUpdate;
 import khanh.careercoach.backend.repository.UserRepository;
+import khanh.careercoach.backend.repository.WriteBehindBuffer;
+import khanh.careercoach.backend.service.similarity.SimilarityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -28,14 +29,19 @@ public class AssessmentService {
     private final AssessmentRepository assessmentRepository;
     private final UserRepository userRepository;
     private final BedrockService bedrockService;
-    private final ObjectMapper objectMapper;
+    private final SimilarityService similarityService;
+    private final UserStatsService userStatsService;
+    private final WriteBehindBuffer writeBehindBuffer;
 
     public AssessmentService(AssessmentRepository assessmentRepository, UserRepository userRepository,
-                             BedrockService bedrockService, ObjectMapper objectMapper) {
+                             BedrockService bedrockService, SimilarityService similarityService,
+                             UserStatsService userStatsService, WriteBehindBuffer writeBehindBuffer) {
         this.assessmentRepository = assessmentRepository;
         this.userRepository = userRepository;
         this.bedrockService = bedrockService;
-        this.objectMapper = objectMapper;
+        this.similarityService = similarityService;
+        this.userStatsService = userStatsService;
+        this.writeBehindBuffer = writeBehindBuffer;
     }
 
     // 1. Generate Quiz
@@ -47,30 +53,20 @@ public class AssessmentService {
         String industry = user.getIndustry();
         String skills = user.getSkills() != null ? String.join(", ", user.getSkills()) : "";
 
-        // Gọi AI
-        String jsonResponse = bedrockService.generateQuizJson(industry, skills);
+        // Gọi AI (BedrockService tự parse + repair JSON trả về List Questions)
+        List<QuizQuestion> questions = bedrockService.generateQuizQuestions(industry, skills);
 
-        // Parse JSON trả về List Questions
-        try {
-            // Claude có thể trả về text kèm markdown, cần clean
-            String cleanedJson = jsonResponse.replaceAll("```json", "").replaceAll("```", "").trim();
-            JsonNode root = objectMapper.readTree(cleanedJson);
-            JsonNode questionsNode = root.get("questions");
-
-            return Arrays.asList(objectMapper.treeToValue(questionsNode, QuizQuestion[].class));
-        } catch (Exception e) {
-            logger.error("Failed to parse Quiz JSON", e);
-            throw new RuntimeException("Failed to parse AI response");
-        }
+        // Bỏ câu trùng nhau / trùng câu user đã làm (so embedding tại chỗ, không gọi thêm model)
+        return similarityService.dedupQuestions(userId, questions);
     }
 
-    // 2. Save Result & Generate Tip
+    // 2. Save Result (Tip được sinh sau theo batch)
     public AssessmentEntity saveQuizResult(String userId, SaveAssessmentRequest request) {
         UserEntity user = userRepository.findById("USER#" + userId, "METADATA");
         if (user == null) throw new RuntimeException("User not found");
 
         List<QuestionItem> questionResults = new ArrayList<>();
-        List<String> wrongAnswersText = new ArrayList<>();
+        boolean hasWrongAnswers = false;
 
         // Map DTO sang Entity và tìm câu sai
         for (int i = 0; i < request.getQuestions().size(); i++) {
@@ -86,44 +82,44 @@ public class AssessmentService {
             item.setExplanation(q.getExplanation());
 
             questionResults.add(item);
-
-            if (!isCorrect) {
-                wrongAnswersText.add(String.format("Question: \"%s\"\nCorrect: \"%s\"\nUser Answer: \"%s\"",
-                        q.getQuestion(), q.getCorrectAnswer(), userAnswer));
-            }
-        }
-
-        // Tạo Improvement Tip nếu có câu sai
-        String improvementTip = null;
-        if (!wrongAnswersText.isEmpty()) {
-            String prompt = String.format("""
-                The user got the following %s technical interview questions wrong:
-                %s
-                
-                Based on these mistakes, provide a concise, specific improvement tip.
-                Focus on knowledge gaps. Keep it under 2 sentences. Encouraging tone.
-                """, user.getIndustry(), String.join("\n\n", wrongAnswersText));
-
-            improvementTip = bedrockService.generateTextCorrection(prompt); // Tái sử dụng hàm sinh text
+            hasWrongAnswers |= !isCorrect;
         }
 
         // Lưu DB
+        // Improvement Tip không sinh ngay: lưu PENDING, TipBatchService gom nhiều bài làm vào 1 lần gọi AI
+        // (giờ cao điểm cả lớp nộp bài cùng lúc -> vài prompt thay vì hàng trăm)
         AssessmentEntity entity = new AssessmentEntity();
         entity.setPk("USER#" + userId);
         entity.setSk("ASSESS#" + UUID.randomUUID().toString());
         entity.setQuizScore(request.getScore());
         entity.setCategory("Technical");
-        entity.setImprovementTip(improvementTip);
+        entity.setTipStatus(hasWrongAnswers ? AssessmentRepository.TIP_PENDING : null);
+        entity.setTipAttempts(0);
+        entity.setIndustry(user.getIndustry());
         entity.setQuestions(questionResults); // DynamoDB Enhanced tự convert List sang JSON
         entity.setCreatedAt(Instant.now().toString());
         entity.setUpdatedAt(Instant.now().toString());
 
-        assessmentRepository.save(entity);
+        // Ghi bài làm + cập nhật thống kê USER#<id>/STATS trong 1 transaction
+        userStatsService.saveWithStats(userId, entity, user.getSkills());
+        // lastActiveAt không ảnh hưởng response: ghi trễ, chạy song song với phần còn lại của request
+        userRepository.updatePartialLater(writeBehindBuffer, "USER#" + userId, "METADATA", PartialUpdate.create()
+                .set("lastActiveAt", entity.getCreatedAt())
+                .expectExists()); // Không tạo item METADATA rỗng cho user vừa bị xóa
+        similarityService.rememberQuestions(userId,
+                questionResults.stream().map(QuestionItem::getQuestion).collect(Collectors.toList()));
         return entity;
     }
 
-    // 3. Get History
+    // 3. Get History (bài đã lưu trữ có ttl, chỉ chờ TTL xóa: đã nằm trong tổng hợp tháng của /interview/stats)
     public List<AssessmentEntity> getAssessments(String userId) {
-        return assessmentRepository.findAllByUserId(userId);
+        return assessmentRepository.findAllByUserId(userId).stream()
+                .filter(assessment -> assessment.getTtl() == null)
+                .collect(Collectors.toList());
+    }
+
+    // 4. Get Stats (1 item, không tải lịch sử)
+    public UserStatsEntity getStats(String userId) {
+        return userStatsService.getStats(userId);
     }
 }
\ No newline at end of file
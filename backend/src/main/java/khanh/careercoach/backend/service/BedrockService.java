@@ -1,38 +1,38 @@
 package khanh.careercoach.backend.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.dto.QuizQuestion;
 import khanh.careercoach.backend.model.IndustryInsightEntity;
+import khanh.careercoach.backend.service.ai.AiPrompt;
+import khanh.careercoach.backend.service.ai.AiTask;
+import khanh.careercoach.backend.service.ai.BedrockInvoker;
+import khanh.careercoach.backend.service.ai.ModelOutputParseException;
+import khanh.careercoach.backend.service.ai.ModelOutputParser;
+import khanh.careercoach.backend.service.ai.PromptBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
-import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelRequest;
-import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelResponse;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.List;
 
 @Service
 public class BedrockService {
 
     private static final Logger logger = LoggerFactory.getLogger(BedrockService.class);
 
-    private final BedrockRuntimeClient bedrockClient;
-    private final ObjectMapper objectMapper;
+    private final BedrockInvoker bedrockInvoker;
+    private final ModelOutputParser modelOutputParser;
 
-    // Model ID lấy từ biến môi trường (Config trong template.yaml)
-    private final String modelId = System.getenv("BEDROCK_MODEL_ID");
-
-    public BedrockService(ObjectMapper objectMapper) {
-        this.bedrockClient = BedrockRuntimeClient.builder().build(); // Tự lấy region từ môi trường
-        this.objectMapper = objectMapper;
+    public BedrockService(BedrockInvoker bedrockInvoker, ModelOutputParser modelOutputParser) {
+        this.bedrockInvoker = bedrockInvoker;
+        this.modelOutputParser = modelOutputParser;
     }
 
     public IndustryInsightEntity generateIndustryInsights(String industry) {
         logger.info("Calling AWS Bedrock to analyze industry: {}", industry);
 
-        String prompt = """
+        AiPrompt prompt = PromptBuilder.forTask(AiTask.INDUSTRY_INSIGHTS)
+                .input("industry", industry)
+                .build(in -> """
              Analyze the current state of the %s industry and provide insights in ONLY the following JSON format without any additional notes or explanations:
              {
                "salaryRanges": [
@@ -50,42 +50,17 @@ public class BedrockService {
              Include at least 5 common roles for salary ranges.
              Growth rate should be a percentage float (e.g., 5.5).
              Include at least 5 skills and trends.
-             """.formatted(industry);
-
-        // Cấu trúc Body cho Claude 3
-        Map<String, Object> payload = Map.of(
-                "anthropic_version", "bedrock-2023-05-31",
-                "max_tokens", 2000,
-                "messages", java.util.List.of(
-                        Map.of("role", "user", "content", prompt)
-                )
-        );
+             """.formatted(in.get("industry")));
 
         try {
-            String payloadJson = objectMapper.writeValueAsString(payload);
-
-            InvokeModelRequest request = InvokeModelRequest.builder()
-                    .modelId(modelId)
-                    .body(SdkBytes.fromUtf8String(payloadJson))
-                    .contentType("application/json")
-                    .accept("application/json")
-                    .build();
-
-            InvokeModelResponse response = bedrockClient.invokeModel(request);
-            String responseBody = response.body().asString(StandardCharsets.UTF_8);
-
-            // Parse response của Claude để lấy phần text
-            // Structure: { "content": [ { "text": "..." } ] }
-            var jsonNode = objectMapper.readTree(responseBody);
-            String aiText = jsonNode.get("content").get(0).get("text").asText();
-
-            // Clean text (remove markdown ```json ... ```)
-            String cleanedJson = aiText.replaceAll("```json", "").replaceAll("```", "").trim();
-            logger.debug("Cleaned AI JSON: {}", cleanedJson);
-
-            // Parse thành Entity
-            return objectMapper.readValue(cleanedJson, IndustryInsightEntity.class);
+            // Tìm JSON trong text (kể cả khi có markdown/câu dẫn) và stream thẳng vào Entity;
+            // JSON hỏng thì BedrockInvoker tự repair / sinh lại bằng model fallback
+            return bedrockInvoker.invokeJson(prompt,
+                    text -> modelOutputParser.parseObject(text, IndustryInsightEntity.class));
 
+        } catch (ModelOutputParseException e) {
+            logger.error("Failed to parse AI insights: {}", e.diagnostics());
+            throw new RuntimeException("AI Generation Failed: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Failed to generate AI insights", e);
             throw new RuntimeException("AI Generation Failed: " + e.getMessage());
@@ -94,38 +69,13 @@ public class BedrockService {
 
     /**
      * Hàm gọi AI trả về Text thuần (dùng cho Resume improvement)
+     * Prompt dựng bằng PromptBuilder nên đã có max_tokens theo từng task
      */
-    public String generateTextCorrection(String prompt) {
+    public String generateTextCorrection(AiPrompt prompt) {
         logger.info("Calling Bedrock for Text Generation...");
 
-        // Cấu trúc Body cho Claude 3
-        Map<String, Object> payload = Map.of(
-                "anthropic_version", "bedrock-2023-05-31",
-                "max_tokens", 1000,
-                "messages", java.util.List.of(
-                        Map.of("role", "user", "content", prompt)
-                )
-        );
-
         try {
-            String payloadJson = objectMapper.writeValueAsString(payload);
-
-            InvokeModelRequest request = InvokeModelRequest.builder()
-                    .modelId(modelId)
-                    .body(SdkBytes.fromUtf8String(payloadJson))
-                    .contentType("application/json")
-                    .accept("application/json")
-                    .build();
-
-            InvokeModelResponse response = bedrockClient.invokeModel(request);
-            String responseBody = response.body().asString(StandardCharsets.UTF_8);
-
-            // Parse response: { "content": [ { "text": "..." } ] }
-            var jsonNode = objectMapper.readTree(responseBody);
-            String aiText = jsonNode.get("content").get(0).get("text").asText();
-
-            return aiText.trim();
-
+            return bedrockInvoker.invokeText(prompt);
         } catch (Exception e) {
             logger.error("Bedrock Text Generation Failed", e);
             throw new RuntimeException("AI Service Unavailable");
@@ -134,10 +84,14 @@ public class BedrockService {
 
 
     // Hàm mới: Tạo Quiz Questions
-    public String generateQuizJson(String industry, String skills) {
+    public List<QuizQuestion> generateQuizQuestions(String industry, String skills) {
         logger.info("Generating Quiz for {} with skills {}", industry, skills);
 
-        String prompt = String.format("""
+        // Danh sách skills có thể rất dài -> rút gọn theo ngân sách token của QUIZ
+        AiPrompt prompt = PromptBuilder.forTask(AiTask.QUIZ)
+                .input("industry", industry)
+                .input("skills", skills, 3)
+                .build(in -> String.format("""
             Generate 10 technical interview questions for a %s professional with expertise in %s.
             Each question must be multiple choice with 4 options.
             
@@ -152,34 +106,64 @@ public class BedrockService {
                 }
               ]
             }
-            """, industry, skills);
-
-        return callBedrock(prompt);
-    }
+            """, in.get("industry"), in.get("skills")));
 
-    // Hàm tái sử dụng logic gọi Bedrock
-    private String callBedrock(String prompt) {
-        // Logic giống hệt hàm generateTextCorrection cũ, chỉ thay prompt
-        // (Bạn có thể refactor code cũ để dùng chung hàm này cho gọn)
-        Map<String, Object> payload = Map.of(
-                "anthropic_version", "bedrock-2023-05-31",
-                "max_tokens", 4000, // Tăng token vì JSON quiz khá dài
-                "messages", java.util.List.of(Map.of("role", "user", "content", prompt))
-        );
         try {
-            String payloadJson = objectMapper.writeValueAsString(payload);
-            InvokeModelRequest request = InvokeModelRequest.builder()
-                    .modelId(modelId)
-                    .body(SdkBytes.fromUtf8String(payloadJson))
-                    .contentType("application/json").accept("application/json").build();
-            InvokeModelResponse response = bedrockClient.invokeModel(request);
-            String responseBody = response.body().asString(StandardCharsets.UTF_8);
-            var jsonNode = objectMapper.readTree(responseBody);
-            return jsonNode.get("content").get(0).get("text").asText().trim();
+            // max_tokens của QUIZ đủ cho 10 câu (JSON quiz khá dài)
+            return bedrockInvoker.invokeJson(prompt,
+                    text -> modelOutputParser.parseArrayField(text, "questions", QuizQuestion.class));
+        } catch (ModelOutputParseException e) {
+            logger.error("Failed to parse Quiz JSON: {}", e.diagnostics());
+            throw new RuntimeException("Failed to parse AI response");
         } catch (Exception e) {
             logger.error("Bedrock Error", e);
             throw new RuntimeException("AI Error");
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Một bài làm cần tip: id chỉ dùng để ghép kết quả (S1, S2...), wrongAnswers là danh sách câu sai.
+     */
+    public record TipSubmission(String id, String industry, String wrongAnswers) {}
+
+    public record TipResult(String id, String tip) {}
+
+    // Sinh Improvement Tip cho nhiều bài làm trong 1 lần gọi (TipBatchService)
+    public List<TipResult> generateImprovementTips(List<TipSubmission> submissions) {
+        logger.info("Generating improvement tips for {} submissions in one call", submissions.size());
+
+        // Mỗi bài làm là 1 input: bài nhiều câu sai bị rút gọn thay vì đẩy cả prompt vượt ngân sách
+        PromptBuilder builder = PromptBuilder.forTask(AiTask.QUIZ_TIP_BATCH);
+        submissions.forEach(sub -> builder.input(sub.id(), sub.wrongAnswers()));
+        AiPrompt prompt = builder.build(in -> {
+            StringBuilder blocks = new StringBuilder();
+            for (TipSubmission sub : submissions) {
+                blocks.append("<submission id=\"").append(sub.id()).append("\" industry=\"")
+                        .append(sub.industry()).append("\">\n")
+                        .append(in.get(sub.id())).append("\n</submission>\n\n");
+            }
+            return """
+                Below are quiz submissions from different users. Each lists the technical interview questions that user got wrong.
+
+                %s
+                For EACH submission, provide a concise, specific improvement tip based on that user's mistakes.
+                Focus on knowledge gaps. Keep each tip under 2 sentences. Encouraging tone.
+
+                Return ONLY this JSON, one entry per submission id, no markdown:
+                {"tips": [{"id": "S1", "tip": "string"}]}
+                """.formatted(blocks);
+        });
+
+        try {
+            return bedrockInvoker.invokeJson(prompt,
+                    text -> modelOutputParser.parseArrayField(text, "tips", TipResult.class));
+        } catch (ModelOutputParseException e) {
+            // Giữ các tip đã parse được, phần còn lại sẽ được batch sau thử lại
+            logger.error("Failed to parse tips JSON: {}", e.diagnostics());
+            return e.getPartialItems().stream()
+                    .filter(TipResult.class::isInstance)
+                    .map(TipResult.class::cast)
+                    .toList();
+        }
+    }
+}
@@ -2,9 +2,17 @@ package khanh.careercoach.backend.service;
 
 import khanh.careercoach.backend.dto.CoverLetterRequest;
 import khanh.careercoach.backend.model.CoverLetterEntity;
+import khanh.careercoach.backend.model.ResumeEntity;
 import khanh.careercoach.backend.model.UserEntity;
 import khanh.careercoach.backend.repository.CoverLetterRepository;
 import khanh.careercoach.backend.repository.UserRepository;
+import khanh.careercoach.backend.service.ai.AiPrompt;
+import khanh.careercoach.backend.service.ai.AiTask;
+import khanh.careercoach.backend.service.ai.PromptBuilder;
+import khanh.careercoach.backend.service.ats.AtsScorer;
+import khanh.careercoach.backend.service.ats.AtsService;
+import khanh.careercoach.backend.service.similarity.HashedEmbedder;
+import khanh.careercoach.backend.storage.ContentOffloader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -22,13 +30,25 @@ public class CoverLetterService {
     private final CoverLetterRepository coverLetterRepository;
     private final UserRepository userRepository;
     private final BedrockService bedrockService;
+    private final ContentOffloader contentOffloader;
+    private final ResumeService resumeService;
+    private final AtsService atsService;
+
+    // Số ký tự đầu của Job Description hiển thị ở danh sách
+    private static final int JD_PREVIEW_LENGTH = 300;
 
     public CoverLetterService(CoverLetterRepository coverLetterRepository,
                               UserRepository userRepository,
-                              BedrockService bedrockService) {
+                              BedrockService bedrockService,
+                              ContentOffloader contentOffloader,
+                              ResumeService resumeService,
+                              AtsService atsService) {
         this.coverLetterRepository = coverLetterRepository;
         this.userRepository = userRepository;
         this.bedrockService = bedrockService;
+        this.contentOffloader = contentOffloader;
+        this.resumeService = resumeService;
+        this.atsService = atsService;
     }
 
     // 1. Generate Cover Letter (Create)
@@ -45,7 +65,12 @@ public class CoverLetterService {
         String skills = user.getSkills() != null ? String.join(", ", user.getSkills()) : "Not specified";
 
         // Prompt Engineering (Copy từ logic cũ của bạn)
-        String prompt = String.format("""
+        // JD / bio / skills có thể rất dài: PromptBuilder rút gọn theo ngân sách token của COVER_LETTER (JD ưu tiên x3)
+        AiPrompt prompt = PromptBuilder.forTask(AiTask.COVER_LETTER)
+                .input("jobDescription", request.getJobDescription(), 3)
+                .input("bio", user.getBio())
+                .input("skills", skills)
+                .build(in -> String.format("""
             Write a professional cover letter for a %s position at %s.
             
             About the candidate:
@@ -69,9 +94,9 @@ public class CoverLetterService {
             Format the letter in markdown. Do not include any preamble or postscript.
             """,
                 request.getJobTitle(), request.getCompanyName(),
-                user.getIndustry(), user.getExperience(), skills, user.getBio(),
-                request.getJobDescription()
-        );
+                user.getIndustry(), user.getExperience(), in.get("skills"), in.get("bio"),
+                in.get("jobDescription")
+        ));
 
         // Gọi Bedrock
         String aiContent = bedrockService.generateTextCorrection(prompt);
@@ -86,20 +111,42 @@ public class CoverLetterService {
         entity.setJobTitle(request.getJobTitle());
         entity.setCompanyName(request.getCompanyName());
         entity.setJobDescription(request.getJobDescription());
+        entity.setJobDescriptionPreview(preview(request.getJobDescription()));
+        entity.setJdSimHash(HashedEmbedder.simHash(request.getJobDescription()));
         entity.setStatus("completed");
+        scoreAgainstJob(userId, user.getIndustry(), request.getJobDescription(), entity);
         entity.setCreatedAt(Instant.now().toString());
         entity.setUpdatedAt(Instant.now().toString());
 
+        // Body quá lớn -> lưu ở BlobStore, item chỉ giữ con trỏ
+        ContentOffloader.OffloadedBody contentBlob =
+                contentOffloader.offloadIfLarge(entity.getPk(), entity.getSk(), "content", aiContent);
+        ContentOffloader.OffloadedBody jdBlob =
+                contentOffloader.offloadIfLarge(entity.getPk(), entity.getSk(), "jobDescription", request.getJobDescription());
+        if (contentBlob != null) {
+            entity.setContent(null);
+            entity.setContentRef(contentBlob.ref());
+            entity.setContentHash(contentBlob.hash());
+        }
+        if (jdBlob != null) {
+            entity.setJobDescription(null);
+            entity.setJobDescriptionRef(jdBlob.ref());
+            entity.setJobDescriptionHash(jdBlob.hash());
+        }
+
+        // Ghi đồng bộ: response trả letterId cho client (và được lưu để phát lại), letter phải có trên DB trước đó
         coverLetterRepository.save(entity);
         logger.info("Generated cover letter {} for user {}", letterId, userId);
 
+        // Response trả đủ nội dung cho client
+        entity.setContent(aiContent);
+        entity.setJobDescription(request.getJobDescription());
         return entity;
     }
 
     // 2. Get All
     public List<CoverLetterEntity> getAllCoverLetters(String userId) {
-        // Lấy về tất cả item của user, sau đó lọc ra những cái là Cover Letter
-        // (Trong môi trường production nên dùng Query SK begins_with "LETTER#" để tối ưu)
+        // Repository đã Query SK begins_with "LETTER#" và chỉ lấy field nhẹ (không có content)
         List<CoverLetterEntity> allItems = coverLetterRepository.findAllByUserId(userId);
 
         return allItems.stream()
@@ -109,12 +156,49 @@ public class CoverLetterService {
 
     // 3. Get One
     public CoverLetterEntity getCoverLetter(String userId, String letterId) {
-        return coverLetterRepository.findById(userId, letterId);
+        CoverLetterEntity letter = coverLetterRepository.findById(userId, letterId);
+
+        // Tải body từ BlobStore nếu đã offload (chỉ ở màn hình chi tiết)
+        if (letter != null) {
+            if (letter.getContent() == null && letter.getContentRef() != null) {
+                letter.setContent(contentOffloader.load(letter.getContentRef(), letter.getContentHash()));
+            }
+            if (letter.getJobDescription() == null && letter.getJobDescriptionRef() != null) {
+                letter.setJobDescription(contentOffloader.load(letter.getJobDescriptionRef(), letter.getJobDescriptionHash()));
+            }
+        }
+        return letter;
     }
 
     // 4. Delete
     public void deleteCoverLetter(String userId, String letterId) {
-        coverLetterRepository.deleteById(userId, letterId);
+        CoverLetterEntity deleted = coverLetterRepository.deleteById(userId, letterId);
+
+        // Dọn blob đi kèm (key blob gắn với SK nên không ảnh hưởng letter khác)
+        if (deleted != null) {
+            contentOffloader.delete(deleted.getContentRef());
+            contentOffloader.delete(deleted.getJobDescriptionRef());
+        }
         logger.info("Deleted cover letter {} for user {}", letterId, userId);
     }
+
+    // Chấm resume hiện tại của user theo JD (tại chỗ, không gọi Bedrock); lỗi chỉ log, không chặn việc tạo letter
+    private void scoreAgainstJob(String userId, String industry, String jobDescription, CoverLetterEntity entity) {
+        try {
+            ResumeEntity resume = resumeService.getResume(userId);
+            if (resume == null || resume.getContent() == null) {
+                return;
+            }
+            AtsScorer.AtsResult ats = atsService.scoreAgainstJob(industry, resume.getContent(), jobDescription);
+            entity.setAtsScore(ats.score());
+            entity.setAtsMissingKeywords(ats.missingKeywords());
+        } catch (RuntimeException e) {
+            logger.error("Failed to score resume against job description for user {}", userId, e);
+        }
+    }
+
+    private String preview(String text) {
+        if (text == null || text.length() <= JD_PREVIEW_LENGTH) return text;
+        return text.substring(0, JD_PREVIEW_LENGTH) + "...";
+    }
 }
\ No newline at end of file
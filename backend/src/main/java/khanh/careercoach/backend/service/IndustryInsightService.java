@@ -3,7 +3,9 @@ package khanh.careercoach.backend.service;
 import khanh.careercoach.backend.model.IndustryInsightEntity;
 import khanh.careercoach.backend.model.UserEntity;
 import khanh.careercoach.backend.repository.IndustryInsightRepository;
+import khanh.careercoach.backend.repository.ProjectionRepository;
 import khanh.careercoach.backend.repository.UserRepository;
+import khanh.careercoach.backend.service.canonical.CanonicalizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -19,13 +21,19 @@ public class IndustryInsightService {
     private final UserRepository userRepository;
     private final IndustryInsightRepository insightRepository;
     private final BedrockService bedrockService;
+    private final CanonicalizationService canonicalizationService;
+    private final ProjectionRepository projectionRepository;
 
     public IndustryInsightService(UserRepository userRepository,
                                   IndustryInsightRepository insightRepository,
-                                  BedrockService bedrockService) {
+                                  BedrockService bedrockService,
+                                  CanonicalizationService canonicalizationService,
+                                  ProjectionRepository projectionRepository) {
         this.userRepository = userRepository;
         this.insightRepository = insightRepository;
         this.bedrockService = bedrockService;
+        this.canonicalizationService = canonicalizationService;
+        this.projectionRepository = projectionRepository;
     }
 
     public IndustryInsightEntity getIndustryInsights(String userId) {
@@ -44,8 +52,9 @@ public class IndustryInsightService {
         }
 
         // 3. Kiểm tra xem User đã chọn ngành chưa
-        String industry = user.getIndustry();
-        if (industry == null || industry.trim().isEmpty()) {
+        // Chuẩn hóa cả ngành của profile cũ (lưu trước khi có CanonicalizationService)
+        String industry = canonicalizationService.canonicalIndustry(user.getIndustry());
+        if (industry == null) {
             logger.warn("User {} has not selected an industry yet", userId);
             // Có thể throw lỗi hoặc trả về null tùy logic frontend
             throw new RuntimeException("User has not selected an industry");
@@ -53,7 +62,14 @@ public class IndustryInsightService {
 
         // 4. Tìm Insight trong DB
         logger.info("Fetching insights for industry: {}", industry);
-        IndustryInsightEntity insight = insightRepository.findByIndustry(industry);
+        // Bản sao trước (insight là item nóng của cả ngành), thiếu bản sao thì đọc bản gốc và ghi lại bản sao
+        IndustryInsightEntity insight = insightRepository.findReplicaByIndustry(industry);
+        if (insight == null) {
+            insight = insightRepository.findByIndustry(industry);
+            if (insight != null) {
+                rewriteReplicasQuietly(insight);
+            }
+        }
 
         // 5. Nếu chưa có hoặc (Optional: đã hết hạn cache), gọi AI tạo mới
         // Ở đây logic gốc là "If no insights exist", tôi giữ nguyên logic đó.
@@ -70,13 +86,35 @@ public class IndustryInsightService {
             // Set next update = now + 7 days
             insight.setNextUpdate(Instant.now().plus(7, ChronoUnit.DAYS).toString());
 
-            // Lưu vào DB
-            insightRepository.save(insight);
+            // Lưu vào DB: bản gốc + bản sao trong 1 transaction (bản sao luôn cùng phiên bản với bản gốc)
+            insightRepository.saveWithReplicas(insight);
             logger.info("Saved new insights for '{}'", industry);
         } else {
             logger.info("Found existing insights for '{}' in DB", industry);
         }
 
+        insight.setMemberCount(countMembersQuietly(industry));
         return insight;
     }
+
+    // Bản sao chỉ để giảm tải đọc: ghi lỗi thì lần đọc sau lại thử, không chặn insight
+    private void rewriteReplicasQuietly(IndustryInsightEntity insight) {
+        try {
+            if (!insightRepository.rewriteReplicas(insight)) {
+                logger.info("Insight {} changed while repairing replicas, skipped", insight.getPk());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not repair replicas of {}: {}", insight.getPk(), e.getMessage());
+        }
+    }
+
+    // Số user cùng ngành (read model do StreamProjectionFunction cập nhật); lỗi đọc không chặn insight
+    private Long countMembersQuietly(String industry) {
+        try {
+            return projectionRepository.countMembers(industry);
+        } catch (RuntimeException e) {
+            logger.warn("Could not count members of industry '{}': {}", industry, e.getMessage());
+            return null;
+        }
+    }
 }
\ No newline at end of file
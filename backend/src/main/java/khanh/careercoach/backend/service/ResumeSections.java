@@ -0,0 +1,84 @@
+package khanh.careercoach.backend.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tách / ghép Resume markdown theo section (mỗi tiêu đề "## " mở đầu một section).
+ * Ghép các section theo thứ tự ra đúng chuỗi ban đầu (section giữ nguyên dòng trống phía sau).
+ * Frontend dùng cùng quy tắc đặt tên (splitResumeSections trong lib/helper.js).
+ */
+public final class ResumeSections {
+
+    public static final int MAX_NAME_LENGTH = 64;
+    private static final Pattern HEADING = Pattern.compile("(?m)^## ");
+    private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9-]{1," + MAX_NAME_LENGTH + "}");
+
+    private ResumeSections() {
+    }
+
+    /**
+     * @return tên section -> markdown của section, theo thứ tự xuất hiện
+     */
+    public static Map<String, String> split(String markdown) {
+        Map<String, String> sections = new LinkedHashMap<>();
+        if (markdown == null || markdown.isEmpty()) {
+            return sections;
+        }
+
+        Matcher matcher = HEADING.matcher(markdown);
+        int start = 0;
+        while (matcher.find()) {
+            if (matcher.start() > start) {
+                put(sections, nameOf(markdown, start), markdown.substring(start, matcher.start()));
+            }
+            start = matcher.start();
+        }
+        put(sections, nameOf(markdown, start), markdown.substring(start));
+        return sections;
+    }
+
+    public static String join(List<String> order, Map<String, String> sections) {
+        StringBuilder markdown = new StringBuilder();
+        for (String name : order) {
+            String content = sections.get(name);
+            if (content != null) {
+                markdown.append(content);
+            }
+        }
+        return markdown.toString();
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && VALID_NAME.matcher(name).matches();
+    }
+
+    // Phần trước tiêu đề đầu tiên -> "preamble"; còn lại là slug của tiêu đề (bỏ thẻ HTML)
+    private static String nameOf(String markdown, int start) {
+        if (!markdown.startsWith("## ", start)) {
+            return "preamble";
+        }
+        int lineEnd = markdown.indexOf('\n', start);
+        String heading = markdown.substring(start + 3, lineEnd < 0 ? markdown.length() : lineEnd);
+        String slug = heading.replaceAll("<[^>]*>", " ")
+                .toLowerCase()
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("^-+|-+$", "");
+        if (slug.isEmpty()) {
+            slug = "section";
+        }
+        return slug.length() > MAX_NAME_LENGTH - 4 ? slug.substring(0, MAX_NAME_LENGTH - 4) : slug;
+    }
+
+    // Tiêu đề trùng nhau -> thêm hậu tố -2, -3...
+    private static void put(Map<String, String> sections, String name, String content) {
+        String unique = name;
+        for (int i = 2; sections.containsKey(unique); i++) {
+            unique = name + "-" + i;
+        }
+        sections.put(unique, content);
+    }
+}
@@ -1,14 +1,33 @@
 package khanh.careercoach.backend.service;
 
 import khanh.careercoach.backend.model.ResumeEntity;
+import khanh.careercoach.backend.model.ResumeSectionEntity;
+import khanh.careercoach.backend.model.ResumeVersionEntity;
 import khanh.careercoach.backend.model.UserEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
 import khanh.careercoach.backend.repository.ResumeRepository;
+import khanh.careercoach.backend.repository.ResumeVersionRepository;
 import khanh.careercoach.backend.repository.UserRepository;
+import khanh.careercoach.backend.service.ai.AiPrompt;
+import khanh.careercoach.backend.service.ai.AiTask;
+import khanh.careercoach.backend.service.ai.PromptBuilder;
+import khanh.careercoach.backend.service.ats.AtsScorer;
+import khanh.careercoach.backend.service.ats.AtsService;
+import khanh.careercoach.backend.service.history.ResumeHistoryService;
+import khanh.careercoach.backend.storage.ContentOffloader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ResumeService {
@@ -18,45 +37,303 @@ public class ResumeService {
     private final ResumeRepository resumeRepository;
     private final UserRepository userRepository;
     private final BedrockService bedrockService;
+    private final ContentOffloader contentOffloader;
+    private final ResumeHistoryService resumeHistoryService;
+    private final AtsService atsService;
 
-    public ResumeService(ResumeRepository resumeRepository, UserRepository userRepository, BedrockService bedrockService) {
+    public ResumeService(ResumeRepository resumeRepository, UserRepository userRepository,
+                         BedrockService bedrockService, ContentOffloader contentOffloader,
+                         ResumeHistoryService resumeHistoryService, AtsService atsService) {
         this.resumeRepository = resumeRepository;
         this.userRepository = userRepository;
         this.bedrockService = bedrockService;
+        this.contentOffloader = contentOffloader;
+        this.resumeHistoryService = resumeHistoryService;
+        this.atsService = atsService;
     }
 
     // 1. Save Resume (Upsert)
     public ResumeEntity saveResume(String userId, String content) {
+        return saveResume(userId, content, null);
+    }
+
+    /**
+     * Lưu cả Resume (POST /resume): tách thành section rồi chỉ ghi các section có hash thay đổi.
+     * expectedVersion != null -> chỉ ghi nếu chưa ai sửa resume kể từ lúc client tải về.
+     */
+    public ResumeEntity saveResume(String userId, String content, Long expectedVersion) {
         if (content == null || content.trim().isEmpty()) {
             throw new IllegalArgumentException("Resume content cannot be empty");
         }
 
-        // Kiểm tra user có tồn tại không
-        // (Tùy chọn: nếu tin tưởng token thì có thể bỏ qua bước này để tiết kiệm 1 RCU)
+        logger.info("Saving resume for user: {}", userId);
+        Map<String, String> sections = ResumeSections.split(content);
+        ResumeEntity saved = writeSections(userId, new ArrayList<>(sections.keySet()), sections, expectedVersion);
+        saved.setContent(content); // Trả nguyên nội dung cho client, không cần tải lại
+        return saved;
+    }
 
-        ResumeEntity resume = resumeRepository.findByUserId(userId);
+    /**
+     * Sửa từng phần (PATCH /resume): client gửi thứ tự đầy đủ các section và nội dung của các section đã sửa.
+     * Section không còn trong order bị xóa; section gửi lên nhưng trùng hash thì không ghi.
+     */
+    public ResumeEntity patchResume(String userId, List<String> order, Map<String, String> changedSections,
+                                    Long expectedVersion) {
+        if (order == null || order.isEmpty()) {
+            throw new IllegalArgumentException("Field 'order' must list the resume sections");
+        }
+        if (order.size() > ResumeRepository.MAX_SECTION_WRITES) {
+            throw new IllegalArgumentException("Resume has too many sections");
+        }
+        if (new HashSet<>(order).size() != order.size()) {
+            throw new IllegalArgumentException("Field 'order' contains duplicate sections");
+        }
+        for (String name : order) {
+            if (!ResumeSections.isValidName(name)) {
+                throw new IllegalArgumentException("Invalid section name: " + name);
+            }
+        }
+        Map<String, String> changed = changedSections != null ? changedSections : Map.of();
+        for (String name : changed.keySet()) {
+            if (!order.contains(name)) {
+                throw new IllegalArgumentException("Section '" + name + "' is not listed in 'order'");
+            }
+        }
 
-        if (resume == null) {
-            logger.info("Creating new resume for user: {}", userId);
-            resume = new ResumeEntity();
-            resume.setPk("USER#" + userId);
-            resume.setSk("RESUME");
-            resume.setCreatedAt(Instant.now().toString());
+        logger.info("Patching resume for user: {} ({} sections sent)", userId, changed.size());
+        return writeSections(userId, order, changed, expectedVersion);
+    }
+
+    private ResumeEntity writeSections(String userId, List<String> order, Map<String, String> changed,
+                                       Long expectedVersion) {
+        String pk = "USER#" + userId;
+        String now = Instant.now().toString();
+
+        ResumeEntity current = resumeRepository.findByUserId(userId);
+        Map<String, String> storedHashes = current != null && current.getSectionHashes() != null
+                ? current.getSectionHashes() : Map.of();
+
+        // Resume cũ lưu 1 khối (trước khi có section): tách nội dung cũ, section client không gửi lấy từ đó
+        Map<String, String> contents = new LinkedHashMap<>(changed);
+        boolean legacy = current != null && current.getSectionOrder() == null
+                && (current.getContent() != null || current.getContentRef() != null);
+        String legacyContent = null;
+        if (legacy) {
+            legacyContent = current.getContent() != null
+                    ? current.getContent() : contentOffloader.load(current.getContentRef(), current.getContentHash());
+            ResumeSections.split(legacyContent).forEach(contents::putIfAbsent);
+            storedHashes = Map.of();
+        }
+
+        // So hash: chỉ ghi section mới / đã đổi
+        List<ResumeSectionEntity> puts = new ArrayList<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (String name : order) {
+            String content = contents.get(name);
+            if (content == null) {
+                if (!storedHashes.containsKey(name)) {
+                    throw new IllegalArgumentException("Missing content for new section: " + name);
+                }
+                hashes.put(name, storedHashes.get(name));
+                continue;
+            }
+            String hash = ContentOffloader.sha256(content);
+            hashes.put(name, hash);
+            if (!hash.equals(storedHashes.get(name))) {
+                puts.add(toSection(pk, name, content, hash, now));
+            }
+        }
+        List<String> deleted = storedHashes.keySet().stream().filter(name -> !hashes.containsKey(name)).toList();
+
+        boolean orderChanged = current == null || !order.equals(current.getSectionOrder());
+        if (puts.isEmpty() && deleted.isEmpty() && !orderChanged && !legacy) {
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                throw new ConcurrentModificationException("Item was modified by another request, please reload and retry");
+            }
+            logger.info("Resume of user {} unchanged, skipping write", userId);
+            return current;
+        }
+
+        // Toàn văn trước / sau khi lưu cho lịch sử phiên bản (cần nội dung các section không đổi)
+        List<ResumeSectionEntity> storedSections = !legacy && current != null && current.getSectionOrder() != null
+                ? resumeRepository.findSections(userId) : List.of();
+        Map<String, String> storedContents = legacy
+                ? ResumeSections.split(legacyContent)
+                : loadSectionContents(storedSections);
+        String previousText = legacy
+                ? legacyContent
+                : current != null && current.getSectionOrder() != null
+                        ? ResumeSections.join(current.getSectionOrder(), storedContents) : null;
+        Map<String, String> merged = new HashMap<>(storedContents);
+        merged.putAll(contents);
+        String newText = ResumeSections.join(order, merged);
+        long newVersion = (current != null && current.getVersion() != null ? current.getVersion() : 0L) + 1;
+
+        PartialUpdate update = PartialUpdate.create()
+                .set("sectionOrder", order)
+                .set("sectionHashes", hashes)
+                .set("updatedAt", now)
+                .setIfNotExists("createdAt", now)
+                .incrementVersion();
+        // Luôn kiểm tra version (của client, hoặc bản vừa đọc) để hash trên item RESUME không bị ghi đè lẫn nhau
+        Long guardVersion = expectedVersion != null ? expectedVersion : current != null ? current.getVersion() : null;
+        if (guardVersion != null) {
+            update.expectVersion(guardVersion);
         } else {
-            logger.info("Updating existing resume for user: {}", userId);
+            update.expectNotExists();
+        }
+        if (legacy) {
+            update.remove("content").remove("contentRef").remove("contentHash");
         }
 
-        resume.setContent(content);
-        resume.setUpdatedAt(Instant.now().toString());
+        // Điểm ATS tính tại chỗ, ghi cùng transaction (lỗi chấm điểm không chặn việc lưu)
+        AtsScorer.AtsResult ats = scoreQuietly(userId, newText);
+        if (ats != null) {
+            update.set("atsScore", ats.score()).set("feedback", ats.feedback());
+        }
 
-        resumeRepository.save(resume);
-        return resume;
+        ResumeVersionEntity historyVersion =
+                resumeHistoryService.prepareVersion(pk, current, previousText, newText, newVersion, update);
+
+        resumeRepository.writeSections(userId, puts, deleted, historyVersion, update, guardVersion);
+        logger.info("Saved resume of user {}: {} sections written, {} deleted, {} unchanged",
+                userId, puts.size(), deleted.size(), order.size() - puts.size());
+
+        // Sau commit: blob của resume cũ / section bị thay hoặc bị xóa không còn item nào trỏ tới
+        if (legacy && current.getContentRef() != null) {
+            deleteBlobQuietly(current.getContentRef());
+        }
+        Set<String> replaced = new HashSet<>(deleted);
+        Set<String> liveRefs = new HashSet<>();
+        for (ResumeSectionEntity section : puts) {
+            replaced.add(section.getName());
+            if (section.getContentRef() != null) {
+                liveRefs.add(section.getContentRef());
+            }
+        }
+        for (ResumeSectionEntity stored : storedSections) {
+            if (stored.getContentRef() != null && replaced.contains(stored.getName())
+                    && !liveRefs.contains(stored.getContentRef())) {
+                deleteBlobQuietly(stored.getContentRef());
+            }
+        }
+
+        ResumeEntity saved = new ResumeEntity();
+        saved.setPk(pk);
+        saved.setSk(ResumeRepository.RESUME_SK);
+        saved.setSectionOrder(order);
+        saved.setSectionHashes(hashes);
+        saved.setAtsScore(ats != null ? ats.score() : current != null ? current.getAtsScore() : null);
+        saved.setFeedback(ats != null ? ats.feedback() : current != null ? current.getFeedback() : null);
+        saved.setCreatedAt(current != null && current.getCreatedAt() != null ? current.getCreatedAt() : now);
+        saved.setUpdatedAt(now);
+        saved.setVersion(newVersion);
+        saved.setHistoryHeadSk(historyVersion.getSk());
+        return saved;
+    }
+
+    private AtsScorer.AtsResult scoreQuietly(String userId, String text) {
+        try {
+            UserEntity user = userRepository.findById("USER#" + userId, "METADATA");
+            return atsService.scoreResume(user != null ? user.getIndustry() : null, text);
+        } catch (RuntimeException e) {
+            logger.error("Failed to compute ATS score for user {}", userId, e);
+            return null;
+        }
+    }
+
+    // Tên section -> markdown (tải từ BlobStore nếu section đã offload)
+    private Map<String, String> loadSectionContents(String userId) {
+        return loadSectionContents(resumeRepository.findSections(userId));
+    }
+
+    private Map<String, String> loadSectionContents(List<ResumeSectionEntity> sections) {
+        Map<String, String> byName = new HashMap<>();
+        for (ResumeSectionEntity section : sections) {
+            String content = section.getContent() != null
+                    ? section.getContent() : contentOffloader.load(section.getContentRef(), section.getContentHash());
+            byName.put(section.getName(), content);
+        }
+        return byName;
+    }
+
+    private ResumeSectionEntity toSection(String pk, String name, String content, String hash, String now) {
+        ResumeSectionEntity section = new ResumeSectionEntity();
+        section.setPk(pk);
+        section.setSk(ResumeRepository.SECTION_SK_PREFIX + name);
+        section.setName(name);
+        section.setContentHash(hash);
+        section.setUpdatedAt(now);
+
+        // Section quá lớn -> body lưu ở BlobStore, item chỉ giữ con trỏ
+        ContentOffloader.OffloadedBody offloaded = contentOffloader.offloadIfLarge(pk, section.getSk(), "content", content);
+        if (offloaded == null) {
+            section.setContent(content);
+        } else {
+            section.setContentRef(offloaded.ref());
+        }
+        return section;
+    }
+
+    private void deleteBlobQuietly(String ref) {
+        try {
+            contentOffloader.delete(ref);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to delete stale resume blob {}", ref, e);
+        }
     }
 
     // 2. Get Resume
     public ResumeEntity getResume(String userId) {
         logger.debug("Fetching resume for user: {}", userId);
-        return resumeRepository.findByUserId(userId);
+        ResumeEntity resume = resumeRepository.findByUserId(userId);
+        if (resume == null) {
+            return null;
+        }
+
+        // Resume tách section: ghép lại theo sectionOrder
+        if (resume.getSectionOrder() != null) {
+            Map<String, String> byName = loadSectionContents(userId);
+            Map<String, String> sections = new LinkedHashMap<>();
+            for (String name : resume.getSectionOrder()) {
+                sections.put(name, byName.getOrDefault(name, ""));
+            }
+            resume.setSections(sections);
+            resume.setContent(ResumeSections.join(resume.getSectionOrder(), sections));
+            return resume;
+        }
+
+        // Tải body từ BlobStore nếu đã offload
+        if (resume.getContent() == null && resume.getContentRef() != null) {
+            resume.setContent(contentOffloader.load(resume.getContentRef(), resume.getContentHash()));
+        }
+        return resume;
+    }
+
+    // Lịch sử phiên bản
+    public List<ResumeVersionEntity> getVersions(String userId) {
+        return resumeHistoryService.listVersions(userId);
+    }
+
+    public ResumeVersionEntity getVersion(String userId, String versionId) {
+        return resumeHistoryService.loadVersion(userId, versionSk(versionId));
+    }
+
+    /**
+     * Khôi phục một phiên bản cũ: lưu nội dung của nó thành phiên bản mới (lịch sử không bị viết lại).
+     */
+    public ResumeEntity restoreVersion(String userId, String versionId, Long expectedVersion) {
+        ResumeVersionEntity version = resumeHistoryService.loadVersion(userId, versionSk(versionId));
+        logger.info("Restoring resume of user {} to version {}", userId, version.getSk());
+        return saveResume(userId, version.getContent(), expectedVersion);
+    }
+
+    // versionId = phần timestamp của SK (RESUME#V#<ts>)
+    private String versionSk(String versionId) {
+        if (versionId == null || !versionId.matches("\\d{13}")) {
+            throw new IllegalArgumentException("Invalid resume version id");
+        }
+        return ResumeVersionRepository.VERSION_SK_PREFIX + versionId;
     }
 
     // 3. Improve Content with AI
@@ -69,13 +346,16 @@ public class ResumeService {
         UserEntity user = userRepository.findById("USER#" + userId, "METADATA");
         if (user == null) throw new RuntimeException("User not found");
 
-        String industry = user.getIndustry();
-        if (industry == null) industry = "General Professional"; // Fallback nếu chưa có ngành
+        String industry = user.getIndustry() != null
+                ? user.getIndustry() : "General Professional"; // Fallback nếu chưa có ngành
 
         logger.info("Improving resume section '{}' for industry '{}'", type, industry);
 
-        // Tạo Prompt cho Bedrock (Claude 3)
-        String prompt = String.format("""
+        // Tạo Prompt cho Bedrock (Claude 3); nội dung quá dài được rút gọn theo ngân sách token,
+        // max_tokens tỉ lệ với độ dài đoạn cần viết lại
+        AiPrompt prompt = PromptBuilder.forTask(AiTask.RESUME_IMPROVE)
+                .input("currentContent", currentContent)
+                .build(in -> String.format("""
             As an expert resume writer, improve the following %s description for a %s professional.
             Make it more impactful, quantifiable, and aligned with industry standards.
             Current content: "%s"
@@ -89,7 +369,7 @@ public class ResumeService {
             6. Use industry-specific keywords
             
             Format the response as a single paragraph without any additional text or explanations.
-            """, type, industry, currentContent);
+            """, type, industry, in.get("currentContent")));
 
         // Gọi AI
         return bedrockService.generateTextCorrection(prompt);
@@ -0,0 +1,172 @@
+package khanh.careercoach.backend.service;
+
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.model.AssessmentEntity.QuestionItem;
+import khanh.careercoach.backend.repository.AssessmentRepository;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.service.BedrockService.TipResult;
+import khanh.careercoach.backend.service.BedrockService.TipSubmission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Micro-batcher sinh Improvement Tip cho các bài làm đang PENDING.
+ * Chạy theo lịch (tipBatchHandler, EventBridge mỗi phút):
+ * - Lấy tối đa TIP_BATCH_MAX_ITEMS bài cũ nhất trên GSI1 (TIP#PENDING)
+ * - Gom mỗi TIP_BATCH_SIZE bài vào 1 prompt nhiều user, kết quả trả về theo id
+ * - Ghi tip về từng item (UpdateItem từng phần, gỡ khỏi index); bài không có tip thì tăng tipAttempts,
+ *   quá MAX_ATTEMPTS thì đánh dấu FAILED để không kẹt hàng đợi
+ * - Chỉ bắt đầu batch mới khi còn đủ thời gian cho 1 lần gọi AI trọn vẹn (BEDROCK_DEADLINE_MS) trong
+ *   TIP_BATCH_RUN_BUDGET_MS (nhỏ hơn Timeout của Lambda): bài chưa tới lượt vẫn PENDING cho lượt sau
+ * Bedrock Batch Inference (job S3, tối thiểu 1000 record, trả kết quả sau vài giờ) không hợp với độ trễ
+ * mong đợi của user, nên batch được làm tại chỗ bằng prompt nhiều user.
+ */
+@Service
+public class TipBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TipBatchService.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 10;
+    private static final int DEFAULT_MAX_ITEMS = 200;
+    private static final int MAX_ATTEMPTS = 3;
+    // Timeout của TipBatchFunction là 120s: chừa 10s để ghi kết quả batch cuối
+    private static final int DEFAULT_RUN_BUDGET_MS = 110_000;
+    private static final int DEFAULT_BATCH_DEADLINE_MS = 50_000;
+
+    private final AssessmentRepository assessmentRepository;
+    private final BedrockService bedrockService;
+    private final int batchSize;
+    private final int maxItemsPerRun;
+    private final long runBudgetMs;
+    private final long batchDeadlineMs;
+
+    public TipBatchService(AssessmentRepository assessmentRepository, BedrockService bedrockService) {
+        this.assessmentRepository = assessmentRepository;
+        this.bedrockService = bedrockService;
+        this.batchSize = intEnv("TIP_BATCH_SIZE", DEFAULT_BATCH_SIZE);
+        this.maxItemsPerRun = intEnv("TIP_BATCH_MAX_ITEMS", DEFAULT_MAX_ITEMS);
+        this.runBudgetMs = intEnv("TIP_BATCH_RUN_BUDGET_MS", DEFAULT_RUN_BUDGET_MS);
+        this.batchDeadlineMs = intEnv("BEDROCK_DEADLINE_MS", DEFAULT_BATCH_DEADLINE_MS);
+    }
+
+    /**
+     * Xử lý 1 lượt hàng đợi.
+     *
+     * @return số bài làm đã có tip
+     */
+    public int processPendingTips() {
+        List<AssessmentEntity> pending = assessmentRepository.findPendingTips(maxItemsPerRun);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        logger.info("Processing {} pending tips in batches of {}", pending.size(), batchSize);
+
+        long deadline = System.currentTimeMillis() + runBudgetMs;
+        int completed = 0;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            if (System.currentTimeMillis() + batchDeadlineMs > deadline) {
+                logger.info("Run budget reached, leaving {} pending tips for the next run", pending.size() - from);
+                break;
+            }
+            List<AssessmentEntity> batch = pending.subList(from, Math.min(pending.size(), from + batchSize));
+            try {
+                completed += processBatch(batch);
+            } catch (RuntimeException e) {
+                // Lỗi 1 batch (Bedrock hết ngân sách...) không chặn các batch sau
+                logger.error("Tip batch failed, {} items will be retried", batch.size(), e);
+                batch.forEach(this::markAttemptFailed);
+            }
+        }
+        logger.info("Generated {} of {} pending tips", completed, pending.size());
+        return completed;
+    }
+
+    private int processBatch(List<AssessmentEntity> batch) {
+        // Id ngắn (S1, S2...) thay vì PK/SK: ít token, model không chép sai
+        Map<String, AssessmentEntity> byId = new HashMap<>();
+        List<TipSubmission> submissions = new ArrayList<>();
+        for (AssessmentEntity assessment : batch) {
+            String id = "S" + (submissions.size() + 1);
+            byId.put(id, assessment);
+            submissions.add(new TipSubmission(id, assessment.getIndustry(), wrongAnswersOf(assessment)));
+        }
+
+        List<TipResult> tips = bedrockService.generateImprovementTips(submissions);
+
+        int completed = 0;
+        for (TipResult result : tips) {
+            AssessmentEntity assessment = result.id() != null ? byId.remove(result.id()) : null;
+            if (assessment == null || result.tip() == null || result.tip().isBlank()) {
+                continue;
+            }
+            try {
+                assessmentRepository.updatePartial(assessment.getPk(), assessment.getSk(), PartialUpdate.create()
+                        .set("improvementTip", result.tip().trim())
+                        .set("tipStatus", "READY")
+                        .set("updatedAt", Instant.now().toString())
+                        .remove("GSI1_PK")
+                        .remove("GSI1_SK")
+                        .expectExists()
+                        .expectEquals("tipStatus", "PENDING"));
+                completed++;
+            } catch (ConcurrentModificationException e) {
+                skipGone(assessment);
+            }
+        }
+
+        // Bài model bỏ sót -> thử lại ở lượt sau
+        byId.values().forEach(this::markAttemptFailed);
+        return completed;
+    }
+
+    private void markAttemptFailed(AssessmentEntity assessment) {
+        int attempts = assessment.getTipAttempts() != null ? assessment.getTipAttempts() : 0;
+        PartialUpdate update = PartialUpdate.create()
+                .add("tipAttempts", 1)
+                .set("updatedAt", Instant.now().toString());
+        if (attempts + 1 >= MAX_ATTEMPTS) {
+            logger.warn("Giving up tip for {} {} after {} attempts", assessment.getPk(), assessment.getSk(), attempts + 1);
+            update.set("tipStatus", "FAILED").remove("GSI1_PK").remove("GSI1_SK");
+        }
+        // Không tạo item ma (thiếu createdAt...) nếu bài làm đã bị xóa / hết hạn trong lúc batch chạy
+        update.expectExists().expectEquals("tipStatus", "PENDING");
+        try {
+            assessmentRepository.updatePartial(assessment.getPk(), assessment.getSk(), update);
+        } catch (ConcurrentModificationException e) {
+            skipGone(assessment);
+        } catch (RuntimeException e) {
+            logger.error("Failed to record tip attempt for {} {}", assessment.getPk(), assessment.getSk(), e);
+        }
+    }
+
+    // Bài làm đã bị xóa hoặc không còn chờ tip (lượt khác đã xử lý): bỏ qua
+    private void skipGone(AssessmentEntity assessment) {
+        logger.info("Assessment {} {} is gone or no longer pending, skipping tip", assessment.getPk(), assessment.getSk());
+    }
+
+    private String wrongAnswersOf(AssessmentEntity assessment) {
+        List<String> wrong = new ArrayList<>();
+        if (assessment.getQuestions() != null) {
+            for (QuestionItem q : assessment.getQuestions()) {
+                if (!Boolean.TRUE.equals(q.getIsCorrect())) {
+                    wrong.add(String.format("Question: \"%s\"\nCorrect: \"%s\"\nUser Answer: \"%s\"",
+                            q.getQuestion(), q.getAnswer(), q.getUserAnswer()));
+                }
+            }
+        }
+        return String.join("\n\n", wrong);
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+}
@@ -2,12 +2,15 @@ package khanh.careercoach.backend.service;
 
 import khanh.careercoach.backend.dto.UpdateUserRequest;
 import khanh.careercoach.backend.model.UserEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
 import khanh.careercoach.backend.repository.UserRepository;
+import khanh.careercoach.backend.service.canonical.CanonicalizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -20,10 +23,12 @@ public class UserService {
     private static final String METADATA_SK = "METADATA";
 
     private final UserRepository userRepository;
+    private final CanonicalizationService canonicalizationService;
 
     // Constructor Injection
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, CanonicalizationService canonicalizationService) {
         this.userRepository = userRepository;
+        this.canonicalizationService = canonicalizationService;
     }
 
     /**
@@ -44,6 +49,10 @@ public class UserService {
 
     /**
      * Cập nhật (hoặc tạo mới) User Profile
+     * Dùng 1 UpdateItem có điều kiện thay vì findById + putItem:
+     * - Chỉ ghi các field có giá trị trong request (không mất dữ liệu khi 2 request chạy song song)
+     * - createdAt/email chỉ được set khi tạo mới (if_not_exists)
+     * - Nếu client gửi version -> Optimistic Locking
      */
     public UserEntity updateUserProfile(String userId, String email, UpdateUserRequest request) {
         // 1. Validator
@@ -54,50 +63,34 @@ public class UserService {
 
         logger.info("Processing profile update for user: {}", userId);
 
-        // 2. Lấy user cũ để kiểm tra tồn tại
-        UserEntity user = getUserProfile(userId);
-
-        // 3. Logic: Create if not exists (Upsert)
-        if (user == null) {
-            logger.info("User not found via ID {}, creating new profile...", userId);
-            if (email == null || email.isEmpty()) {
-                logger.warn("Creating new user but Email is missing!");
-            }
-
-            user = new UserEntity();
-            user.setPk(USER_PK_PREFIX + userId);
-            user.setSk(METADATA_SK);
-            user.setCreatedAt(Instant.now().toString());
-            user.setEmail(email); // Chỉ set email khi tạo mới
-        }
-
-        // 4. Mapping dữ liệu từ DTO sang Entity (Chỉ update nếu có dữ liệu)
-        boolean isUpdated = false;
-
-        if (hasValue(request.getIndustry())) {
-            user.setIndustry(request.getIndustry());
-            isUpdated = true;
+        if (email == null || email.isEmpty()) {
+            logger.warn("Email claim is missing, profile will be upserted without email");
         }
-        if (hasValue(request.getBio())) {
-            user.setBio(request.getBio());
-            isUpdated = true;
-        }
-        if (request.getExperience() != null) {
-            user.setExperience(request.getExperience());
-            isUpdated = true;
-        }
-        if (request.getSkills() != null && !request.getSkills().isEmpty()) {
-            user.setSkills(request.getSkills());
-            isUpdated = true;
-        }
-
-        // 5. Lưu xuống DB
-        user.setUpdatedAt(Instant.now().toString());
-
-        // Dùng hàm save của Repository (nó sẽ log debug bên trong)
-        userRepository.save(user);
 
-        logger.info("Profile updated successfully for user: {}", userId);
+        String now = Instant.now().toString();
+
+        // Ngành / kỹ năng nhập tự do -> giá trị chuẩn (cùng 1 key insight cho mọi cách viết)
+        String industry = hasValue(request.getIndustry())
+                ? canonicalizationService.canonicalIndustry(request.getIndustry()) : null;
+        List<String> skills = request.getSkills() != null && !request.getSkills().isEmpty()
+                ? canonicalizationService.canonicalSkills(request.getSkills()) : null;
+
+        // 2. Mapping dữ liệu từ DTO sang Update Expression (Chỉ update nếu có dữ liệu)
+        PartialUpdate update = PartialUpdate.create()
+                .set("industry", industry)
+                .set("bio", hasValue(request.getBio()) ? request.getBio() : null)
+                .set("experience", request.getExperience())
+                .set("skills", skills != null && !skills.isEmpty() ? skills : null)
+                .set("updatedAt", now)
+                .setIfNotExists("createdAt", now)
+                .setIfNotExists("email", hasValue(email) ? email : null)
+                .incrementVersion()
+                .expectVersion(request.getVersion());
+
+        // 3. Upsert xuống DB (1 round trip, trả về item sau khi cập nhật)
+        UserEntity user = userRepository.updatePartial(USER_PK_PREFIX + userId, METADATA_SK, update);
+
+        logger.info("Profile updated successfully for user: {} (version {})", userId, user.getVersion());
         return user;
     }
 
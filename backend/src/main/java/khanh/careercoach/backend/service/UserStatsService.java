@@ -0,0 +1,277 @@
+package khanh.careercoach.backend.service;
+
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.model.AssessmentSummaryEntity;
+import khanh.careercoach.backend.model.ProjectionEntity;
+import khanh.careercoach.backend.model.UserStatsEntity;
+import khanh.careercoach.backend.repository.AssessmentRepository;
+import khanh.careercoach.backend.repository.AssessmentSummaryRepository;
+import khanh.careercoach.backend.repository.CancellationCode;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ProjectionRepository;
+import khanh.careercoach.backend.repository.TransactionCancelledException;
+import khanh.careercoach.backend.repository.UserStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Thống kê quiz theo user (item USER#<id>/STATS), cộng dồn mỗi lần nộp bài thay vì tính lại từ toàn bộ lịch sử.
+ * Min/max và cửa sổ điểm gần nhất không biểu diễn được bằng UpdateItem ADD, nên cập nhật theo kiểu
+ * đọc - tính - ghi có điều kiện version, cùng transaction với bài làm; xung đột thì đọc lại và thử lại.
+ * User có lịch sử từ trước khi có item STATS: lần đầu tính lại từ lịch sử (1 lần duy nhất),
+ * gồm cả tổng hợp tháng của bài làm đã lưu trữ (RetentionService).
+ */
+@Service
+public class UserStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+
+    static final int RECENT_WINDOW = 20;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final UserStatsRepository userStatsRepository;
+    private final AssessmentRepository assessmentRepository;
+    private final ProjectionRepository projectionRepository;
+    private final AssessmentSummaryRepository summaryRepository;
+
+    public UserStatsService(UserStatsRepository userStatsRepository, AssessmentRepository assessmentRepository,
+                            ProjectionRepository projectionRepository, AssessmentSummaryRepository summaryRepository) {
+        this.userStatsRepository = userStatsRepository;
+        this.assessmentRepository = assessmentRepository;
+        this.projectionRepository = projectionRepository;
+        this.summaryRepository = summaryRepository;
+    }
+
+    /**
+     * Lưu bài làm và cập nhật thống kê trong cùng transaction (1 round trip).
+     * lastActiveAt của user không nằm trong transaction: bên gọi ghi trễ (xem AssessmentService).
+     *
+     * @param skills kỹ năng của user (thống kê độ chính xác theo kỹ năng được nhắc tới trong câu hỏi)
+     */
+    public UserStatsEntity saveWithStats(String userId, AssessmentEntity assessment, List<String> skills) {
+        String pk = "USER#" + userId;
+        for (int attempt = 1; ; attempt++) {
+            UserStatsEntity current = userStatsRepository.findByUserId(userId);
+            UserStatsEntity next = current != null ? copyOf(current) : fromHistory(userId, skills);
+            accumulate(next, assessment, skills);
+
+            PartialUpdate update = toUpdate(next).incrementVersion();
+            if (current != null && current.getVersion() != null) {
+                update.expectVersion(current.getVersion());
+            } else {
+                update.expectNotExists();
+            }
+            try {
+                userStatsRepository.writeTransaction()
+                        .putIfNotExists(assessmentRepository, assessment)
+                        .update(userStatsRepository, pk, UserStatsRepository.STATS_SK, update)
+                        .commit();
+                next.setVersion((current != null && current.getVersion() != null ? current.getVersion() : 0L) + 1);
+                return next;
+            } catch (TransactionCancelledException e) {
+                // Bài khác của cùng user vừa cập nhật STATS (điều kiện version), hoặc ghi đồng thời ở bất kỳ item nào
+                // (TransactionConflict): transaction bị hủy toàn bộ, tính lại từ bản mới rồi thử lại.
+                // Điều kiện không thỏa ở item khác (bài làm đã có) thì thử lại cũng không giúp được
+                if (!isRetryable(e, pk) || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.info("Stats of user {} changed concurrently, retrying ({}/{})", userId, attempt, MAX_ATTEMPTS);
+            }
+        }
+    }
+
+    static boolean isRetryable(TransactionCancelledException e, String pk) {
+        return e.reasons().stream().noneMatch(r -> r.code() == CancellationCode.CONDITIONAL_CHECK_FAILED
+                && !(pk.equals(r.pk()) && UserStatsRepository.STATS_SK.equals(r.sk())));
+    }
+
+    /**
+     * Thống kê cho dashboard, kèm hoạt động khác của user (cover letter, lưu resume) từ read model PROJ#ACTIVITY
+     * và tổng hợp tháng của bài làm đã lưu trữ.
+     */
+    public UserStatsEntity getStats(String userId) {
+        UserStatsEntity stats = loadStats(userId);
+        if (stats != null) {
+            attachActivity(userId, stats);
+            stats.setArchivedMonths(summaryRepository.findAllByUserId(userId));
+        }
+        return stats;
+    }
+
+    private UserStatsEntity loadStats(String userId) {
+        UserStatsEntity stats = userStatsRepository.findByUserId(userId);
+        if (stats != null) {
+            return stats;
+        }
+        // Chưa có item STATS (user cũ): tính từ lịch sử, lưu lại để lần sau đọc O(1)
+        stats = fromHistory(userId, List.of());
+        if (stats.getQuizCount() > 0) {
+            try {
+                userStatsRepository.updatePartial("USER#" + userId, UserStatsRepository.STATS_SK,
+                        toUpdate(stats).incrementVersion().expectNotExists());
+                stats.setVersion(1L);
+            } catch (ConcurrentModificationException e) {
+                // Request khác vừa tạo item STATS
+                return userStatsRepository.findByUserId(userId);
+            }
+        }
+        return stats;
+    }
+
+    // Read model cập nhật bất đồng bộ: thiếu / lỗi đọc thì dashboard vẫn có thống kê quiz
+    private void attachActivity(String userId, UserStatsEntity stats) {
+        try {
+            ProjectionEntity activity = projectionRepository.findActivity(userId);
+            if (activity != null) {
+                stats.setLetterCount(activity.getLetterCount());
+                stats.setResumeSaveCount(activity.getResumeSaveCount());
+                stats.setLastResumeUpdateAt(activity.getLastResumeUpdateAt());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not load activity of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private UserStatsEntity fromHistory(String userId, List<String> skills) {
+        List<AssessmentSummaryEntity> summaries = summaryRepository.findAllByUserId(userId);
+        UserStatsEntity stats = fromHistory(userId, summaries, assessmentRepository.findAllByUserId(userId), skills);
+        if (stats.getQuizCount() > 0) {
+            logger.info("Rebuilt stats of user {} from {} assessments and {} archived months",
+                    userId, stats.getQuizCount(), summaries.size());
+        }
+        return stats;
+    }
+
+    /**
+     * Tổng hợp tháng trước (bài làm đã lưu trữ, chỉ có số đếm / tổng điểm), rồi tới các bài làm còn lại.
+     * Bài làm đã có ttl nằm sẵn trong tổng hợp tháng, chỉ chờ DynamoDB TTL xóa: bỏ qua để không đếm 2 lần.
+     */
+    static UserStatsEntity fromHistory(String userId, List<AssessmentSummaryEntity> summaries,
+                                       List<AssessmentEntity> assessments, List<String> skills) {
+        UserStatsEntity stats = empty(userId);
+        for (AssessmentSummaryEntity summary : summaries) {
+            stats.setQuizCount(stats.getQuizCount() + valueOf(summary.getQuizCount()));
+            stats.setScoreSum(stats.getScoreSum() + (summary.getScoreSum() != null ? summary.getScoreSum() : 0.0));
+            stats.setQuestionCount(stats.getQuestionCount() + valueOf(summary.getQuestionCount()));
+            stats.setCorrectCount(stats.getCorrectCount() + valueOf(summary.getCorrectCount()));
+        }
+        List<AssessmentEntity> history = new ArrayList<>(assessments.stream().filter(a -> a.getTtl() == null).toList());
+        history.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
+        for (AssessmentEntity assessment : history) {
+            accumulate(stats, assessment, skills);
+        }
+        return stats;
+    }
+
+    private static long valueOf(Long count) {
+        return count != null ? count : 0L;
+    }
+
+    static UserStatsEntity empty(String userId) {
+        UserStatsEntity stats = new UserStatsEntity();
+        stats.setPk("USER#" + userId);
+        stats.setSk(UserStatsRepository.STATS_SK);
+        stats.setQuizCount(0L);
+        stats.setScoreSum(0.0);
+        stats.setQuestionCount(0L);
+        stats.setCorrectCount(0L);
+        stats.setRecentScores(new ArrayList<>());
+        stats.setCategoryTotals(new HashMap<>());
+        stats.setCategoryCorrect(new HashMap<>());
+        stats.setSkillTotals(new HashMap<>());
+        stats.setSkillCorrect(new HashMap<>());
+        return stats;
+    }
+
+    /**
+     * Cộng một bài làm vào thống kê (thuần tính toán, không I/O).
+     */
+    static void accumulate(UserStatsEntity stats, AssessmentEntity assessment, List<String> skills) {
+        double score = assessment.getQuizScore() != null ? assessment.getQuizScore() : 0.0;
+        stats.setQuizCount(stats.getQuizCount() + 1);
+        stats.setScoreSum(stats.getScoreSum() + score);
+        stats.setMinScore(stats.getMinScore() == null ? score : Math.min(stats.getMinScore(), score));
+        stats.setMaxScore(stats.getMaxScore() == null ? score : Math.max(stats.getMaxScore(), score));
+
+        UserStatsEntity.ScorePoint point = new UserStatsEntity.ScorePoint();
+        point.setScore(score);
+        point.setCreatedAt(assessment.getCreatedAt());
+        List<UserStatsEntity.ScorePoint> recent = stats.getRecentScores();
+        recent.add(point);
+        if (recent.size() > RECENT_WINDOW) {
+            recent.subList(0, recent.size() - RECENT_WINDOW).clear();
+        }
+
+        String category = assessment.getCategory() != null ? assessment.getCategory() : "General";
+        List<Pattern> skillPatterns = new ArrayList<>();
+        if (skills != null) {
+            for (String skill : skills) {
+                skillPatterns.add(Pattern.compile("(?<![a-z0-9])" + Pattern.quote(skill.toLowerCase(Locale.ROOT))
+                        + "(?![a-z0-9])"));
+            }
+        }
+
+        if (assessment.getQuestions() == null) {
+            return;
+        }
+        for (AssessmentEntity.QuestionItem question : assessment.getQuestions()) {
+            long correct = Boolean.TRUE.equals(question.getIsCorrect()) ? 1 : 0;
+            stats.setQuestionCount(stats.getQuestionCount() + 1);
+            stats.setCorrectCount(stats.getCorrectCount() + correct);
+            stats.getCategoryTotals().merge(category, 1L, Long::sum);
+            stats.getCategoryCorrect().merge(category, correct, Long::sum);
+
+            String text = question.getQuestion() != null ? question.getQuestion().toLowerCase(Locale.ROOT) : "";
+            for (int i = 0; i < skillPatterns.size(); i++) {
+                if (skillPatterns.get(i).matcher(text).find()) {
+                    stats.getSkillTotals().merge(skills.get(i), 1L, Long::sum);
+                    stats.getSkillCorrect().merge(skills.get(i), correct, Long::sum);
+                }
+            }
+        }
+    }
+
+    private static UserStatsEntity copyOf(UserStatsEntity current) {
+        UserStatsEntity copy = empty(current.getPk().substring("USER#".length()));
+        copy.setQuizCount(current.getQuizCount() != null ? current.getQuizCount() : 0L);
+        copy.setScoreSum(current.getScoreSum() != null ? current.getScoreSum() : 0.0);
+        copy.setMinScore(current.getMinScore());
+        copy.setMaxScore(current.getMaxScore());
+        copy.setQuestionCount(current.getQuestionCount() != null ? current.getQuestionCount() : 0L);
+        copy.setCorrectCount(current.getCorrectCount() != null ? current.getCorrectCount() : 0L);
+        if (current.getRecentScores() != null) copy.getRecentScores().addAll(current.getRecentScores());
+        if (current.getCategoryTotals() != null) copy.getCategoryTotals().putAll(current.getCategoryTotals());
+        if (current.getCategoryCorrect() != null) copy.getCategoryCorrect().putAll(current.getCategoryCorrect());
+        if (current.getSkillTotals() != null) copy.getSkillTotals().putAll(current.getSkillTotals());
+        if (current.getSkillCorrect() != null) copy.getSkillCorrect().putAll(current.getSkillCorrect());
+        return copy;
+    }
+
+    private static PartialUpdate toUpdate(UserStatsEntity stats) {
+        String now = Instant.now().toString();
+        stats.setUpdatedAt(now);
+        return PartialUpdate.create()
+                .set("quizCount", stats.getQuizCount())
+                .set("scoreSum", stats.getScoreSum())
+                .set("minScore", stats.getMinScore())
+                .set("maxScore", stats.getMaxScore())
+                .set("questionCount", stats.getQuestionCount())
+                .set("correctCount", stats.getCorrectCount())
+                .set("recentScores", stats.getRecentScores())
+                .set("categoryTotals", stats.getCategoryTotals())
+                .set("categoryCorrect", stats.getCategoryCorrect())
+                .set("skillTotals", stats.getSkillTotals())
+                .set("skillCorrect", stats.getSkillCorrect())
+                .set("updatedAt", now);
+    }
+
+}
@@ -0,0 +1,15 @@
+package khanh.careercoach.backend.service.ai;
+
+import java.util.List;
+
+/**
+ * Prompt đã được giới hạn token, sẵn sàng gửi cho Bedrock.
+ *
+ * @param task                 loại tác vụ (dùng cho thống kê token)
+ * @param text                 nội dung prompt
+ * @param maxTokens            max_tokens của request
+ * @param estimatedInputTokens số token input ước lượng
+ * @param truncatedInputs      tên các input đã bị rút gọn để vừa ngân sách
+ */
+public record AiPrompt(AiTask task, String text, int maxTokens, int estimatedInputTokens, List<String> truncatedInputs) {
+}
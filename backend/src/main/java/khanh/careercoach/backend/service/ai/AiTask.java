@@ -0,0 +1,46 @@
+package khanh.careercoach.backend.service.ai;
+
+/**
+ * Các loại tác vụ AI và ngân sách token của từng loại.
+ * - inputBudget: tổng token tối đa của prompt (template + input của user)
+ * - outputBase / outputPerInputToken / outputMax: max_tokens = base + tỉ lệ * token input biến đổi, chặn trên bởi max
+ *   (VD: viết lại 1 đoạn resume thì output tỉ lệ với độ dài đoạn gốc, còn quiz thì cố định)
+ */
+public enum AiTask {
+
+    // JSON ~5 salary range + skills/trends: thực tế ~900 token
+    INDUSTRY_INSIGHTS(500, 1_500, 0, 1_500),
+    // 10 câu hỏi x (câu hỏi + 4 đáp án + đáp án đúng + giải thích) ~200-300 token = ~2.500-3.000 token JSON:
+    // giữ max_tokens 4.000 như trước (tính tiền theo token thực dùng, JSON bị cắt thì phải gọi lại đắt hơn)
+    QUIZ(600, 4_000, 0, 4_000),
+    // Tip cho nhiều bài làm trong 1 prompt: mỗi bài ~200 token vào, tip tối đa 2 câu (~80 token) ra
+    QUIZ_TIP_BATCH(6_000, 100, 0.5, 2_500),
+    // Tối đa 400 từ markdown
+    COVER_LETTER(3_000, 900, 0, 900),
+    // Output ~ 1.5 lần đoạn gốc
+    RESUME_IMPROVE(2_000, 200, 1.5, 1_000);
+
+    private final int inputBudget;
+    private final int outputBase;
+    private final double outputPerInputToken;
+    private final int outputMax;
+
+    AiTask(int inputBudget, int outputBase, double outputPerInputToken, int outputMax) {
+        this.inputBudget = inputBudget;
+        this.outputBase = outputBase;
+        this.outputPerInputToken = outputPerInputToken;
+        this.outputMax = outputMax;
+    }
+
+    public int getInputBudget() {
+        return inputBudget;
+    }
+
+    /**
+     * max_tokens cho request, tính từ số token của phần input biến đổi (không gồm template).
+     */
+    public int maxTokensFor(int variableInputTokens) {
+        long sized = outputBase + Math.round(outputPerInputToken * variableInputTokens);
+        return (int) Math.min(outputMax, sized);
+    }
+}
@@ -0,0 +1,241 @@
+package khanh.careercoach.backend.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
+import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelRequest;
+import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Lớp gọi Bedrock có khả năng tự phục hồi, để lỗi tạm thời không thành 500 trả về user:
+ * - Throttling / 5xx / timeout: retry với exponential backoff + full jitter (retry của SDK bị tắt để không nhân đôi)
+ * - Hết lượt retry trên model chính: chuyển sang BEDROCK_FALLBACK_MODEL_ID (nếu có cấu hình)
+ * - JSON hỏng: re-prompt "repair" chỉ gửi đoạn JSON lỗi + thông báo lỗi (không gửi lại prompt gốc),
+ *   nếu vẫn hỏng thì sinh lại 1 lần bằng model fallback
+ * - Mọi bước đều nằm trong ngân sách thời gian BEDROCK_DEADLINE_MS tính từ lúc bắt đầu request
+ */
+@Component
+public class BedrockInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(BedrockInvoker.class);
+
+    private static final int MAX_ATTEMPTS_PER_MODEL = 4;
+    private static final long BASE_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 4_000;
+    // Mặc định chừa ~10s so với timeout 60s của Lambda để kịp trả lỗi có nghĩa
+    private static final long DEFAULT_DEADLINE_MS = 50_000;
+    // Không bắt đầu một lần gọi mới nếu còn ít hơn mức này (gọi Claude hiếm khi xong dưới 2s)
+    private static final long MIN_CALL_BUDGET_MS = 2_000;
+    private static final int REPAIR_MAX_FRAGMENT_CHARS = 12_000;
+
+    private final BedrockRuntimeClient bedrockClient;
+    private final ObjectMapper objectMapper;
+    private final ModelOutputParser modelOutputParser;
+    private final TokenUsageTracker tokenUsageTracker;
+
+    // Model ID lấy từ biến môi trường (Config trong template.yaml)
+    private final String modelId = System.getenv("BEDROCK_MODEL_ID");
+    private final String fallbackModelId = System.getenv("BEDROCK_FALLBACK_MODEL_ID");
+    private final long deadlineMs;
+
+    public BedrockInvoker(ObjectMapper objectMapper, ModelOutputParser modelOutputParser,
+                          TokenUsageTracker tokenUsageTracker) {
+        // Tắt retry mặc định của SDK: retry do lớp này quản lý theo deadline
+        this.bedrockClient = BedrockRuntimeClient.builder()
+                .overrideConfiguration(c -> c.retryStrategy(AwsRetryStrategy.doNotRetry()))
+                .build(); // Tự lấy region từ môi trường
+        this.objectMapper = objectMapper;
+        this.modelOutputParser = modelOutputParser;
+        this.tokenUsageTracker = tokenUsageTracker;
+        String configured = System.getenv("BEDROCK_DEADLINE_MS");
+        this.deadlineMs = configured != null && !configured.isEmpty() ? Long.parseLong(configured) : DEFAULT_DEADLINE_MS;
+    }
+
+    /**
+     * Gọi model lấy text thuần (retry + fallback khi lỗi tạm thời).
+     */
+    public String invokeText(AiPrompt prompt) {
+        return invokeWithFailover(prompt, "generate", newDeadline());
+    }
+
+    /**
+     * Gọi model và parse JSON; output hỏng -> repair -> sinh lại bằng model fallback.
+     *
+     * @param parser hàm parse text của model (thường là một method của ModelOutputParser)
+     */
+    public <T> T invokeJson(AiPrompt prompt, Function<String, T> parser) {
+        Instant deadline = newDeadline();
+        String output = invokeWithFailover(prompt, "generate", deadline);
+        try {
+            return parser.apply(output);
+        } catch (ModelOutputParseException first) {
+            logger.warn("Model returned invalid JSON, trying repair: {}", first.diagnostics());
+
+            // 1. Repair: chỉ gửi đoạn JSON lỗi, rẻ và nhanh hơn nhiều so với sinh lại từ đầu
+            String fragment = repairableFragment(output);
+            if (fragment != null && hasBudget(deadline)) {
+                try {
+                    String repaired = invokeWithFailover(repairPrompt(prompt.task(), fragment, first), "repair", deadline);
+                    return parser.apply(repaired);
+                } catch (ModelOutputParseException second) {
+                    logger.warn("Repaired output still invalid: {}", second.diagnostics());
+                } catch (RuntimeException e) {
+                    logger.warn("Repair call failed: {}", e.getMessage());
+                }
+            }
+
+            // 2. Sinh lại bằng model fallback (model khác thường không lặp lại cùng lỗi)
+            if (hasFallback() && hasBudget(deadline)) {
+                logger.info("Regenerating with fallback model {}", fallbackModelId);
+                return parser.apply(invokeWithRetry(fallbackModelId, prompt, "regenerate", deadline));
+            }
+            throw first;
+        }
+    }
+
+    private String invokeWithFailover(AiPrompt prompt, String phase, Instant deadline) {
+        try {
+            return invokeWithRetry(modelId, prompt, phase, deadline);
+        } catch (RuntimeException e) {
+            if (!isRetryable(e) || !hasFallback() || !hasBudget(deadline)) {
+                throw e;
+            }
+            logger.warn("Primary model {} unavailable ({}), switching to fallback {}",
+                    modelId, e.getClass().getSimpleName(), fallbackModelId);
+            return invokeWithRetry(fallbackModelId, prompt, phase, deadline);
+        }
+    }
+
+    private String invokeWithRetry(String targetModelId, AiPrompt prompt, String phase, Instant deadline) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return invokeOnce(targetModelId, prompt, phase, deadline);
+            } catch (RuntimeException e) {
+                if (!isRetryable(e) || attempt >= MAX_ATTEMPTS_PER_MODEL) {
+                    throw e;
+                }
+                // Full jitter: tránh nhiều Lambda retry đồng loạt cùng lúc
+                long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+                long backoffMs = ThreadLocalRandom.current().nextLong(cap + 1);
+                if (remainingMs(deadline) - backoffMs < MIN_CALL_BUDGET_MS) {
+                    logger.warn("Deadline budget exhausted after {} attempts on {}", attempt, targetModelId);
+                    throw e;
+                }
+                logger.info("Bedrock call failed ({}), retry {}/{} in {} ms",
+                        e.getClass().getSimpleName(), attempt, MAX_ATTEMPTS_PER_MODEL - 1, backoffMs);
+                sleep(backoffMs);
+            }
+        }
+    }
+
+    private String invokeOnce(String targetModelId, AiPrompt prompt, String phase, Instant deadline) {
+        // Cấu trúc Body cho Claude 3
+        Map<String, Object> payload = Map.of(
+                "anthropic_version", "bedrock-2023-05-31",
+                "max_tokens", prompt.maxTokens(),
+                "messages", List.of(Map.of("role", "user", "content", prompt.text()))
+        );
+
+        try {
+            String payloadJson = objectMapper.writeValueAsString(payload);
+
+            // Timeout của lần gọi = thời gian còn lại của ngân sách
+            Duration remaining = Duration.ofMillis(Math.max(1, remainingMs(deadline)));
+            InvokeModelRequest request = InvokeModelRequest.builder()
+                    .modelId(targetModelId)
+                    .body(SdkBytes.fromUtf8String(payloadJson))
+                    .contentType("application/json")
+                    .accept("application/json")
+                    .overrideConfiguration(o -> o.apiCallTimeout(remaining))
+                    .build();
+
+            long startedAt = System.nanoTime();
+            InvokeModelResponse response = bedrockClient.invokeModel(request);
+            long latencyMs = (System.nanoTime() - startedAt) / 1_000_000;
+            String responseBody = response.body().asString(StandardCharsets.UTF_8);
+
+            // Parse response: { "content": [ { "text": "..." } ], "stop_reason": "...",
+            //                   "usage": { "input_tokens": n, "output_tokens": n } }
+            var jsonNode = objectMapper.readTree(responseBody);
+            var usage = jsonNode.path("usage");
+            tokenUsageTracker.record(prompt, targetModelId, phase,
+                    usage.path("input_tokens").asInt(), usage.path("output_tokens").asInt(),
+                    jsonNode.path("stop_reason").asText(null), latencyMs);
+            return jsonNode.get("content").get(0).get("text").asText().trim();
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid Bedrock response: " + e.getMessage(), e);
+        }
+    }
+
+    // Throttling (429), model chưa sẵn sàng, timeout (408) và lỗi phía server (5xx) là lỗi tạm thời
+    private boolean isRetryable(RuntimeException e) {
+        if (e instanceof SdkServiceException sse) {
+            return sse.isThrottlingException() || sse.statusCode() == 408 || sse.statusCode() == 429
+                    || sse.statusCode() >= 500;
+        }
+        // Lỗi mạng / hết thời gian chờ phía client
+        return e instanceof SdkClientException;
+    }
+
+    private String repairableFragment(String output) {
+        try {
+            String fragment = modelOutputParser.extractJsonFragment(output);
+            return fragment.length() <= REPAIR_MAX_FRAGMENT_CHARS ? fragment : null;
+        } catch (ModelOutputParseException e) {
+            return null; // Không có JSON nào để sửa
+        }
+    }
+
+    // Output sửa xong dài xấp xỉ đoạn gốc -> max_tokens theo độ dài đoạn gốc thay vì của task
+    private AiPrompt repairPrompt(AiTask task, String fragment, ModelOutputParseException error) {
+        String text = """
+                The following JSON is invalid: %s
+                Fix it and return ONLY the corrected, complete JSON. Keep all existing values. \
+                If it is cut off, close it after the last complete element. No markdown, no explanations.
+
+                %s
+                """.formatted(error.getMessage(), fragment);
+        int fragmentTokens = TokenEstimator.estimate(fragment);
+        return new AiPrompt(task, text, fragmentTokens + 256, TokenEstimator.estimate(text), List.of());
+    }
+
+    private boolean hasFallback() {
+        return fallbackModelId != null && !fallbackModelId.isEmpty() && !fallbackModelId.equals(modelId);
+    }
+
+    private Instant newDeadline() {
+        return Instant.now().plusMillis(deadlineMs);
+    }
+
+    private boolean hasBudget(Instant deadline) {
+        return remainingMs(deadline) >= MIN_CALL_BUDGET_MS;
+    }
+
+    private long remainingMs(Instant deadline) {
+        return Duration.between(Instant.now(), deadline).toMillis();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry Bedrock call", e);
+        }
+    }
+}
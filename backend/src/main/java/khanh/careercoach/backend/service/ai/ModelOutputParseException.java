@@ -0,0 +1,43 @@
+package khanh.careercoach.backend.service.ai;
+
+import java.util.List;
+
+/**
+ * Lỗi parse output của model, kèm chẩn đoán để log / quyết định có sinh lại hay không.
+ * - offset: vị trí ký tự (trong text gốc của model) nơi parse thất bại, -1 nếu không xác định
+ * - snippet: đoạn text quanh vị trí lỗi
+ * - partialItems: các phần tử đã parse thành công trước khi lỗi (với parseArrayField)
+ */
+public class ModelOutputParseException extends RuntimeException {
+
+    private final long offset;
+    private final String snippet;
+    private final List<?> partialItems;
+
+    public ModelOutputParseException(String message, long offset, String snippet, List<?> partialItems, Throwable cause) {
+        super(message, cause);
+        this.offset = offset;
+        this.snippet = snippet;
+        this.partialItems = partialItems != null ? List.copyOf(partialItems) : List.of();
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public List<?> getPartialItems() {
+        return partialItems;
+    }
+
+    /**
+     * Chuỗi chẩn đoán gọn để ghi log.
+     */
+    public String diagnostics() {
+        return "%s (offset=%d, partialItems=%d, near='%s')"
+                .formatted(getMessage(), offset, partialItems.size(), snippet);
+    }
+}
@@ -0,0 +1,193 @@
+package khanh.careercoach.backend.service.ai;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parse output text của model (Claude) thành object Java.
+ * Model hay bọc JSON trong ```json ... ``` hoặc thêm câu dẫn/ghi chú xung quanh, nên thay vì
+ * replaceAll + readTree + treeToValue (2 lần regex, 2 bản copy chuỗi, 2 lần duyệt cây):
+ * - Quét 1 lượt tìm object JSON cân bằng đầu tiên (bỏ qua ngoặc nằm trong string)
+ * - Stream thẳng từ vị trí đó vào kiểu đích bằng JsonParser, không tạo substring / JsonNode
+ * - Lỗi trả về ModelOutputParseException kèm offset, đoạn text lỗi và các phần tử đã parse được
+ */
+@Component
+public class ModelOutputParser {
+
+    private static final int SNIPPET_RADIUS = 40;
+
+    private final ObjectMapper objectMapper;
+
+    public ModelOutputParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parse object JSON đầu tiên trong text thành kiểu đích.
+     */
+    public <T> T parseObject(String text, Class<T> type) {
+        JsonSpan span = locate(text, false);
+        try (JsonParser parser = openAt(text, span.start())) {
+            return objectMapper.readValue(parser, type);
+        } catch (IOException e) {
+            throw failure(text, span, "Failed to parse model output as " + type.getSimpleName(), e, List.of());
+        }
+    }
+
+    /**
+     * Parse mảng nằm ở field cấp 1 của object JSON đầu tiên (VD: {"questions": [...]}),
+     * từng phần tử một. Nếu model trả thẳng mảng ở gốc thì đọc luôn mảng đó.
+     * Phần tử lỗi (hoặc output bị cắt giữa chừng) -> exception chứa các phần tử đã parse được.
+     */
+    public <T> List<T> parseArrayField(String text, String fieldName, Class<T> elementType) {
+        JsonSpan span = locate(text, true);
+        List<T> items = new ArrayList<>();
+
+        try (JsonParser parser = openAt(text, span.start())) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT && !moveToField(parser, fieldName)) {
+                throw failure(text, span, "Model output has no array field '" + fieldName + "'", null, items);
+            }
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                throw failure(text, span, "Field '" + fieldName + "' is not an array", null, items);
+            }
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null) {
+                    throw failure(text, span, "Model output ended inside '" + fieldName + "'", null, items);
+                }
+                items.add(objectMapper.readValue(parser, elementType));
+            }
+            return items;
+        } catch (IOException e) {
+            throw failure(text, span, "Failed to parse '" + fieldName + "' item #" + (items.size() + 1), e, items);
+        }
+    }
+
+    /**
+     * Cắt riêng đoạn JSON (bỏ câu dẫn / markdown) để gửi lại cho model sửa.
+     * Nếu JSON bị cắt giữa chừng thì lấy tới hết text.
+     */
+    public String extractJsonFragment(String text) {
+        JsonSpan span = locate(text, true);
+        return span.truncated() ? text.substring(span.start()) : text.substring(span.start(), span.end());
+    }
+
+    // Duyệt các field cấp 1, bỏ qua giá trị không cần, dừng tại giá trị của field cần tìm
+    private boolean moveToField(JsonParser parser, String fieldName) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (fieldName.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private JsonParser openAt(String text, int start) throws IOException {
+        StringReader reader = new StringReader(text);
+        reader.skip(start);
+        return objectMapper.getFactory().createParser(reader);
+    }
+
+    /**
+     * Vị trí JSON trong text: [start, end). end = -1 nếu ngoặc không đóng (output bị cắt do max_tokens).
+     */
+    record JsonSpan(int start, int end) {
+        boolean truncated() {
+            return end < 0;
+        }
+    }
+
+    /**
+     * Tìm JSON cân bằng đầu tiên trong 1 lượt quét.
+     * Chỉ nhận '{' theo sau là '"' hoặc '}' (bỏ qua ngoặc nhọn trong câu văn như "{your role}"),
+     * và '[' nếu allowArray.
+     */
+    static JsonSpan locate(String text, boolean allowArray) {
+        if (text == null) {
+            throw new ModelOutputParseException("Model output is empty", -1, "", List.of(), null);
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if ((c == '{' && startsObject(text, i)) || (allowArray && c == '[' && startsArray(text, i))) {
+                return new JsonSpan(i, findClosing(text, i));
+            }
+        }
+        throw new ModelOutputParseException("No JSON found in model output", -1, snippet(text, 0), List.of(), null);
+    }
+
+    private static boolean startsObject(String text, int open) {
+        int next = skipWhitespace(text, open + 1);
+        return next < text.length() && (text.charAt(next) == '"' || text.charAt(next) == '}');
+    }
+
+    private static boolean startsArray(String text, int open) {
+        int next = skipWhitespace(text, open + 1);
+        return next < text.length() && (text.charAt(next) == '{' || text.charAt(next) == ']');
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Đếm độ sâu ngoặc, bỏ qua ký tự trong string (kể cả \" và \\)
+    private static int findClosing(String text, int open) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private ModelOutputParseException failure(String text, JsonSpan span, String message,
+                                              Exception cause, List<?> partialItems) {
+        long offset = span.start();
+        if (cause instanceof JsonProcessingException jpe && jpe.getLocation() != null) {
+            JsonLocation location = jpe.getLocation();
+            if (location.getCharOffset() >= 0) {
+                offset = span.start() + location.getCharOffset();
+            }
+        }
+        String detail = span.truncated() ? message + " (output truncated, JSON not closed)" : message;
+        return new ModelOutputParseException(detail, offset, snippet(text, offset), partialItems, cause);
+    }
+
+    private static String snippet(String text, long offset) {
+        int center = (int) Math.max(0, Math.min(offset, text.length()));
+        int from = Math.max(0, center - SNIPPET_RADIUS);
+        int to = Math.min(text.length(), center + SNIPPET_RADIUS);
+        return text.substring(from, to).replace('\n', ' ');
+    }
+}
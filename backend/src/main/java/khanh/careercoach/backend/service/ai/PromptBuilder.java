@@ -0,0 +1,152 @@
+package khanh.careercoach.backend.service.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Dựng prompt trong ngân sách token của từng AiTask.
+ * - Phần template cố định được ước lượng trước, phần còn lại chia cho các input theo trọng số
+ *   (input ngắn hơn phần được chia thì nhường phần thừa cho input khác)
+ * - Input vượt phần được chia: gom khoảng trắng / bỏ dòng lặp, nếu vẫn dư thì giữ đầu + cuối, bỏ đoạn giữa
+ *   (JD thường có yêu cầu chính ở đầu và quyền lợi/liên hệ ở cuối)
+ * - max_tokens tính theo độ dài input thực tế sau khi rút gọn
+ *
+ * Cách dùng:
+ * <pre>
+ * AiPrompt prompt = PromptBuilder.forTask(AiTask.COVER_LETTER)
+ *         .input("jobDescription", jd, 3)
+ *         .input("bio", bio)
+ *         .build(in -> TEMPLATE.formatted(in.get("bio"), in.get("jobDescription")));
+ * </pre>
+ */
+public final class PromptBuilder {
+
+    private static final String OMISSION = "\n[...]\n";
+    // Tỉ lệ giữ phần đầu khi cắt (phần còn lại giữ ở cuối)
+    private static final double HEAD_SHARE = 0.7;
+    // Mỗi input luôn được giữ tối thiểu chừng này token, kể cả khi template đã chiếm hết ngân sách
+    private static final int MIN_INPUT_TOKENS = 50;
+
+    private final AiTask task;
+    private final Map<String, Input> inputs = new LinkedHashMap<>();
+
+    private record Input(String text, int tokens, int weight) {
+    }
+
+    private PromptBuilder(AiTask task) {
+        this.task = task;
+    }
+
+    public static PromptBuilder forTask(AiTask task) {
+        return new PromptBuilder(task);
+    }
+
+    public PromptBuilder input(String name, String text) {
+        return input(name, text, 1);
+    }
+
+    /**
+     * @param weight trọng số khi chia ngân sách (input quan trọng hơn được phần lớn hơn)
+     */
+    public PromptBuilder input(String name, String text, int weight) {
+        String value = text != null ? text : "";
+        inputs.put(name, new Input(value, TokenEstimator.estimate(value), Math.max(1, weight)));
+        return this;
+    }
+
+    /**
+     * @param renderer ghép các input (đã rút gọn) vào template
+     */
+    public AiPrompt build(Function<Map<String, String>, String> renderer) {
+        // 1. Token của phần cố định = render với input rỗng
+        Map<String, String> empty = new HashMap<>();
+        inputs.keySet().forEach(name -> empty.put(name, ""));
+        int fixedTokens = TokenEstimator.estimate(renderer.apply(empty));
+
+        // 2. Chia phần còn lại cho các input rồi rút gọn input vượt phần
+        Map<String, Integer> allocation = allocate(task.getInputBudget() - fixedTokens);
+        Map<String, String> fitted = new HashMap<>();
+        List<String> truncated = new ArrayList<>();
+        int variableTokens = 0;
+        for (Map.Entry<String, Input> entry : inputs.entrySet()) {
+            Input input = entry.getValue();
+            int allowed = allocation.get(entry.getKey());
+            String value = input.text();
+            if (input.tokens() > allowed) {
+                value = fit(value, allowed);
+                truncated.add(entry.getKey());
+            }
+            fitted.put(entry.getKey(), value);
+            variableTokens += Math.min(input.tokens(), allowed);
+        }
+
+        String text = renderer.apply(fitted);
+        return new AiPrompt(task, text, task.maxTokensFor(variableTokens), TokenEstimator.estimate(text), truncated);
+    }
+
+    // Chia ngân sách theo trọng số; input cần ít hơn phần được chia thì lấy đúng phần cần, phần thừa chia lại
+    private Map<String, Integer> allocate(int budget) {
+        Map<String, Integer> allocation = new HashMap<>();
+        Map<String, Input> pending = new LinkedHashMap<>(inputs);
+        int remaining = Math.max(0, budget);
+
+        boolean settled = true;
+        while (!pending.isEmpty() && settled) {
+            settled = false;
+            int totalWeight = pending.values().stream().mapToInt(Input::weight).sum();
+            var iterator = pending.entrySet().iterator();
+            int available = remaining;
+            while (iterator.hasNext()) {
+                Map.Entry<String, Input> entry = iterator.next();
+                Input input = entry.getValue();
+                if (input.tokens() <= (long) available * input.weight() / totalWeight) {
+                    allocation.put(entry.getKey(), input.tokens());
+                    remaining -= input.tokens();
+                    iterator.remove();
+                    settled = true;
+                }
+            }
+        }
+
+        int totalWeight = pending.values().stream().mapToInt(Input::weight).sum();
+        for (Map.Entry<String, Input> entry : pending.entrySet()) {
+            int share = (int) ((long) remaining * entry.getValue().weight() / totalWeight);
+            allocation.put(entry.getKey(), Math.max(MIN_INPUT_TOKENS, share));
+        }
+        return allocation;
+    }
+
+    private static String fit(String text, int tokens) {
+        String squeezed = squeeze(text);
+        if (TokenEstimator.estimate(squeezed) <= tokens) {
+            return squeezed;
+        }
+        int budget = Math.max(0, tokens - TokenEstimator.estimate(OMISSION));
+        int head = TokenEstimator.headChars(squeezed, (int) (budget * HEAD_SHARE));
+        int tail = TokenEstimator.tailChars(squeezed, budget - (int) (budget * HEAD_SHARE));
+        return squeezed.substring(0, head) + OMISSION + squeezed.substring(squeezed.length() - tail);
+    }
+
+    // Gom khoảng trắng thừa và bỏ dòng trùng lặp liền kề (JD copy từ web hay lặp header/bullet)
+    private static String squeeze(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        String previous = null;
+        int blankRun = 0;
+        for (String rawLine : text.split("\n", -1)) {
+            String line = rawLine.strip().replaceAll("[ \\t]{2,}", " ");
+            if (line.isEmpty()) {
+                if (++blankRun > 1) continue;
+            } else {
+                if (line.equals(previous)) continue;
+                blankRun = 0;
+                previous = line;
+            }
+            out.append(line).append('\n');
+        }
+        return out.toString().strip();
+    }
+}
@@ -0,0 +1,64 @@
+package khanh.careercoach.backend.service.ai;
+
+/**
+ * Ước lượng số token Claude mà không cần tokenizer (chạy O(n), không cấp phát).
+ * - Text ASCII (tiếng Anh, code, markdown): ~4 ký tự / token
+ * - Ký tự ngoài ASCII (tiếng Việt có dấu, emoji...): tokenizer thường tách nhỏ hơn, tính ~1.5 ký tự / token
+ * Sai số ~10-15% so với usage thực tế, đủ để chia ngân sách; số thực tế được ghi ở TokenUsageTracker.
+ */
+public final class TokenEstimator {
+
+    private static final double ASCII_CHARS_PER_TOKEN = 4.0;
+    private static final double NON_ASCII_CHARS_PER_TOKEN = 1.5;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int ascii = 0;
+        int nonAscii = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 0x80) {
+                ascii++;
+            } else {
+                nonAscii++;
+            }
+        }
+        return (int) Math.ceil(ascii / ASCII_CHARS_PER_TOKEN + nonAscii / NON_ASCII_CHARS_PER_TOKEN);
+    }
+
+    /**
+     * Số ký tự đầu tiên của text vừa với số token cho trước.
+     */
+    static int headChars(CharSequence text, int tokens) {
+        double used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            used += weight(text.charAt(i));
+            if (used > tokens) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Số ký tự cuối cùng của text vừa với số token cho trước.
+     */
+    static int tailChars(CharSequence text, int tokens) {
+        double used = 0;
+        for (int i = text.length() - 1; i >= 0; i--) {
+            used += weight(text.charAt(i));
+            if (used > tokens) {
+                return text.length() - 1 - i;
+            }
+        }
+        return text.length();
+    }
+
+    private static double weight(char c) {
+        return c < 0x80 ? 1 / ASCII_CHARS_PER_TOKEN : 1 / NON_ASCII_CHARS_PER_TOKEN;
+    }
+}
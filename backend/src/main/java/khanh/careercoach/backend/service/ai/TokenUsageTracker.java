@@ -0,0 +1,86 @@
+package khanh.careercoach.backend.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thống kê token theo từng AiTask (trong vòng đời của container Lambda).
+ * Mỗi lần gọi ghi 1 dòng log có cấu trúc (task, model, token vào/ra, ước lượng, thời gian, stop_reason)
+ * để tổng hợp chi phí / p95 từ CloudWatch Logs Insights.
+ */
+@Component
+public class TokenUsageTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenUsageTracker.class);
+
+    private final Map<AiTask, Counters> counters = new EnumMap<>(AiTask.class);
+    // Token dùng trên thread hiện tại (1 request Lambda = 1 thread), để QuotaService tính quota theo user
+    private final ThreadLocal<long[]> threadTokens = ThreadLocal.withInitial(() -> new long[1]);
+
+    public TokenUsageTracker() {
+        for (AiTask task : AiTask.values()) {
+            counters.put(task, new Counters());
+        }
+    }
+
+    /**
+     * Thống kê cộng dồn của một task.
+     */
+    public record Snapshot(long calls, long inputTokens, long outputTokens, long estimatedInputTokens,
+                           long truncatedOutputs, long totalLatencyMs) {
+    }
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder inputTokens = new LongAdder();
+        final LongAdder outputTokens = new LongAdder();
+        final LongAdder estimatedInputTokens = new LongAdder();
+        final LongAdder truncatedOutputs = new LongAdder();
+        final LongAdder latencyMs = new LongAdder();
+    }
+
+    public void record(AiPrompt prompt, String modelId, String phase, int inputTokens, int outputTokens,
+                       String stopReason, long latencyMs) {
+        Counters c = counters.get(prompt.task());
+        c.calls.increment();
+        c.inputTokens.add(inputTokens);
+        c.outputTokens.add(outputTokens);
+        c.estimatedInputTokens.add(prompt.estimatedInputTokens());
+        c.latencyMs.add(latencyMs);
+        threadTokens.get()[0] += inputTokens + outputTokens;
+
+        boolean hitLimit = "max_tokens".equals(stopReason);
+        if (hitLimit) {
+            c.truncatedOutputs.increment();
+        }
+
+        logger.info("Bedrock usage task={} phase={} model={} inputTokens={} outputTokens={} estimatedInputTokens={} "
+                        + "maxTokens={} stopReason={} latencyMs={} truncatedInputs={}",
+                prompt.task(), phase, modelId, inputTokens, outputTokens, prompt.estimatedInputTokens(),
+                prompt.maxTokens(), stopReason, latencyMs, prompt.truncatedInputs());
+        if (hitLimit) {
+            logger.warn("Output of task {} hit max_tokens={}, consider raising its budget", prompt.task(), prompt.maxTokens());
+        }
+    }
+
+    /**
+     * Lấy và reset số token (vào + ra) đã dùng trên thread hiện tại.
+     */
+    public long drainThreadTokens() {
+        long[] counter = threadTokens.get();
+        long used = counter[0];
+        counter[0] = 0;
+        return used;
+    }
+
+    public Snapshot snapshot(AiTask task) {
+        Counters c = counters.get(task);
+        return new Snapshot(c.calls.sum(), c.inputTokens.sum(), c.outputTokens.sum(),
+                c.estimatedInputTokens.sum(), c.truncatedOutputs.sum(), c.latencyMs.sum());
+    }
+}
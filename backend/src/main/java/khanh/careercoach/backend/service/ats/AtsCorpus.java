@@ -0,0 +1,87 @@
+package khanh.careercoach.backend.service.ats;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Corpus cho IDF: số văn bản và document frequency (term id -> số văn bản chứa term).
+ * Đọc một lần từ bảng có version đóng gói cùng ứng dụng (resources/ats/job-terms.txt), không đổi trong lúc chạy:
+ * cùng resume + JD cho cùng điểm ở mọi container. JD đang chấm và resume không được đưa vào corpus.
+ */
+public final class AtsCorpus {
+
+    private final String version;
+    private final IntIntHashMap documentFrequency;
+    private final int documentCount;
+
+    /**
+     * Corpus rỗng: mọi term cùng IDF.
+     */
+    public AtsCorpus() {
+        this("none", new IntIntHashMap(), 0);
+    }
+
+    private AtsCorpus(String version, IntIntHashMap documentFrequency, int documentCount) {
+        this.version = version;
+        this.documentFrequency = documentFrequency;
+        this.documentCount = documentCount;
+    }
+
+    /**
+     * Đọc file "<từ> = <df>" (dòng bắt đầu bằng # là chú thích), kèm "@version = ..." và "@documents = N".
+     * Các từ có cùng stem lấy df lớn nhất.
+     */
+    public static AtsCorpus load(InputStream in, TextAnalyzer analyzer) {
+        String version = null;
+        int documents = 0;
+        IntIntHashMap documentFrequency = new IntIntHashMap(256);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int eq = line.indexOf(" = ");
+                if (eq < 0) {
+                    throw new IllegalStateException("Malformed ATS corpus line: " + line);
+                }
+                String name = line.substring(0, eq).trim();
+                String value = line.substring(eq + 3).trim();
+                switch (name) {
+                    case "@version" -> version = value;
+                    case "@documents" -> documents = Integer.parseInt(value);
+                    default -> {
+                        int df = Integer.parseInt(value);
+                        for (int term : analyzer.analyze(name)) {
+                            int known = documentFrequency.get(term);
+                            if (df > known) {
+                                documentFrequency.increment(term, df - known);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ATS corpus", e);
+        }
+        if (version == null || documents <= 0) {
+            throw new IllegalStateException("ATS corpus must declare @version and @documents");
+        }
+        return new AtsCorpus(version, documentFrequency, documents);
+    }
+
+    public String version() {
+        return version;
+    }
+
+    // idf = ln((N + 1) / (df + 1)) + 1: term chưa gặp có IDF cao nhất, không bao giờ về 0
+    public double idf(int term) {
+        int df = Math.min(documentFrequency.get(term), documentCount);
+        return Math.log((documentCount + 1.0) / (df + 1.0)) + 1.0;
+    }
+}
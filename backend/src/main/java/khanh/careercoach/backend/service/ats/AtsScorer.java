@@ -0,0 +1,221 @@
+package khanh.careercoach.backend.service.ats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chấm điểm ATS tại chỗ (không gọi Bedrock), thang 0-100:
+ * - Keyword JD: top MAX_KEYWORDS term của JD theo TF-IDF (tf log-scaled x idf của corpus),
+ *   điểm = tổng trọng số các keyword resume có / tổng trọng số
+ * - Kỹ năng ngành: cụm topSkills (trọng số 1.0) / recommendedSkills (0.6) mà resume có đủ mọi term
+ * - Cấu trúc: tiêu đề section, email, độ dài, gạch đầu dòng, số liệu
+ * Thành phần nào không có dữ liệu (không JD / không insight) thì trọng số dồn sang phần còn lại.
+ */
+public final class AtsScorer {
+
+    static final int MAX_KEYWORDS = 25;
+    private static final int MAX_FEEDBACK_ITEMS = 8;
+    private static final double TOP_SKILL_WEIGHT = 1.0;
+    private static final double RECOMMENDED_SKILL_WEIGHT = 0.6;
+
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+\\.[\\w.]+");
+    private static final Pattern BULLET = Pattern.compile("(?m)^\\s*([-*•]|\\d+\\.)\\s+\\S");
+    private static final Pattern METRIC = Pattern.compile("\\d+(?:[.,]\\d+)?\\s*(?:%|\\+|k\\b|x\\b|m\\b)|\\$\\s?\\d+");
+    private static final Pattern HEADING = Pattern.compile("(?m)^#{1,3}\\s+(.+)$");
+    private static final Pattern WORD = Pattern.compile("\\S+");
+    private static final List<String> EXPECTED_SECTIONS = List.of("experience", "education", "skills");
+
+    public record AtsResult(double score, List<String> matchedKeywords, List<String> missingKeywords,
+                            List<String> missingSkills, String feedback) {
+    }
+
+    private final TextAnalyzer analyzer;
+
+    public AtsScorer(TextAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * @param jobDescription    null = chỉ chấm theo ngành / cấu trúc
+     * @param corpus            corpus cho IDF (null = mọi term cùng IDF)
+     * @param topSkills         null / rỗng = không có insight ngành
+     */
+    public AtsResult score(String resumeText, String jobDescription, AtsCorpus corpus,
+                           List<String> topSkills, List<String> recommendedSkills) {
+        String resume = resumeText != null ? resumeText : "";
+        IntIntHashMap resumeTerms = analyzer.termFrequencies(resume);
+
+        List<String> matched = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        double keywordScore = jobDescription != null && !jobDescription.isBlank()
+                ? keywordCoverage(resumeTerms, jobDescription, corpus, matched, missing)
+                : Double.NaN;
+
+        List<String> missingSkills = new ArrayList<>();
+        double skillScore = skillCoverage(resumeTerms, topSkills, recommendedSkills, missingSkills);
+
+        List<String> hints = new ArrayList<>();
+        double structureScore = structure(resume, hints);
+
+        double keywordWeight = Double.isNaN(keywordScore) ? 0 : Double.isNaN(skillScore) ? 0.75 : 0.5;
+        double skillWeight = Double.isNaN(skillScore) ? 0 : Double.isNaN(keywordScore) ? 0.7 : 0.3;
+        double structureWeight = 1.0 - keywordWeight - skillWeight;
+        double total = (keywordWeight > 0 ? keywordWeight * keywordScore : 0)
+                + (skillWeight > 0 ? skillWeight * skillScore : 0)
+                + structureWeight * structureScore;
+        double score = Math.round(total * 1000) / 10.0;
+
+        return new AtsResult(score, matched, missing, missingSkills, feedback(missing, missingSkills, hints));
+    }
+
+    private double keywordCoverage(IntIntHashMap resumeTerms, String jobDescription, AtsCorpus corpus,
+                                   List<String> matched, List<String> missing) {
+        List<String> tokens = new ArrayList<>();
+        int[] sequence = analyzer.analyze(jobDescription, tokens);
+        IntIntHashMap jdTerms = new IntIntHashMap(sequence.length);
+        for (int term : sequence) {
+            jdTerms.increment(term, 1);
+        }
+        int size = jdTerms.size();
+        if (size == 0) {
+            return Double.NaN;
+        }
+        // Term theo thứ tự xuất hiện đầu tiên trong JD, kèm dạng gốc ở lần xuất hiện đó
+        int[] terms = new int[size];
+        String[] surfaces = new String[size];
+        double[] weights = new double[size];
+        IntIntHashMap seen = new IntIntHashMap(size);
+        int n = 0;
+        for (int i = 0; i < sequence.length; i++) {
+            int term = sequence[i];
+            if (seen.increment(term, 1) == 1 && !isNumeric(tokens.get(i))) {
+                terms[n] = term;
+                surfaces[n] = tokens.get(i);
+                weights[n] = (1 + Math.log(jdTerms.get(term))) * (corpus != null ? corpus.idf(term) : 1.0);
+                n++;
+            }
+        }
+
+        // Sắp theo trọng số giảm dần, bằng nhau thì term xuất hiện trước trong JD đứng trước:
+        // chỉ phụ thuộc vào JD, không phụ thuộc term id (cấp theo thứ tự container gặp văn bản)
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> weights[a] != weights[b]
+                ? Double.compare(weights[b], weights[a]) : Integer.compare(a, b));
+
+        double covered = 0;
+        double total = 0;
+        for (int i = 0; i < Math.min(MAX_KEYWORDS, order.length); i++) {
+            int idx = order[i];
+            total += weights[idx];
+            if (resumeTerms.containsKey(terms[idx])) {
+                covered += weights[idx];
+                matched.add(surfaces[idx]);
+            } else {
+                missing.add(surfaces[idx]);
+            }
+        }
+        return total > 0 ? covered / total : Double.NaN;
+    }
+
+    private double skillCoverage(IntIntHashMap resumeTerms, List<String> topSkills, List<String> recommendedSkills,
+                                 List<String> missingSkills) {
+        double covered = 0;
+        double total = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            List<String> skills = pass == 0 ? topSkills : recommendedSkills;
+            double weight = pass == 0 ? TOP_SKILL_WEIGHT : RECOMMENDED_SKILL_WEIGHT;
+            if (skills == null) {
+                continue;
+            }
+            for (String skill : skills) {
+                int[] terms = analyzer.analyze(skill);
+                if (terms.length == 0) {
+                    continue;
+                }
+                total += weight;
+                if (Arrays.stream(terms).allMatch(resumeTerms::containsKey)) {
+                    covered += weight;
+                } else if (!missingSkills.contains(skill)) {
+                    missingSkills.add(skill);
+                }
+            }
+        }
+        return total > 0 ? covered / total : Double.NaN;
+    }
+
+    private double structure(String resume, List<String> hints) {
+        int passed = 0;
+
+        List<String> headings = new ArrayList<>();
+        Matcher heading = HEADING.matcher(resume);
+        while (heading.find()) {
+            headings.add(heading.group(1).toLowerCase(Locale.ROOT));
+        }
+        List<String> absent = EXPECTED_SECTIONS.stream()
+                .filter(section -> headings.stream().noneMatch(h -> h.contains(section)))
+                .toList();
+        if (absent.isEmpty()) {
+            passed++;
+        } else {
+            hints.add("Add clearly titled sections: " + String.join(", ", absent) + ".");
+        }
+
+        if (EMAIL.matcher(resume).find()) {
+            passed++;
+        } else {
+            hints.add("Include a contact email so recruiters can reach you.");
+        }
+
+        long words = WORD.matcher(resume).results().count();
+        if (words >= 250 && words <= 1000) {
+            passed++;
+        } else {
+            hints.add(words < 250
+                    ? "The resume is short (" + words + " words); aim for 250-1000 words."
+                    : "The resume is long (" + words + " words); keep it under 1000 words.");
+        }
+
+        if (BULLET.matcher(resume).results().count() >= 3) {
+            passed++;
+        } else {
+            hints.add("Use bullet points to describe responsibilities and achievements.");
+        }
+
+        if (METRIC.matcher(resume).results().count() >= 2) {
+            passed++;
+        } else {
+            hints.add("Quantify achievements with numbers (percentages, amounts, team size).");
+        }
+        return passed / 5.0;
+    }
+
+    private static String feedback(List<String> missingKeywords, List<String> missingSkills, List<String> hints) {
+        StringBuilder feedback = new StringBuilder();
+        if (!missingKeywords.isEmpty()) {
+            feedback.append("Missing job keywords: ").append(join(missingKeywords)).append(". ");
+        }
+        if (!missingSkills.isEmpty()) {
+            feedback.append("Consider highlighting in-demand skills: ").append(join(missingSkills)).append(". ");
+        }
+        hints.forEach(hint -> feedback.append(hint).append(' '));
+        return feedback.length() > 0
+                ? feedback.toString().trim()
+                : "Your resume covers the key terms and follows a clear, ATS-friendly structure.";
+    }
+
+    private static String join(List<String> items) {
+        List<String> shown = items.subList(0, Math.min(MAX_FEEDBACK_ITEMS, items.size()));
+        return String.join(", ", shown) + (items.size() > shown.size() ? " and " + (items.size() - shown.size()) + " more" : "");
+    }
+
+    private static boolean isNumeric(String token) {
+        return token.chars().allMatch(c -> Character.isDigit(c) || c == '.');
+    }
+}
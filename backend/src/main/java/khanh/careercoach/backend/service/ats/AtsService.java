@@ -0,0 +1,90 @@
+package khanh.careercoach.backend.service.ats;
+
+import khanh.careercoach.backend.model.IndustryInsightEntity;
+import khanh.careercoach.backend.repository.IndustryInsightRepository;
+import khanh.careercoach.backend.service.cache.CacheCoherenceService;
+import khanh.careercoach.backend.service.cache.VersionedCache;
+import khanh.careercoach.backend.service.canonical.CanonicalizationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+
+/**
+ * Chấm điểm ATS tại chỗ (thay vì gọi Bedrock): chạy mỗi lần lưu resume và khi tạo cover letter có JD.
+ * - Kỹ năng ngành lấy từ IndustryInsight (VersionedCache: kiểm tra tem version, tối đa INSIGHT_TTL_MS)
+ * - IDF lấy từ AtsCorpus đóng gói có version (CORPUS_RESOURCE), giống nhau ở mọi container và không đổi theo JD đã gặp
+ */
+@Service
+public class AtsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AtsService.class);
+
+    private static final long INSIGHT_TTL_MS = 60 * 60 * 1000L;
+    private static final String CORPUS_RESOURCE = "/ats/job-terms.txt";
+
+    private final IndustryInsightRepository industryInsightRepository;
+    private final CanonicalizationService canonicalizationService;
+    private final TextAnalyzer analyzer = new TextAnalyzer();
+    private final AtsScorer scorer = new AtsScorer(analyzer);
+    private final AtsCorpus corpus;
+    private final VersionedCache<IndustryInsightEntity> insights;
+
+    public AtsService(IndustryInsightRepository industryInsightRepository,
+                      CanonicalizationService canonicalizationService,
+                      CacheCoherenceService cacheCoherenceService) {
+        this.industryInsightRepository = industryInsightRepository;
+        this.canonicalizationService = canonicalizationService;
+        this.insights = cacheCoherenceService.newCache("ats-insights", INSIGHT_TTL_MS);
+        this.corpus = loadCorpus(analyzer);
+        logger.info("Loaded ATS corpus version {}", corpus.version());
+    }
+
+    /**
+     * Chấm resume theo kỹ năng ngành + cấu trúc (lưu resume).
+     */
+    public AtsScorer.AtsResult scoreResume(String industry, String resumeText) {
+        return scoreAgainstJob(industry, resumeText, null);
+    }
+
+    /**
+     * Chấm resume theo một JD cụ thể (cộng kỹ năng ngành + cấu trúc).
+     */
+    public AtsScorer.AtsResult scoreAgainstJob(String rawIndustry, String resumeText, String jobDescription) {
+        long start = System.nanoTime();
+        String industry = canonicalizationService.canonicalIndustry(rawIndustry);
+        IndustryInsightEntity insight = insight(industry);
+        AtsScorer.AtsResult result = scorer.score(resumeText, jobDescription, corpus,
+                insight != null ? insight.getTopSkills() : null,
+                insight != null ? insight.getRecommendedSkills() : null);
+        logger.info("ATS score {} for industry '{}' (jd={}, corpus {}) in {} us",
+                result.score(), industry, jobDescription != null, corpus.version(), (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    private static AtsCorpus loadCorpus(TextAnalyzer analyzer) {
+        InputStream in = AtsService.class.getResourceAsStream(CORPUS_RESOURCE);
+        if (in == null) {
+            throw new IllegalStateException("Missing ATS corpus: " + CORPUS_RESOURCE);
+        }
+        return AtsCorpus.load(in, analyzer);
+    }
+
+    private IndustryInsightEntity insight(String industry) {
+        if (industry == null || industry.isBlank()) {
+            return null;
+        }
+        String pk = "INDUSTRY#" + industry;
+        try {
+            return insights.get(pk, "METADATA", () -> {
+                IndustryInsightEntity replica = industryInsightRepository.findReplicaByIndustry(industry);
+                return replica != null ? replica : industryInsightRepository.findByIndustry(industry);
+            });
+        } catch (RuntimeException e) {
+            // Không có insight vẫn chấm được theo JD / cấu trúc
+            logger.warn("Could not load industry insight for ATS scoring: {}", e.getMessage());
+            return insights.getIfPresent(pk, "METADATA");
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package khanh.careercoach.backend.service.ats;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tách từ + chuẩn hóa + stem văn bản tiếng Anh (resume, job description), trả về term id (int).
+ * - Giữ nguyên token kỹ thuật có ký hiệu / chữ số: c++, c#, node.js, s3, ec2
+ * - Bỏ stop word, stem bằng bộ luật hậu tố rút gọn kiểu Porter (managing / managed / manager -> manag)
+ * Term id được cấp một lần cho mỗi stem và dùng chung cho mọi corpus trong container.
+ * Từ điển có trần MAX_DICTIONARY_TERMS (container sống lâu gặp vô số token lạ: tên riêng, mã, lỗi chính tả);
+ * đầy rồi thì stem mới nhận id băm vào HASHED_TERM_BUCKETS ô phía sau (trùng ô hiếm, chỉ làm lệch IDF chút ít).
+ * Dạng hiển thị của term lấy từ chính văn bản đang phân tích ({@link #analyze(String, List)}).
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern TOKEN = Pattern.compile("[a-z0-9][a-z0-9+#.]*");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "about", "above", "after", "again", "all", "also", "am", "an", "and", "any", "are", "as", "at",
+            "be", "because", "been", "before", "being", "between", "both", "but", "by", "can", "could", "did",
+            "do", "does", "doing", "during", "each", "etc", "few", "for", "from", "further", "had", "has", "have",
+            "having", "he", "her", "here", "hers", "him", "his", "how", "i", "if", "in", "into", "is", "it", "its",
+            "just", "me", "more", "most", "my", "no", "nor", "not", "of", "off", "on", "once", "only", "or",
+            "other", "our", "ours", "out", "over", "own", "same", "she", "should", "so", "some", "such", "than",
+            "that", "the", "their", "them", "then", "there", "these", "they", "this", "those", "through", "to",
+            "too", "under", "until", "up", "us", "very", "was", "we", "were", "what", "when", "where", "which",
+            "while", "who", "whom", "why", "will", "with", "would", "you", "your", "yours", "div", "align",
+            "center", "br", "http", "https", "www", "com");
+
+    // Hậu tố -> thay thế, thử theo thứ tự (dài trước)
+    private static final String[][] SUFFIXES = {
+            {"izations", "ize"}, {"ization", "ize"}, {"ational", "ate"}, {"fulness", "ful"}, {"iveness", "ive"},
+            {"ousness", "ous"}, {"abilities", "able"}, {"ability", "able"}, {"ations", "ate"}, {"ation", "ate"},
+            {"ments", ""}, {"ment", ""}, {"ness", ""}, {"ings", ""}, {"ing", ""}, {"ies", "y"}, {"ied", "y"},
+            {"ers", ""}, {"er", ""}, {"ed", ""}, {"ly", ""}, {"sses", "ss"}, {"s", ""},
+    };
+
+    static final int MAX_DICTIONARY_TERMS = 100_000;
+    static final int HASHED_TERM_BUCKETS = 1 << 16;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * @return term id theo thứ tự xuất hiện (có lặp lại)
+     */
+    public int[] analyze(String text) {
+        return analyze(text, null);
+    }
+
+    /**
+     * Như {@link #analyze(String)}, thêm dạng gốc của từng term (cùng thứ tự) vào tokens:
+     * hiển thị keyword đúng như trong văn bản, không phụ thuộc văn bản container đã gặp trước đó.
+     */
+    public int[] analyze(String text, List<String> tokens) {
+        if (text == null || text.isEmpty()) {
+            return new int[0];
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        int[] terms = new int[16];
+        int count = 0;
+        while (matcher.find()) {
+            String token = trimDots(matcher.group());
+            if (token.length() < 2 || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            String stem = stem(token);
+            if (count == terms.length) {
+                terms = Arrays.copyOf(terms, count * 2);
+            }
+            terms[count++] = idOf(stem);
+            if (tokens != null) {
+                tokens.add(token);
+            }
+        }
+        return Arrays.copyOf(terms, count);
+    }
+
+    /**
+     * Đếm tần suất term của văn bản.
+     */
+    public IntIntHashMap termFrequencies(String text) {
+        int[] terms = analyze(text);
+        IntIntHashMap tf = new IntIntHashMap(terms.length);
+        for (int term : terms) {
+            tf.increment(term, 1);
+        }
+        return tf;
+    }
+
+    private int idOf(String stem) {
+        Integer id = ids.get(stem);
+        if (id == null && nextId.get() < MAX_DICTIONARY_TERMS) {
+            id = ids.computeIfAbsent(stem, s -> {
+                int next = nextId.getAndIncrement();
+                return next < MAX_DICTIONARY_TERMS ? next : null; // null = không thêm vào từ điển
+            });
+        }
+        if (id == null) {
+            return MAX_DICTIONARY_TERMS + Math.floorMod(stem.hashCode(), HASHED_TERM_BUCKETS);
+        }
+        return id;
+    }
+
+    // Token kỹ thuật (có chữ số / ký hiệu) giữ nguyên; từ thường bỏ hậu tố
+    static String stem(String token) {
+        if (token.length() <= 3 || !token.chars().allMatch(Character::isLetter)) {
+            return token;
+        }
+        String word = token;
+        for (String[] rule : SUFFIXES) {
+            String suffix = rule[0];
+            if (word.endsWith(suffix) && word.length() - suffix.length() + rule[1].length() >= 3
+                    && !(suffix.equals("s") && (word.endsWith("ss") || word.endsWith("us") || word.endsWith("is")))) {
+                word = word.substring(0, word.length() - suffix.length()) + rule[1];
+                break;
+            }
+        }
+        // running -> run, planned -> plan
+        int n = word.length();
+        if (n > 3 && word.charAt(n - 1) == word.charAt(n - 2) && "bdgmnprt".indexOf(word.charAt(n - 1)) >= 0
+                && !token.equals(word)) {
+            word = word.substring(0, n - 1);
+        }
+        // manage / managing / managed -> manag
+        if (word.length() > 4 && word.endsWith("e")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static String trimDots(String token) {
+        int end = token.length();
+        while (end > 0 && token.charAt(end - 1) == '.') {
+            end--;
+        }
+        return token.substring(0, end);
+    }
+}
@@ -0,0 +1,35 @@
+package khanh.careercoach.backend.service.cache;
+
+import khanh.careercoach.backend.repository.ChangeNotifier;
+import khanh.careercoach.backend.repository.VersionStampRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tạo {@link VersionedCache} đã nối với tem version (DB) và ChangeNotifier (ghi trong container).
+ */
+@Service
+public class CacheCoherenceService {
+
+    private final VersionStampRepository versionStampRepository;
+    private final ChangeNotifier changeNotifier;
+    // Thời gian tin bản sao mà không đọc tem (ms)
+    private final long checkIntervalMs;
+
+    public CacheCoherenceService(VersionStampRepository versionStampRepository, ChangeNotifier changeNotifier) {
+        this.versionStampRepository = versionStampRepository;
+        this.changeNotifier = changeNotifier;
+        this.checkIntervalMs = intEnv("CACHE_STAMP_CHECK_MS", 2000);
+    }
+
+    public <V> VersionedCache<V> newCache(String name, long maxAgeMs) {
+        VersionedCache<V> cache = new VersionedCache<>(name, versionStampRepository::currentStamp,
+                checkIntervalMs, maxAgeMs, System::currentTimeMillis);
+        changeNotifier.subscribe(cache::invalidate);
+        return cache;
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+}
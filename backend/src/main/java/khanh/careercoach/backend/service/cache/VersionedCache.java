@@ -0,0 +1,121 @@
+package khanh.careercoach.backend.service.cache;
+
+import khanh.careercoach.backend.repository.VersionStampRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Cache trong container, giữ nhất quán giữa các Lambda instance nhờ tem version:
+ * - Bản sao được tin trong checkIntervalMs; quá hạn đó thì đọc tem (item nhỏ) trước khi dùng lại,
+ *   tem khác lúc nạp -> nạp lại từ DB
+ * - Ghi trong cùng container -> ChangeNotifier bỏ bản sao ngay (không chờ stream tăng tem)
+ * - maxAgeMs: trần tuổi bản sao, phòng khi stream chậm / chưa bật
+ * - maxEntries: giữ tối đa N bản sao, bỏ bản ít dùng nhất (LRU) -> bộ nhớ không phình theo số key đã gặp
+ * Key là (PK, SK) của item gốc; SK dạng <tiền tố>#<id> dùng chung tem của cả nhóm.
+ */
+public class VersionedCache<V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionedCache.class);
+
+    // Không đọc được tem lúc nạp: lần kiểm tra sau chắc chắn nạp lại
+    private static final long UNKNOWN_STAMP = -1L;
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private record Entry<V>(V value, long stamp, long checkedAt, long loadedAt) {
+    }
+
+    private final String name;
+    private final ToLongBiFunction<String, String> stamps;
+    private final long checkIntervalMs;
+    private final long maxAgeMs;
+    private final LongSupplier clock;
+    private final Map<String, Entry<V>> entries;
+
+    /**
+     * @param stamps (PK, SK) -> tem hiện tại; ném RuntimeException khi không đọc được
+     */
+    VersionedCache(String name, ToLongBiFunction<String, String> stamps, long checkIntervalMs, long maxAgeMs,
+                   LongSupplier clock) {
+        this(name, stamps, checkIntervalMs, maxAgeMs, DEFAULT_MAX_ENTRIES, clock);
+    }
+
+    VersionedCache(String name, ToLongBiFunction<String, String> stamps, long checkIntervalMs, long maxAgeMs,
+                   int maxEntries, LongSupplier clock) {
+        this.name = name;
+        this.stamps = stamps;
+        this.checkIntervalMs = checkIntervalMs;
+        this.maxAgeMs = maxAgeMs;
+        this.clock = clock;
+        // LinkedHashMap theo thứ tự truy cập: get() cũng đổi cấu trúc nên mọi truy cập đều qua synchronizedMap
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public V get(String pk, String sk, Supplier<V> loader) {
+        String key = key(pk, sk);
+        long now = clock.getAsLong();
+        Entry<V> entry = entries.get(key);
+        Long stamp;
+        if (entry != null && now - entry.loadedAt() < maxAgeMs) {
+            if (now - entry.checkedAt() < checkIntervalMs) {
+                return entry.value();
+            }
+            stamp = readStamp(pk, sk);
+            // Tem không đổi, hoặc không đọc được tem (DB lỗi) -> dùng tiếp bản sao
+            if (stamp == null || stamp == entry.stamp()) {
+                entries.put(key, new Entry<>(entry.value(), entry.stamp(), now, entry.loadedAt()));
+                return entry.value();
+            }
+            logger.debug("Cache '{}' entry {} is stale (stamp {} -> {})", name, key, entry.stamp(), stamp);
+        } else {
+            stamp = readStamp(pk, sk);
+        }
+
+        // Đọc tem trước khi nạp: item đổi giữa 2 bước thì tem đã cũ, lần kiểm tra sau sẽ nạp lại
+        V value = loader.get();
+        entries.put(key, new Entry<>(value, stamp != null ? stamp : UNKNOWN_STAMP, now, now));
+        return value;
+    }
+
+    /**
+     * Bản sao đang giữ (không kiểm tra tem), để cập nhật tại chỗ sau khi chính container này ghi.
+     */
+    public V getIfPresent(String pk, String sk) {
+        Entry<V> entry = entries.get(key(pk, sk));
+        return entry != null ? entry.value() : null;
+    }
+
+    public void invalidate(String pk, String sk) {
+        if (entries.remove(key(pk, sk)) != null) {
+            logger.debug("Cache '{}' invalidated {} {}", name, pk, sk);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Long readStamp(String pk, String sk) {
+        try {
+            return stamps.applyAsLong(pk, sk);
+        } catch (RuntimeException e) {
+            logger.warn("Could not read version stamp for cache '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String key(String pk, String sk) {
+        return pk + "|" + VersionStampRepository.stampSk(sk);
+    }
+}
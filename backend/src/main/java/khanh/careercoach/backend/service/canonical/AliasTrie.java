@@ -0,0 +1,116 @@
+package khanh.careercoach.backend.service.canonical;
+
+import java.util.Arrays;
+
+/**
+ * Trie alias (đã chuẩn hóa) -> giá trị chuẩn.
+ * - Tra chính xác: O(độ dài alias)
+ * - Tra gần đúng theo khoảng cách Levenshtein: duyệt trie, mỗi nút tính 1 hàng DP từ hàng của nút cha;
+ *   nhánh có giá trị nhỏ nhất của hàng đã vượt maxDistance bị cắt -> không phải so với từng alias
+ * Con của mỗi nút lưu trong mảng ký tự / mảng nút nhỏ (thay vì HashMap) cho gọn bộ nhớ.
+ */
+final class AliasTrie {
+
+    record Match(String canonical, String alias, int distance) {
+    }
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        String canonical;
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            return children[children.length - 1] = new Node();
+        }
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * @return false nếu alias đã trỏ tới giá trị chuẩn khác (giữ giá trị cũ)
+     */
+    boolean put(String alias, String canonical) {
+        Node node = root;
+        for (int i = 0; i < alias.length(); i++) {
+            node = node.addChild(alias.charAt(i));
+        }
+        if (node.canonical != null) {
+            return node.canonical.equals(canonical);
+        }
+        node.canonical = canonical;
+        size++;
+        return true;
+    }
+
+    String get(String alias) {
+        Node node = root;
+        for (int i = 0; i < alias.length() && node != null; i++) {
+            node = node.child(alias.charAt(i));
+        }
+        return node != null ? node.canonical : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Alias gần nhất trong phạm vi maxDistance (null nếu không có). Bằng khoảng cách thì alias ngắn hơn thắng.
+     */
+    Match nearest(String query, int maxDistance) {
+        int[] firstRow = new int[query.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        Match[] best = {null};
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < root.keys.length; i++) {
+            search(root.children[i], root.keys[i], query, firstRow, maxDistance, path, best);
+        }
+        return best[0];
+    }
+
+    private void search(Node node, char c, String query, int[] previousRow, int maxDistance,
+                        StringBuilder path, Match[] best) {
+        int columns = query.length() + 1;
+        int[] row = new int[columns];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int substitution = previousRow[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+            row[i] = Math.min(substitution, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        path.append(c);
+        int distance = row[columns - 1];
+        if (node.canonical != null && distance <= maxDistance
+                && (best[0] == null || distance < best[0].distance()
+                    || (distance == best[0].distance() && path.length() < best[0].alias().length()))) {
+            best[0] = new Match(node.canonical, path.toString(), distance);
+        }
+        if (rowMin <= maxDistance) {
+            for (int i = 0; i < node.keys.length; i++) {
+                search(node.children[i], node.keys[i], query, row, maxDistance, path, best);
+            }
+        }
+        path.setLength(path.length() - 1);
+    }
+}
@@ -0,0 +1,97 @@
+package khanh.careercoach.backend.service.canonical;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Từ điển alias -> giá trị chuẩn cho một loại (ngành, kỹ năng).
+ * Tra: chuẩn hóa chuỗi -> khớp chính xác trên trie -> khớp gần đúng (sai chính tả) với ngưỡng theo độ dài.
+ * Chuỗi ngắn (<= 4 ký tự: "ai", "go", "sql") chỉ khớp chính xác để không nhầm sang từ khác.
+ */
+public final class CanonicalDictionary {
+
+    public record Resolution(String canonical, boolean exact, String normalized) {
+    }
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9+#.]+");
+
+    private final AliasTrie trie = new AliasTrie();
+
+    /**
+     * Đọc file "<giá trị chuẩn> = <alias>, <alias>..." (dòng bắt đầu bằng # là chú thích).
+     * Giá trị chuẩn cũng là alias của chính nó.
+     */
+    public static CanonicalDictionary load(InputStream in) {
+        CanonicalDictionary dictionary = new CanonicalDictionary();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int eq = line.indexOf(" = ");
+                String canonical = eq < 0 ? line : line.substring(0, eq).trim();
+                dictionary.put(canonical, canonical);
+                if (eq >= 0) {
+                    for (String alias : line.substring(eq + 3).split(",")) {
+                        dictionary.put(alias, canonical);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read canonical dictionary", e);
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return false nếu alias đã thuộc giá trị chuẩn khác (alias nhập nhằng giữ giá trị đầu tiên)
+     */
+    public synchronized boolean put(String alias, String canonical) {
+        String key = normalize(alias);
+        return key.isEmpty() || trie.put(key, canonical);
+    }
+
+    /**
+     * @return null nếu không khớp alias nào
+     */
+    public synchronized Resolution resolve(String raw) {
+        String key = normalize(raw);
+        if (key.isEmpty()) {
+            return null;
+        }
+        String exact = trie.get(key);
+        if (exact != null) {
+            return new Resolution(exact, true, key);
+        }
+        int maxDistance = key.length() <= 4 ? 0 : key.length() <= 8 ? 1 : 2;
+        if (maxDistance == 0) {
+            return null;
+        }
+        AliasTrie.Match match = trie.nearest(key, maxDistance);
+        return match != null ? new Resolution(match.canonical(), false, key) : null;
+    }
+
+    public synchronized int size() {
+        return trie.size();
+    }
+
+    /**
+     * Chữ thường, "&" -> "and", mọi dấu phân cách (khoảng trắng, -, /, _, ngoặc) -> 1 khoảng trắng.
+     * Giữ + # . cho tên kỹ thuật (c++, c#, node.js).
+     */
+    public static String normalize(String raw) {
+        if (raw == null) {
+            return "";
+        }
+        String lower = raw.toLowerCase(Locale.ROOT).replace("&", " and ");
+        return SEPARATORS.matcher(lower).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,160 @@
+package khanh.careercoach.backend.service.canonical;
+
+import khanh.careercoach.backend.model.CanonicalAliasEntity;
+import khanh.careercoach.backend.repository.CanonicalAliasRepository;
+import khanh.careercoach.backend.repository.WriteBehindBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chuẩn hóa ngành / kỹ năng người dùng nhập tự do về một giá trị chuẩn, để
+ * "Software Engineering", "software-engineering", "SWE" cùng dùng 1 key INDUSTRY#... (1 lần sinh insight, 1 cache).
+ *
+ * Thứ tự tra: từ điển có sẵn (resources/canonical/*.txt) + alias học được (DynamoDB, PK ALIAS#<kind>)
+ * -> khớp chính xác -> khớp gần đúng (Levenshtein trên trie).
+ * - Khớp gần đúng: ghi alias vào bảng học được để container khác khớp chính xác
+ * - Ngành không khớp: dùng slug của chuỗi nhập làm giá trị chuẩn mới và ghi lại,
+ *   biến thể gõ sai sau này sẽ gộp vào đó
+ * - Kỹ năng không khớp: giữ nguyên chuỗi nhập (không học, tránh bảng alias phình theo mọi kỹ năng lạ)
+ * Ghi alias đi qua WriteBehindBuffer (router flush trước khi trả response).
+ */
+@Service
+public class CanonicalizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanonicalizationService.class);
+
+    public static final String INDUSTRY = "INDUSTRY";
+    public static final String SKILL = "SKILL";
+
+    // Nạp lại alias học được từ container khác
+    private static final long LEARNED_REFRESH_MS = 15 * 60 * 1000L;
+
+    private final CanonicalAliasRepository aliasRepository;
+    private final WriteBehindBuffer writeBehindBuffer;
+
+    private volatile CanonicalDictionary industries;
+    private volatile CanonicalDictionary skills;
+    private volatile long learnedLoadedAt;
+
+    public CanonicalizationService(CanonicalAliasRepository aliasRepository, WriteBehindBuffer writeBehindBuffer) {
+        this.aliasRepository = aliasRepository;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.industries = loadResource("industries.txt");
+        this.skills = loadResource("skills.txt");
+        logger.info("Loaded canonical dictionaries: {} industry aliases, {} skill aliases",
+                industries.size(), skills.size());
+    }
+
+    /**
+     * @return key ngành chuẩn (null nếu chuỗi rỗng)
+     */
+    public String canonicalIndustry(String raw) {
+        String normalized = CanonicalDictionary.normalize(raw);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        refreshLearnedIfStale();
+        CanonicalDictionary.Resolution resolution = industries.resolve(raw);
+        if (resolution != null) {
+            if (!resolution.exact()) {
+                learn(INDUSTRY, industries, normalized, resolution.canonical(), "fuzzy");
+            }
+            return resolution.canonical();
+        }
+        String slug = normalized.replace(' ', '-');
+        learn(INDUSTRY, industries, normalized, slug, "observed");
+        return slug;
+    }
+
+    /**
+     * @return danh sách kỹ năng chuẩn, bỏ trùng, giữ thứ tự nhập
+     */
+    public List<String> canonicalSkills(List<String> raw) {
+        if (raw == null) {
+            return null;
+        }
+        refreshLearnedIfStale();
+        List<String> result = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String skill : raw) {
+            String normalized = CanonicalDictionary.normalize(skill);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            CanonicalDictionary.Resolution resolution = skills.resolve(skill);
+            String canonical = resolution != null ? resolution.canonical() : skill.trim();
+            if (resolution != null && !resolution.exact()) {
+                learn(SKILL, skills, normalized, canonical, "fuzzy");
+            }
+            if (seen.add(CanonicalDictionary.normalize(canonical))) {
+                result.add(canonical);
+            }
+        }
+        return result;
+    }
+
+    private void learn(String kind, CanonicalDictionary dictionary, String alias, String canonical, String source) {
+        if (!dictionary.put(alias, canonical)) {
+            return;
+        }
+        CanonicalAliasEntity entity = new CanonicalAliasEntity();
+        entity.setPk(CanonicalAliasRepository.PK_PREFIX + kind);
+        entity.setSk(alias);
+        entity.setCanonical(canonical);
+        entity.setSource(source);
+        entity.setCreatedAt(Instant.now().toString());
+        writeBehindBuffer.put(aliasRepository.toItemMap(entity));
+        logger.info("Learned {} alias '{}' -> '{}' ({})", kind, alias, canonical, source);
+    }
+
+    private void refreshLearnedIfStale() {
+        long now = System.currentTimeMillis();
+        if (now - learnedLoadedAt < LEARNED_REFRESH_MS) {
+            return;
+        }
+        synchronized (this) {
+            if (now - learnedLoadedAt < LEARNED_REFRESH_MS) {
+                return;
+            }
+            learnedLoadedAt = now;
+            try {
+                // Dựng từ điển mới rồi mới thay (request đang chạy vẫn dùng bản cũ)
+                CanonicalDictionary freshIndustries = loadResource("industries.txt");
+                CanonicalDictionary freshSkills = loadResource("skills.txt");
+                int learned = mergeLearned(INDUSTRY, freshIndustries) + mergeLearned(SKILL, freshSkills);
+                industries = freshIndustries;
+                skills = freshSkills;
+                logger.info("Merged {} learned aliases into canonical dictionaries", learned);
+            } catch (RuntimeException e) {
+                // Không tải được alias học được: vẫn chuẩn hóa theo từ điển có sẵn
+                logger.warn("Could not load learned aliases: {}", e.getMessage());
+            }
+        }
+    }
+
+    private int mergeLearned(String kind, CanonicalDictionary dictionary) {
+        int merged = 0;
+        for (CanonicalAliasEntity alias : aliasRepository.findAllByKind(kind)) {
+            if (alias.getCanonical() != null && dictionary.put(alias.getSk(), alias.getCanonical())) {
+                merged++;
+            }
+        }
+        return merged;
+    }
+
+    private static CanonicalDictionary loadResource(String name) {
+        InputStream in = CanonicalizationService.class.getResourceAsStream("/canonical/" + name);
+        if (in == null) {
+            throw new IllegalStateException("Missing canonical dictionary: " + name);
+        }
+        return CanonicalDictionary.load(in);
+    }
+}
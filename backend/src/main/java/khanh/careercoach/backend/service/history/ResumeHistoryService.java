@@ -0,0 +1,257 @@
+package khanh.careercoach.backend.service.history;
+
+import khanh.careercoach.backend.model.ResumeEntity;
+import khanh.careercoach.backend.model.ResumeVersionEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ResumeRepository;
+import khanh.careercoach.backend.repository.ResumeVersionRepository;
+import khanh.careercoach.backend.repository.WriteBehindBuffer;
+import khanh.careercoach.backend.storage.ContentOffloader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lịch sử phiên bản Resume (RESUME#V#<ts>).
+ * Mỗi lần lưu có thay đổi tạo 1 phiên bản, ghi cùng transaction với item RESUME:
+ * - SNAPSHOT (toàn văn): phiên bản đầu tiên, sau mỗi RESUME_SNAPSHOT_EVERY delta,
+ *   hoặc khi tổng delta từ snapshot gần nhất đã dài hơn toàn văn (dựng lại tốn hơn đọc 1 snapshot)
+ * - DELTA (TextDelta so với phiên bản ngay trước): autosave sửa vài dòng chỉ tốn vài trăm byte
+ *
+ * Content quá lớn (snapshot của Resume dài) được offload ra BlobStore như body của Resume / cover letter.
+ *
+ * Compact giữ tối đa RESUME_HISTORY_MAX_VERSIONS phiên bản; phiên bản cũ hơn KEEP_ALL_DAYS ngày chỉ giữ
+ * bản cuối mỗi ngày. Phiên bản còn giữ mà mất phiên bản đứng trước được tính lại delta (hoặc thành snapshot).
+ * Compact không chạy trên đường lưu Resume: StreamFunctions gọi khi historyCount của item RESUME vượt ngưỡng.
+ */
+@Service
+public class ResumeHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumeHistoryService.class);
+
+    private static final int KEEP_ALL_DAYS = 7;
+    // Compact theo đợt (mỗi COMPACT_SLACK phiên bản vượt giới hạn) thay vì mỗi lần lưu
+    private static final int COMPACT_SLACK = 10;
+
+    private final ResumeVersionRepository versionRepository;
+    private final ResumeRepository resumeRepository;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final ContentOffloader contentOffloader;
+    private final int snapshotEvery;
+    private final int maxVersions;
+
+    public ResumeHistoryService(ResumeVersionRepository versionRepository, ResumeRepository resumeRepository,
+                                WriteBehindBuffer writeBehindBuffer, ContentOffloader contentOffloader) {
+        this.versionRepository = versionRepository;
+        this.resumeRepository = resumeRepository;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.contentOffloader = contentOffloader;
+        this.snapshotEvery = intEnv("RESUME_SNAPSHOT_EVERY", 10);
+        this.maxVersions = intEnv("RESUME_HISTORY_MAX_VERSIONS", 50);
+    }
+
+    /**
+     * Tạo phiên bản mới cho lần lưu sắp ghi và bổ sung trạng thái lịch sử vào update của item RESUME.
+     * Caller ghi item trả về cùng transaction với update.
+     *
+     * @param current      item RESUME trước khi lưu (null nếu chưa có)
+     * @param previousText toàn văn trước khi lưu (null nếu chưa có)
+     */
+    public ResumeVersionEntity prepareVersion(String pk, ResumeEntity current, String previousText, String newText,
+                                              long newResumeVersion, PartialUpdate resumeUpdate) {
+        String headSk = current != null ? current.getHistoryHeadSk() : null;
+        int deltaCount = current != null && current.getHistoryDeltaCount() != null ? current.getHistoryDeltaCount() : 0;
+        long deltaChars = current != null && current.getHistoryDeltaChars() != null ? current.getHistoryDeltaChars() : 0;
+
+        // SK tăng dần kể cả khi đồng hồ của 2 Lambda lệch nhau
+        long ts = Instant.now().toEpochMilli();
+        if (headSk != null) {
+            ts = Math.max(ts, Long.parseLong(headSk.substring(ResumeVersionRepository.VERSION_SK_PREFIX.length())) + 1);
+        }
+
+        String delta = null;
+        if (headSk != null && previousText != null && deltaCount < snapshotEvery) {
+            delta = TextDelta.diff(previousText, newText);
+            if (deltaChars + delta.length() > newText.length()) {
+                delta = null;
+            }
+        }
+
+        ResumeVersionEntity version = new ResumeVersionEntity();
+        version.setPk(pk);
+        version.setSk(ResumeVersionRepository.skOf(ts));
+        version.setKind(delta != null ? ResumeVersionRepository.DELTA : ResumeVersionRepository.SNAPSHOT);
+        setContent(version, delta != null ? delta : newText);
+        version.setContentHash(ContentOffloader.sha256(newText));
+        version.setContentLength(newText.length());
+        version.setResumeVersion(newResumeVersion);
+        version.setCreatedAt(Instant.ofEpochMilli(ts).toString());
+
+        resumeUpdate.set("historyHeadSk", version.getSk())
+                .set("historyDeltaCount", delta != null ? deltaCount + 1 : 0)
+                .set("historyDeltaChars", delta != null ? deltaChars + delta.length() : 0L)
+                .add("historyCount", 1);
+        return version;
+    }
+
+    /**
+     * @param historyCount historyCount của item RESUME sau lần lưu
+     */
+    public boolean needsCompaction(int historyCount) {
+        return historyCount > maxVersions + COMPACT_SLACK;
+    }
+
+    // Danh sách phiên bản (mới nhất trước), không có content
+    public List<ResumeVersionEntity> listVersions(String userId) {
+        List<ResumeVersionEntity> versions = new ArrayList<>(versionRepository.findVersions(userId));
+        versions.sort((a, b) -> b.getSk().compareTo(a.getSk()));
+        return versions;
+    }
+
+    /**
+     * Dựng lại toàn văn của một phiên bản: snapshot gần nhất + áp các delta phía sau.
+     */
+    public ResumeVersionEntity loadVersion(String userId, String sk) {
+        List<ResumeVersionEntity> chain = versionRepository.findReplayChain(userId, sk);
+        if (chain.isEmpty()) {
+            throw new IllegalArgumentException("Resume version not found");
+        }
+        String text = null;
+        for (ResumeVersionEntity version : chain) {
+            text = ResumeVersionRepository.SNAPSHOT.equals(version.getKind())
+                    ? contentOf(version) : TextDelta.apply(text, contentOf(version));
+        }
+        ResumeVersionEntity target = chain.get(chain.size() - 1);
+        if (target.getContentHash() != null && !target.getContentHash().equals(ContentOffloader.sha256(text))) {
+            throw new IllegalStateException("Reconstructed resume version does not match its hash: " + sk);
+        }
+        logger.info("Reconstructed resume version {} from {} items", sk, chain.size());
+        target.setContent(text);
+        return target;
+    }
+
+    /**
+     * Thu gọn lịch sử theo chính sách giữ lại. Ghi các phiên bản tính lại trước, xóa sau,
+     * để chuỗi dựng lại không bao giờ bị đứt.
+     *
+     * @return số phiên bản đã xóa
+     */
+    public int compact(String userId) {
+        List<ResumeVersionEntity> versions = versionRepository.findVersionsWithContent(userId);
+        if (versions.size() <= maxVersions) {
+            return 0;
+        }
+
+        // Dựng lại toàn văn mọi phiên bản (theo thứ tự tăng dần của SK)
+        List<String> texts = new ArrayList<>(versions.size());
+        String text = null;
+        for (ResumeVersionEntity version : versions) {
+            if (!ResumeVersionRepository.SNAPSHOT.equals(version.getKind()) && text == null) {
+                throw new IllegalStateException("Resume history of " + userId + " does not start with a snapshot");
+            }
+            text = ResumeVersionRepository.SNAPSHOT.equals(version.getKind())
+                    ? contentOf(version) : TextDelta.apply(text, contentOf(version));
+            texts.add(text);
+        }
+
+        boolean[] keep = selectRetained(versions);
+
+        List<ResumeVersionEntity> rebased = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        List<String> staleBlobs = new ArrayList<>();
+        String previousKept = null;
+        for (int i = 0; i < versions.size(); i++) {
+            ResumeVersionEntity version = versions.get(i);
+            if (!keep[i]) {
+                deleted.add(version.getSk());
+                if (version.getContentRef() != null) {
+                    staleBlobs.add(version.getContentRef());
+                }
+                continue;
+            }
+            boolean predecessorDropped = i > 0 && !keep[i - 1];
+            if (ResumeVersionRepository.DELTA.equals(version.getKind()) && (previousKept == null || predecessorDropped)) {
+                String delta = previousKept != null ? TextDelta.diff(previousKept, texts.get(i)) : null;
+                boolean asSnapshot = delta == null || delta.length() > texts.get(i).length();
+                if (version.getContentRef() != null) {
+                    staleBlobs.add(version.getContentRef());
+                }
+                version.setKind(asSnapshot ? ResumeVersionRepository.SNAPSHOT : ResumeVersionRepository.DELTA);
+                setContent(version, asSnapshot ? texts.get(i) : delta);
+                rebased.add(version);
+            }
+            previousKept = texts.get(i);
+        }
+
+        // Buffer dùng như bộ ghi BatchWriteItem đồng bộ (flush ngay): phải ghi xong bản mới rồi mới xóa bản cũ
+        for (ResumeVersionEntity version : rebased) {
+            writeBehindBuffer.put(versionRepository.toItemMap(version));
+        }
+        if (!writeBehindBuffer.flush()) {
+            throw new RuntimeException("Database Error: Could not rewrite resume history");
+        }
+        String pk = "USER#" + userId;
+        for (String sk : deleted) {
+            writeBehindBuffer.delete(pk, sk);
+        }
+        if (!writeBehindBuffer.flush()) {
+            // Phiên bản chưa xóa vẫn dựng lại được, lần compact sau xóa tiếp
+            logger.warn("Some resume versions of {} could not be deleted", userId);
+        }
+        resumeRepository.updatePartial(pk, ResumeRepository.RESUME_SK,
+                PartialUpdate.create().add("historyCount", -deleted.size()));
+        for (String ref : staleBlobs) {
+            try {
+                contentOffloader.delete(ref);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to delete stale resume version blob {}", ref, e);
+            }
+        }
+
+        logger.info("Compacted resume history of {}: kept {}, rebased {}, deleted {}",
+                userId, versions.size() - deleted.size(), rebased.size(), deleted.size());
+        return deleted.size();
+    }
+
+    // Content lớn -> BlobStore (key theo hash, bản ghi lại có content khác thì ra key mới)
+    private void setContent(ResumeVersionEntity version, String content) {
+        ContentOffloader.OffloadedBody offloaded =
+                contentOffloader.offloadIfLarge(version.getPk(), version.getSk(), "content", content);
+        version.setContent(offloaded != null ? null : content);
+        version.setContentRef(offloaded != null ? offloaded.ref() : null);
+    }
+
+    // Toàn văn được kiểm tra bằng contentHash sau khi dựng lại, blob không cần hash riêng
+    private String contentOf(ResumeVersionEntity version) {
+        return version.getContent() != null ? version.getContent() : contentOffloader.load(version.getContentRef(), null);
+    }
+
+    // Giữ maxVersions phiên bản mới nhất; trong đó, phiên bản cũ hơn KEEP_ALL_DAYS chỉ giữ bản cuối mỗi ngày (UTC)
+    private boolean[] selectRetained(List<ResumeVersionEntity> versions) {
+        int size = versions.size();
+        boolean[] keep = new boolean[size];
+        Instant keepAllSince = Instant.now().minus(KEEP_ALL_DAYS, ChronoUnit.DAYS);
+        for (int i = Math.max(0, size - maxVersions); i < size; i++) {
+            Instant created = Instant.parse(versions.get(i).getCreatedAt());
+            boolean lastOfDay = i == size - 1 || !sameDay(created, Instant.parse(versions.get(i + 1).getCreatedAt()));
+            keep[i] = !created.isBefore(keepAllSince) || lastOfDay;
+        }
+        keep[size - 1] = true; // Phiên bản mới nhất luôn giữ
+        return keep;
+    }
+
+    private static boolean sameDay(Instant a, Instant b) {
+        return a.atZone(ZoneOffset.UTC).toLocalDate().equals(b.atZone(ZoneOffset.UTC).toLocalDate());
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+}
@@ -0,0 +1,204 @@
+package khanh.careercoach.backend.service.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delta theo dòng giữa 2 phiên bản văn bản (thuật toán diff của Myers, O((N+M)·D)).
+ * Delta là chuỗi các lệnh, mỗi lệnh 1 dòng:
+ * - "=n": giữ n dòng của bản gốc
+ * - "-n": bỏ n dòng của bản gốc
+ * - "+text": chèn dòng text
+ * Autosave thường chỉ đổi vài dòng nên delta nhỏ hơn nhiều so với bản đầy đủ.
+ */
+public final class TextDelta {
+
+    // Quá số dòng sửa này thì coi như thay toàn bộ (giới hạn bộ nhớ của bảng trace)
+    private static final int MAX_EDITS = 500;
+
+    private TextDelta() {
+    }
+
+    public static String diff(String from, String to) {
+        String[] a = lines(from);
+        String[] b = lines(to);
+
+        // Bỏ phần đầu / cuối giống nhau trước khi chạy Myers
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+
+        Ops ops = new Ops();
+        ops.keep(prefix);
+        if (!myers(a, b, prefix, a.length - suffix, prefix, b.length - suffix, ops)) {
+            ops.delete(a.length - suffix - prefix);
+            for (int i = prefix; i < b.length - suffix; i++) {
+                ops.insert(b[i]);
+            }
+        }
+        ops.keep(suffix);
+        return ops.toString();
+    }
+
+    public static String apply(String base, String delta) {
+        String[] source = lines(base);
+        List<String> result = new ArrayList<>(source.length);
+        int position = 0;
+        if (!delta.isEmpty()) {
+            for (String op : delta.split("\n", -1)) {
+                char code = op.isEmpty() ? '?' : op.charAt(0);
+                switch (code) {
+                    case '=' -> {
+                        int count = Integer.parseInt(op.substring(1));
+                        for (int i = 0; i < count; i++) {
+                            result.add(source[position++]);
+                        }
+                    }
+                    case '-' -> position += Integer.parseInt(op.substring(1));
+                    case '+' -> result.add(op.substring(1));
+                    default -> throw new IllegalStateException("Corrupted delta operation: " + op);
+                }
+            }
+        }
+        if (position != source.length) {
+            throw new IllegalStateException("Delta does not match base text");
+        }
+        return String.join("\n", result);
+    }
+
+    private static String[] lines(String text) {
+        return text.split("\n", -1);
+    }
+
+    /**
+     * Myers trên đoạn a[aStart, aEnd) / b[bStart, bEnd), ghi lệnh vào ops.
+     *
+     * @return false nếu cần nhiều hơn MAX_EDITS lần sửa (ops chưa bị ghi gì)
+     */
+    private static boolean myers(String[] a, String[] b, int aStart, int aEnd, int bStart, int bEnd, Ops ops) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        if (n == 0 && m == 0) {
+            return true;
+        }
+        int maxD = Math.min(n + m, MAX_EDITS);
+        int offset = maxD + 1;
+        int[] v = new int[2 * maxD + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        int found = -1;
+        for (int d = 0; d <= maxD && found < 0; d++) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aStart + x].equals(b[bStart + y])) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+
+        // Lần ngược trace từ (n, m) về (0, 0), lệnh sinh ra theo thứ tự ngược
+        List<String> reversed = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = found; d >= 0; d--) {
+            int[] vd = trace.get(d);
+            int k = x - y;
+            int prevK = (k == -d || (k != d && vd[offset + k - 1] < vd[offset + k + 1])) ? k + 1 : k - 1;
+            int prevX = vd[offset + prevK];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                reversed.add("=");
+                x--;
+                y--;
+            }
+            if (d > 0) {
+                if (x == prevX) {
+                    reversed.add("+" + b[bStart + y - 1]);
+                } else {
+                    reversed.add("-");
+                }
+            }
+            x = prevX;
+            y = prevY;
+        }
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            String op = reversed.get(i);
+            switch (op.charAt(0)) {
+                case '=' -> ops.keep(1);
+                case '-' -> ops.delete(1);
+                default -> ops.insert(op.substring(1));
+            }
+        }
+        return true;
+    }
+
+    // Gộp các lệnh giữ / bỏ liên tiếp thành 1 lệnh có số đếm
+    private static final class Ops {
+        private final StringBuilder out = new StringBuilder();
+        private char pending;
+        private int count;
+
+        void keep(int n) {
+            run('=', n);
+        }
+
+        void delete(int n) {
+            run('-', n);
+        }
+
+        void insert(String line) {
+            flush();
+            append("+" + line);
+        }
+
+        private void run(char code, int n) {
+            if (n <= 0) {
+                return;
+            }
+            if (pending != code) {
+                flush();
+                pending = code;
+            }
+            count += n;
+        }
+
+        private void flush() {
+            if (count > 0) {
+                append(String.valueOf(pending) + count);
+            }
+            pending = 0;
+            count = 0;
+        }
+
+        private void append(String op) {
+            if (!out.isEmpty()) {
+                out.append('\n');
+            }
+            out.append(op);
+        }
+
+        @Override
+        public String toString() {
+            flush();
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package khanh.careercoach.backend.service.idempotency;
+
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Request trùng vẫn đang được xử lý ở nơi khác và chờ quá lâu chưa có kết quả.
+ * Router trả về 409 kèm header Retry-After = retryAfterSeconds (không tự chạy lại action).
+ */
+public class DuplicateRequestInProgressException extends ConcurrentModificationException {
+
+    private final long retryAfterSeconds;
+
+    public DuplicateRequestInProgressException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Response 409 kèm Retry-After (giây): lúc đó request đầu đã xong (phát lại được) hoặc khóa đã hết hạn.
+     *
+     * @param buildResponse hàm buildResponse(statusCode, body) của router
+     */
+    public Map<String, Object> toResponse(BiFunction<Integer, Object, Map<String, Object>> buildResponse) {
+        Map<String, Object> response = buildResponse.apply(409,
+                Map.of("error", getMessage(), "retryAfterSeconds", retryAfterSeconds));
+        response.put("headers", Map.of(
+                "Content-Type", "application/json",
+                "Retry-After", String.valueOf(retryAfterSeconds)));
+        return response;
+    }
+}
@@ -0,0 +1,201 @@
+package khanh.careercoach.backend.service.idempotency;
+
+import khanh.careercoach.backend.model.IdempotencyRecordEntity;
+import khanh.careercoach.backend.repository.IdempotencyRepository;
+import khanh.careercoach.backend.storage.ContentOffloader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gộp các request AI trùng nhau (double-click, React re-render gửi 2 lần cùng một POST).
+ * Key của request:
+ * - Header Idempotency-Key nếu client gửi (response được phát lại trong 24h)
+ * - Không có header: hash(user, route, body), chỉ phát lại trong DERIVED_REPLAY_SECONDS
+ *   (đủ để gộp double-click, nhưng bấm "tạo quiz mới" sau đó vẫn ra quiz mới)
+ *
+ * 2 tầng:
+ * - In-memory: request trùng trong cùng container chờ chung 1 CompletableFuture
+ * - DynamoDB (IDEMP#...): request trùng ở container khác thấy bản ghi IN_PROGRESS thì chờ (poll) kết quả,
+ *   thấy COMPLETED thì trả luôn response đã lưu
+ * Chỉ lưu response 2xx; lỗi thì xóa bản ghi (chỉ khi vẫn là owner) để lần gửi lại được xử lý từ đầu.
+ * Chờ quá WAIT_TIMEOUT_MS mà request đầu chưa xong: trả 409 + Retry-After, không tự chạy action lần 2
+ * (chạy lại sẽ gọi AI / ghi dữ liệu trùng đúng như cơ chế này muốn tránh).
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final long EXPLICIT_REPLAY_SECONDS = 24 * 3600;
+    private static final long DERIVED_REPLAY_SECONDS = 30;
+    // Khóa IN_PROGRESS hết hạn sau Timeout của Lambda, để request bị kill giữa chừng không khóa mãi
+    private static final long LOCK_SECONDS = 70;
+    private static final long WAIT_TIMEOUT_MS = 55_000;
+    private static final long POLL_INTERVAL_MS = 300;
+    private static final String IN_PROGRESS_MESSAGE = "A duplicate request is still being processed, please retry later";
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRepository idempotencyRepository) {
+        this.idempotencyRepository = idempotencyRepository;
+    }
+
+    /**
+     * Xử lý request của router (trả về response Map gồm statusCode / headers / body).
+     */
+    @FunctionalInterface
+    public interface RouteAction {
+        Map<String, Object> handle() throws Exception;
+    }
+
+    /**
+     * @param idempotencyKey giá trị header Idempotency-Key (null nếu client không gửi)
+     * @param body           body của request (dùng để tạo key khi không có header)
+     */
+    public Map<String, Object> execute(String userId, String route, String idempotencyKey, String body,
+                                       RouteAction action) throws Exception {
+        boolean explicit = idempotencyKey != null && !idempotencyKey.isBlank();
+        String pk = "IDEMP#" + ContentOffloader.sha256(
+                userId + "\n" + route + "\n" + (explicit ? "key:" + idempotencyKey.trim() : "body:" + body));
+
+        // 1. Trùng trong cùng container -> chờ kết quả của request đầu tiên
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(pk, mine);
+        if (existing != null) {
+            logger.info("Coalescing duplicate in-flight request {} {}", route, pk);
+            return replayed(awaitLocal(existing));
+        }
+
+        try {
+            Map<String, Object> response = executeOnce(pk, route, explicit, action);
+            mine.complete(response);
+            return response;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(pk, mine);
+        }
+    }
+
+    private Map<String, Object> executeOnce(String pk, String route, boolean explicit, RouteAction action)
+            throws Exception {
+        String owner = UUID.randomUUID().toString();
+
+        // 2. Chiếm bản ghi trên DynamoDB; không được -> request khác (container khác) đã/đang xử lý
+        if (!tryAcquire(pk, owner)) {
+            Map<String, Object> stored = awaitStored(pk);
+            if (stored != null) {
+                logger.info("Replaying stored response for duplicate request {} {}", route, pk);
+                return replayed(stored);
+            }
+            // Bản ghi biến mất (request đầu lỗi): chiếm lại rồi mới xử lý, tránh 2 request chờ cùng chạy
+            if (!tryAcquire(pk, owner)) {
+                logger.warn("Duplicate request {} {} re-acquired by another request", route, pk);
+                throw new DuplicateRequestInProgressException(IN_PROGRESS_MESSAGE, POLL_INTERVAL_MS / 1000 + 1);
+            }
+            logger.info("Previous attempt of {} {} failed, processing request", route, pk);
+        }
+
+        Map<String, Object> response;
+        try {
+            response = action.handle();
+        } catch (Exception e) {
+            releaseQuietly(pk, owner);
+            throw e;
+        }
+
+        int statusCode = response.get("statusCode") instanceof Number n ? n.intValue() : 500;
+        if (statusCode >= 200 && statusCode < 300 && response.get("body") instanceof String responseBody) {
+            long completedAt = Instant.now().getEpochSecond();
+            long replayUntil = completedAt + (explicit ? EXPLICIT_REPLAY_SECONDS : DERIVED_REPLAY_SECONDS);
+            try {
+                idempotencyRepository.complete(pk, statusCode, responseBody, replayUntil, replayUntil + 3600);
+            } catch (RuntimeException e) {
+                // Không lưu được chỉ làm mất khả năng phát lại, response vẫn trả cho user
+                logger.error("Failed to store idempotent response {}", pk, e);
+            }
+        } else {
+            releaseQuietly(pk, owner);
+        }
+        return response;
+    }
+
+    private boolean tryAcquire(String pk, String owner) {
+        long now = Instant.now().getEpochSecond();
+        return idempotencyRepository.tryAcquire(pk, owner, now, now + LOCK_SECONDS, now + LOCK_SECONDS + 3600);
+    }
+
+    private Map<String, Object> awaitLocal(CompletableFuture<Map<String, Object>> future) throws Exception {
+        try {
+            return future.get(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            // Request đầu còn tối đa LOCK_SECONDS tính từ lúc chiếm khóa
+            throw new DuplicateRequestInProgressException(IN_PROGRESS_MESSAGE,
+                    LOCK_SECONDS - WAIT_TIMEOUT_MS / 1000);
+        }
+    }
+
+    /**
+     * Poll bản ghi tới khi COMPLETED; null nếu bản ghi bị xóa (request đầu lỗi).
+     *
+     * @throws DuplicateRequestInProgressException nếu hết thời gian chờ mà request đầu chưa xong
+     */
+    private Map<String, Object> awaitStored(String pk) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+        long lockExpiresAt = 0;
+        while (System.currentTimeMillis() < deadline) {
+            IdempotencyRecordEntity record = idempotencyRepository.find(pk);
+            if (record == null) {
+                return null;
+            }
+            lockExpiresAt = record.getExpiresAt() != null ? record.getExpiresAt() : 0;
+            if ("COMPLETED".equals(record.getStatus())) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("statusCode", record.getStatusCode());
+                response.put("headers", Map.of("Content-Type", "application/json"));
+                response.put("body", record.getResponseBody());
+                return response;
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        throw new DuplicateRequestInProgressException(IN_PROGRESS_MESSAGE,
+                lockExpiresAt - Instant.now().getEpochSecond());
+    }
+
+    // Đánh dấu response phát lại để client / log phân biệt
+    private Map<String, Object> replayed(Map<String, Object> response) {
+        Map<String, Object> copy = new HashMap<>(response);
+        Map<String, Object> headers = new HashMap<>();
+        if (response.get("headers") instanceof Map<?, ?> original) {
+            original.forEach((k, v) -> headers.put(String.valueOf(k), v));
+        }
+        headers.put("Idempotent-Replayed", "true");
+        copy.put("headers", headers);
+        return copy;
+    }
+
+    private void releaseQuietly(String pk, String owner) {
+        try {
+            if (!idempotencyRepository.release(pk, owner)) {
+                logger.warn("Idempotency record {} is owned by another request, not released", pk);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to release idempotency record {}", pk, e);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package khanh.careercoach.backend.service.portability;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import khanh.careercoach.backend.model.CoverLetterEntity;
+import khanh.careercoach.backend.repository.AssessmentRepository;
+import khanh.careercoach.backend.repository.AssessmentSummaryRepository;
+import khanh.careercoach.backend.repository.CoverLetterRepository;
+import khanh.careercoach.backend.repository.DynamoJson;
+import khanh.careercoach.backend.repository.ResumeRepository;
+import khanh.careercoach.backend.repository.UserRepository;
+import khanh.careercoach.backend.repository.UserStatsRepository;
+import khanh.careercoach.backend.repository.WriteBehindBuffer;
+import khanh.careercoach.backend.service.ResumeService;
+import khanh.careercoach.backend.storage.BlobOutputStream;
+import khanh.careercoach.backend.storage.BlobStore;
+import khanh.careercoach.backend.storage.ContentOffloader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export / import toàn bộ dữ liệu của 1 user với bộ nhớ không đổi: Query partition USER#<id> theo trang,
+ * mỗi item ghi ngay thành 1 dòng NDJSON bằng JsonGenerator vào stream của BlobStore (gzip tùy chọn).
+ * Export lỗi giữa chừng thì hủy stream (abort): không để lại file dở dang.
+ *
+ * Hai định dạng export (dòng đầu {"type":"export","format":...,"version":1,"userId":...}):
+ * - READABLE ("download my data", cho chính user đọc): mỗi item được giải mã qua TableSchema của entity
+ *   (giải nén, tải body đã offload), bỏ key / index / thuộc tính nội bộ (version, ttl, ref, hash...):
+ *   {"type":"profile"|"resume"|"coverLetter"|"assessment"|"stats"|"assessmentSummary","data":{...}}.
+ *   Resume xuất bản hiện tại đã ghép section; lịch sử phiên bản chỉ có ở định dạng MIGRATION. Không import được.
+ * - MIGRATION (chuyển tài khoản / khôi phục, chỉ dành cho importUser): item nguyên dạng DynamoDB JSON
+ *   {"type":"item","item":...} (body lớn vẫn nén, có thuộc tính nội bộ) và {"type":"blob","key":...,"data":<base64>}.
+ *   Import đọc lại từng dòng (MappingIterator), ghi bằng BatchWriteItem qua WriteBehindBuffer theo lô,
+ *   checkpoint số dòng đã ghi trên BlobStore -> gọi lại với cùng file thì chạy tiếp, ghi lại 1 lô là vô hại (put)
+ * Read model / tem version (PROJ#, STAMP#) không export ở cả hai định dạng: stream tự dựng lại khi import.
+ */
+@Service
+public class UserDataPortabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDataPortabilityService.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int PAGE_SIZE = 100;
+    // Số dòng mỗi lô import (4 BatchWriteItem), checkpoint sau mỗi lô
+    private static final int IMPORT_CHUNK_LINES = 100;
+    private static final List<String> DERIVED_SK_PREFIXES = List.of("PROJ#", "STAMP#");
+    private static final List<String> BLOB_REF_ATTRIBUTES = List.of("contentRef", "jobDescriptionRef");
+    // Thuộc tính nội bộ bỏ khỏi export READABLE (key, index, khóa lạc quan, TTL, con trỏ / hash body, lịch sử;
+    // sections của resume trùng với content đã ghép)
+    private static final Set<String> INTERNAL_FIELDS = Set.of("pk", "sk", "gsi1Pk", "gsi1Sk", "gsi2Pk", "gsi2Sk",
+            "version", "ttl", "contentRef", "contentHash", "jobDescriptionRef", "jobDescriptionHash", "jdSimHash",
+            "sectionOrder", "sectionHashes", "sections", "historyHeadSk", "historyDeltaCount", "historyDeltaChars", "historyCount",
+            "tipAttempts");
+
+    private final UserRepository userRepository;
+    private final AssessmentRepository assessmentRepository;
+    private final AssessmentSummaryRepository summaryRepository;
+    private final CoverLetterRepository coverLetterRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final ResumeService resumeService;
+    private final ContentOffloader contentOffloader;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final BlobStore blobStore;
+    private final ObjectMapper objectMapper;
+
+    private final long importBudgetMs = longEnv("PORTABILITY_IMPORT_BUDGET_MS", 840_000);
+
+    public UserDataPortabilityService(UserRepository userRepository,
+                                      AssessmentRepository assessmentRepository,
+                                      AssessmentSummaryRepository summaryRepository,
+                                      CoverLetterRepository coverLetterRepository,
+                                      UserStatsRepository userStatsRepository,
+                                      ResumeService resumeService,
+                                      ContentOffloader contentOffloader,
+                                      WriteBehindBuffer writeBehindBuffer,
+                                      BlobStore blobStore,
+                                      ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.assessmentRepository = assessmentRepository;
+        this.summaryRepository = summaryRepository;
+        this.coverLetterRepository = coverLetterRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.resumeService = resumeService;
+        this.contentOffloader = contentOffloader;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.blobStore = blobStore;
+        this.objectMapper = objectMapper;
+    }
+
+    public enum ExportFormat {
+        READABLE, MIGRATION
+    }
+
+    public record ExportResult(String key, long items, long blobs) {
+    }
+
+    public record ImportResult(long linesApplied, boolean complete) {
+    }
+
+    // Checkpoint import (Jackson)
+    public record ImportCheckpoint(long linesApplied) {
+    }
+
+    /**
+     * Export partition của user ra exports/USER_<id>/<thời điểm>[.migration].ndjson[.gz].
+     */
+    public ExportResult export(String userId, boolean gzip, ExportFormat format) {
+        if (userId == null || userId.isBlank()) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        Instant now = Instant.now();
+        String key = "exports/USER_" + userId + "/" + now.toEpochMilli()
+                + (format == ExportFormat.MIGRATION ? ".migration" : "") + ".ndjson" + (gzip ? ".gz" : "");
+        long[] counts = new long[2];
+
+        try (BlobOutputStream sink = blobStore.openOutputStream(key);
+             OutputStream out = gzip ? new GZIPOutputStream(sink, 64 * 1024) : new BufferedOutputStream(sink, 64 * 1024);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            try {
+                generator.setRootValueSeparator(null);
+
+                generator.writeStartObject();
+                generator.writeStringField("type", "export");
+                generator.writeStringField("format", format.name().toLowerCase(Locale.ROOT));
+                generator.writeNumberField("version", FORMAT_VERSION);
+                generator.writeStringField("userId", userId);
+                generator.writeStringField("exportedAt", now.toString());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+
+                userRepository.forEachItemInPartition("USER#" + userId, PAGE_SIZE, item -> {
+                    if (isDerived(item)) {
+                        return;
+                    }
+                    try {
+                        if (format == ExportFormat.MIGRATION) {
+                            writeItemLine(generator, item);
+                            counts[0]++;
+                            for (String attribute : BLOB_REF_ATTRIBUTES) {
+                                AttributeValue ref = item.get(attribute);
+                                if (ref != null && ref.s() != null && writeBlobLine(generator, ref.s())) {
+                                    counts[1]++;
+                                }
+                            }
+                        } else if (writeReadableLine(generator, userId, item)) {
+                            counts[0]++;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+                // Đẩy hết dữ liệu xuống stream của BlobStore trước khi đóng (đóng = upload)
+                generator.flush();
+                if (out instanceof GZIPOutputStream gzipOut) {
+                    gzipOut.finish();
+                }
+                out.flush();
+            } catch (IOException | RuntimeException e) {
+                sink.abort(); // Đóng stream mà không upload bản dở dang
+                throw e;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Export of user {} to {} failed", userId, blobStore.uriOf(key), e);
+            throw new RuntimeException("Storage Error: Could not write export", e);
+        }
+        logger.info("Exported {} items and {} blobs of user {} to {} ({})",
+                counts[0], counts[1], userId, blobStore.uriOf(key), format);
+        return new ExportResult(key, counts[0], counts[1]);
+    }
+
+    /**
+     * Import file export vào user targetUserId (null = chính user trong file).
+     * Key chứa id user cũ (PK, GSI, key blob) được đổi sang id mới khi chuyển tài khoản.
+     * Dừng sau PORTABILITY_IMPORT_BUDGET_MS (trước khi Lambda timeout), complete = false -> gọi lại để chạy tiếp.
+     */
+    public ImportResult importUser(String key, String targetUserId) {
+        String checkpointKey = key + ".checkpoint";
+        long resumeFrom = loadCheckpoint(checkpointKey);
+        Instant deadline = Instant.now().plusMillis(importBudgetMs);
+
+        try (InputStream source = blobStore.openInputStream(key)) {
+            if (source == null) {
+                throw new IllegalArgumentException("Export not found: " + key);
+            }
+            InputStream in = key.endsWith(".gz")
+                    ? new GZIPInputStream(source, 64 * 1024) : new BufferedInputStream(source, 64 * 1024);
+            try (MappingIterator<Map<String, Object>> lines = objectMapper.readerFor(Map.class).readValues(in)) {
+                Map<String, Object> header = lines.hasNext() ? lines.next() : Map.of();
+                if (!"export".equals(header.get("type")) || !Integer.valueOf(FORMAT_VERSION).equals(header.get("version"))) {
+                    throw new IllegalArgumentException("Not a user data export: " + key);
+                }
+                // File cũ (trước khi có READABLE) không ghi format: luôn là MIGRATION
+                Object format = header.get("format");
+                if (format != null && !"migration".equals(format)) {
+                    throw new IllegalArgumentException("Only migration exports can be imported: " + key);
+                }
+                String sourceUserId = (String) header.get("userId");
+                String targetId = targetUserId != null && !targetUserId.isBlank() ? targetUserId : sourceUserId;
+
+                long line = 0;
+                while (lines.hasNext()) {
+                    Map<String, Object> record = lines.next();
+                    line++;
+                    if (line <= resumeFrom) {
+                        continue; // Đã ghi ở lần chạy trước
+                    }
+                    apply(record, sourceUserId, targetId);
+                    if (line % IMPORT_CHUNK_LINES == 0) {
+                        commit(checkpointKey, line);
+                        if (Instant.now().isAfter(deadline)) {
+                            logger.info("Import of {} paused at line {}", key, line);
+                            return new ImportResult(line, false);
+                        }
+                    }
+                }
+                commit(checkpointKey, line);
+                blobStore.delete(checkpointKey);
+                logger.info("Imported {} lines of {} into user {}", line, key, targetId);
+                return new ImportResult(line, true);
+            }
+        } catch (IOException e) {
+            logger.error("Import of {} failed", key, e);
+            throw new RuntimeException("Storage Error: Could not read export", e);
+        }
+    }
+
+    private void apply(Map<String, Object> record, String sourceUserId, String targetUserId) {
+        switch (String.valueOf(record.get("type"))) {
+            case "item" -> writeBehindBuffer.put(rewrite(DynamoJson.readItem(record.get("item")), sourceUserId, targetUserId));
+            case "blob" -> blobStore.put(rewrite((String) record.get("key"), sourceUserId, targetUserId),
+                    Base64.getDecoder().decode((String) record.get("data")));
+            default -> throw new IllegalArgumentException("Unknown export record type: " + record.get("type"));
+        }
+    }
+
+    // Lô đã ghi hết (BatchWriteItem + retry phần bị throttle) mới lưu checkpoint
+    private void commit(String checkpointKey, long line) {
+        if (!writeBehindBuffer.flush()) {
+            throw new RuntimeException("Database Error: Import batch could not be written");
+        }
+        try {
+            blobStore.put(checkpointKey, objectMapper.writeValueAsBytes(new ImportCheckpoint(line)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long loadCheckpoint(String checkpointKey) {
+        byte[] saved = blobStore.get(checkpointKey);
+        if (saved == null) {
+            return 0;
+        }
+        try {
+            return objectMapper.readValue(saved, ImportCheckpoint.class).linesApplied();
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable import checkpoint {}", checkpointKey, e);
+            return 0;
+        }
+    }
+
+    private void writeItemLine(JsonGenerator generator, Map<String, AttributeValue> item) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "item");
+        generator.writeFieldName("item");
+        DynamoJson.writeItem(generator, item);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * 1 dòng READABLE: item giải mã qua entity, body đã offload được tải về, bỏ thuộc tính nội bộ.
+     * Item nội bộ (section / phiên bản resume, bản ghi khác) không ghi.
+     *
+     * @return false nếu item không thuộc export READABLE
+     */
+    private boolean writeReadableLine(JsonGenerator generator, String userId, Map<String, AttributeValue> item)
+            throws IOException {
+        String sk = item.get("SK").s();
+        String type;
+        Object data;
+        if ("METADATA".equals(sk)) {
+            type = "profile";
+            data = userRepository.fromItemMap(item);
+        } else if (ResumeRepository.RESUME_SK.equals(sk)) {
+            type = "resume";
+            data = resumeService.getResume(userId); // Ghép section / tải body đã offload
+        } else if (sk.startsWith("LETTER#")) {
+            type = "coverLetter";
+            CoverLetterEntity letter = coverLetterRepository.fromItemMap(item);
+            if (letter.getContent() == null && letter.getContentRef() != null) {
+                letter.setContent(contentOffloader.load(letter.getContentRef(), letter.getContentHash()));
+            }
+            if (letter.getJobDescription() == null && letter.getJobDescriptionRef() != null) {
+                letter.setJobDescription(contentOffloader.load(letter.getJobDescriptionRef(), letter.getJobDescriptionHash()));
+            }
+            data = letter;
+        } else if (sk.startsWith("ASSESS#")) {
+            type = "assessment";
+            data = assessmentRepository.fromItemMap(item);
+        } else if (UserStatsRepository.STATS_SK.equals(sk)) {
+            type = "stats";
+            data = userStatsRepository.fromItemMap(item);
+        } else if (sk.startsWith(AssessmentSummaryRepository.SUMMARY_SK_PREFIX)) {
+            type = "assessmentSummary";
+            data = summaryRepository.fromItemMap(item);
+        } else {
+            return false;
+        }
+        if (data == null) {
+            return false;
+        }
+
+        ObjectNode fields = objectMapper.valueToTree(data);
+        fields.remove(INTERNAL_FIELDS);
+        List<String> empty = new ArrayList<>();
+        fields.fieldNames().forEachRemaining(name -> {
+            if (fields.get(name).isNull()) {
+                empty.add(name);
+            }
+        });
+        fields.remove(empty);
+
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        generator.writeFieldName("data");
+        generator.writeTree(fields);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        return true;
+    }
+
+    private boolean writeBlobLine(JsonGenerator generator, String blobKey) throws IOException {
+        byte[] data = blobStore.get(blobKey);
+        if (data == null) {
+            return false;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("type", "blob");
+        generator.writeStringField("key", blobKey);
+        generator.writeFieldName("data");
+        generator.writeBinary(data);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        return true;
+    }
+
+    private static boolean isDerived(Map<String, AttributeValue> item) {
+        AttributeValue sk = item.get("SK");
+        return sk != null && sk.s() != null && DERIVED_SK_PREFIXES.stream().anyMatch(sk.s()::startsWith);
+    }
+
+    // Đổi id user trong các thuộc tính chuỗi cấp 1 (PK, GSI, contentRef...): USER#<cũ> / USER_<cũ> -> id mới
+    static Map<String, AttributeValue> rewrite(Map<String, AttributeValue> item, String sourceUserId, String targetUserId) {
+        if (sourceUserId == null || sourceUserId.equals(targetUserId)) {
+            return item;
+        }
+        Map<String, AttributeValue> result = new HashMap<>(item);
+        result.replaceAll((name, value) -> value.s() != null
+                ? AttributeValue.fromS(rewrite(value.s(), sourceUserId, targetUserId)) : value);
+        return result;
+    }
+
+    static String rewrite(String value, String sourceUserId, String targetUserId) {
+        if (sourceUserId == null || sourceUserId.equals(targetUserId)) {
+            return value;
+        }
+        return value.replace("USER#" + sourceUserId, "USER#" + targetUserId)
+                .replace("USER_" + sourceUserId, "USER_" + targetUserId);
+    }
+
+    private static long longEnv(String name, long defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Long.parseLong(configured) : defaultValue;
+    }
+}
@@ -0,0 +1,36 @@
+package khanh.careercoach.backend.service.quota;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * User (hoặc toàn hệ thống) đã dùng hết quota AI của cửa sổ hiện tại.
+ * Router trả về 429 kèm header Retry-After = retryAfterSeconds.
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public QuotaExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Response 429 kèm Retry-After (giây) để client biết khi nào gọi lại.
+     *
+     * @param buildResponse hàm buildResponse(statusCode, body) của router (serialize body như mọi response khác)
+     */
+    public Map<String, Object> toResponse(BiFunction<Integer, Object, Map<String, Object>> buildResponse) {
+        Map<String, Object> response = buildResponse.apply(429,
+                Map.of("error", getMessage(), "retryAfterSeconds", retryAfterSeconds));
+        response.put("headers", Map.of(
+                "Content-Type", "application/json",
+                "Retry-After", String.valueOf(retryAfterSeconds)));
+        return response;
+    }
+}
@@ -0,0 +1,294 @@
+package khanh.careercoach.backend.service.quota;
+
+import khanh.careercoach.backend.repository.QuotaRepository;
+import khanh.careercoach.backend.repository.ShardedKeys;
+import khanh.careercoach.backend.service.ai.TokenUsageTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Giới hạn tần suất gọi AI theo user và toàn hệ thống, để một user spam /resume/improve
+ * hay /interview/generate không chiếm hết throughput Bedrock của người khác.
+ *
+ * Hai loại giới hạn, đếm bằng bộ đếm theo cửa sổ cố định trên DynamoDB (ADD nguyên tử có trần):
+ * - Request / phút: kiểm tra trước khi gọi AI (cứng)
+ * - Token model / giờ: cộng sau khi gọi (usage thực tế từ Bedrock), chặn request tiếp theo khi đã vượt (mềm).
+ *   Request của cùng user có thể rơi vào nhiều container: bộ đếm token của user được đọc lại từ DB
+ *   khi số đã biết cũ hơn QUOTA_USER_TOKEN_REFRESH_SECONDS giây, token dùng trong container thì cộng ngay vào số đã biết
+ *
+ * Tầng local trong container để không tốn 1 lần ghi DB mỗi request:
+ * - Lease: lấy trước một phần quota (1/10 limit, tối thiểu QUOTA_MIN_LEASE; VD: 3 trong 10 request/phút của user)
+ *   rồi tiêu dần trong bộ nhớ
+ * - Container đã lấy đủ limit của cửa sổ, hoặc DB đã báo hết quota -> từ chối ngay tới hết cửa sổ, không gọi DB
+ * Quota lease chưa dùng hết bị bỏ khi sang cửa sổ mới, nên giới hạn thực tế chỉ có thể chặt hơn, không lỏng hơn.
+ *
+ * Bộ đếm toàn cục là item nóng nhất (mọi request AI đều ghi vào): chia QUOTA_GLOBAL_SHARDS shard (ShardedKeys)
+ * - Request: mỗi shard giữ phần limit / N, bắt đầu từ shard ngẫu nhiên, shard hết thì thử shard kế tiếp
+ * - Token: cộng vào 1 shard ngẫu nhiên, tổng toàn cục = gom các shard, đọc lúc kiểm tra
+ *   và giữ trong container QUOTA_GLOBAL_TOKEN_REFRESH_SECONDS giây (quota mềm, không cần đọc lại mỗi lần gọi AI)
+ */
+@Service
+public class QuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaService.class);
+
+    private static final String USER_PK_PREFIX = "QUOTA#USER#";
+    private static final String GLOBAL_PK = "QUOTA#GLOBAL";
+    private static final long REQUEST_WINDOW_SECONDS = 60;
+    private static final long TOKEN_WINDOW_SECONDS = 3600;
+    // Lease = 1/10 limit: đủ để giảm ghi DB mà không làm lệch quota nhiều giữa các container
+    private static final int LEASE_DIVISOR = 10;
+
+    private final QuotaRepository quotaRepository;
+    private final TokenUsageTracker tokenUsageTracker;
+
+    private final long userRequestsPerMinute = longEnv("QUOTA_USER_REQUESTS_PER_MINUTE", 10);
+    private final long globalRequestsPerMinute = longEnv("QUOTA_GLOBAL_REQUESTS_PER_MINUTE", 300);
+    private final long userTokensPerHour = longEnv("QUOTA_USER_TOKENS_PER_HOUR", 50_000);
+    private final long globalTokensPerHour = longEnv("QUOTA_GLOBAL_TOKENS_PER_HOUR", 2_000_000);
+    private final int globalShards = Math.max(1, intEnv("QUOTA_GLOBAL_SHARDS", 4));
+    private final long globalTokenRefreshMillis = longEnv("QUOTA_GLOBAL_TOKEN_REFRESH_SECONDS", 10) * 1000;
+    private final long userTokenRefreshMillis = longEnv("QUOTA_USER_TOKEN_REFRESH_SECONDS", 5) * 1000;
+    private final long minLease = Math.max(1, longEnv("QUOTA_MIN_LEASE", 3));
+
+    // Tầng local: key = PK|SK của cửa sổ
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<String, KnownUsage> knownTokenUsage = new ConcurrentHashMap<>();
+
+    public QuotaService(QuotaRepository quotaRepository, TokenUsageTracker tokenUsageTracker) {
+        this.quotaRepository = quotaRepository;
+        this.tokenUsageTracker = tokenUsageTracker;
+    }
+
+    /**
+     * Phần quota đã lấy từ DB cho một cửa sổ, tiêu dần trong bộ nhớ.
+     * remaining = -1: cửa sổ đã hết quota trên DB.
+     * granted: tổng đã cộng lên DB từ container này (DB không thể còn quota khi granted >= limit).
+     */
+    private static final class Lease {
+        private long remaining;
+        private long granted;
+
+        synchronized boolean tryTake() {
+            if (remaining > 0) {
+                remaining--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Tổng token (của user / toàn cục) đã đọc từ DB và thời điểm đọc.
+     */
+    private record KnownUsage(long tokens, long readAtMillis) {
+    }
+
+    /**
+     * Chạy action nếu còn quota; token model dùng trong action được cộng vào quota token.
+     */
+    public <T> T runWithQuota(String userId, Supplier<T> action) {
+        acquire(userId);
+        tokenUsageTracker.drainThreadTokens(); // Bỏ số liệu còn sót của request trước trên cùng thread
+        try {
+            return action.get();
+        } finally {
+            recordTokens(userId, tokenUsageTracker.drainThreadTokens());
+        }
+    }
+
+    /**
+     * Kiểm tra và tiêu 1 request của user + toàn cục.
+     *
+     * @throws QuotaExceededException nếu hết quota (kèm số giây nên chờ)
+     */
+    public void acquire(String userId) {
+        long now = Instant.now().getEpochSecond();
+
+        // Quota token (mềm): đã vượt trong giờ này thì chặn tới hết giờ
+        long tokenWindow = now / TOKEN_WINDOW_SECONDS;
+        long tokenRetryAfter = (tokenWindow + 1) * TOKEN_WINDOW_SECONDS - now;
+        if (userTokensUsed(userId, tokenWindow) >= userTokensPerHour) {
+            throw new QuotaExceededException("AI token quota exceeded for this hour", tokenRetryAfter);
+        }
+        if (globalTokensUsed(tokenWindow) >= globalTokensPerHour) {
+            throw new QuotaExceededException("AI service is at capacity, please try again later", tokenRetryAfter);
+        }
+
+        // Quota request (cứng): user trước (rẻ, hay bị chặn hơn), sau đó toàn cục
+        long requestWindow = now / REQUEST_WINDOW_SECONDS;
+        long requestRetryAfter = (requestWindow + 1) * REQUEST_WINDOW_SECONDS - now;
+        if (!take(USER_PK_PREFIX + userId, requestWindow, userRequestsPerMinute)) {
+            throw new QuotaExceededException("Too many AI requests, please slow down", requestRetryAfter);
+        }
+        if (!takeGlobal(requestWindow)) {
+            // Request không được chạy: trả lại đơn vị vừa lấy của user để nó không bị tính oan
+            refund(USER_PK_PREFIX + userId, requestWindow);
+            throw new QuotaExceededException("AI service is at capacity, please try again later", requestRetryAfter);
+        }
+    }
+
+    /**
+     * Cộng token model đã dùng vào cửa sổ giờ hiện tại (user + toàn cục). Lỗi chỉ ghi log.
+     */
+    public void recordTokens(String userId, long tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        long tokenWindow = Instant.now().getEpochSecond() / TOKEN_WINDOW_SECONDS;
+        long ttl = (tokenWindow + 2) * TOKEN_WINDOW_SECONDS;
+        String sk = "TOK#" + tokenWindow;
+        String userPk = USER_PK_PREFIX + userId;
+        try {
+            quotaRepository.addTokens(userPk, sk, tokens, ttl);
+            // Request kế tiếp trong container thấy ngay token vừa dùng, không cần đọc lại DB
+            knownTokenUsage.computeIfPresent(userPk + "|" + sk,
+                    (key, known) -> new KnownUsage(known.tokens() + tokens, known.readAtMillis()));
+        } catch (RuntimeException e) {
+            logger.error("Failed to record {} tokens for {}", tokens, userPk, e);
+        }
+        try {
+            String shardPk = ShardedKeys.shard(GLOBAL_PK, ShardedKeys.randomShard(globalShards));
+            quotaRepository.addTokens(shardPk, sk, tokens, ttl);
+        } catch (RuntimeException e) {
+            logger.error("Failed to record {} tokens for {}", tokens, GLOBAL_PK, e);
+        }
+        evictOldWindows(tokenWindow * TOKEN_WINDOW_SECONDS);
+    }
+
+    /**
+     * Token của user trong cửa sổ, đọc lại khi số đã biết cũ hơn userTokenRefreshMillis.
+     * Đã biết vượt quota thì không đọc lại (bộ đếm chỉ tăng trong cửa sổ).
+     */
+    private long userTokensUsed(String userId, long tokenWindow) {
+        String pk = USER_PK_PREFIX + userId;
+        String sk = "TOK#" + tokenWindow;
+        return tokensUsed(pk + "|" + sk, userTokenRefreshMillis, userTokensPerHour,
+                () -> quotaRepository.findTokens(pk, sk));
+    }
+
+    /**
+     * Tổng token toàn cục của cửa sổ: gom các shard khi số đã biết cũ hơn globalTokenRefreshMillis.
+     */
+    private long globalTokensUsed(long tokenWindow) {
+        String sk = "TOK#" + tokenWindow;
+        return tokensUsed(GLOBAL_PK + "|" + sk, globalTokenRefreshMillis, globalTokensPerHour,
+                () -> quotaRepository.sumTokens(GLOBAL_PK, sk, globalShards));
+    }
+
+    /**
+     * Số token đã biết của key, đọc lại bằng reader khi cũ hơn refreshMillis và chưa vượt limit.
+     * Lỗi đọc thì dùng số đã biết (quota mềm, không chặn request vì DB lỗi).
+     */
+    private long tokensUsed(String key, long refreshMillis, long limit, Supplier<Long> reader) {
+        long nowMillis = System.currentTimeMillis();
+        KnownUsage known = knownTokenUsage.get(key);
+        if (known != null && (known.tokens() >= limit || nowMillis - known.readAtMillis() < refreshMillis)) {
+            return known.tokens();
+        }
+        try {
+            long tokens = reader.get();
+            knownTokenUsage.put(key, new KnownUsage(tokens, nowMillis));
+            return tokens;
+        } catch (RuntimeException e) {
+            logger.error("Failed to read token usage of {}", key, e);
+            return known != null ? known.tokens() : 0;
+        }
+    }
+
+    /**
+     * Quota request toàn cục: shard i giữ limit / N (+1 với i < limit % N, tổng các shard đúng bằng limit).
+     * Chỉ từ chối khi mọi shard đều hết; shard đã biết hết quota bị bỏ qua không tốn gọi DB.
+     */
+    private boolean takeGlobal(long requestWindow) {
+        int start = ShardedKeys.randomShard(globalShards);
+        for (int i = 0; i < globalShards; i++) {
+            int shard = (start + i) % globalShards;
+            long shardLimit = globalRequestsPerMinute / globalShards
+                    + (shard < globalRequestsPerMinute % globalShards ? 1 : 0);
+            if (shardLimit > 0 && take(ShardedKeys.shard(GLOBAL_PK, shard), requestWindow, shardLimit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean take(String pk, long requestWindow, long limit) {
+        String sk = "REQ#" + requestWindow;
+        Lease lease = leases.computeIfAbsent(pk + "|" + sk, key -> new Lease());
+
+        synchronized (lease) {
+            if (lease.remaining < 0) {
+                return false; // Đã biết cửa sổ hết quota, không hỏi lại DB
+            }
+            if (lease.tryTake()) {
+                return true;
+            }
+
+            // Hết lease: lấy thêm từ DB (cả lease nếu còn đủ, không thì lấy đúng 1).
+            // Container đã lấy đủ limit thì DB chắc chắn đã hết: từ chối luôn, không gọi DB
+            long available = limit - lease.granted;
+            if (available > 0) {
+                long ttl = (requestWindow + 2) * REQUEST_WINDOW_SECONDS;
+                long chunk = Math.min(available, Math.max(minLease, limit / LEASE_DIVISOR));
+                if (chunk > 1 && quotaRepository.tryConsumeRequests(pk, sk, chunk, limit, ttl)) {
+                    lease.granted += chunk;
+                    lease.remaining = chunk - 1;
+                    return true;
+                }
+                if (quotaRepository.tryConsumeRequests(pk, sk, 1, limit, ttl)) {
+                    lease.granted++;
+                    return true;
+                }
+            }
+            lease.remaining = -1;
+        }
+        evictOldWindows(requestWindow * REQUEST_WINDOW_SECONDS);
+        logger.warn("Request quota exhausted for {} in window {}", pk, requestWindow);
+        return false;
+    }
+
+    /**
+     * Trả 1 đơn vị đã lấy bằng take() về lease local. Đơn vị đó đã được cộng trên DB (khi lấy lease),
+     * nên trả về lease thay vì trừ lại trên DB: không tốn thêm 1 lần ghi, tổng trên DB vẫn không vượt limit.
+     */
+    private void refund(String pk, long requestWindow) {
+        Lease lease = leases.get(pk + "|REQ#" + requestWindow);
+        if (lease == null) {
+            return;
+        }
+        synchronized (lease) {
+            if (lease.remaining >= 0) {
+                lease.remaining++;
+            }
+        }
+    }
+
+    // Bỏ lease / số liệu của các cửa sổ đã qua để map không phình theo thời gian
+    private void evictOldWindows(long currentWindowStartSeconds) {
+        leases.keySet().removeIf(key -> windowStart(key) < currentWindowStartSeconds - REQUEST_WINDOW_SECONDS);
+        knownTokenUsage.keySet().removeIf(key -> windowStart(key) < currentWindowStartSeconds - TOKEN_WINDOW_SECONDS);
+    }
+
+    private static long windowStart(String key) {
+        String window = key.substring(key.lastIndexOf('#') + 1);
+        long index = Long.parseLong(window);
+        return key.contains("|TOK#") ? index * TOKEN_WINDOW_SECONDS : index * REQUEST_WINDOW_SECONDS;
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+
+    private static long longEnv(String name, long defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Long.parseLong(configured) : defaultValue;
+    }
+}
@@ -0,0 +1,54 @@
+package khanh.careercoach.backend.service.retention;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.storage.BlobStore;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ghi item đã hết hạn giữ ra archive: JSON Lines (1 item / dòng) nén gzip trên BlobStore
+ * (S3 trên môi trường thật, đọc lại được bằng Athena / jq).
+ * Key cố định theo nội dung lô nên chạy lại một lô chỉ ghi đè, không sinh file trùng.
+ */
+@Component
+public class ArchiveWriter {
+
+    private final BlobStore blobStore;
+    private final ObjectMapper objectMapper;
+
+    public ArchiveWriter(BlobStore blobStore, ObjectMapper objectMapper) {
+        this.blobStore = blobStore;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param batchId định danh ổn định của lô (VD: hash các SK)
+     * @return key của file archive
+     */
+    public String write(String ownerPk, String type, String month, String batchId, List<?> records) {
+        String key = "archive/" + ownerPk.replace('#', '_') + "/" + type + "/" + month + "/" + batchId + ".jsonl.gz";
+        blobStore.put(key, encode(records));
+        return key;
+    }
+
+    byte[] encode(List<?> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (Object record : records) {
+                gzip.write(objectMapper.writeValueAsBytes(record));
+                gzip.write('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize archive record", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,45 @@
+package khanh.careercoach.backend.service.retention;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Thời gian giữ trong bảng chính theo loại item (0 = giữ mãi, không lưu trữ).
+ * Item cũ hơn số ngày giữ được lưu trữ rồi đặt ttl = lúc lưu trữ + EXPIRY_GRACE_DAYS,
+ * nên DynamoDB TTL chỉ xóa item đã nằm trong archive.
+ */
+@Component
+public class RetentionPolicy {
+
+    private final int assessmentDays = intEnv("RETENTION_ASSESSMENT_DAYS", 365);
+    private final int coverLetterDays = intEnv("RETENTION_COVER_LETTER_DAYS", 730);
+    private final int expiryGraceDays = intEnv("RETENTION_EXPIRY_GRACE_DAYS", 7);
+
+    public boolean retainsAssessmentsForever() {
+        return assessmentDays <= 0;
+    }
+
+    public boolean retainsCoverLettersForever() {
+        return coverLetterDays <= 0;
+    }
+
+    // createdAt (ISO-8601) nhỏ hơn mốc này là đã quá hạn giữ
+    public String assessmentCutoff(Instant now) {
+        return now.minus(Duration.ofDays(assessmentDays)).toString();
+    }
+
+    public String coverLetterCutoff(Instant now) {
+        return now.minus(Duration.ofDays(coverLetterDays)).toString();
+    }
+
+    public long expiryEpochSeconds(Instant archivedAt) {
+        return archivedAt.plus(Duration.ofDays(expiryGraceDays)).getEpochSecond();
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+}
@@ -0,0 +1,289 @@
+package khanh.careercoach.backend.service.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.model.CoverLetterEntity;
+import khanh.careercoach.backend.repository.AbstractDynamoRepository;
+import khanh.careercoach.backend.repository.AssessmentRepository;
+import khanh.careercoach.backend.repository.AssessmentSummaryRepository;
+import khanh.careercoach.backend.repository.CoverLetterRepository;
+import khanh.careercoach.backend.repository.ParallelScanOptions;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ScanCheckpoint;
+import khanh.careercoach.backend.repository.TransactionCancelledException;
+import khanh.careercoach.backend.repository.WriteTransaction;
+import khanh.careercoach.backend.storage.BlobStore;
+import khanh.careercoach.backend.storage.ContentOffloader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Dọn partition USER#<id>: bài làm / cover letter quá hạn giữ (RetentionPolicy) được
+ * 1. Ghi ra archive JSONL gzip (ArchiveWriter), theo user + tháng
+ * 2. Bài làm: cộng vào tổng hợp tháng SUMMARY#ASSESS#<yyyy-MM>, cùng transaction với bước 3
+ *    (UserStatsService đọc lại khi tính thống kê từ lịch sử và trả về cho dashboard)
+ * 3. Đặt ttl (chỉ khi item còn và chưa có ttl) -> DynamoDB TTL xóa sau thời gian ân hạn, không tốn WCU
+ * Lô bị hủy (item vừa bị xóa / đã có ttl) được bỏ qua; archive ghi đè cùng key.
+ *
+ * Chạy theo lịch (retentionHandler, mỗi ngày): Parallel Scan có filter, giới hạn RCU và thời gian,
+ * dừng khi đã đủ RETENTION_MAX_ITEMS (vượt tối đa 1 trang mỗi segment, mọi item đã đọc đều được xử lý).
+ * Checkpoint lưu trên BlobStore (ngoài archive/: không bị lifecycle chuyển sang Glacier) để lượt sau quét tiếp,
+ * chỉ được tiến lên khi mọi lô của lượt đều xong: lô bị bỏ qua thì lượt sau quét lại từ checkpoint cũ
+ * (item đã lưu trữ có ttl nên bị filter loại).
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    // Transaction tối đa 100 phần tử: 1 tổng hợp tháng + 99 bài làm
+    private static final int MAX_ITEMS_PER_TRANSACTION = 99;
+    private static final String CHECKPOINT_PREFIX = "retention/checkpoints/";
+
+    private final AssessmentRepository assessmentRepository;
+    private final AssessmentSummaryRepository summaryRepository;
+    private final CoverLetterRepository coverLetterRepository;
+    private final RetentionPolicy policy;
+    private final ArchiveWriter archiveWriter;
+    private final BlobStore blobStore;
+    private final ObjectMapper objectMapper;
+
+    private final long scanBudgetMs = longEnv("RETENTION_SCAN_BUDGET_MS", 300_000);
+    private final int maxItemsPerRun = intEnv("RETENTION_MAX_ITEMS", 5000);
+
+    public RetentionService(AssessmentRepository assessmentRepository,
+                            AssessmentSummaryRepository summaryRepository,
+                            CoverLetterRepository coverLetterRepository,
+                            RetentionPolicy policy,
+                            ArchiveWriter archiveWriter,
+                            BlobStore blobStore,
+                            ObjectMapper objectMapper) {
+        this.assessmentRepository = assessmentRepository;
+        this.summaryRepository = summaryRepository;
+        this.coverLetterRepository = coverLetterRepository;
+        this.policy = policy;
+        this.archiveWriter = archiveWriter;
+        this.blobStore = blobStore;
+        this.objectMapper = objectMapper;
+    }
+
+    public record RetentionRun(int assessmentsArchived, int coverLettersArchived, int batchesSkipped) {
+    }
+
+    private record ExpiredScan<T>(List<T> items, ScanCheckpoint checkpoint) {
+    }
+
+    /**
+     * Xử lý 1 lượt cho mọi loại item có hạn giữ.
+     */
+    public RetentionRun run() {
+        Instant now = Instant.now();
+        int[] skipped = {0};
+
+        int assessments = 0;
+        if (!policy.retainsAssessmentsForever()) {
+            ExpiredScan<AssessmentEntity> expired = scanExpired(assessmentRepository, "ASSESS", "ASSESS#",
+                    policy.assessmentCutoff(now), now);
+            int skippedBefore = skipped[0];
+            for (Map.Entry<String, List<AssessmentEntity>> group : byOwnerAndMonth(expired.items(),
+                    AssessmentEntity::getPk, AssessmentEntity::getCreatedAt).entrySet()) {
+                assessments += archiveInBatches(group.getValue(), skipped,
+                        batch -> archiveAssessments(group.getKey(), batch, now));
+            }
+            saveCheckpoint("ASSESS", expired.checkpoint(), skipped[0] == skippedBefore);
+        }
+
+        int letters = 0;
+        if (!policy.retainsCoverLettersForever()) {
+            ExpiredScan<CoverLetterEntity> expired = scanExpired(coverLetterRepository, "LETTER", "LETTER#",
+                    policy.coverLetterCutoff(now), now);
+            int skippedBefore = skipped[0];
+            for (Map.Entry<String, List<CoverLetterEntity>> group : byOwnerAndMonth(expired.items(),
+                    CoverLetterEntity::getPk, CoverLetterEntity::getCreatedAt).entrySet()) {
+                letters += archiveInBatches(group.getValue(), skipped,
+                        batch -> archiveCoverLetters(group.getKey(), batch, now));
+            }
+            saveCheckpoint("LETTER", expired.checkpoint(), skipped[0] == skippedBefore);
+        }
+
+        logger.info("Retention run archived {} assessments and {} cover letters ({} batches skipped)",
+                assessments, letters, skipped[0]);
+        return new RetentionRun(assessments, letters, skipped[0]);
+    }
+
+    private void archiveAssessments(String group, List<AssessmentEntity> batch, Instant now) {
+        String pk = ownerOf(group);
+        String month = monthOf(group);
+        String key = archiveWriter.write(pk, "ASSESS", month, batchId(batch, AssessmentEntity::getSk), batch);
+
+        double scoreSum = 0;
+        long questions = 0;
+        long correct = 0;
+        for (AssessmentEntity assessment : batch) {
+            scoreSum += assessment.getQuizScore() != null ? assessment.getQuizScore() : 0;
+            if (assessment.getQuestions() != null) {
+                questions += assessment.getQuestions().size();
+                correct += assessment.getQuestions().stream().filter(q -> Boolean.TRUE.equals(q.getIsCorrect())).count();
+            }
+        }
+
+        WriteTransaction transaction = summaryRepository.writeTransaction()
+                .update(summaryRepository, pk, AssessmentSummaryRepository.summarySk(month), PartialUpdate.create()
+                        .set("month", month)
+                        .add("quizCount", batch.size())
+                        .add("scoreSum", scoreSum)
+                        .add("questionCount", questions)
+                        .add("correctCount", correct)
+                        .set("updatedAt", now.toString()));
+        expire(transaction, assessmentRepository, batch, AssessmentEntity::getPk, AssessmentEntity::getSk, now);
+        transaction.commit();
+        logger.info("Archived {} assessments of {} for {} to {}", batch.size(), pk, month, key);
+    }
+
+    private void archiveCoverLetters(String group, List<CoverLetterEntity> batch, Instant now) {
+        String pk = ownerOf(group);
+        String month = monthOf(group);
+        // Body đã offload (contentRef) vẫn nằm trên BlobStore, archive giữ con trỏ tới nó
+        String key = archiveWriter.write(pk, "LETTER", month, batchId(batch, CoverLetterEntity::getSk), batch);
+
+        WriteTransaction transaction = coverLetterRepository.writeTransaction();
+        expire(transaction, coverLetterRepository, batch, CoverLetterEntity::getPk, CoverLetterEntity::getSk, now);
+        transaction.commit();
+        logger.info("Archived {} cover letters of {} for {} to {}", batch.size(), pk, month, key);
+    }
+
+    private <T> void expire(WriteTransaction transaction, AbstractDynamoRepository<T> repository, List<T> batch,
+                            Function<T, String> pk, Function<T, String> sk, Instant now) {
+        long ttl = policy.expiryEpochSeconds(now);
+        for (T item : batch) {
+            transaction.update(repository, pk.apply(item), sk.apply(item), PartialUpdate.create()
+                    .set("ttl", ttl)
+                    .expectExists()
+                    .expectAbsent("ttl"));
+        }
+    }
+
+    private <T> int archiveInBatches(List<T> items, int[] skipped, Consumer<List<T>> archive) {
+        int archived = 0;
+        for (int from = 0; from < items.size(); from += MAX_ITEMS_PER_TRANSACTION) {
+            List<T> batch = items.subList(from, Math.min(items.size(), from + MAX_ITEMS_PER_TRANSACTION));
+            try {
+                archive.accept(batch);
+                archived += batch.size();
+            } catch (TransactionCancelledException e) {
+                // Item vừa bị xóa hoặc đã có ttl: tổng hợp tháng không bị cộng, lượt sau quét lại từ checkpoint cũ
+                logger.warn("Retention batch cancelled, will be rescanned: {}", e.reasons());
+                skipped[0]++;
+            } catch (RuntimeException e) {
+                logger.error("Retention batch of {} items failed", batch.size(), e);
+                skipped[0]++;
+            }
+        }
+        return archived;
+    }
+
+    private <T> ExpiredScan<T> scanExpired(AbstractDynamoRepository<T> repository, String type, String skPrefix,
+                                           String cutoff, Instant now) {
+        Expression filter = Expression.builder()
+                .expression("begins_with(#sk, :prefix) AND #createdAt < :cutoff AND attribute_not_exists(#ttl)")
+                .putExpressionName("#sk", "SK")
+                .putExpressionName("#createdAt", "createdAt")
+                .putExpressionName("#ttl", "ttl")
+                .putExpressionValue(":prefix", AttributeValue.fromS(skPrefix))
+                .putExpressionValue(":cutoff", AttributeValue.fromS(cutoff))
+                .build();
+        ParallelScanOptions options = ParallelScanOptions.defaults()
+                .filter(filter)
+                .deadline(now.plusMillis(scanBudgetMs))
+                .maxItems(maxItemsPerRun);
+
+        // Giữ mọi item consumer nhận được: checkpoint đã đi qua chúng
+        List<T> expired = Collections.synchronizedList(new ArrayList<>());
+        ScanCheckpoint checkpoint = repository.parallelScan(options, loadCheckpoint(type), expired::add);
+        logger.info("Found {} expired {} items before {}, scan {}", expired.size(), type, cutoff, checkpoint);
+        return new ExpiredScan<>(expired, checkpoint);
+    }
+
+    // Nhóm theo "<PK>|<yyyy-MM>" (TreeMap: cùng user liền nhau, log dễ đọc)
+    private static <T> Map<String, List<T>> byOwnerAndMonth(List<T> items, Function<T, String> pk,
+                                                           Function<T, String> createdAt) {
+        Map<String, List<T>> groups = new TreeMap<>();
+        for (T item : items) {
+            String group = pk.apply(item) + "|" + createdAt.apply(item).substring(0, 7);
+            groups.computeIfAbsent(group, k -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    private static String ownerOf(String group) {
+        return group.substring(0, group.lastIndexOf('|'));
+    }
+
+    private static String monthOf(String group) {
+        return group.substring(group.lastIndexOf('|') + 1);
+    }
+
+    // Cùng tập item -> cùng key archive (chạy lại lô thì ghi đè)
+    private static <T> String batchId(List<T> batch, Function<T, String> sk) {
+        List<String> keys = new ArrayList<>(batch.stream().map(sk).toList());
+        Collections.sort(keys);
+        return ContentOffloader.sha256(String.join(",", keys)).substring(0, 16);
+    }
+
+    private ScanCheckpoint loadCheckpoint(String type) {
+        byte[] saved = blobStore.get(CHECKPOINT_PREFIX + type + ".json");
+        if (saved == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(saved, ScanCheckpoint.class);
+        } catch (IOException e) {
+            // Checkpoint hỏng: quét lại từ đầu (item đã lưu trữ có ttl nên bị filter loại)
+            logger.warn("Ignoring unreadable retention checkpoint for {}", type, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param allBatchesDone false = có lô bị bỏ qua: giữ checkpoint cũ để lượt sau quét lại đoạn đó
+     */
+    private void saveCheckpoint(String type, ScanCheckpoint checkpoint, boolean allBatchesDone) {
+        String key = CHECKPOINT_PREFIX + type + ".json";
+        if (!allBatchesDone) {
+            logger.warn("Keeping previous retention checkpoint for {}: some batches were skipped", type);
+            return;
+        }
+        if (checkpoint.isComplete()) {
+            blobStore.delete(key); // Hết vòng quét: lượt sau bắt đầu vòng mới
+            return;
+        }
+        try {
+            blobStore.put(key, objectMapper.writeValueAsBytes(checkpoint));
+        } catch (IOException e) {
+            logger.error("Failed to save retention checkpoint for {}", type, e);
+        }
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Integer.parseInt(configured) : defaultValue;
+    }
+
+    private static long longEnv(String name, long defaultValue) {
+        String configured = System.getenv(name);
+        return configured != null && !configured.isEmpty() ? Long.parseLong(configured) : defaultValue;
+    }
+}
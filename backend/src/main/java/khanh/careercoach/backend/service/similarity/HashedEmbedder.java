@@ -0,0 +1,109 @@
+package khanh.careercoach.backend.service.similarity;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedding rẻ tính ngay trong JVM (không gọi model): feature hashing trên từ đơn, cặp từ liền nhau
+ * và trigram ký tự trong từ (bắt được biến thể: "microservice" / "microservices").
+ * - {@link #embed(String)}: vector float DIMENSIONS chiều đã chuẩn hóa L2 -> cosine = tích vô hướng
+ * - {@link #simHash(String)}: 64 bit (SimHash) để lưu kèm item, so bằng khoảng cách Hamming
+ * Hash là FNV-1a 64 bit trên chuỗi feature nên ổn định giữa các container (giá trị lưu DB vẫn so được).
+ */
+public final class HashedEmbedder {
+
+    public static final int DIMENSIONS = 256;
+
+    private static final Pattern TOKEN = Pattern.compile("[a-z0-9][a-z0-9+#]*");
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float BIGRAM_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private HashedEmbedder() {
+    }
+
+    @FunctionalInterface
+    private interface FeatureSink {
+        void accept(long hash, float weight);
+    }
+
+    public static float[] embed(String text) {
+        float[] vector = new float[DIMENSIONS];
+        features(text, (hash, weight) -> {
+            int index = (int) ((hash >>> 32) & (DIMENSIONS - 1));
+            vector[index] += (hash & 1) == 0 ? weight : -weight;
+        });
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    public static long simHash(String text) {
+        float[] bits = new float[64];
+        features(text, (hash, weight) -> {
+            for (int bit = 0; bit < 64; bit++) {
+                bits[bit] += ((hash >>> bit) & 1) != 0 ? weight : -weight;
+            }
+        });
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (bits[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Ước lượng cosine từ 2 SimHash: cos(pi * hamming / 64). Văn bản không liên quan cho khoảng 0.
+     */
+    public static double simHashSimilarity(long a, long b) {
+        return Math.cos(Math.PI * Long.bitCount(a ^ b) / 64.0);
+    }
+
+    private static void features(String text, FeatureSink sink) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        String previous = null;
+        while (matcher.find()) {
+            String word = matcher.group();
+            sink.accept(fnv1a("w:", word), WORD_WEIGHT);
+            if (previous != null) {
+                sink.accept(fnv1a("b:", previous + ' ' + word), BIGRAM_WEIGHT);
+            }
+            if (word.length() > 3) {
+                String padded = '^' + word + '$';
+                for (int i = 0; i + 3 <= padded.length(); i++) {
+                    sink.accept(fnv1a("t:", padded.substring(i, i + 3)), TRIGRAM_WEIGHT);
+                }
+            }
+            previous = word;
+        }
+    }
+
+    private static long fnv1a(String prefix, String feature) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < prefix.length(); i++) {
+            hash = (hash ^ prefix.charAt(i)) * 0x100000001b3L;
+        }
+        for (int i = 0; i < feature.length(); i++) {
+            hash = (hash ^ feature.charAt(i)) * 0x100000001b3L;
+        }
+        // Trộn thêm để bit thấp / cao (dùng làm dấu / chỉ số chiều) phân bố đều
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
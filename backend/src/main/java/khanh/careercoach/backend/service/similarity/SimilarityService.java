@@ -0,0 +1,173 @@
+package khanh.careercoach.backend.service.similarity;
+
+import khanh.careercoach.backend.dto.QuizQuestion;
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.model.CoverLetterEntity;
+import khanh.careercoach.backend.repository.AssessmentRepository;
+import khanh.careercoach.backend.repository.CoverLetterRepository;
+import khanh.careercoach.backend.service.cache.CacheCoherenceService;
+import khanh.careercoach.backend.service.cache.VersionedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tìm nội dung gần giống đã có của user, không gọi model:
+ * - Cover letter tương tự (cùng công ty / vị trí, JD trùng lặp) để client gợi ý dùng lại / chỉnh sửa thay vì sinh mới.
+ *   So SimHash của JD (jdSimHash lưu kèm item, có trong projection danh sách -> không tải JD)
+ * - Loại câu hỏi quiz trùng: với nhau trong cùng lượt sinh và với các câu user đã làm
+ *   (chỉ mục vector theo user, VersionedCache theo tem của nhóm ASSESS#, tối đa QUESTION_INDEX_TTL_MS)
+ */
+@Service
+public class SimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityService.class);
+
+    private static final int MAX_SIMILAR_LETTERS = 3;
+    private static final double MIN_LETTER_SCORE = 0.5;
+    // Trọng số: JD / vị trí / công ty
+    private static final double JD_WEIGHT = 0.6;
+    private static final double TITLE_WEIGHT = 0.25;
+    private static final double COMPANY_WEIGHT = 0.15;
+
+    private static final double DUPLICATE_QUESTION_SCORE = 0.85;
+    // Loại câu trùng với lịch sử nhưng quiz vẫn giữ ít nhất chừng này câu
+    private static final int MIN_QUIZ_QUESTIONS = 7;
+    private static final long QUESTION_INDEX_TTL_MS = 10 * 60 * 1000L;
+    private static final String ASSESS_PREFIX = "ASSESS#";
+
+    public record SimilarLetter(String id, String companyName, String jobTitle, String createdAt, double score) {
+    }
+
+    private final CoverLetterRepository coverLetterRepository;
+    private final AssessmentRepository assessmentRepository;
+    private final VersionedCache<VectorIndex> questionIndexes;
+
+    public SimilarityService(CoverLetterRepository coverLetterRepository, AssessmentRepository assessmentRepository,
+                             CacheCoherenceService cacheCoherenceService) {
+        this.coverLetterRepository = coverLetterRepository;
+        this.assessmentRepository = assessmentRepository;
+        this.questionIndexes = cacheCoherenceService.newCache("question-indexes", QUESTION_INDEX_TTL_MS);
+    }
+
+    /**
+     * Cover letter đã có gần giống yêu cầu mới nhất (score giảm dần).
+     */
+    public List<SimilarLetter> findSimilarLetters(String userId, String jobTitle, String companyName,
+                                                  String jobDescription) {
+        long queryHash = HashedEmbedder.simHash(jobDescription);
+        Set<String> titleWords = words(jobTitle);
+        String company = normalize(companyName);
+
+        List<SimilarLetter> matches = new ArrayList<>();
+        for (CoverLetterEntity letter : coverLetterRepository.findAllByUserId(userId)) {
+            // Letter tạo trước khi có jdSimHash: ước lượng từ đoạn đầu JD
+            long letterHash = letter.getJdSimHash() != null
+                    ? letter.getJdSimHash() : HashedEmbedder.simHash(letter.getJobDescriptionPreview());
+            double jd = jobDescription != null && !jobDescription.isBlank()
+                    ? Math.max(0, HashedEmbedder.simHashSimilarity(queryHash, letterHash)) : 0;
+            double score = JD_WEIGHT * jd
+                    + TITLE_WEIGHT * jaccard(titleWords, words(letter.getJobTitle()))
+                    + (!company.isEmpty() && company.equals(normalize(letter.getCompanyName())) ? COMPANY_WEIGHT : 0);
+            if (score >= MIN_LETTER_SCORE) {
+                matches.add(new SimilarLetter(letter.getSk().substring("LETTER#".length()), letter.getCompanyName(),
+                        letter.getJobTitle(), letter.getCreatedAt(), Math.round(score * 1000) / 1000.0));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(SimilarLetter::score).reversed());
+        return matches.size() > MAX_SIMILAR_LETTERS ? matches.subList(0, MAX_SIMILAR_LETTERS) : matches;
+    }
+
+    /**
+     * Bỏ câu hỏi trùng nhau trong lượt sinh, và câu trùng với câu user đã làm (miễn còn đủ MIN_QUIZ_QUESTIONS).
+     */
+    public List<QuizQuestion> dedupQuestions(String userId, List<QuizQuestion> generated) {
+        VectorIndex history = questionIndex(userId);
+        VectorIndex batch = new VectorIndex(HashedEmbedder.DIMENSIONS);
+
+        List<QuizQuestion> unique = new ArrayList<>();
+        List<QuizQuestion> seenBefore = new ArrayList<>();
+        for (QuizQuestion question : generated) {
+            float[] vector = HashedEmbedder.embed(question.getQuestion());
+            if (!batch.search(vector, 1, DUPLICATE_QUESTION_SCORE).isEmpty()) {
+                continue;
+            }
+            batch.add(question.getQuestion(), vector);
+            if (history.search(vector, 1, DUPLICATE_QUESTION_SCORE).isEmpty()) {
+                unique.add(question);
+            } else {
+                seenBefore.add(question);
+            }
+        }
+        // Không đủ câu mới: bù bằng câu đã gặp (giữ thứ tự sinh)
+        for (int i = 0; unique.size() < MIN_QUIZ_QUESTIONS && i < seenBefore.size(); i++) {
+            unique.add(seenBefore.get(i));
+        }
+        int removed = generated.size() - unique.size();
+        if (removed > 0) {
+            logger.info("Removed {} duplicate quiz questions for user {}", removed, userId);
+        }
+        return unique;
+    }
+
+    /**
+     * Thêm câu hỏi vừa làm vào chỉ mục đang cache (nếu có) để lượt sinh kế tiếp tránh lặp lại.
+     */
+    public void rememberQuestions(String userId, List<String> questions) {
+        VectorIndex cached = questionIndexes.getIfPresent("USER#" + userId, ASSESS_PREFIX);
+        if (cached != null) {
+            questions.forEach(q -> cached.add(q, HashedEmbedder.embed(q)));
+        }
+    }
+
+    private VectorIndex questionIndex(String userId) {
+        return questionIndexes.get("USER#" + userId, ASSESS_PREFIX, () -> buildQuestionIndex(userId));
+    }
+
+    private VectorIndex buildQuestionIndex(String userId) {
+        VectorIndex index = new VectorIndex(HashedEmbedder.DIMENSIONS);
+        for (AssessmentEntity assessment : assessmentRepository.findAllByUserId(userId)) {
+            if (assessment.getQuestions() != null) {
+                for (AssessmentEntity.QuestionItem item : assessment.getQuestions()) {
+                    index.add(item.getQuestion(), HashedEmbedder.embed(item.getQuestion()));
+                }
+            }
+        }
+        logger.debug("Built question index of {} entries for user {}", index.size(), userId);
+        return index;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : normalize(text).split(" ")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String word : a) {
+            if (b.contains(word)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9+#]+", " ").trim();
+    }
+}
@@ -0,0 +1,77 @@
+package khanh.careercoach.backend.service.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chỉ mục vector trong bộ nhớ, tìm kiếm vét cạn (brute force).
+ * Vector lưu liền nhau trong 1 mảng float phẳng (row-major): vòng lặp tích vô hướng chạy tuần tự trên bộ nhớ,
+ * JIT tự vector hóa (SIMD). Với vài trăm / vài nghìn vector mỗi user, vét cạn nhanh hơn dựng LSH.
+ * Vector phải cùng số chiều và đã chuẩn hóa L2 (tích vô hướng = cosine).
+ */
+public final class VectorIndex {
+
+    public record Match(String id, double score) {
+    }
+
+    private final int dimensions;
+    private float[] vectors;
+    private String[] ids;
+    private int size;
+
+    public VectorIndex(int dimensions) {
+        this.dimensions = dimensions;
+        this.vectors = new float[dimensions * 16];
+        this.ids = new String[16];
+    }
+
+    public synchronized void add(String id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            vectors = Arrays.copyOf(vectors, size * 2 * dimensions);
+        }
+        System.arraycopy(vector, 0, vectors, size * dimensions, dimensions);
+        ids[size++] = id;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return tối đa k kết quả có score >= minScore, score giảm dần
+     */
+    public synchronized List<Match> search(float[] query, int k, double minScore) {
+        int[] top = new int[k];
+        float[] topScores = new float[k];
+        int found = 0;
+        for (int row = 0; row < size; row++) {
+            int offset = row * dimensions;
+            float dot = 0;
+            for (int i = 0; i < dimensions; i++) {
+                dot += vectors[offset + i] * query[i];
+            }
+            if (dot < minScore || (found == k && dot <= topScores[k - 1])) {
+                continue;
+            }
+            // Chèn vào danh sách top-k đã sắp xếp
+            int pos = found < k ? found++ : k - 1;
+            while (pos > 0 && topScores[pos - 1] < dot) {
+                topScores[pos] = topScores[pos - 1];
+                top[pos] = top[pos - 1];
+                pos--;
+            }
+            topScores[pos] = dot;
+            top[pos] = row;
+        }
+        List<Match> matches = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            matches.add(new Match(ids[top[i]], topScores[i]));
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,58 @@
+package khanh.careercoach.backend.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream ghi object của {@link BlobStore#openOutputStream}: dữ liệu nằm ở bộ đệm (file tạm) tới khi close(),
+ * lúc đó object mới xuất hiện (ghi đè bản cũ).
+ * Ghi lỗi giữa chừng: gọi {@link #abort()} trước close() -> bỏ bộ đệm, không tạo object dở dang.
+ */
+public abstract class BlobOutputStream extends FilterOutputStream {
+
+    private boolean aborted;
+    private boolean closed;
+
+    protected BlobOutputStream(OutputStream buffer) {
+        super(buffer);
+    }
+
+    public void abort() {
+        aborted = true;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } catch (IOException e) {
+            discard();
+            throw e;
+        }
+        if (aborted) {
+            discard();
+        } else {
+            publish();
+        }
+    }
+
+    /**
+     * Đưa bộ đệm lên thành object (bộ đệm đã được đóng).
+     */
+    protected abstract void publish() throws IOException;
+
+    /**
+     * Bỏ bộ đệm, không tạo object.
+     */
+    protected abstract void discard() throws IOException;
+}
@@ -0,0 +1,35 @@
+package khanh.careercoach.backend.storage;
+
+import java.io.InputStream;
+
+/**
+ * Kho lưu object nhị phân bên ngoài DynamoDB (S3 trên môi trường thật, file system khi chạy local/test).
+ * Key dạng đường dẫn: "documents/USER_abc/content/<sha256>.bin".
+ */
+public interface BlobStore {
+
+    void put(String key, byte[] data);
+
+    /**
+     * @return nội dung object, hoặc null nếu không tồn tại
+     */
+    byte[] get(String key);
+
+    void delete(String key);
+
+    /**
+     * Ghi streaming cho object lớn (export dữ liệu): không giữ cả object trong bộ nhớ.
+     * Object chỉ xuất hiện (ghi đè bản cũ) sau khi stream được đóng; abort() trước khi đóng thì không tạo object.
+     */
+    BlobOutputStream openOutputStream(String key);
+
+    /**
+     * @return stream đọc nội dung object (caller đóng), hoặc null nếu không tồn tại
+     */
+    InputStream openInputStream(String key);
+
+    /**
+     * URI mô tả vị trí object (ví dụ "s3://bucket/key"), dùng để log/debug.
+     */
+    String uriOf(String key);
+}
@@ -0,0 +1,101 @@
+package khanh.careercoach.backend.storage;
+
+import khanh.careercoach.backend.model.converter.DeflateCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Chuyển các body quá lớn (Resume, Cover Letter, Job Description) ra BlobStore,
+ * item DynamoDB chỉ giữ con trỏ (ref) + SHA-256 của nội dung.
+ * - Key của blob gồm PK/SK của item + hash: ghi lại cùng nội dung là idempotent,
+ *   và xóa item thì xóa được blob mà không ảnh hưởng item khác.
+ * - Blob được nén DEFLATE trước khi upload.
+ * - Đọc lazy: chỉ tải body khi thật sự cần (GET chi tiết), list không bao giờ tải.
+ */
+@Component
+public class ContentOffloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentOffloader.class);
+
+    // Mặc định 100 KB text: xa ngưỡng 400 KB/item kể cả khi item có nhiều field lớn
+    private static final int DEFAULT_THRESHOLD_BYTES = 100 * 1024;
+
+    private final BlobStore blobStore;
+    private final int thresholdBytes;
+
+    public ContentOffloader(BlobStore blobStore) {
+        this.blobStore = blobStore;
+        String configured = System.getenv("OFFLOAD_THRESHOLD_BYTES");
+        this.thresholdBytes = configured != null && !configured.isEmpty()
+                ? Integer.parseInt(configured) : DEFAULT_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Con trỏ tới body đã offload.
+     */
+    public record OffloadedBody(String ref, String hash) {}
+
+    public boolean shouldOffload(String body) {
+        return body != null && body.length() * 3L >= thresholdBytes
+                && body.getBytes(StandardCharsets.UTF_8).length >= thresholdBytes;
+    }
+
+    /**
+     * Upload body nếu vượt ngưỡng.
+     *
+     * @param ownerPk PK của item sở hữu (USER#...)
+     * @param ownerSk SK của item sở hữu (RESUME, LETTER#...)
+     * @param field   tên thuộc tính (content, jobDescription)
+     * @return con trỏ, hoặc null nếu body đủ nhỏ để giữ inline trong item
+     */
+    public OffloadedBody offloadIfLarge(String ownerPk, String ownerSk, String field, String body) {
+        if (!shouldOffload(body)) {
+            return null;
+        }
+        String hash = sha256(body);
+        String key = "documents/" + ownerPk.replace('#', '_') + "/" + ownerSk.replace('#', '_')
+                + "/" + field + "/" + hash + ".bin";
+
+        blobStore.put(key, DeflateCodec.compress(body));
+        logger.info("Offloaded {} ({} chars) to {}", field, body.length(), blobStore.uriOf(key));
+        return new OffloadedBody(key, hash);
+    }
+
+    /**
+     * Tải body từ BlobStore và kiểm tra hash.
+     */
+    public String load(String ref, String expectedHash) {
+        if (ref == null) return null;
+
+        byte[] data = blobStore.get(ref);
+        if (data == null) {
+            throw new IllegalStateException("Offloaded content is missing: " + ref);
+        }
+        String body = DeflateCodec.decompress(data);
+        if (expectedHash != null && !expectedHash.equals(sha256(body))) {
+            throw new IllegalStateException("Offloaded content hash mismatch: " + ref);
+        }
+        return body;
+    }
+
+    public void delete(String ref) {
+        if (ref != null) {
+            blobStore.delete(ref);
+        }
+    }
+
+    public static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
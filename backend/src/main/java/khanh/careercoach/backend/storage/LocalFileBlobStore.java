@@ -0,0 +1,109 @@
+package khanh.careercoach.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * BlobStore trên file system local (chạy local, test). Ghi qua file tạm rồi rename để tránh file dở dang.
+ */
+public class LocalFileBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileBlobStore.class);
+
+    private final Path root;
+
+    public LocalFileBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, byte[] data) {
+        Path target = resolve(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Stored {} bytes at {}", data.length, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write blob " + key, e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return Files.readAllBytes(resolve(key));
+        } catch (NoSuchFileException e) {
+            logger.warn("Blob not found: {}", key);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read blob " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete blob " + key, e);
+        }
+    }
+
+    @Override
+    public BlobOutputStream openOutputStream(String key) {
+        Path target = resolve(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+            return new BlobOutputStream(Files.newOutputStream(tmp)) {
+                @Override
+                protected void publish() throws IOException {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+
+                @Override
+                protected void discard() throws IOException {
+                    Files.deleteIfExists(tmp);
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write blob " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream openInputStream(String key) {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            logger.warn("Blob not found: {}", key);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read blob " + key, e);
+        }
+    }
+
+    @Override
+    public String uriOf(String key) {
+        return resolve(key).toUri().toString();
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        // Chặn path traversal ("../")
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,116 @@
+package khanh.careercoach.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * BlobStore trên Amazon S3.
+ */
+public class S3BlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3BlobStore.class);
+
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3BlobStore(S3Client s3Client, String bucket) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void put(String key, byte[] data) {
+        try {
+            s3Client.putObject(r -> r.bucket(bucket).key(key), RequestBody.fromBytes(data));
+            logger.debug("Uploaded {} bytes to {}", data.length, uriOf(key));
+        } catch (S3Exception e) {
+            logger.error("Failed to upload {}: {}", uriOf(key), e.getMessage(), e);
+            throw new RuntimeException("Storage Error: Could not upload object", e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            ResponseBytes<GetObjectResponse> bytes = s3Client.getObjectAsBytes(r -> r.bucket(bucket).key(key));
+            return bytes.asByteArrayUnsafe();
+        } catch (NoSuchKeyException e) {
+            logger.warn("Object not found: {}", uriOf(key));
+            return null;
+        } catch (S3Exception e) {
+            logger.error("Failed to download {}: {}", uriOf(key), e.getMessage(), e);
+            throw new RuntimeException("Storage Error: Could not download object", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            s3Client.deleteObject(r -> r.bucket(bucket).key(key));
+        } catch (S3Exception e) {
+            logger.error("Failed to delete {}: {}", uriOf(key), e.getMessage(), e);
+            throw new RuntimeException("Storage Error: Could not delete object", e);
+        }
+    }
+
+    /**
+     * PutObject cần biết trước kích thước: ghi vào file tạm (/tmp của Lambda) rồi upload khi đóng stream.
+     */
+    @Override
+    public BlobOutputStream openOutputStream(String key) {
+        try {
+            Path tmp = Files.createTempFile("blob-upload", ".tmp");
+            return new BlobOutputStream(Files.newOutputStream(tmp)) {
+                @Override
+                protected void publish() throws IOException {
+                    try {
+                        s3Client.putObject(r -> r.bucket(bucket).key(key), RequestBody.fromFile(tmp));
+                        logger.debug("Uploaded {} bytes to {}", Files.size(tmp), uriOf(key));
+                    } catch (S3Exception e) {
+                        logger.error("Failed to upload {}: {}", uriOf(key), e.getMessage(), e);
+                        throw new RuntimeException("Storage Error: Could not upload object", e);
+                    } finally {
+                        Files.deleteIfExists(tmp);
+                    }
+                }
+
+                @Override
+                protected void discard() throws IOException {
+                    Files.deleteIfExists(tmp);
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not buffer upload of " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream openInputStream(String key) {
+        try {
+            return s3Client.getObject(r -> r.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            logger.warn("Object not found: {}", uriOf(key));
+            return null;
+        } catch (S3Exception e) {
+            logger.error("Failed to download {}: {}", uriOf(key), e.getMessage(), e);
+            throw new RuntimeException("Storage Error: Could not download object", e);
+        }
+    }
+
+    @Override
+    public String uriOf(String key) {
+        return "s3://" + bucket + "/" + key;
+    }
+}
@@ -0,0 +1,23 @@
+package khanh.careercoach.backend.stream;
+
+/**
+ * Thay đổi của một item đã map sang entity.
+ *
+ * @param oldItem null với INSERT
+ * @param newItem null với REMOVE
+ */
+public record ChangeEvent<T>(String eventId, String eventName, String pk, String sk, T oldItem, T newItem) {
+
+    public boolean isInsert() {
+        return "INSERT".equals(eventName);
+    }
+
+    public boolean isRemove() {
+        return "REMOVE".equals(eventName);
+    }
+
+    // userId từ PK dạng USER#<id>
+    public String userId() {
+        return pk != null && pk.startsWith("USER#") ? pk.substring("USER#".length()) : null;
+    }
+}
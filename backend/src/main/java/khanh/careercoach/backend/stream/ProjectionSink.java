@@ -0,0 +1,17 @@
+package khanh.careercoach.backend.stream;
+
+import java.util.List;
+
+/**
+ * Nơi ghi các cập nhật read model, mỗi bản ghi stream đúng 1 lần.
+ * Bản chính là ProjectionRepository (DynamoDB); test / replay dùng bản trong bộ nhớ.
+ */
+public interface ProjectionSink {
+
+    /**
+     * Ghi toàn bộ writes nếu eventId chưa từng được áp dụng (nguyên tử).
+     *
+     * @return false nếu eventId đã áp dụng trước đó (bản ghi được gửi lại sau khi retry)
+     */
+    boolean applyOnce(String eventId, List<ProjectionWrite> writes);
+}
@@ -0,0 +1,9 @@
+package khanh.careercoach.backend.stream;
+
+import khanh.careercoach.backend.repository.PartialUpdate;
+
+/**
+ * Một cập nhật lên read model (item đích + UpdateItem), do projection sinh ra.
+ */
+public record ProjectionWrite(String pk, String sk, PartialUpdate update) {
+}
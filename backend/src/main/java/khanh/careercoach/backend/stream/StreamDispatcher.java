@@ -0,0 +1,107 @@
+package khanh.careercoach.backend.stream;
+
+import khanh.careercoach.backend.stream.StreamRecords.StreamRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phân phối bản ghi stream tới các projection theo PK / SK (ASSESS#, LETTER#, RESUME, METADATA),
+ * xử lý tuần tự theo thứ tự trong shard.
+ * Bản ghi lỗi đầu tiên -> dừng và báo batchItemFailures từ SequenceNumber đó (ReportBatchItemFailures):
+ * Lambda giữ checkpoint trước bản ghi lỗi, gửi lại từ đó; bản ghi đã áp dụng bị sổ ghi của sink bỏ qua.
+ */
+@Component
+public class StreamDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamDispatcher.class);
+
+    public record BatchResult(int applied, int skipped, int duplicates, String failedSequenceNumber) {
+
+        // Response cho Lambda (FunctionResponseTypes: ReportBatchItemFailures)
+        public Map<String, Object> toResponse() {
+            List<Map<String, String>> failures = failedSequenceNumber != null
+                    ? List.of(Map.of("itemIdentifier", failedSequenceNumber))
+                    : List.of();
+            return Map.of("batchItemFailures", failures);
+        }
+    }
+
+    private final List<StreamProjection<?>> projections;
+    private final ProjectionSink sink;
+    private final Map<Class<?>, TableSchema<?>> schemas = new ConcurrentHashMap<>();
+
+    public StreamDispatcher(List<StreamProjection<?>> projections, ProjectionSink sink) {
+        this.projections = projections;
+        this.sink = sink;
+    }
+
+    public BatchResult dispatch(List<StreamRecord> records) {
+        int applied = 0;
+        int skipped = 0;
+        int duplicates = 0;
+        for (StreamRecord record : records) {
+            try {
+                List<ProjectionWrite> writes = project(record);
+                if (writes.isEmpty()) {
+                    skipped++;
+                } else if (sink.applyOnce(record.eventId(), writes)) {
+                    applied++;
+                } else {
+                    duplicates++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Projection failed at sequence {} ({} {}/{}): {}", record.sequenceNumber(),
+                        record.eventName(), record.pk(), record.sk(), e.getMessage(), e);
+                return new BatchResult(applied, skipped, duplicates, record.sequenceNumber());
+            }
+        }
+        return new BatchResult(applied, skipped, duplicates, null);
+    }
+
+    List<ProjectionWrite> project(StreamRecord record) {
+        String pk = record.pk();
+        String sk = record.sk();
+        List<ProjectionWrite> writes = new ArrayList<>();
+        if (pk == null || sk == null) {
+            return writes;
+        }
+        for (StreamProjection<?> projection : projections) {
+            if (projection.matches(pk, sk)) {
+                writes.addAll(apply(projection, record));
+            }
+        }
+        return writes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<ProjectionWrite> apply(StreamProjection<T> projection, StreamRecord record) {
+        ChangeEvent<T> event;
+        if (Map.class.equals(projection.type())) {
+            event = new ChangeEvent<>(record.eventId(), record.eventName(), record.pk(), record.sk(),
+                    (T) record.oldImage(), (T) record.newImage());
+        } else {
+            TableSchema<T> schema = schema(projection.type());
+            event = new ChangeEvent<>(record.eventId(), record.eventName(), record.pk(), record.sk(),
+                    toItem(schema, record.oldImage()), toItem(schema, record.newImage()));
+        }
+        return projection.project(event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TableSchema<T> schema(Class<T> type) {
+        return (TableSchema<T>) schemas.computeIfAbsent(type, TableSchema::fromBean);
+    }
+
+    private static <T> T toItem(TableSchema<T> schema, Map<String, AttributeValue> image) {
+        return image != null ? schema.mapToItem(new HashMap<>(image)) : null;
+    }
+}
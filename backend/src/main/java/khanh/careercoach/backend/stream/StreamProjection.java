@@ -0,0 +1,18 @@
+package khanh.careercoach.backend.stream;
+
+import java.util.List;
+
+/**
+ * Projection cho một loại item: chọn item theo PK / SK, tính cập nhật read model từ image cũ / mới.
+ * project() thuần tính toán (không I/O): bản ghi gửi lại cho ra đúng các writes cũ,
+ * ProjectionSink bỏ qua vì eventId đã áp dụng -> an toàn khi Lambda retry từ checkpoint.
+ */
+public interface StreamProjection<T> {
+
+    // Entity để map image; Map.class = nhận image thô (Map<String, AttributeValue>)
+    Class<T> type();
+
+    boolean matches(String pk, String sk);
+
+    List<ProjectionWrite> project(ChangeEvent<T> event);
+}
@@ -0,0 +1,63 @@
+package khanh.careercoach.backend.stream;
+
+import khanh.careercoach.backend.repository.DynamoJson;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đọc event DynamoDB Streams (dạng Map mà Spring Cloud Function nhận từ Lambda) thành {@link StreamRecord}.
+ * Image trong event là DynamoDB JSON -> AttributeValue ({@link DynamoJson}),
+ * để map sang entity bằng chính TableSchema của Enhanced Client (cùng converter với lúc ghi).
+ */
+public final class StreamRecords {
+
+    private StreamRecords() {
+    }
+
+    /**
+     * Một bản ghi thay đổi của bảng (INSERT / MODIFY / REMOVE).
+     */
+    public record StreamRecord(String eventId, String eventName, String sequenceNumber,
+                               Map<String, AttributeValue> keys,
+                               Map<String, AttributeValue> oldImage,
+                               Map<String, AttributeValue> newImage) {
+
+        public String pk() {
+            AttributeValue pk = keys.get("PK");
+            return pk != null ? pk.s() : null;
+        }
+
+        public String sk() {
+            AttributeValue sk = keys.get("SK");
+            return sk != null ? sk.s() : null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<StreamRecord> parse(Map<String, Object> event) {
+        List<StreamRecord> records = new ArrayList<>();
+        Object raw = event.get("Records");
+        if (!(raw instanceof List<?> list)) {
+            return records;
+        }
+        for (Object item : list) {
+            Map<String, Object> record = (Map<String, Object>) item;
+            Map<String, Object> dynamodb = (Map<String, Object>) record.getOrDefault("dynamodb", Map.of());
+            records.add(new StreamRecord(
+                    (String) record.get("eventID"),
+                    (String) record.get("eventName"),
+                    String.valueOf(dynamodb.get("SequenceNumber")),
+                    toImage(dynamodb.get("Keys")),
+                    toImage(dynamodb.get("OldImage")),
+                    toImage(dynamodb.get("NewImage"))));
+        }
+        return records;
+    }
+
+    static Map<String, AttributeValue> toImage(Object image) {
+        return DynamoJson.readItem(image);
+    }
+}
@@ -0,0 +1,45 @@
+package khanh.careercoach.backend.stream.projection;
+
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ProjectionRepository;
+import khanh.careercoach.backend.stream.ChangeEvent;
+import khanh.careercoach.backend.stream.ProjectionWrite;
+import khanh.careercoach.backend.stream.StreamProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * USER#<id> / ASSESS#<uuid> -> số bài làm và lần làm gần nhất (USER#<id> / PROJ#ACTIVITY).
+ * MODIFY (batch điền improvement tip) không đổi số bài làm nên bỏ qua.
+ * Thống kê điểm (STATS) vẫn ghi đồng bộ cùng bài làm, không tính lại ở đây.
+ */
+@Component
+public class AssessmentActivityProjection implements StreamProjection<AssessmentEntity> {
+
+    @Override
+    public Class<AssessmentEntity> type() {
+        return AssessmentEntity.class;
+    }
+
+    @Override
+    public boolean matches(String pk, String sk) {
+        return pk.startsWith("USER#") && sk.startsWith("ASSESS#");
+    }
+
+    @Override
+    public List<ProjectionWrite> project(ChangeEvent<AssessmentEntity> event) {
+        if (event.isInsert()) {
+            return List.of(new ProjectionWrite(event.pk(), ProjectionRepository.ACTIVITY_SK, PartialUpdate.create()
+                    .add("assessmentCount", 1)
+                    .set("lastAssessmentAt", event.newItem().getCreatedAt())
+                    .set("updatedAt", event.newItem().getCreatedAt())));
+        }
+        if (event.isRemove()) {
+            return List.of(new ProjectionWrite(event.pk(), ProjectionRepository.ACTIVITY_SK,
+                    PartialUpdate.create().add("assessmentCount", -1)));
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,42 @@
+package khanh.careercoach.backend.stream.projection;
+
+import khanh.careercoach.backend.model.CoverLetterEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ProjectionRepository;
+import khanh.careercoach.backend.stream.ChangeEvent;
+import khanh.careercoach.backend.stream.ProjectionWrite;
+import khanh.careercoach.backend.stream.StreamProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * USER#<id> / LETTER#<uuid> -> số cover letter của user (USER#<id> / PROJ#ACTIVITY).
+ */
+@Component
+public class CoverLetterActivityProjection implements StreamProjection<CoverLetterEntity> {
+
+    @Override
+    public Class<CoverLetterEntity> type() {
+        return CoverLetterEntity.class;
+    }
+
+    @Override
+    public boolean matches(String pk, String sk) {
+        return pk.startsWith("USER#") && sk.startsWith("LETTER#");
+    }
+
+    @Override
+    public List<ProjectionWrite> project(ChangeEvent<CoverLetterEntity> event) {
+        if (event.isInsert()) {
+            return List.of(new ProjectionWrite(event.pk(), ProjectionRepository.ACTIVITY_SK, PartialUpdate.create()
+                    .add("letterCount", 1)
+                    .set("updatedAt", event.newItem().getCreatedAt())));
+        }
+        if (event.isRemove()) {
+            return List.of(new ProjectionWrite(event.pk(), ProjectionRepository.ACTIVITY_SK,
+                    PartialUpdate.create().add("letterCount", -1)));
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,61 @@
+package khanh.careercoach.backend.stream.projection;
+
+import khanh.careercoach.backend.model.UserEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ProjectionRepository;
+import khanh.careercoach.backend.repository.ShardedKeys;
+import khanh.careercoach.backend.stream.ChangeEvent;
+import khanh.careercoach.backend.stream.ProjectionWrite;
+import khanh.careercoach.backend.stream.StreamProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * USER#<id> / METADATA -> số user theo ngành (INDUSTRY#<industry>#S<k> / PROJ#MEMBERS).
+ * Ngành phổ biến nhận mọi đăng ký vào 1 bộ đếm: chia MEMBER_COUNT_SHARDS shard theo userId
+ * (cộng / trừ của cùng user luôn vào cùng shard), đọc = tổng các shard.
+ * Không ghi vào item insight (METADATA) của ngành: item đó có mặt nghĩa là insight đã sinh xong.
+ */
+@Component
+public class IndustryMembershipProjection implements StreamProjection<UserEntity> {
+
+    @Override
+    public Class<UserEntity> type() {
+        return UserEntity.class;
+    }
+
+    @Override
+    public boolean matches(String pk, String sk) {
+        return pk.startsWith("USER#") && "METADATA".equals(sk);
+    }
+
+    @Override
+    public List<ProjectionWrite> project(ChangeEvent<UserEntity> event) {
+        String before = event.oldItem() != null ? blankToNull(event.oldItem().getIndustry()) : null;
+        String after = event.newItem() != null ? blankToNull(event.newItem().getIndustry()) : null;
+        List<ProjectionWrite> writes = new ArrayList<>();
+        if (Objects.equals(before, after)) {
+            return writes;
+        }
+        if (before != null) {
+            writes.add(members(before, event.userId(), -1));
+        }
+        if (after != null) {
+            writes.add(members(after, event.userId(), 1));
+        }
+        return writes;
+    }
+
+    private static ProjectionWrite members(String industry, String userId, int delta) {
+        int shard = ShardedKeys.shardFor(userId, ProjectionRepository.MEMBER_COUNT_SHARDS);
+        return new ProjectionWrite(ShardedKeys.shard("INDUSTRY#" + industry, shard), ProjectionRepository.MEMBERS_SK,
+                PartialUpdate.create().add("userCount", delta));
+    }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
+}
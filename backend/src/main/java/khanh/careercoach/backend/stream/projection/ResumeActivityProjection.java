@@ -0,0 +1,46 @@
+package khanh.careercoach.backend.stream.projection;
+
+import khanh.careercoach.backend.model.ResumeEntity;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ProjectionRepository;
+import khanh.careercoach.backend.stream.ChangeEvent;
+import khanh.careercoach.backend.stream.ProjectionWrite;
+import khanh.careercoach.backend.stream.StreamProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * USER#<id> / RESUME -> số lần lưu resume và thời điểm lưu gần nhất (USER#<id> / PROJ#ACTIVITY).
+ * Chỉ tính khi version đổi (lưu nội dung), bỏ qua item section / version (RESUME#...).
+ */
+@Component
+public class ResumeActivityProjection implements StreamProjection<ResumeEntity> {
+
+    @Override
+    public Class<ResumeEntity> type() {
+        return ResumeEntity.class;
+    }
+
+    @Override
+    public boolean matches(String pk, String sk) {
+        return pk.startsWith("USER#") && "RESUME".equals(sk);
+    }
+
+    @Override
+    public List<ProjectionWrite> project(ChangeEvent<ResumeEntity> event) {
+        ResumeEntity after = event.newItem();
+        if (after == null) {
+            return List.of();
+        }
+        Long before = event.oldItem() != null ? event.oldItem().getVersion() : null;
+        if (event.oldItem() != null && Objects.equals(before, after.getVersion())) {
+            return List.of();
+        }
+        return List.of(new ProjectionWrite(event.pk(), ProjectionRepository.ACTIVITY_SK, PartialUpdate.create()
+                .add("resumeSaveCount", 1)
+                .set("lastResumeUpdateAt", after.getUpdatedAt())
+                .set("updatedAt", after.getUpdatedAt())));
+    }
+}
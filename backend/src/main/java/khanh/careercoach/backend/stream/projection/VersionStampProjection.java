@@ -0,0 +1,45 @@
+package khanh.careercoach.backend.stream.projection;
+
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.VersionStampRepository;
+import khanh.careercoach.backend.stream.ChangeEvent;
+import khanh.careercoach.backend.stream.ProjectionWrite;
+import khanh.careercoach.backend.stream.StreamProjection;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mọi thay đổi của item được cache -> tăng tem version cạnh item (PK gốc / STAMP#...),
+ * để cache ở mọi container nhận ra bản sao cũ ở lần kiểm tra tem kế tiếp.
+ * Chỉ cần key nên nhận image thô (type = Map), không phụ thuộc entity.
+ */
+@Component
+public class VersionStampProjection implements StreamProjection<Map<String, AttributeValue>> {
+
+    // Chỉ nhóm item có VersionedCache đọc tem: insight ngành (AtsService), lịch sử câu hỏi (SimilarityService).
+    // Thêm cache mới thì thêm nhóm của nó vào đây, tem không ai đọc chỉ tốn ghi
+    private static final String INDUSTRY_PK_PREFIX = "INDUSTRY#";
+    private static final String INSIGHT_STAMP = "STAMP#METADATA";
+    private static final String ASSESS_STAMP = "STAMP#ASSESS";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<Map<String, AttributeValue>> type() {
+        return (Class<Map<String, AttributeValue>>) (Class<?>) Map.class;
+    }
+
+    @Override
+    public boolean matches(String pk, String sk) {
+        String stamp = VersionStampRepository.stampSk(sk);
+        return ASSESS_STAMP.equals(stamp) || (pk.startsWith(INDUSTRY_PK_PREFIX) && INSIGHT_STAMP.equals(stamp));
+    }
+
+    @Override
+    public List<ProjectionWrite> project(ChangeEvent<Map<String, AttributeValue>> event) {
+        return List.of(new ProjectionWrite(event.pk(), VersionStampRepository.stampSk(event.sk()),
+                PartialUpdate.create().add("stamp", 1)));
+    }
+}
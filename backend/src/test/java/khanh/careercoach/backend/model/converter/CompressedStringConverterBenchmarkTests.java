@@ -0,0 +1,51 @@
+package khanh.careercoach.backend.model.converter;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark nhỏ: tỉ lệ nén và chi phí CPU (encode / decode) của CompressedStringConverter trên Markdown thực tế.
+ * Không chạy trong mvn test (đo thời gian phụ thuộc máy), chạy riêng bằng: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+class CompressedStringConverterBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressedStringConverterBenchmarkTests.class);
+
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    private final CompressedStringConverter converter = new CompressedStringConverter();
+
+    @Test
+    void measuresSizeAndCpuCost() {
+        String markdown = CompressedStringConverterTests.sampleResumeMarkdown();
+        int rawBytes = markdown.getBytes(StandardCharsets.UTF_8).length;
+        AttributeValue stored = converter.transformFrom(markdown);
+        int storedBytes = stored.b().asByteArrayUnsafe().length;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            converter.transformTo(converter.transformFrom(markdown));
+        }
+        long encodeStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            converter.transformFrom(markdown);
+        }
+        long encodeNanos = (System.nanoTime() - encodeStart) / MEASURED_ROUNDS;
+
+        long decodeStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            converter.transformTo(stored);
+        }
+        long decodeNanos = (System.nanoTime() - decodeStart) / MEASURED_ROUNDS;
+
+        logger.info("Compression benchmark: raw={} B, stored={} B, ratio={}, encode={} us/op, decode={} us/op",
+                rawBytes, storedBytes, String.format("%.2f", (double) storedBytes / rawBytes),
+                encodeNanos / 1_000, decodeNanos / 1_000);
+    }
+}
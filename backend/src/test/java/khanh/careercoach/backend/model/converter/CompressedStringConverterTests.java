@@ -0,0 +1,69 @@
+package khanh.careercoach.backend.model.converter;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tỉ lệ nén và round-trip của CompressedStringConverter trên Markdown thực tế.
+ */
+class CompressedStringConverterTests {
+
+    private final CompressedStringConverter converter = new CompressedStringConverter();
+
+    @Test
+    void compressesRealisticResumeMarkdown() {
+        String markdown = sampleResumeMarkdown();
+        int rawBytes = markdown.getBytes(StandardCharsets.UTF_8).length;
+
+        AttributeValue stored = converter.transformFrom(markdown);
+        assertNotNull(stored.b(), "Large markdown should be stored as compressed binary");
+        int storedBytes = stored.b().asByteArrayUnsafe().length;
+        assertEquals(markdown, converter.transformTo(stored));
+
+        double ratio = (double) storedBytes / rawBytes;
+        assertTrue(ratio < 0.6, "Markdown should compress to less than 60% of its size, was " + ratio);
+    }
+
+    @Test
+    void keepsSmallValuesAndReadsLegacyStrings() {
+        AttributeValue small = converter.transformFrom("Short summary");
+        assertEquals("Short summary", small.s());
+
+        String legacy = sampleResumeMarkdown();
+        assertEquals(legacy, converter.transformTo(AttributeValue.fromS(legacy)));
+    }
+
+    static String sampleResumeMarkdown() {
+        StringBuilder md = new StringBuilder();
+        md.append("## <div align=\"center\">Nguyen Van A</div>\n\n")
+          .append("<div align=\"center\">\n\n📧 nguyenvana@example.com | 📱 +84 912 345 678 | 💼 [LinkedIn](https://linkedin.com/in/nguyenvana)\n\n</div>\n\n")
+          .append("## Professional Summary\n\n")
+          .append("Backend engineer with 6 years of experience designing event-driven systems on AWS. ")
+          .append("Led migration of a monolith to serverless microservices, cutting infrastructure cost by 38% ")
+          .append("and p95 latency from 900 ms to 180 ms.\n\n")
+          .append("## Skills\n\n")
+          .append("Java, Spring Boot, AWS Lambda, DynamoDB, Kafka, Docker, Kubernetes, Terraform, PostgreSQL, Redis\n\n")
+          .append("## Work Experience\n\n");
+        String[] companies = {"Tiki", "VNG Corporation", "FPT Software", "Shopee", "MoMo"};
+        for (int i = 0; i < companies.length; i++) {
+            md.append("### Senior Software Engineer @ ").append(companies[i]).append('\n')
+              .append(2024 - i * 2).append(" - ").append(2026 - i * 2).append("\n\n")
+              .append("- Designed and implemented a high-throughput order pipeline processing 12,000 events per second using Kafka and Spring Boot.\n")
+              .append("- Reduced DynamoDB read costs by 45% by introducing single-table design with targeted GSIs and sparse indexes.\n")
+              .append("- Mentored 4 junior engineers and introduced code review guidelines that reduced production incidents by 30%.\n")
+              .append("- Built CI/CD pipelines with GitHub Actions and Terraform, shortening release cycles from 2 weeks to 2 days.\n")
+              .append("- Collaborated with product managers to define SLIs/SLOs and on-call runbooks for ").append(companies[i]).append(" payments.\n\n");
+        }
+        md.append("## Education\n\n### B.Sc. Computer Science @ Ho Chi Minh City University of Technology\n2014 - 2018\n\n")
+          .append("GPA 3.6/4.0. Thesis: Distributed caching strategies for read-heavy workloads.\n\n")
+          .append("## Projects\n\n### AI Career Coach\n\n")
+          .append("Serverless career coaching platform using Spring Cloud Function, Amazon Bedrock and DynamoDB.\n");
+        return md.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package khanh.careercoach.backend.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DynamoJsonTests {
+
+    @Test
+    void roundTripsEveryAttributeType() throws Exception {
+        Map<String, AttributeValue> item = Map.of(
+                "PK", AttributeValue.fromS("USER#u1"),
+                "quizScore", AttributeValue.fromN("87.5"),
+                // Danh sách câu hỏi đã nén (CompressedQuestionListConverter) phải giữ nguyên từng byte
+                "questions", AttributeValue.fromB(SdkBytes.fromByteArray(new byte[]{0x1f, (byte) 0x8b, 0, 42})),
+                "active", AttributeValue.fromBool(true),
+                "bio", AttributeValue.fromNul(true),
+                "tags", AttributeValue.fromSs(List.of("java", "aws")),
+                "recentScores", AttributeValue.fromL(List.of(
+                        AttributeValue.fromM(Map.of("score", AttributeValue.fromN("60"))))));
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(json)) {
+            DynamoJson.writeItem(generator, item);
+        }
+
+        Map<String, Object> parsed = mapper.readValue(json.toString(), new TypeReference<>() {});
+        assertEquals(item, DynamoJson.readItem(parsed));
+    }
+}
@@ -0,0 +1,35 @@
+package khanh.careercoach.backend.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedKeysTests {
+
+    @Test
+    void buildsShardAndReplicaKeys() {
+        assertEquals("QUOTA#GLOBAL#S3", ShardedKeys.shard("QUOTA#GLOBAL", 3));
+        assertEquals("INDUSTRY#tech#R0", ShardedKeys.replica("INDUSTRY#tech", 0));
+        assertEquals(List.of("INDUSTRY#tech#S0", "INDUSTRY#tech#S1", "INDUSTRY#tech#S2"),
+                ShardedKeys.shards("INDUSTRY#tech", 3));
+    }
+
+    @Test
+    void shardForIsStableAndSpreadsTokens() {
+        // Cùng user luôn vào cùng shard: +1 khi vào ngành và -1 khi rời ngành triệt tiêu nhau
+        assertEquals(ShardedKeys.shardFor("u1", 8), ShardedKeys.shardFor("u1", 8));
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            int shard = ShardedKeys.shardFor("user-" + i, 8);
+            assertTrue(shard >= 0 && shard < 8);
+            used.add(shard);
+        }
+        assertEquals(8, used.size());
+    }
+}
@@ -0,0 +1,51 @@
+package khanh.careercoach.backend.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitOfWorkTests {
+
+    // Hàng đợi ghi trễ rỗng: flush không gọi DynamoDB
+    private final UnitOfWork unitOfWork = new UnitOfWork(new WriteBehindBuffer(null));
+
+    @Test
+    void identityMapLivesForOneScope() {
+        Object user = new Object();
+        assertFalse(UnitOfWork.isLoaded("User|USER#u1|METADATA"));
+
+        unitOfWork.begin();
+        UnitOfWork.remember("User|USER#u1|METADATA", user);
+        UnitOfWork.remember("Resume|USER#u1|RESUME", null);
+        assertTrue(UnitOfWork.isLoaded("User|USER#u1|METADATA"));
+        assertSame(user, UnitOfWork.loaded("User|USER#u1|METADATA"));
+        // "Không tồn tại" cũng được nhớ: không đọc lại DB
+        assertTrue(UnitOfWork.isLoaded("Resume|USER#u1|RESUME"));
+        assertNull(UnitOfWork.loaded("Resume|USER#u1|RESUME"));
+
+        UnitOfWork.forget("User|USER#u1|METADATA");
+        assertFalse(UnitOfWork.isLoaded("User|USER#u1|METADATA"));
+        assertTrue(unitOfWork.commit());
+
+        // Request sau không thấy dữ liệu của request trước
+        unitOfWork.begin();
+        assertFalse(UnitOfWork.isLoaded("Resume|USER#u1|RESUME"));
+        unitOfWork.commit();
+    }
+
+    @Test
+    void nestedScopesShareTheOutermostMap() {
+        unitOfWork.begin();
+        UnitOfWork.remember("User|USER#u2|METADATA", "profile");
+        unitOfWork.begin();
+        assertEquals("profile", UnitOfWork.loaded("User|USER#u2|METADATA"));
+        unitOfWork.commit();
+        assertTrue(UnitOfWork.isLoaded("User|USER#u2|METADATA"));
+        unitOfWork.commit();
+        assertFalse(UnitOfWork.isLoaded("User|USER#u2|METADATA"));
+    }
+}
@@ -0,0 +1,83 @@
+package khanh.careercoach.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindBufferTests {
+
+    // Client giả: SK "gone" -> điều kiện không thỏa, SK "broken" -> lỗi DB
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final DynamoDbClient client = new DynamoDbClient() {
+        @Override
+        public UpdateItemResponse updateItem(UpdateItemRequest request) {
+            String sk = request.key().get("SK").s();
+            if (sk.equals("gone")) {
+                throw ConditionalCheckFailedException.builder().message("gone").build();
+            }
+            if (sk.equals("broken")) {
+                throw DynamoDbException.builder().message("broken").build();
+            }
+            written.add(sk + "=" + request.expressionAttributeValues().get(":v0").s());
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test
+    void updatesOfTheSameItemAreNotCoalesced() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(client);
+        AtomicInteger notified = new AtomicInteger();
+
+        buffer.update(update("METADATA", "t1"), notified::incrementAndGet);
+        buffer.update(update("METADATA", "t2"), notified::incrementAndGet);
+
+        assertTrue(buffer.flush());
+        assertEquals(List.of("METADATA=t1", "METADATA=t2"), written);
+        assertEquals(2, notified.get());
+    }
+
+    @Test
+    void failedConditionIsSkippedButDatabaseErrorIsReported() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(client);
+
+        buffer.update(update("gone", "t1"), null);
+        assertTrue(buffer.flush());
+
+        buffer.update(update("broken", "t1"), null);
+        assertFalse(buffer.flush());
+        // Lỗi đã được báo ở lần flush trước
+        assertTrue(buffer.flush());
+    }
+
+    private static UpdateItemRequest update(String sk, String value) {
+        return UpdateItemRequest.builder()
+                .tableName("t")
+                .key(Map.of("PK", AttributeValue.fromS("USER#u1"), "SK", AttributeValue.fromS(sk)))
+                .updateExpression("SET #a0 = :v0")
+                .expressionAttributeNames(Map.of("#a0", "lastActiveAt"))
+                .expressionAttributeValues(Map.of(":v0", AttributeValue.fromS(value)))
+                .build();
+    }
+}
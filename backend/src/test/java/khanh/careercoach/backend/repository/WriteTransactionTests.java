@@ -0,0 +1,62 @@
+package khanh.careercoach.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteTransactionTests {
+
+    private static CancellationReason reason(String code) {
+        return CancellationReason.builder().code(code).message(code.equals("None") ? null : code + " message").build();
+    }
+
+    @Test
+    void mapsCancellationReasonsToTheirItems() {
+        // Thứ tự phần tử: bài làm, STATS, user (như UserStatsService.saveWithStats)
+        List<String[]> keys = List.of(
+                new String[]{"USER#u1", "ASSESS#a1"},
+                new String[]{"USER#u1", "STATS"},
+                new String[]{"USER#u1", "METADATA"});
+        List<TransactionCancelledException.Reason> reasons = WriteTransaction.reasons(
+                List.of(reason("None"), reason("ConditionalCheckFailed"), reason("None")), keys);
+
+        assertEquals(1, reasons.size());
+        assertEquals(1, reasons.get(0).index());
+        assertEquals(CancellationCode.CONDITIONAL_CHECK_FAILED, reasons.get(0).code());
+
+        TransactionCancelledException cancelled = new TransactionCancelledException(reasons);
+        assertTrue(cancelled.conflictOn("USER#u1", "STATS"));
+        assertFalse(cancelled.conflictOn("USER#u1", "ASSESS#a1"));
+        // Router vẫn trả 409 như mọi lỗi version khác
+        assertInstanceOf(ConcurrentModificationException.class, cancelled);
+    }
+
+    @Test
+    void classifiesCodes() {
+        assertTrue(CancellationCode.from("TransactionConflict").isConflict());
+        assertFalse(CancellationCode.from("ThrottlingError").isConflict());
+        assertEquals(CancellationCode.OTHER, CancellationCode.from("SomethingNew"));
+        assertEquals(CancellationCode.NONE, CancellationCode.from(null));
+    }
+
+    @Test
+    void estimatesItemSizeFromNamesAndValues() {
+        Map<String, AttributeValue> item = Map.of(
+                "PK", AttributeValue.fromS("USER#u1"),              // 2 + 7
+                "content", AttributeValue.fromB(SdkBytes.fromByteArray(new byte[1000])), // 7 + 1000
+                "tên", AttributeValue.fromS("ê"));                  // 4 + 2 (UTF-8)
+
+        assertEquals(1022, WriteTransaction.itemSize(item));
+        assertEquals(0, WriteTransaction.itemSize(null));
+    }
+}
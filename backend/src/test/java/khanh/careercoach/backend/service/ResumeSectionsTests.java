@@ -0,0 +1,47 @@
+package khanh.careercoach.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResumeSectionsTests {
+
+    private static final String RESUME = """
+            ## <div align="center">User Name</div>
+
+            <div align="center">📧 a@b.c</div>
+
+            ## Professional Summary
+
+            Backend engineer.
+
+            ## Work Experience
+
+            ### Engineer @ Acme
+            2020 - Present
+
+            ## Work Experience
+
+            Second block""";
+
+    @Test
+    void splitsOnLevelTwoHeadingsAndJoinsBackExactly() {
+        Map<String, String> sections = ResumeSections.split(RESUME);
+
+        assertEquals(List.of("user-name", "professional-summary", "work-experience", "work-experience-2"),
+                new ArrayList<>(sections.keySet()));
+        assertEquals("## Professional Summary\n\nBackend engineer.\n\n", sections.get("professional-summary"));
+        assertEquals(RESUME, ResumeSections.join(new ArrayList<>(sections.keySet()), sections));
+    }
+
+    @Test
+    void keepsTextBeforeFirstHeadingAsPreamble() {
+        Map<String, String> sections = ResumeSections.split("Intro line\n## Skills\nJava");
+
+        assertEquals(Map.of("preamble", "Intro line\n", "skills", "## Skills\nJava"), sections);
+    }
+}
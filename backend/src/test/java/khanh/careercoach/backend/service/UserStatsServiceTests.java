@@ -0,0 +1,109 @@
+package khanh.careercoach.backend.service;
+
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.model.AssessmentSummaryEntity;
+import khanh.careercoach.backend.model.UserStatsEntity;
+import khanh.careercoach.backend.repository.CancellationCode;
+import khanh.careercoach.backend.repository.TransactionCancelledException;
+import khanh.careercoach.backend.repository.UserStatsRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserStatsServiceTests {
+
+    private static AssessmentEntity assessment(double score, int day, boolean... answers) {
+        AssessmentEntity assessment = new AssessmentEntity();
+        assessment.setQuizScore(score);
+        assessment.setCategory("Technical");
+        assessment.setCreatedAt(String.format("2026-01-%02dT10:00:00Z", day));
+        String[] texts = {"What does a Java interface declare?", "How do React hooks work?", "What is JavaScript hoisting?"};
+        List<AssessmentEntity.QuestionItem> questions = new ArrayList<>();
+        for (int i = 0; i < answers.length; i++) {
+            AssessmentEntity.QuestionItem item = new AssessmentEntity.QuestionItem();
+            item.setQuestion(texts[i % texts.length]);
+            item.setIsCorrect(answers[i]);
+            questions.add(item);
+        }
+        assessment.setQuestions(questions);
+        return assessment;
+    }
+
+    @Test
+    void accumulatesTotalsExtremesAndPerSkillAccuracy() {
+        UserStatsEntity stats = UserStatsService.empty("u1");
+        List<String> skills = List.of("Java", "React");
+
+        UserStatsService.accumulate(stats, assessment(66.7, 1, true, false, true), skills);
+        UserStatsService.accumulate(stats, assessment(100.0, 2, true, true, true), skills);
+        UserStatsService.accumulate(stats, assessment(33.3, 3, false, false, true), skills);
+
+        assertEquals(3, stats.getQuizCount());
+        assertEquals(66.67, stats.getAverageScore(), 0.01);
+        assertEquals(33.3, stats.getMinScore());
+        assertEquals(100.0, stats.getMaxScore());
+        assertEquals(9, stats.getQuestionCount());
+        assertEquals(6, stats.getCorrectCount());
+        assertEquals(9, stats.getCategoryTotals().get("Technical"));
+        // "JavaScript" không được tính là "Java"
+        assertEquals(3, stats.getSkillTotals().get("Java"));
+        assertEquals(2, stats.getSkillCorrect().get("Java"));
+        assertEquals(1, stats.getSkillCorrect().get("React"));
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentScores() {
+        UserStatsEntity stats = UserStatsService.empty("u1");
+        assertNull(stats.getAverageScore());
+
+        for (int day = 1; day <= UserStatsService.RECENT_WINDOW + 5; day++) {
+            UserStatsService.accumulate(stats, assessment(day, day), List.of());
+        }
+
+        List<UserStatsEntity.ScorePoint> recent = stats.getRecentScores();
+        assertEquals(UserStatsService.RECENT_WINDOW, recent.size());
+        assertEquals(6.0, recent.get(0).getScore());
+        assertEquals(UserStatsService.RECENT_WINDOW + 5.0, recent.get(recent.size() - 1).getScore());
+    }
+
+    @Test
+    void retriesOnConflictsButNotOnFailedConditionsOutsideStats() {
+        TransactionCancelledException.Reason statsVersion = new TransactionCancelledException.Reason(
+                1, "USER#u1", UserStatsRepository.STATS_SK, CancellationCode.CONDITIONAL_CHECK_FAILED, null);
+        TransactionCancelledException.Reason assessmentConflict = new TransactionCancelledException.Reason(
+                0, "USER#u1", "ASSESS#a1", CancellationCode.TRANSACTION_CONFLICT, null);
+        TransactionCancelledException.Reason assessmentExists = new TransactionCancelledException.Reason(
+                0, "USER#u1", "ASSESS#a1", CancellationCode.CONDITIONAL_CHECK_FAILED, null);
+
+        assertTrue(UserStatsService.isRetryable(new TransactionCancelledException(List.of(statsVersion)), "USER#u1"));
+        assertTrue(UserStatsService.isRetryable(new TransactionCancelledException(List.of(assessmentConflict)), "USER#u1"));
+        assertFalse(UserStatsService.isRetryable(
+                new TransactionCancelledException(List.of(assessmentExists, statsVersion)), "USER#u1"));
+    }
+
+    @Test
+    void rebuildFoldsArchivedMonthsAndSkipsAssessmentsAwaitingTtl() {
+        AssessmentSummaryEntity january = new AssessmentSummaryEntity();
+        january.setQuizCount(3L);
+        january.setScoreSum(210.0);
+        january.setQuestionCount(30L);
+        january.setCorrectCount(21L);
+        AssessmentEntity archived = assessment(50, 2, true, false);
+        archived.setTtl(1_800_000_000L);
+        AssessmentEntity live = assessment(90, 3, true, true);
+
+        UserStatsEntity stats = UserStatsService.fromHistory("u1", List.of(january), List.of(archived, live), List.of());
+
+        assertEquals(4L, stats.getQuizCount());
+        assertEquals(300.0, stats.getScoreSum());
+        assertEquals(32L, stats.getQuestionCount());
+        assertEquals(23L, stats.getCorrectCount());
+        assertEquals(1, stats.getRecentScores().size());
+    }
+}
@@ -0,0 +1,76 @@
+package khanh.careercoach.backend.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.dto.QuizQuestion;
+import khanh.careercoach.backend.model.IndustryInsightEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Các dạng output thường gặp của Claude: có markdown fence, câu dẫn, ngoặc trong string, bị cắt giữa chừng.
+ */
+class ModelOutputParserTests {
+
+    private final ModelOutputParser parser = new ModelOutputParser(new ObjectMapper());
+
+    @Test
+    void parsesObjectWrappedInProseAndFence() {
+        String text = """
+                Here is the analysis for {industry}:
+                ```json
+                {"growthRate": 5.5, "demandLevel": "High", "topSkills": ["Java", "AWS {Lambda}"]}
+                ```
+                Let me know if you need more details.
+                """;
+
+        IndustryInsightEntity insight = parser.parseObject(text, IndustryInsightEntity.class);
+
+        assertEquals(5.5f, insight.getGrowthRate());
+        assertEquals("High", insight.getDemandLevel());
+        assertEquals(List.of("Java", "AWS {Lambda}"), insight.getTopSkills());
+    }
+
+    @Test
+    void streamsArrayFieldAndSkipsOtherFields() {
+        String text = """
+                {"meta": {"count": 2, "tags": ["a", "b"]},
+                 "questions": [
+                   {"question": "Q1", "options": ["a","b","c","d"], "correctAnswer": "a", "explanation": "say \\"hi\\""},
+                   {"question": "Q2", "options": ["a","b","c","d"], "correctAnswer": "b", "explanation": "}"}
+                 ]}
+                """;
+
+        List<QuizQuestion> questions = parser.parseArrayField(text, "questions", QuizQuestion.class);
+
+        assertEquals(2, questions.size());
+        assertEquals("say \"hi\"", questions.get(0).getExplanation());
+        assertEquals("Q2", questions.get(1).getQuestion());
+    }
+
+    @Test
+    void reportsPartialItemsWhenOutputIsTruncated() {
+        String text = """
+                {"questions": [
+                  {"question": "Q1", "options": ["a"], "correctAnswer": "a", "explanation": "ok"},
+                  {"question": "Q2", "options": ["a", "b
+                """;
+
+        ModelOutputParseException e = assertThrows(ModelOutputParseException.class,
+                () -> parser.parseArrayField(text, "questions", QuizQuestion.class));
+
+        assertEquals(1, e.getPartialItems().size());
+        assertTrue(e.getMessage().contains("truncated"));
+        assertTrue(e.getOffset() > text.indexOf("Q2"));
+    }
+
+    @Test
+    void failsWhenNoJsonPresent() {
+        assertThrows(ModelOutputParseException.class,
+                () -> parser.parseObject("Sorry, I cannot help with that.", IndustryInsightEntity.class));
+    }
+}
@@ -0,0 +1,59 @@
+package khanh.careercoach.backend.service.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptBuilderTests {
+
+    private static final String TEMPLATE = "Write a cover letter.\nBio: %s\nJob Description:\n%s\n";
+
+    @Test
+    void keepsShortInputsUntouched() {
+        AiPrompt prompt = PromptBuilder.forTask(AiTask.COVER_LETTER)
+                .input("jobDescription", "Backend engineer, Java 17, AWS.", 3)
+                .input("bio", "5 years building APIs.")
+                .build(in -> TEMPLATE.formatted(in.get("bio"), in.get("jobDescription")));
+
+        assertEquals(TEMPLATE.formatted("5 years building APIs.", "Backend engineer, Java 17, AWS."), prompt.text());
+        assertEquals(List.of(), prompt.truncatedInputs());
+        assertEquals(900, prompt.maxTokens());
+    }
+
+    @Test
+    void truncatesOversizedInputToBudgetKeepingHeadAndTail() {
+        StringBuilder jd = new StringBuilder("Responsibilities: design services.\n");
+        for (int i = 1; i <= 2_000; i++) {
+            jd.append("Requirement ").append(i).append(": Java, DynamoDB and AWS Lambda in production.\n");
+        }
+        jd.append("Apply at careers@example.com");
+
+        AiPrompt prompt = PromptBuilder.forTask(AiTask.COVER_LETTER)
+                .input("jobDescription", jd.toString(), 3)
+                .input("bio", "Short bio.")
+                .build(in -> TEMPLATE.formatted(in.get("bio"), in.get("jobDescription")));
+
+        assertEquals(List.of("jobDescription"), prompt.truncatedInputs());
+        assertTrue(prompt.estimatedInputTokens() <= AiTask.COVER_LETTER.getInputBudget());
+        assertTrue(prompt.text().contains("Responsibilities: design services."));
+        assertTrue(prompt.text().contains("Apply at careers@example.com"));
+        assertTrue(prompt.text().contains("[...]"));
+        assertTrue(prompt.text().contains("Short bio."));
+    }
+
+    @Test
+    void sizesMaxTokensFromInputLength() {
+        AiPrompt small = PromptBuilder.forTask(AiTask.RESUME_IMPROVE)
+                .input("currentContent", "Built APIs.")
+                .build(in -> "Improve: " + in.get("currentContent"));
+        AiPrompt large = PromptBuilder.forTask(AiTask.RESUME_IMPROVE)
+                .input("currentContent", "Led the migration of billing services to AWS Lambda. ".repeat(60))
+                .build(in -> "Improve: " + in.get("currentContent"));
+
+        assertTrue(small.maxTokens() < large.maxTokens());
+        assertEquals(1_000, large.maxTokens());
+    }
+}
@@ -0,0 +1,76 @@
+package khanh.careercoach.backend.service.ats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtsScorerTests {
+
+    private static final String JOB = """
+            We are looking for a backend engineer with strong Java and Spring Boot experience.
+            You will design microservices on AWS Lambda, model data in DynamoDB and manage CI/CD pipelines.
+            Experience with Kubernetes is a plus.""";
+
+    @Test
+    void stemsInflectionsToTheSameTerm() {
+        assertEquals(TextAnalyzer.stem("managing"), TextAnalyzer.stem("managed"));
+        assertEquals(TextAnalyzer.stem("manage"), TextAnalyzer.stem("management"));
+        assertEquals(TextAnalyzer.stem("service"), TextAnalyzer.stem("services"));
+        assertEquals("c++", TextAnalyzer.stem("c++"));
+        assertEquals("access", TextAnalyzer.stem("access"));
+    }
+
+    @Test
+    void scoresKeywordCoverageAgainstJobDescription() {
+        AtsScorer scorer = new AtsScorer(new TextAnalyzer());
+        String strong = """
+                ## Skills
+                Java, Spring Boot, AWS Lambda, DynamoDB, Kubernetes, CI/CD
+                ## Experience
+                - Designed 12 microservices in Java and Spring Boot, cutting latency by 40%
+                - Managed CI/CD pipelines and data modeling on DynamoDB
+                ## Education
+                BSc Computer Science - dev@example.com""";
+        String weak = """
+                ## Experience
+                - Sold furniture in a retail store""";
+
+        AtsScorer.AtsResult good = scorer.score(strong, JOB, new AtsCorpus(), List.of("Java", "Docker"), null);
+        AtsScorer.AtsResult bad = scorer.score(weak, JOB, new AtsCorpus(), List.of("Java", "Docker"), null);
+
+        assertTrue(good.score() > bad.score() + 30, good.score() + " vs " + bad.score());
+        assertTrue(good.matchedKeywords().contains("java"));
+        assertFalse(good.missingKeywords().contains("dynamodb"));
+        assertEquals(List.of("Docker"), good.missingSkills());
+        assertTrue(bad.feedback().contains("Missing job keywords"));
+        assertTrue(good.score() <= 100 && bad.score() >= 0);
+    }
+
+    @Test
+    void scoreDependsOnlyOnInputNotOnTextSeenBefore() {
+        TextAnalyzer fresh = new TextAnalyzer();
+        AtsCorpus freshCorpus = AtsCorpus.load(AtsScorerTests.class.getResourceAsStream("/ats/job-terms.txt"), fresh);
+        // Container đã chấm văn bản khác: term id của JD được cấp theo thứ tự khác, dạng gốc gặp đầu tiên cũng khác
+        TextAnalyzer warm = new TextAnalyzer();
+        AtsCorpus warmCorpus = AtsCorpus.load(AtsScorerTests.class.getResourceAsStream("/ats/job-terms.txt"), warm);
+        warm.analyze("Kubernetes pipelines managing DynamoDB microservice designs on Lambda with Spring and Java");
+
+        String resume = """
+                ## Experience
+                - Built Java services on AWS""";
+        AtsScorer.AtsResult a = new AtsScorer(fresh).score(resume, JOB, freshCorpus, null, null);
+        AtsScorer.AtsResult b = new AtsScorer(warm).score(resume, JOB, warmCorpus, null, null);
+
+        assertEquals(a.score(), b.score());
+        assertEquals(a.matchedKeywords(), b.matchedKeywords());
+        assertEquals(a.missingKeywords(), b.missingKeywords());
+        assertTrue(a.missingKeywords().contains("manage"));
+        // Từ chung của tin tuyển dụng có IDF thấp hơn từ chuyên môn hiếm
+        int[] terms = fresh.analyze("experience kubernetes");
+        assertTrue(freshCorpus.idf(terms[0]) < freshCorpus.idf(terms[1]));
+    }
+}
@@ -0,0 +1,77 @@
+package khanh.careercoach.backend.service.cache;
+
+import khanh.careercoach.backend.repository.VersionStampRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VersionedCacheTests {
+
+    private final Map<String, Long> stamps = new HashMap<>();
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicInteger stampReads = new AtomicInteger();
+    private final VersionedCache<String> cache = new VersionedCache<>("test", (pk, sk) -> {
+        stampReads.incrementAndGet();
+        return stamps.getOrDefault(pk + "|" + VersionStampRepository.stampSk(sk), 0L);
+    }, 1000, 60_000, now::get);
+
+    @Test
+    void reloadsOnlyWhenStampChanges() {
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("v1", cache.get("USER#u1", "ASSESS#a1", () -> "v" + loads.incrementAndGet()));
+
+        // Trong thời gian tin: không đọc tem
+        now.set(500);
+        assertEquals("v1", cache.get("USER#u1", "ASSESS#a2", () -> "v" + loads.incrementAndGet()));
+        assertEquals(1, stampReads.get());
+
+        // Quá thời gian tin, tem chưa đổi: dùng lại bản sao
+        now.set(1500);
+        assertEquals("v1", cache.get("USER#u1", "ASSESS#a1", () -> "v" + loads.incrementAndGet()));
+        assertEquals(2, stampReads.get());
+
+        // Container khác ghi, stream tăng tem của nhóm ASSESS -> nạp lại
+        stamps.put("USER#u1|STAMP#ASSESS", 1L);
+        now.set(3000);
+        assertEquals("v2", cache.get("USER#u1", "ASSESS#a1", () -> "v" + loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void localInvalidationAndStampFailureFallback() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("INDUSTRY#tech", "METADATA", () -> "v" + loads.incrementAndGet());
+
+        cache.invalidate("INDUSTRY#tech", "METADATA");
+        assertEquals("v2", cache.get("INDUSTRY#tech", "METADATA", () -> "v" + loads.incrementAndGet()));
+
+        VersionedCache<String> failing = new VersionedCache<>("failing", (pk, sk) -> {
+            throw new RuntimeException("Database Error: throttled");
+        }, 1000, 60_000, now::get);
+        failing.get("INDUSTRY#tech", "METADATA", () -> "cached");
+        now.set(5000);
+        // Không đọc được tem: vẫn phục vụ bản sao trong maxAge
+        assertEquals("cached", failing.get("INDUSTRY#tech", "METADATA", () -> "reloaded"));
+        now.set(70_000);
+        assertEquals("reloaded", failing.get("INDUSTRY#tech", "METADATA", () -> "reloaded"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        VersionedCache<String> small = new VersionedCache<>("small", (pk, sk) -> 0L, 1000, 60_000, 2, now::get);
+        small.get("INDUSTRY#a", "METADATA", () -> "a");
+        small.get("INDUSTRY#b", "METADATA", () -> "b");
+        small.get("INDUSTRY#a", "METADATA", () -> "a2"); // a vừa dùng, b cũ nhất
+        small.get("INDUSTRY#c", "METADATA", () -> "c");
+
+        assertEquals(2, small.size());
+        assertEquals("a", small.getIfPresent("INDUSTRY#a", "METADATA"));
+        assertNull(small.getIfPresent("INDUSTRY#b", "METADATA"));
+    }
+}
@@ -0,0 +1,42 @@
+package khanh.careercoach.backend.service.canonical;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CanonicalDictionaryTests {
+
+    private static CanonicalDictionary load(String name) {
+        return CanonicalDictionary.load(CanonicalDictionaryTests.class.getResourceAsStream("/canonical/" + name));
+    }
+
+    @Test
+    void collapsesIndustryVariantsToFrontendKey() {
+        CanonicalDictionary industries = load("industries.txt");
+
+        for (String raw : new String[]{"Software Engineering", "software-engineering", "SWE",
+                "tech-software-development", "  Software   Development "}) {
+            assertEquals("tech-software-development", industries.resolve(raw).canonical(), raw);
+        }
+        assertEquals("tech-data-science-&-analytics", industries.resolve("Data Science and Analytics").canonical());
+    }
+
+    @Test
+    void fuzzyMatchesTyposButNotShortWords() {
+        CanonicalDictionary skills = load("skills.txt");
+
+        CanonicalDictionary.Resolution typo = skills.resolve("Kubernetse");
+        assertEquals("Kubernetes", typo.canonical());
+        assertFalse(typo.exact());
+        assertTrue(skills.resolve("k8s").exact());
+        assertEquals("JavaScript", skills.resolve("java script").canonical());
+        assertEquals("Java", skills.resolve("Java").canonical());
+        assertEquals("C++", skills.resolve("c++").canonical());
+        // "sq" cách "sql" 1 ký tự nhưng quá ngắn để khớp gần đúng
+        assertNull(skills.resolve("sq"));
+        assertNull(skills.resolve("Underwater basket weaving"));
+    }
+}
@@ -0,0 +1,39 @@
+package khanh.careercoach.backend.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextDeltaTests {
+
+    @Test
+    void smallEditProducesCompactDeltaThatReplaysExactly() {
+        StringBuilder base = new StringBuilder("## Work Experience\n");
+        for (int i = 1; i <= 200; i++) {
+            base.append("- Built service ").append(i).append(" on AWS Lambda and DynamoDB\n");
+        }
+        String before = base.toString();
+        String after = before.replace("- Built service 120 on", "- Designed and built service 120 on")
+                .replace("- Built service 7 on AWS Lambda and DynamoDB\n", "");
+
+        String delta = TextDelta.diff(before, after);
+
+        assertEquals(after, TextDelta.apply(before, delta));
+        assertTrue(delta.length() < 120, "delta should only carry the edited line: " + delta);
+    }
+
+    @Test
+    void handlesInsertionsDeletionsAndEmptyTexts() {
+        String[][] cases = {
+                {"", "a\nb"},
+                {"a\nb", ""},
+                {"a\nb\nc", "x\na\nc\ny"},
+                {"same\n", "same\n"},
+                {"one\ntwo\nthree", "three\ntwo\none"},
+        };
+        for (String[] c : cases) {
+            assertEquals(c[1], TextDelta.apply(c[0], TextDelta.diff(c[0], c[1])));
+        }
+    }
+}
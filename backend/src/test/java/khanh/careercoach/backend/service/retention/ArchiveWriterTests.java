@@ -0,0 +1,49 @@
+package khanh.careercoach.backend.service.retention;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.model.AssessmentEntity;
+import khanh.careercoach.backend.storage.LocalFileBlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArchiveWriterTests {
+
+    private static AssessmentEntity assessment(String id, double score) {
+        AssessmentEntity assessment = new AssessmentEntity();
+        assessment.setPk("USER#u1");
+        assessment.setSk("ASSESS#" + id);
+        assessment.setQuizScore(score);
+        assessment.setCreatedAt("2025-03-0" + id + "T10:00:00Z");
+        return assessment;
+    }
+
+    @Test
+    void writesGzippedJsonLinesUnderOwnerTypeAndMonth(@TempDir Path root) throws Exception {
+        LocalFileBlobStore blobStore = new LocalFileBlobStore(root);
+        ObjectMapper mapper = new ObjectMapper();
+        ArchiveWriter writer = new ArchiveWriter(blobStore, mapper);
+
+        String key = writer.write("USER#u1", "ASSESS", "2025-03", "b1",
+                List.of(assessment("1", 80.0), assessment("2", 60.0)));
+        assertEquals("archive/USER_u1/ASSESS/2025-03/b1.jsonl.gz", key);
+
+        String text;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(blobStore.get(key)))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = text.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals("ASSESS#1", first.get("sk").asText());
+        assertEquals(80.0, first.get("quizScore").asDouble());
+    }
+}
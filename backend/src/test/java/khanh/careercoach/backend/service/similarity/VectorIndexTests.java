@@ -0,0 +1,48 @@
+package khanh.careercoach.backend.service.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorIndexTests {
+
+    @Test
+    void findsNearDuplicateQuestionsFirst() {
+        VectorIndex index = new VectorIndex(HashedEmbedder.DIMENSIONS);
+        String[] questions = {
+                "What is the difference between a process and a thread?",
+                "Which HTTP status code indicates that a resource was not found?",
+                "How does a hash map handle collisions?",
+                "What does the SOLID principle of single responsibility mean?",
+        };
+        for (int i = 0; i < 40; i++) {
+            String question = questions[i % questions.length] + (i >= questions.length ? " (variant " + i + ")" : "");
+            index.add("q" + i, HashedEmbedder.embed(question));
+        }
+
+        List<VectorIndex.Match> matches = index.search(
+                HashedEmbedder.embed("How do hash maps handle collisions?"), 3, 0.5);
+
+        assertEquals(3, matches.size());
+        for (VectorIndex.Match match : matches) {
+            assertEquals(2, Integer.parseInt(match.id().substring(1)) % questions.length, match.toString());
+        }
+        assertTrue(matches.get(0).score() >= matches.get(2).score());
+        assertTrue(index.search(HashedEmbedder.embed("Describe photosynthesis in plants"), 5, 0.5).isEmpty());
+    }
+
+    @Test
+    void simHashSimilarityTracksTextOverlap() {
+        String jd = "Backend engineer to build Java Spring Boot microservices on AWS Lambda and DynamoDB. "
+                + "You will own CI/CD pipelines, monitoring and on-call for payment services.";
+        long base = HashedEmbedder.simHash(jd);
+        long edited = HashedEmbedder.simHash(jd.replace("payment", "billing"));
+        long unrelated = HashedEmbedder.simHash("Registered nurse for the pediatric ward, night shifts, patient care.");
+
+        assertTrue(HashedEmbedder.simHashSimilarity(base, edited) > 0.8);
+        assertTrue(HashedEmbedder.simHashSimilarity(base, unrelated) < 0.5);
+    }
+}
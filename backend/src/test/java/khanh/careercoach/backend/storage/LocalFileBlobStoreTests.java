@@ -0,0 +1,36 @@
+package khanh.careercoach.backend.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalFileBlobStoreTests {
+
+    @Test
+    void streamPublishesOnCloseAndDiscardsWhenAborted(@TempDir Path root) throws Exception {
+        LocalFileBlobStore blobStore = new LocalFileBlobStore(root);
+        byte[] data = "line 1\n".getBytes(StandardCharsets.UTF_8);
+
+        try (BlobOutputStream out = blobStore.openOutputStream("exports/USER_u1/1.ndjson")) {
+            out.write(data);
+        }
+        assertArrayEquals(data, blobStore.get("exports/USER_u1/1.ndjson"));
+
+        try (BlobOutputStream out = blobStore.openOutputStream("exports/USER_u1/2.ndjson")) {
+            out.write(data);
+            out.abort();
+        }
+        assertNull(blobStore.get("exports/USER_u1/2.ndjson"));
+        // File tạm của lần ghi bị hủy cũng đã bị xóa
+        try (var files = Files.list(root.resolve("exports/USER_u1"))) {
+            assertTrue(files.allMatch(path -> path.getFileName().toString().equals("1.ndjson")));
+        }
+    }
+}
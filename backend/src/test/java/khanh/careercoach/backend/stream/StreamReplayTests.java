@@ -0,0 +1,149 @@
+package khanh.careercoach.backend.stream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import khanh.careercoach.backend.repository.PartialUpdate;
+import khanh.careercoach.backend.repository.ProjectionRepository;
+import khanh.careercoach.backend.repository.ShardedKeys;
+import khanh.careercoach.backend.stream.projection.AssessmentActivityProjection;
+import khanh.careercoach.backend.stream.projection.CoverLetterActivityProjection;
+import khanh.careercoach.backend.stream.projection.IndustryMembershipProjection;
+import khanh.careercoach.backend.stream.projection.ResumeActivityProjection;
+import khanh.careercoach.backend.stream.projection.VersionStampProjection;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Phát lại bản ghi stream đã ghi lại (src/test/resources/streams) qua dispatcher thật,
+ * với sink trong bộ nhớ có sổ ghi theo eventID như ProjectionRepository.
+ */
+class StreamReplayTests {
+
+    /**
+     * Sink trong bộ nhớ: áp dụng ADD / SET của PartialUpdate, bỏ qua eventID đã áp dụng.
+     */
+    static class InMemorySink implements ProjectionSink {
+        private static final Pattern ADD = Pattern.compile("#a(\\d+) :v\\1");
+        private static final Pattern SET = Pattern.compile("#a(\\d+) = :v\\1");
+
+        final Map<String, Map<String, String>> items = new HashMap<>();
+        final Set<String> applied = new HashSet<>();
+        String failOnce;
+
+        @Override
+        public boolean applyOnce(String eventId, List<ProjectionWrite> writes) {
+            if (eventId.equals(failOnce)) {
+                failOnce = null;
+                throw new RuntimeException("Database Error: injected failure");
+            }
+            if (!applied.add(eventId)) {
+                return false;
+            }
+            for (ProjectionWrite write : writes) {
+                PartialUpdate.Compiled compiled = write.update().compile();
+                Map<String, String> item = items.computeIfAbsent(write.pk() + "|" + write.sk(), k -> new HashMap<>());
+                for (String clause : compiled.updateExpression().split("(?=\\b(SET|ADD|REMOVE) )")) {
+                    Matcher matcher = (clause.startsWith("ADD") ? ADD : SET).matcher(clause);
+                    while (matcher.find()) {
+                        String attribute = compiled.names().get("#a" + matcher.group(1));
+                        var value = compiled.values().get(":v" + matcher.group(1));
+                        item.put(attribute, clause.startsWith("ADD")
+                                ? Long.toString(Long.parseLong(item.getOrDefault(attribute, "0")) + Long.parseLong(value.n()))
+                                : value.s());
+                    }
+                }
+            }
+            return true;
+        }
+
+        String get(String pk, String sk, String attribute) {
+            return items.getOrDefault(pk + "|" + sk, Map.of()).get(attribute);
+        }
+
+        // Merge bộ đếm phân mảnh như ProjectionRepository.countMembers
+        long members(String industry) {
+            long total = 0;
+            for (String shardPk : ShardedKeys.shards("INDUSTRY#" + industry, ProjectionRepository.MEMBER_COUNT_SHARDS)) {
+                String count = get(shardPk, ProjectionRepository.MEMBERS_SK, "userCount");
+                total += count != null ? Long.parseLong(count) : 0;
+            }
+            return total;
+        }
+    }
+
+    private static List<StreamRecords.StreamRecord> recorded() throws Exception {
+        try (InputStream in = StreamReplayTests.class.getResourceAsStream("/streams/core-table-batch.json")) {
+            Map<String, Object> event = new ObjectMapper().readValue(in, new TypeReference<>() {});
+            return StreamRecords.parse(event);
+        }
+    }
+
+    private static StreamDispatcher dispatcher(ProjectionSink sink) {
+        return new StreamDispatcher(List.of(new IndustryMembershipProjection(), new AssessmentActivityProjection(),
+                new CoverLetterActivityProjection(), new ResumeActivityProjection(), new VersionStampProjection()), sink);
+    }
+
+    @Test
+    void replayBuildsReadModelsAndIsIdempotent() throws Exception {
+        InMemorySink sink = new InMemorySink();
+        StreamDispatcher dispatcher = dispatcher(sink);
+
+        StreamDispatcher.BatchResult first = dispatcher.dispatch(recorded());
+        assertNull(first.failedSequenceNumber());
+        // Mọi bản ghi đều có ghi read model; e06 (điền tip), e07 (insight ngành) chỉ có tem
+        assertEquals(9, first.applied());
+        assertEquals(0, first.skipped());
+
+        assertEquals(0, sink.members("tech-software-development"));
+        assertEquals(1, sink.members("tech-data-science"));
+        assertNull(sink.get("INDUSTRY#tech-data-science", "PROJ#MEMBERS", "userCount"));
+        assertEquals("2", sink.get("USER#u1", "PROJ#ACTIVITY", "resumeSaveCount"));
+        assertEquals("2026-01-02T09:00:00Z", sink.get("USER#u1", "PROJ#ACTIVITY", "lastResumeUpdateAt"));
+        assertEquals("1", sink.get("USER#u1", "PROJ#ACTIVITY", "assessmentCount"));
+        assertEquals("0", sink.get("USER#u1", "PROJ#ACTIVITY", "letterCount"));
+        assertNull(sink.get("INDUSTRY#tech-software-development", "METADATA", "userCount"));
+        assertEquals("1", sink.get("INDUSTRY#tech-software-development", "STAMP#METADATA", "stamp"));
+        assertEquals("2", sink.get("USER#u1", "STAMP#ASSESS", "stamp"));
+        // Profile / resume / cover letter không có cache đọc tem -> không ghi tem
+        assertNull(sink.get("USER#u1", "STAMP#METADATA", "stamp"));
+        assertNull(sink.get("USER#u1", "STAMP#RESUME", "stamp"));
+
+        // Lambda gửi lại cả batch: không cộng lần 2
+        StreamDispatcher.BatchResult replay = dispatcher.dispatch(recorded());
+        assertEquals(0, replay.applied());
+        assertEquals(9, replay.duplicates());
+        assertEquals("2", sink.get("USER#u1", "PROJ#ACTIVITY", "resumeSaveCount"));
+    }
+
+    @Test
+    void failureReportsSequenceNumberAndRetryResumesFromCheckpoint() throws Exception {
+        InMemorySink sink = new InMemorySink();
+        sink.failOnce = "e05";
+        StreamDispatcher dispatcher = dispatcher(sink);
+
+        StreamDispatcher.BatchResult failed = dispatcher.dispatch(recorded());
+        assertEquals("100000000000000000005", failed.failedSequenceNumber());
+        assertEquals(Map.of("batchItemFailures", List.of(Map.of("itemIdentifier", "100000000000000000005"))),
+                failed.toResponse());
+        assertNull(sink.get("USER#u1", "PROJ#ACTIVITY", "assessmentCount"));
+
+        // Lambda gửi lại từ bản ghi lỗi
+        List<StreamRecords.StreamRecord> records = recorded();
+        StreamDispatcher.BatchResult retry = dispatcher.dispatch(records.subList(4, records.size()));
+        assertNull(retry.failedSequenceNumber());
+        assertEquals(Map.of("batchItemFailures", List.of()), retry.toResponse());
+        assertEquals("1", sink.get("USER#u1", "PROJ#ACTIVITY", "assessmentCount"));
+        assertEquals("2", sink.get("USER#u1", "PROJ#ACTIVITY", "resumeSaveCount"));
+    }
+}
@@ -79,6 +79,11 @@ export const getIndustryInsights = () => apiClient("/industry-insights");
 // Module Resume
 export const getResume = () => apiClient("/resume");
 export const saveResume = (content) => apiClient("/resume", { method: "POST", body: JSON.stringify({ content }) });
+// Autosave: chỉ gửi các section đã sửa ({ order, sections, version })
+export const patchResume = (patch) => apiClient("/resume", { method: "PATCH", body: JSON.stringify(patch) });
+export const getResumeVersions = () => apiClient("/resume/versions");
+export const getResumeVersion = (id) => apiClient(`/resume/versions/${id}`);
+export const restoreResumeVersion = (id) => apiClient(`/resume/versions/${id}/restore`, { method: "POST" });
 export const improveResumeWithAI = (currentContent, type) => apiClient("/resume/improve", {
     method: "POST",
     body: JSON.stringify({ current: currentContent, type })
@@ -89,8 +94,10 @@ export const getCoverLetters = () => apiClient("/cover-letters");
 export const getCoverLetterById = (id) => apiClient(`/cover-letters/${id}`);
 export const createCoverLetter = (data) => apiClient("/cover-letters", { method: "POST", body: JSON.stringify(data) });
 export const deleteCoverLetter = (id) => apiClient(`/cover-letters/${id}`, { method: "DELETE" });
+export const findSimilarCoverLetters = (data) => apiClient("/cover-letters/similar", { method: "POST", body: JSON.stringify(data) });
 
 // Module Interview
 export const getInterviewHistory = () => apiClient("/interview/history");
+export const getInterviewStats = () => apiClient("/interview/stats");
 export const generateQuiz = () => apiClient("/interview/generate", { method: "POST" });
 export const submitQuiz = (data) => apiClient("/interview/save", { method: "POST", body: JSON.stringify(data) });
\ No newline at end of file
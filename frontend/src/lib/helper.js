@@ -13,4 +13,37 @@ export function entriesToMarkdown(entries, type) {
       })
       .join("\n\n")
   );
-}
\ No newline at end of file
+}
+// Tách resume markdown theo tiêu đề "## " (cùng quy tắc đặt tên với ResumeSections.java ở backend).
+// Ghép các section theo thứ tự ra đúng chuỗi ban đầu.
+export function splitResumeSections(markdown) {
+  const sections = {};
+  if (!markdown) return sections;
+
+  const put = (name, content) => {
+    let unique = name;
+    for (let i = 2; unique in sections; i++) unique = `${name}-${i}`;
+    sections[unique] = content;
+  };
+  const nameOf = (start) => {
+    if (!markdown.startsWith("## ", start)) return "preamble";
+    const lineEnd = markdown.indexOf("\n", start);
+    const heading = markdown.substring(start + 3, lineEnd < 0 ? markdown.length : lineEnd);
+    const slug = heading
+      .replace(/<[^>]*>/g, " ")
+      .toLowerCase()
+      .replace(/[^a-z0-9]+/g, "-")
+      .replace(/^-+|-+$/g, "");
+    return (slug || "section").substring(0, 60);
+  };
+
+  const heading = /^## /gm;
+  let start = 0;
+  let match;
+  while ((match = heading.exec(markdown)) !== null) {
+    if (match.index > start) put(nameOf(start), markdown.substring(start, match.index));
+    start = match.index;
+  }
+  put(nameOf(start), markdown.substring(start));
+  return sections;
+}
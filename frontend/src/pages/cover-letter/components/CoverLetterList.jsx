@@ -121,7 +121,7 @@ export default function CoverLetterList({ coverLetters, onDeleteSuccess }) {
             </CardHeader>
             <CardContent>
               <div className="text-muted-foreground text-sm line-clamp-3">
-                {letter.jobDescription}
+                {letter.jobDescriptionPreview ?? letter.jobDescription}
               </div>
             </CardContent>
           </Card>
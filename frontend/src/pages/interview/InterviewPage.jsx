@@ -9,15 +9,20 @@ import QuizList from "./components/QuizList";
 
 const InterviewPage = () => {
   const [assessments, setAssessments] = useState([]);
+  const [stats, setStats] = useState(null);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
     const fetchAssessments = async () => {
       try {
-        // Gọi API Java: GET /interview/history
-        // API này trả về List<AssessmentEntity>
-        const data = await apiClient("/interview/history");
+        // Gọi API Java: GET /interview/history (List<AssessmentEntity>, cho danh sách bài làm)
+        // và GET /interview/stats (thống kê tổng hợp 1 item, cho thẻ thống kê + biểu đồ)
+        const [data, statsData] = await Promise.all([
+          apiClient("/interview/history"),
+          apiClient("/interview/stats"),
+        ]);
         setAssessments(data || []);
+        setStats(statsData);
       } catch (error) {
         console.error("Failed to load assessments:", error);
       } finally {
@@ -45,8 +50,8 @@ const InterviewPage = () => {
       </div>
       <div className="space-y-6">
         {/* Truyền dữ liệu xuống các component con */}
-        <StatsCards assessments={assessments} />
-        <PerformanceChart assessments={assessments} />
+        <StatsCards stats={stats} />
+        <PerformanceChart stats={stats} />
         <QuizList assessments={assessments} />
       </div>
     </div>
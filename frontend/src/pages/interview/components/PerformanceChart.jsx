@@ -17,18 +17,19 @@ import {
 } from "@/components/ui/card";
 import { format } from "date-fns";
 
-export default function PerformanceChart({ assessments }) {
+export default function PerformanceChart({ stats }) {
   const [chartData, setChartData] = useState([]);
 
   useEffect(() => {
-    if (assessments) {
-      const formattedData = assessments.map((assessment) => ({
-        date: format(new Date(assessment.createdAt), "MMM dd"),
-        score: assessment.quizScore,
+    // recentScores: các điểm gần nhất (cũ -> mới) trong item thống kê
+    if (stats?.recentScores) {
+      const formattedData = stats.recentScores.map((point) => ({
+        date: format(new Date(point.createdAt), "MMM dd"),
+        score: point.score,
       }));
       setChartData(formattedData);
     }
-  }, [assessments]);
+  }, [stats]);
 
   return (
     <Card>
@@ -142,7 +142,7 @@ export default function Quiz() {
         </CardHeader>
         <CardContent>
           <p className="text-muted-foreground">
-            This quiz contains 10 questions specific to your industry and
+            This quiz contains up to 10 questions specific to your industry and
             skills. Take your time and choose the best answer for each question.
           </p>
         </CardContent>
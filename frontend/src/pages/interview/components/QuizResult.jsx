@@ -31,6 +31,15 @@ export default function QuizResult({
             <p className="text-muted-foreground">{result.improvementTip}</p>
           </div>
         )}
+        {/* Tip được sinh theo batch phía backend, thường có sau khoảng 1 phút */}
+        {!result.improvementTip && result.tipStatus === "PENDING" && (
+          <div className="bg-muted p-4 rounded-lg">
+            <p className="font-medium">Improvement Tip:</p>
+            <p className="text-muted-foreground">
+              Your personalized tip is being prepared. Check your quiz history in a minute.
+            </p>
+          </div>
+        )}
 
         {/* Questions Review */}
         <div className="space-y-4">
@@ -1,30 +1,20 @@
 import { Brain, Target, Trophy } from "lucide-react";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 
-export default function StatsCards({ assessments }) {
+export default function StatsCards({ stats }) {
+  // Số liệu lấy từ GET /interview/stats (backend cộng dồn mỗi lần nộp bài)
   const getAverageScore = () => {
-    if (!assessments?.length) return 0;
-    const total = assessments.reduce(
-      (sum, assessment) => sum + assessment.quizScore,
-      0
-    );
-    return (total / assessments.length).toFixed(1);
+    if (!stats?.averageScore) return 0;
+    return stats.averageScore.toFixed(1);
   };
 
-  const getLatestAssessment = () => {
-    // Lưu ý: Backend Java của chúng ta đã sort theo ngày giảm dần (mới nhất lên đầu)
-    // nên lấy phần tử [0] là đúng logic.
-    if (!assessments?.length) return null;
-    return assessments[0];
+  const getLatestScore = () => {
+    const recent = stats?.recentScores;
+    if (!recent?.length) return 0;
+    return recent[recent.length - 1].score.toFixed(1);
   };
 
-  const getTotalQuestions = () => {
-    if (!assessments?.length) return 0;
-    return assessments.reduce(
-      (sum, assessment) => sum + assessment.questions.length,
-      0
-    );
-  };
+  const getTotalQuestions = () => stats?.questionCount || 0;
 
   return (
     <div className="grid gap-4 md:grid-cols-3">
@@ -61,7 +51,7 @@ export default function StatsCards({ assessments }) {
         </CardHeader>
         <CardContent>
           <div className="text-2xl font-bold">
-            {getLatestAssessment()?.quizScore.toFixed(1) || 0}%
+            {getLatestScore()}%
           </div>
           <p className="text-xs text-muted-foreground">Most recent quiz</p>
         </CardContent>
@@ -35,7 +35,7 @@ const ResumePage = () => {
 
   return (
     <div className="container mx-auto py-6">
-      <ResumeBuilder initialContent={resume?.content} />
+      <ResumeBuilder initialContent={resume?.content} initialSections={resume?.sections} />
     </div>
   );
 };
@@ -16,17 +16,21 @@ import { Tabs, TabsContent, TabsList, TabsTrigger } from "@/components/ui/tabs";
 import { Textarea } from "@/components/ui/textarea";
 import { Input } from "@/components/ui/input";
 import { EntryForm } from "./EntryForm";
-import { entriesToMarkdown } from "@/lib/helper";
+import { entriesToMarkdown, splitResumeSections } from "@/lib/helper";
 import { resumeSchema } from "@/lib/schema";
 import html2pdf from "html2pdf.js";
-import { apiClient } from "@/lib/api";
+import { patchResume } from "@/lib/api";
 
-export default function ResumeBuilder({ initialContent }) {
+export default function ResumeBuilder({ initialContent, initialSections }) {
   const [activeTab, setActiveTab] = useState("edit");
   const [previewContent, setPreviewContent] = useState(initialContent || "");
   const [resumeMode, setResumeMode] = useState("preview");
   const [isSaving, setIsSaving] = useState(false);
   const [isGenerating, setIsGenerating] = useState(false);
+  // Nội dung từng section đã lưu trên server, để lần lưu sau chỉ gửi phần đã sửa
+  const [savedSections, setSavedSections] = useState(
+    () => initialSections || splitResumeSections(initialContent)
+  );
 
   // Lưu ý: userName nên được lấy từ context hoặc auth provider (Amplify/Cognito)
   const userName = "User Name";
@@ -118,13 +122,13 @@ export default function ResumeBuilder({ initialContent }) {
   const onSubmit = async () => {
     setIsSaving(true);
     try {
-      // Gọi API Java thông qua Lib API của bạn
-      await apiClient("/resume", {
-        method: "POST",
-        body: JSON.stringify({
-          content: previewContent
-        }),
-      });
+      // PATCH /resume: gửi thứ tự đầy đủ + nội dung các section đã đổi (backend bỏ qua section trùng hash)
+      const sections = splitResumeSections(previewContent);
+      const changed = Object.fromEntries(
+        Object.entries(sections).filter(([name, content]) => savedSections[name] !== content)
+      );
+      await patchResume({ order: Object.keys(sections), sections: changed });
+      setSavedSections(sections);
 
       toast.success("Resume saved successfully!");
     } catch (error) {